@@ -0,0 +1,61 @@
+/*
+ * Unless expressly otherwise stated, code from this project is licensed under the MIT license [https://opensource.org/licenses/MIT].
+ * 
+ * Copyright (c) <2018> <Volodymyr Kushnarenko, Stefan Kombrink, Markus Gärtner, Florian Fritze, Matthias Fratz, Daniel Scharon, Sibylle Hermann, Franziska Rapp and Uli Hahn>
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), 
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, 
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A 
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT 
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+ * CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH 
+ * THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package bwfdm.connector.dspace;
+
+import java.util.List;
+
+/**
+ * Result of the community lookup for one collection in a bulk request: 
+ * either the communities of the collection or the reason, why they could not be found.
+ * 
+ * @author agent
+ */
+public class CommunitiesResult {
+
+	private final List<String> communities;
+	private final String error;
+	
+	public CommunitiesResult(List<String> communities, String error) {
+		this.communities = communities;
+		this.error = error;
+	}
+	
+	/**
+	 * @return {@code true} if the communities were found
+	 */
+	public boolean isFound() {
+		return communities != null;
+	}
+	
+	/**
+	 * @return communities from the top level down to the parent community of the collection 
+	 * 		   (0 or more communities are possible) or {@code null} in case of error
+	 */
+	public List<String> getCommunities() {
+		return communities;
+	}
+	
+	/**
+	 * @return description of the error or {@code null} if the communities were found
+	 */
+	public String getError() {
+		return error;
+	}
+	
+}
@@ -0,0 +1,427 @@
+/*
+ * Unless expressly otherwise stated, code from this project is licensed under the MIT license [https://opensource.org/licenses/MIT].
+ * 
+ * Copyright (c) <2018> <Volodymyr Kushnarenko, Stefan Kombrink, Markus Gärtner, Florian Fritze, Matthias Fratz, Daniel Scharon, Sibylle Hermann, Franziska Rapp and Uli Hahn>
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), 
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, 
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A 
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT 
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+ * CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH 
+ * THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package bwfdm.connector.dspace;
+
+import static java.util.Objects.requireNonNull;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClientBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.swordapp.client.AuthCredentials;
+import org.swordapp.client.SWORDClientException;
+import org.swordapp.client.SWORDCollection;
+import org.swordapp.client.SWORDError;
+import org.swordapp.client.SWORDWorkspace;
+import org.swordapp.client.ServiceDocument;
+import org.swordapp.client.SwordResponse;
+
+import bwfdm.connector.dspace.cache.CachedResource;
+import bwfdm.connector.dspace.cache.SingleFlight;
+import bwfdm.connector.dspace.metadata.MetadataRecord;
+import bwfdm.connector.dspace.sword.SwordRequests;
+import bwfdm.exporter.commons.SwordExporter;
+import bwfdm.exporter.commons.SwordExporter.SwordRequestType;
+
+/**
+ * SWORD connector of a privileged account, which makes submissions on behalf of different users.
+ * <p>
+ * Unlike {@link DSpaceSwordOnly} with "on-behalf-of" option, the user is not fixed per object, but provided 
+ * with every call. All requests of all users are sent via one HTTP client (see {@link SwordRequests}). 
+ * Service documents and the collections of their sub-service documents are cached per user (with a TTL), 
+ * the number of cached users is limited, the least recently used users are removed.
+ * 
+ * @author agent
+ */
+public class DSpaceSwordAdmin {
+
+	private static final Logger log = LoggerFactory.getLogger(DSpaceSwordAdmin.class);
+	
+	public static final int DEFAULT_MAX_CACHED_USERS = 1000;
+	public static final long DEFAULT_SERVICE_DOCUMENT_TTL_SECONDS = 600;
+	
+	private final String serviceDocumentURL;
+	private final String adminUser;
+	private final String adminPassword;
+	private final String adminKey;
+	
+	private final CloseableHttpClient httpClient;
+	
+	private final Map<String, UserCache> userCaches;
+	private int maxCachedUsers = DEFAULT_MAX_CACHED_USERS;
+	private long serviceDocumentTtlSeconds = DEFAULT_SERVICE_DOCUMENT_TTL_SECONDS;
+	
+	
+	/**
+	 * Create the connector of a privileged account.
+	 * 
+	 * @param serviceDocumentURL the URL string for the service document
+	 * @param adminUser some privileged account, that will make submissions on behalf of other users
+	 * @param adminPassword password for the privileged account (adminUser)
+	 */
+	public DSpaceSwordAdmin(String serviceDocumentURL, String adminUser, char[] adminPassword) {
+		
+		requireNonNull(serviceDocumentURL);
+		requireNonNull(adminUser);
+		requireNonNull(adminPassword);
+		
+		this.serviceDocumentURL = serviceDocumentURL;
+		this.adminUser = adminUser;
+		this.adminPassword = String.valueOf(adminPassword);
+		this.adminKey = adminUser + "/" + DigestUtils.sha256Hex(this.adminPassword);
+		
+		this.httpClient = HttpClientBuilder.create()
+				.setMaxConnPerRoute(DSpaceSwordOnly.MAX_HTTP_CONNECTIONS)
+				.setMaxConnTotal(DSpaceSwordOnly.MAX_HTTP_CONNECTIONS)
+				.build();
+		
+		// Access order -> least recently used user is the eldest entry
+		this.userCaches = new LinkedHashMap<String, UserCache>(64, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, UserCache> eldest) {
+				return size() > maxCachedUsers;
+			}
+		};
+	}
+	
+	
+	/**
+	 * Set the maximal number of users with a cached service document.
+	 * 
+	 * @param maxCachedUsers - number of users, must be at least 1
+	 */
+	public synchronized void setMaxCachedUsers(int maxCachedUsers) {
+		if (maxCachedUsers < 1) {
+			throw new IllegalArgumentException("Number of cached users must be at least 1: " + maxCachedUsers);
+		}
+		this.maxCachedUsers = maxCachedUsers;
+		while (this.userCaches.size() > maxCachedUsers) {
+			this.userCaches.remove(this.userCaches.keySet().iterator().next());
+		}
+	}
+	
+	public synchronized int getMaxCachedUsers() {
+		return this.maxCachedUsers;
+	}
+	
+	
+	/**
+	 * Set the time to live of the cached service documents and collections. With 0 nothing is cached.
+	 * 
+	 * @param ttl - time to live, must be at least 0
+	 * @param unit - time unit of the ttl
+	 */
+	public synchronized void setServiceDocumentTtl(long ttl, TimeUnit unit) {
+		if (ttl < 0) {
+			throw new IllegalArgumentException("TTL must not be negative: " + ttl);
+		}
+		this.serviceDocumentTtlSeconds = unit.toSeconds(ttl);
+		for (UserCache cache : this.userCaches.values()) {
+			cache.setTtl(this.serviceDocumentTtlSeconds);
+		}
+	}
+	
+	public synchronized int getCachedUserCount() {
+		return this.userCaches.size();
+	}
+	
+	
+	/**
+	 * Remove the cached service document and collections of the user, e.g. after a change of the user's permissions.
+	 * 
+	 * @param onBehalfOf - user account
+	 */
+	public synchronized void invalidate(String onBehalfOf) {
+		this.userCaches.remove(onBehalfOf);
+	}
+	
+	
+	/**
+	 * Get the service document for the user.
+	 * 
+	 * @param onBehalfOf - user account, which will be the owner of submissions
+	 * @return {@link ServiceDocument} or {@code null} in case of error
+	 */
+	public ServiceDocument getServiceDocument(String onBehalfOf) {
+		return getUserCache(onBehalfOf).serviceDocument.get();
+	}
+	
+	
+	/**
+	 * Get collections, which are available for the user. Sub-service documents (e.g. communities) are loaded 
+	 * only together with the service document, the result is cached like the service document.
+	 * 
+	 * @param onBehalfOf - user account
+	 * @return Map of Strings, where key = "collection URL", value = "collection title", or {@code null} in case of error
+	 */
+	public Map<String, String> getAvailableCollections(String onBehalfOf) {
+		final Map<String, String> collections = getUserCache(onBehalfOf).collections.get();
+		return (collections != null) ? new HashMap<String, String>(collections) : null;
+	}
+	
+	
+	private synchronized UserCache getUserCache(String onBehalfOf) {
+		
+		requireNonNull(onBehalfOf);
+		UserCache cache = this.userCaches.get(onBehalfOf);
+		if (cache == null) {
+			cache = new UserCache(onBehalfOf);
+			cache.setTtl(this.serviceDocumentTtlSeconds);
+			this.userCaches.put(onBehalfOf, cache);
+		}
+		return cache;
+	}
+	
+	
+	/**
+	 * @return HTTP client of all requests
+	 */
+	protected CloseableHttpClient getHttpClient() {
+		return this.httpClient;
+	}
+	
+	
+	/**
+	 * Create a new entry with metadata on behalf of the user.
+	 * 
+	 * @param onBehalfOf - user account, which will be the owner of the entry
+	 * @param collectionURL - collection URL (with "collection" substring inside)
+	 * @param metadataRecord - metadata as {@link MetadataRecord}
+	 * @param inProgress - value of the "In-Progress" header
+	 * 
+	 * @return {@link String} with the URL to edit the entry (with "edit" substring inside)
+	 * 
+	 * @throws SWORDClientException in case of error
+	 */
+	public String createEntryWithMetadata(String onBehalfOf, String collectionURL, MetadataRecord metadataRecord, boolean inProgress) 
+			throws SWORDClientException {
+		
+		requireNonNull(onBehalfOf);
+		requireNonNull(collectionURL);
+		requireNonNull(metadataRecord);
+		
+		try {
+			final SwordResponse response = SwordRequests.sendAtomEntry(getHttpClient(), collectionURL, SwordRequestType.DEPOSIT, 
+					metadataRecord, inProgress, createAuthCredentials(onBehalfOf));
+			return response.getLocation();
+		} catch (IOException | SWORDError e) {
+			throw new SWORDClientException("Exception by export metadata on behalf of " + onBehalfOf + ": " 
+					+ e.getClass().getSimpleName() + ": " + e.getMessage());
+		}
+	}
+	
+	public String createEntryWithMetadata(String onBehalfOf, String collectionURL, Map<String, List<String>> metadataMap, boolean inProgress) 
+			throws SWORDClientException {
+		return createEntryWithMetadata(onBehalfOf, collectionURL, MetadataRecord.fromMap(metadataMap), inProgress);
+	}
+	
+	
+	/**
+	 * Create a new entry with a file on behalf of the user.
+	 * 
+	 * @param onBehalfOf - user account, which will be the owner of the entry
+	 * @param collectionURL - collection URL (with "collection" substring inside)
+	 * @param file - file to export
+	 * @param unpackZip - unpack the file in the repository, if it is a ZIP archive
+	 * @param inProgress - value of the "In-Progress" header
+	 * 
+	 * @return {@link String} with the URL to edit the entry (with "edit" substring inside)
+	 * 
+	 * @throws IOException in case of IO error
+	 * @throws SWORDClientException in case of error
+	 */
+	public String createEntryWithFile(String onBehalfOf, String collectionURL, File file, boolean unpackZip, boolean inProgress) 
+			throws IOException, SWORDClientException {
+		
+		requireNonNull(onBehalfOf);
+		requireNonNull(collectionURL);
+		requireNonNull(file);
+		
+		final InputStream fileStream = new FileInputStream(file);
+		try {
+			final SwordResponse response = SwordRequests.sendFile(getHttpClient(), collectionURL, fileStream, file.length(), file.getName(), 
+					SwordExporter.MIME_FORMAT_ZIP, // as a common file (even for XML-file)
+					SwordExporter.getPackageFormat(file.getName(), unpackZip), inProgress, createAuthCredentials(onBehalfOf));
+			return response.getLocation();
+		} catch (SWORDError e) {
+			throw new SWORDClientException("Exception by export file on behalf of " + onBehalfOf + ": " 
+					+ e.getClass().getSimpleName() + ": " + e.getMessage());
+		} finally {
+			fileStream.close();
+		}
+	}
+	
+	
+	/**
+	 * Create a new entry with a file and metadata on behalf of the user. 
+	 * Like {@link DSpaceSwordOnly} the export is done in 2 steps: file at first, then the metadata.
+	 * 
+	 * @param onBehalfOf - user account, which will be the owner of the entry
+	 * @param collectionURL - collection URL (with "collection" substring inside)
+	 * @param metadataRecord - metadata as {@link MetadataRecord}
+	 * @param file - file to export
+	 * @param unpackZip - unpack the file in the repository, if it is a ZIP archive
+	 * @param inProgress - value of the "In-Progress" header
+	 * 
+	 * @return {@link String} with the URL to edit the entry (with "edit" substring inside)
+	 * 
+	 * @throws IOException in case of IO error
+	 * @throws SWORDClientException in case of error
+	 */
+	public String createEntryWithMetadataAndFile(String onBehalfOf, String collectionURL, MetadataRecord metadataRecord, 
+			File file, boolean unpackZip, boolean inProgress) throws IOException, SWORDClientException {
+		
+		requireNonNull(metadataRecord);
+		
+		// Step 1: export file, "In-Progress: true" to avoid unwanted publication already on the 1st step
+		final String editLink = createEntryWithFile(onBehalfOf, collectionURL, file, unpackZip, true);
+		if (editLink == null) {
+			throw new SWORDClientException("Error by export file and metadata on behalf of " + onBehalfOf 
+					+ ": after the file export the item URL for editing is null.");
+		}
+		
+		// Step 2: replace the automatically generated metadata
+		try {
+			final SwordResponse response = SwordRequests.sendAtomEntry(getHttpClient(), editLink, SwordRequestType.REPLACE, 
+					metadataRecord, inProgress, createAuthCredentials(onBehalfOf));
+			return (response.getLocation() != null) ? response.getLocation() : editLink;
+		} catch (SWORDError e) {
+			throw new SWORDClientException("Exception by export metadata on behalf of " + onBehalfOf + ": " 
+					+ e.getClass().getSimpleName() + ": " + e.getMessage());
+		}
+	}
+	
+	public String createEntryWithMetadataAndFile(String onBehalfOf, String collectionURL, Map<String, List<String>> metadataMap, 
+			File file, boolean unpackZip, boolean inProgress) throws IOException, SWORDClientException {
+		return createEntryWithMetadataAndFile(onBehalfOf, collectionURL, MetadataRecord.fromMap(metadataMap), file, unpackZip, inProgress);
+	}
+	
+	
+	private AuthCredentials createAuthCredentials(String onBehalfOf) {
+		return new AuthCredentials(this.adminUser, this.adminPassword, onBehalfOf);
+	}
+	
+	
+	/**
+	 * Load a service document for the user, concurrent calls share one request (see {@link SingleFlight}).
+	 */
+	private ServiceDocument loadServiceDocument(final String url, final String onBehalfOf) {
+		
+		return SingleFlight.execute(SingleFlight.createKey(url, this.adminKey + "/" + onBehalfOf), new Callable<ServiceDocument>() {
+			@Override
+			public ServiceDocument call() throws IOException, SWORDError {
+				return SwordRequests.getServiceDocument(getHttpClient(), url, createAuthCredentials(onBehalfOf));
+			}
+		});
+	}
+	
+	
+	/**
+	 * Load the collections of the user: collections of the (cached) service document and of its sub-service documents.
+	 * 
+	 * @return Map of Strings, where key = "collection URL", value = "collection title", or {@code null} in case of error
+	 */
+	private Map<String, String> loadCollections(String onBehalfOf) {
+		
+		final ServiceDocument serviceDocument = getServiceDocument(onBehalfOf);
+		if (serviceDocument == null) {
+			return null;
+		}
+		final Map<String, String> collections = new HashMap<String, String>();
+		if (!addCollections(serviceDocument, onBehalfOf, collections)) {
+			return null;
+		}
+		return collections;
+	}
+	
+	
+	/**
+	 * Add collections of the service document, sub-services (e.g. communities) are loaded recursively.
+	 * 
+	 * @return {@code false} in case of error
+	 */
+	private boolean addCollections(ServiceDocument serviceDocument, String onBehalfOf, Map<String, String> collections) {
+		
+		for (SWORDWorkspace workspace : serviceDocument.getWorkspaces()) {
+			for (SWORDCollection collection : workspace.getCollections()) {
+				final List<String> subServices = collection.getSubServices();
+				if ((subServices == null) || subServices.isEmpty()) {
+					collections.put(collection.getHref().toString(), collection.getTitle());
+					continue;
+				}
+				for (String subServiceURL : subServices) {
+					final ServiceDocument subServiceDocument = loadServiceDocument(subServiceURL, onBehalfOf);
+					if (subServiceDocument == null) {
+						log.error("Service document {} for {} could not be loaded", subServiceURL, onBehalfOf);
+						return false;
+					}
+					if (!addCollections(subServiceDocument, onBehalfOf, collections)) {
+						return false;
+					}
+				}
+			}
+		}
+		return true;
+	}
+	
+	
+	/**
+	 * Cached service document and collections of one user
+	 */
+	private class UserCache {
+		
+		final CachedResource<ServiceDocument> serviceDocument;
+		final CachedResource<Map<String, String>> collections;
+		
+		UserCache(final String onBehalfOf) {
+			this.serviceDocument = new CachedResource<ServiceDocument>("service document of " + onBehalfOf, new Callable<ServiceDocument>() {
+				@Override
+				public ServiceDocument call() {
+					return loadServiceDocument(serviceDocumentURL, onBehalfOf);
+				}
+			});
+			this.collections = new CachedResource<Map<String, String>>("collections of " + onBehalfOf, new Callable<Map<String, String>>() {
+				@Override
+				public Map<String, String> call() {
+					return loadCollections(onBehalfOf);
+				}
+			});
+		}
+		
+		void setTtl(long ttlSeconds) {
+			this.serviceDocument.setTtl(ttlSeconds, TimeUnit.SECONDS);
+			this.collections.setTtl(ttlSeconds, TimeUnit.SECONDS);
+		}
+	}
+
+}
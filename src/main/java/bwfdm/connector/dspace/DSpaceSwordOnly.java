@@ -21,33 +21,168 @@ package bwfdm.connector.dspace;
 import static java.util.Objects.requireNonNull;
 
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.Deque;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+import javax.xml.stream.XMLStreamException;
+
+import org.apache.abdera.model.Element;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.httpclient.HttpStatus;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClientBuilder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.swordapp.client.AuthCredentials;
 import org.swordapp.client.Content;
+import org.swordapp.client.Deposit;
 import org.swordapp.client.DepositReceipt;
+import org.swordapp.client.EntryPart;
 import org.swordapp.client.ProtocolViolationException;
 import org.swordapp.client.SWORDClientException;
+import org.swordapp.client.SWORDCollection;
 import org.swordapp.client.SWORDError;
+import org.swordapp.client.SWORDWorkspace;
 import org.swordapp.client.ServiceDocument;
 import org.swordapp.client.SwordResponse;
 import org.swordapp.client.UriRegistry;
 
+import bwfdm.connector.dspace.cache.CachedResource;
+import bwfdm.connector.dspace.cache.NegativeCache;
+import bwfdm.connector.dspace.cache.RefreshScheduler;
+import bwfdm.connector.dspace.cache.SingleFlight;
+import bwfdm.connector.dspace.cache.StructureCodecs;
+import bwfdm.connector.dspace.cache.StructureSnapshot;
+import bwfdm.connector.dspace.cache.StructureSnapshot.Codec;
+import bwfdm.connector.dspace.cancel.CancellableInputStream;
+import bwfdm.connector.dspace.cancel.CancellationToken;
+import bwfdm.connector.dspace.cancel.CancelledException;
+import bwfdm.connector.dspace.index.CollectionSearchIndex;
+import bwfdm.connector.dspace.index.DepositIndex;
+import bwfdm.connector.dspace.index.DuplicateDepositException;
+import bwfdm.connector.dspace.limit.AdaptiveLimiter;
+import bwfdm.connector.dspace.limit.AdaptiveLimiter.Permit;
+import bwfdm.connector.dspace.metadata.MetadataRecord;
+import bwfdm.connector.dspace.progress.ProgressInputStream;
+import bwfdm.connector.dspace.progress.UploadProgressListener;
+import bwfdm.connector.dspace.sword.AtomEntryWriter;
+import bwfdm.connector.dspace.sword.MetsPackageWriter;
+import bwfdm.connector.dspace.sword.ServiceDocumentReader;
+import bwfdm.connector.dspace.sword.ServiceDocumentReader.Entry;
+import bwfdm.connector.dspace.sword.ServiceDocumentReader.Visitor;
+import bwfdm.connector.dspace.sword.SwordRequests;
 import bwfdm.connector.dspace.utils.IOUtils;
+import bwfdm.connector.dspace.utils.ThreadUtils;
+import bwfdm.connector.dspace.utils.WebUtils;
+import bwfdm.connector.dspace.utils.WebUtils.RequestType;
 import bwfdm.exporter.commons.SwordExporter;
 
 public class DSpaceSwordOnly extends SwordExporter implements DSpaceRepository {
 
 	private static final Logger log = LoggerFactory.getLogger(DSpaceSwordOnly.class);
+	
+	protected static final int MAX_HTTP_CONNECTIONS = 20;
+	protected static final int PROBE_TIMEOUT_MILLIS = 5000;
+	protected static final int MAX_UNKNOWN_COLLECTIONS = 1000;
+	
+	// Operation classes of the requests with own latency without load (see AdaptiveLimiter#acquire(String))
+	protected static final String OPERATION_SERVICE_DOCUMENT = "service document";
+	protected static final String OPERATION_COLLECTION_CONTENT = "collection content";
+	protected static final String OPERATION_REST = "REST";
 
 	// For SWORD
 	protected String serviceDocumentURL;
+	
+	// Metadata as a Map are written directly into the request, without SWORD client library
+	protected boolean streamingMetadataWriter = false;
+	
+	private CloseableHttpClient httpClient;
+	private String credentialsKey;
+	
+	// Optional index of the already deposited files
+	protected DepositIndex depositIndex;
+	protected DuplicateStrategy duplicateStrategy = DuplicateStrategy.RETURN_EXISTING_ENTRY;
+	
+	// Deposit of file and metadata: 2 requests by default, optional single request with a package
+	protected volatile DepositMode depositMode = DepositMode.TWO_STEP;
+	private final ConcurrentMap<String, DepositMode> detectedDepositModes = new ConcurrentHashMap<String, DepositMode>();
+	
+	// Caches of the repository structure (service document etc.), switched off by default
+	private final List<CachedResource<?>> structureCaches = new ArrayList<CachedResource<?>>();
+	private volatile long structureCacheTtlNanos = 0;
+	private RefreshScheduler structureRefreshScheduler;
+	
+	// Search index over the full names of collections, updated after new loads of the structure caches.
+	// The instance number separates the shared builds of connectors with the same URL and credentials.
+	private static final AtomicLong instanceCounter = new AtomicLong();
+	private final long instanceNumber = instanceCounter.incrementAndGet();
+	private final Object collectionSearchIndexLock = new Object();
+	private CollectionSearchIndex collectionSearchIndex;
+	private long collectionSearchIndexVersion;
+	
+	// Optional snapshot of the structure caches on disk, for fast restarts
+	private final Map<String, SnapshotSection<?>> snapshotSections = new LinkedHashMap<String, SnapshotSection<?>>();
+	private volatile File structureSnapshotFile;
+	private String structureSnapshotDigest;
+	
+	// Collection URLs, which were not found in the repository structure, switched off by default
+	private final NegativeCache unknownCollectionsCache = new NegativeCache(MAX_UNKNOWN_COLLECTIONS);
+	
+	// Optional adaptive limit of concurrent requests
+	protected volatile AdaptiveLimiter concurrencyLimiter;
+	
+	// Optional listener of the file uploads
+	private volatile UploadProgressListener uploadProgressListener;
+	private volatile long uploadProgressIntervalMillis = ProgressInputStream.DEFAULT_INTERVAL_MILLIS;
+	
+	// Accessibility check: optional HEAD requests instead of the complete service document, optional cache of the result
+	private volatile boolean lightweightProbe = false;
+	private volatile boolean swordHeadSupported = true;
+	private final CachedResource<Boolean> accessibilityCache = new CachedResource<Boolean>("accessibility", 
+			new Callable<Boolean>() {
+				@Override
+				public Boolean call() {
+					return checkRepositoryAccessible();
+				}
+			});
+	
+	protected final CachedResource<ServiceDocument> serviceDocumentCache = createStructureCache("service document", 
+			new Callable<ServiceDocument>() {
+				@Override
+				public ServiceDocument call() {
+					return loadServiceDocument();
+				}
+			}, StructureCodecs.SERVICE_DOCUMENT);
 
 	
 	/**
@@ -124,26 +259,1279 @@ public class DSpaceSwordOnly extends SwordExporter implements DSpaceRepository {
 
 	public void setServiceDocumentURL(String serviceDocumentURL) {
 		this.serviceDocumentURL = serviceDocumentURL;
+		this.serviceDocumentCache.invalidate();
+		this.swordHeadSupported = true;
+		this.accessibilityCache.invalidate();
+		this.unknownCollectionsCache.clear();
+		this.detectedDepositModes.clear();
+	}
+	
+	public String getServiceDocumentURL() {
+		return this.serviceDocumentURL;
+	}
+	
+	
+	/**
+	 * Switch on/off the direct writing of metadata (as a Map) into the SWORD request via {@link AtomEntryWriter}, 
+	 * instead of building the Atom entry via the object model of the SWORD client library. 
+	 * It reduces the memory allocation for metadata with many values. Default value is {@code false}.
+	 * <p>
+	 * The direct writing maps the metadata keys to the Dublin Core terms (see {@link AtomEntryWriter#getTerm(String)}), 
+	 * e.g. "dc.title" is written as "dcterms:title". The object model of the SWORD client library uses every key unchanged 
+	 * as element name (e.g. "dcterms:dc.title"), so the metadata should be provided with plain terms (e.g. "title"), 
+	 * if both ways are used.
+	 * 
+	 * @param streamingMetadataWriter - {@code true} to use the direct writing
+	 */
+	public void setStreamingMetadataWriter(boolean streamingMetadataWriter) {
+		this.streamingMetadataWriter = streamingMetadataWriter;
+	}
+	
+	public boolean isStreamingMetadataWriter() {
+		return this.streamingMetadataWriter;
+	}
+	
+	
+	/**
+	 * Get the HTTP client for the requests, which are sent without SWORD client library. 
+	 * The client is created by the first usage.
+	 * <p>
+	 * <b>INFO:</b> if you have some problems with the SSL certificate (e.g. some exception 
+	 * 		with "input is not a X.509 certificate" message), please add a certificate to your keystore, see the class constructor.
+	 * 
+	 * @return {@link CloseableHttpClient}
+	 */
+	protected synchronized CloseableHttpClient getHttpClient() {
+		if (this.httpClient == null) {
+			this.httpClient = HttpClientBuilder.create()
+					.setMaxConnPerRoute(MAX_HTTP_CONNECTIONS)
+					.setMaxConnTotal(MAX_HTTP_CONNECTIONS)
+					.build();
+		}
+		return this.httpClient;
+	}
+	
+	
+	/**
+	 * Set the time to live of the cached repository structure: service document 
+	 * (and e.g. hierarchy and collections for DSpace_v6). With 0 (default) nothing is cached.
+	 * 
+	 * @param ttl - time to live, must be at least 0
+	 * @param unit - time unit of the ttl
+	 */
+	public synchronized void setStructureCacheTtl(long ttl, TimeUnit unit) {
+		if (ttl < 0) {
+			throw new IllegalArgumentException("TTL must not be negative: " + ttl);
+		}
+		this.structureCacheTtlNanos = unit.toNanos(ttl);
+		for (CachedResource<?> cache : this.structureCaches) {
+			cache.setTtl(ttl, unit);
+		}
+		if ((ttl == 0) && (this.structureRefreshScheduler != null)) {
+			setStructureRefreshAhead(false);
+		}
+	}
+	
+	
+	/**
+	 * Switch on/off the background refresh of the cached repository structure (see {@link RefreshScheduler}): 
+	 * the resources are loaded again before they expire, meanwhile the cached values are used, 
+	 * so that the reads do not wait for a refresh. Only the very first load (without {@link #warmUp()}) blocks.
+	 * <p>
+	 * <b>IMPORTANT:</b> can be used only with the cache, see {@link #setStructureCacheTtl(long, TimeUnit)}.
+	 * 
+	 * @param refreshAhead - {@code true} to start the background refresh, {@code false} to stop it
+	 */
+	public synchronized void setStructureRefreshAhead(boolean refreshAhead) {
+		
+		if (refreshAhead) {
+			if (this.structureCacheTtlNanos == 0) {
+				throw new IllegalStateException("Refresh ahead needs the structure cache, please set the TTL before.");
+			}
+			if (this.structureRefreshScheduler == null) {
+				this.structureRefreshScheduler = new RefreshScheduler();
+				for (CachedResource<?> cache : this.structureCaches) {
+					this.structureRefreshScheduler.schedule(cache);
+				}
+			}
+		} else if (this.structureRefreshScheduler != null) {
+			this.structureRefreshScheduler.close();
+			this.structureRefreshScheduler = null;
+			for (CachedResource<?> cache : this.structureCaches) {
+				cache.setStaleWhileRevalidate(false);
+			}
+		}
+	}
+	
+	public synchronized boolean isStructureRefreshAhead() {
+		return this.structureRefreshScheduler != null;
+	}
+	
+	public synchronized long getStructureCacheTtl(TimeUnit unit) {
+		return unit.convert(this.structureCacheTtlNanos, TimeUnit.NANOSECONDS);
+	}
+	
+	
+	/**
+	 * Remove all cached values of the repository structure, they will be loaded again by the next usage.
+	 */
+	public synchronized void invalidateStructureCaches() {
+		for (CachedResource<?> cache : this.structureCaches) {
+			cache.invalidate();
+		}
+		this.unknownCollectionsCache.clear();
+		this.detectedDepositModes.clear();
+	}
+	
+	
+	/**
+	 * Set the time, for which collection URLs are remembered as unknown, if they were not found in the repository structure 
+	 * (e.g. stale or mistyped URLs), so that repeated lookups return {@code null} without requests (see {@link NegativeCache}). 
+	 * The URLs are forgotten earlier, if the structure is loaded again (see {@link #setStructureCacheTtl(long, TimeUnit)}) 
+	 * or invalidated. With 0 (default) nothing is remembered.
+	 * 
+	 * @param time - cache time, must be at least 0
+	 * @param unit - time unit of the cache time
+	 */
+	public void setUnknownCollectionCacheTime(long time, TimeUnit unit) {
+		this.unknownCollectionsCache.setTtl(time, unit);
+	}
+	
+	public long getUnknownCollectionCacheTime(TimeUnit unit) {
+		return this.unknownCollectionsCache.getTtl(unit);
+	}
+	
+	
+	/**
+	 * Check, if the collection URL is remembered as unknown (see {@link #setUnknownCollectionCacheTime(long, TimeUnit)}).
+	 * 
+	 * @param collectionURL - URL of the collection
+	 * @return {@code true} if the collection was not found in the current repository structure
+	 */
+	protected boolean isUnknownCollection(String collectionURL) {
+		return this.unknownCollectionsCache.contains(collectionURL, getStructureVersion());
+	}
+	
+	
+	/**
+	 * Remember the collection URL as unknown (see {@link #setUnknownCollectionCacheTime(long, TimeUnit)}). 
+	 * Must be used only if the structure was loaded and the collection was not found, not in case of error.
+	 * 
+	 * @param collectionURL - URL of the collection
+	 * @param structureVersion - version of the structure before the lookup (see {@link #getStructureVersion()})
+	 */
+	protected void addUnknownCollection(String collectionURL, long structureVersion) {
+		log.debug("Collection is unknown: {}", collectionURL);
+		this.unknownCollectionsCache.put(collectionURL, structureVersion);
+	}
+	
+	
+	/**
+	 * Create a cache of the repository structure, which is controlled via {@link #setStructureCacheTtl(long, TimeUnit)}.
+	 * 
+	 * @param name - name of the resource for the log
+	 * @param loader - loader of the resource, should return {@code null} in case of error
+	 * 
+	 * @return {@link CachedResource}
+	 */
+	protected synchronized <T> CachedResource<T> createStructureCache(String name, Callable<T> loader) {
+		CachedResource<T> cache = new CachedResource<T>(name, loader);
+		cache.setTtl(this.structureCacheTtlNanos, TimeUnit.NANOSECONDS);
+		this.structureCaches.add(cache);
+		if (this.structureRefreshScheduler != null) {
+			this.structureRefreshScheduler.schedule(cache);
+		}
+		return cache;
+	}
+	
+	
+	/**
+	 * Create a cache of the repository structure (see {@link #createStructureCache(String, Callable)}), 
+	 * which is also stored in the snapshot (see {@link #setStructureSnapshotFile(File)}).
+	 * 
+	 * @param name - name of the resource for the log and of the section in the snapshot
+	 * @param loader - loader of the resource, should return {@code null} in case of error
+	 * @param codec - codec of the resource for the snapshot
+	 * 
+	 * @return {@link CachedResource}
+	 */
+	protected synchronized <T> CachedResource<T> createStructureCache(String name, Callable<T> loader, Codec<T> codec) {
+		final CachedResource<T> cache = createStructureCache(name, loader);
+		this.snapshotSections.put(name, new SnapshotSection<T>(cache, codec));
+		return cache;
+	}
+	
+	
+	/**
+	 * Get the service document of {@link #getServiceDocumentURL()}, 
+	 * it is cached if {@link #setStructureCacheTtl(long, TimeUnit)} is used.
+	 * 
+	 * @return {@link ServiceDocument} or {@code null} in case of error
+	 */
+	protected ServiceDocument getServiceDocument() {
+		return this.serviceDocumentCache.get();
+	}
+	
+	
+	/**
+	 * Load the service document of {@link #getServiceDocumentURL()}, without cache. 
+	 * Concurrent calls with the same credentials share one request (see {@link SingleFlight}).
+	 * 
+	 * @return {@link ServiceDocument} or {@code null} in case of error
+	 */
+	protected ServiceDocument loadServiceDocument() {
+		
+		final String url = this.serviceDocumentURL;
+		return SingleFlight.execute(SingleFlight.createKey(url, getCredentialsKey()), new Callable<ServiceDocument>() {
+			@Override
+			public ServiceDocument call() throws IOException {
+				final Permit permit = acquirePermit(OPERATION_SERVICE_DOCUMENT);
+				ServiceDocument serviceDocument = null;
+				try {
+					serviceDocument = getServiceDocument(url);
+					return serviceDocument;
+				} finally {
+					if (permit != null) {
+						if (serviceDocument != null) {
+							permit.release(HttpStatus.SC_OK, true);
+						} else {
+							permit.releaseIgnore(); // error is not known, could be also wrong credentials
+						}
+					}
+				}
+			}
+		});
+	}
+	
+	
+	/**
+	 * Get the identification of the credentials for the keys of reads (user, on-behalf-of user and password hash).
+	 * 
+	 * @return key as {@link String}
+	 */
+	protected synchronized String getCredentialsKey() {
+		if (this.credentialsKey == null) {
+			final AuthCredentials credentials = super.getAuthCredentials();
+			this.credentialsKey = credentials.getUsername() + "/" + credentials.getOnBehalfOf() 
+					+ "/" + DigestUtils.sha256Hex(credentials.getPassword());
+		}
+		return this.credentialsKey;
+	}
+	
+	
+	/**
+	 * Start the loading of the repository structure in the background (e.g. directly after the construction), 
+	 * so that the first request is served from the cache and with open connections. 
+	 * Should be used together with {@link #setStructureCacheTtl(long, TimeUnit)}, 
+	 * without cache only the connections and the parsing are warmed up.
+	 * <p>
+	 * With a snapshot (see {@link #setStructureSnapshotFile(File)}) the caches are filled from the snapshot at once 
+	 * and revalidated in the background, after that the snapshot is updated.
+	 * 
+	 * @return {@link Future} with {@code true} if all resources were loaded or {@code false} in case of error
+	 */
+	public Future<Boolean> warmUp() {
+		
+		if (this.structureSnapshotFile != null) {
+			loadStructureSnapshot();
+		}
+		final FutureTask<Boolean> task = new FutureTask<Boolean>(new Callable<Boolean>() {
+			@Override
+			public Boolean call() {
+				final long start = System.currentTimeMillis();
+				final boolean loaded = warmUpResources();
+				log.info("Warm-up of {} finished in {} ms, result: {}", serviceDocumentURL, System.currentTimeMillis() - start, loaded);
+				if (loaded && (structureSnapshotFile != null)) {
+					saveStructureSnapshot();
+				}
+				return loaded;
+			}
+		});
+		ThreadUtils.createDaemonThreadFactory("dspace-warm-up").newThread(task).start();
+		return task;
+	}
+	
+	
+	/**
+	 * Get the version of the repository structure: sum of the versions of all structure caches 
+	 * (see {@link CachedResource#getVersion()}), is changed by every new load.
+	 * 
+	 * @return version
+	 */
+	protected long getStructureVersion() {
+		long version = 0;
+		for (CachedResource<?> cache : this.structureCaches) {
+			version += cache.getVersion();
+		}
+		return version;
+	}
+	
+	
+	/**
+	 * Search the available collections by their full names (see {@link #getAvailableCollectionsWithFullName(String)}), 
+	 * e.g. for an autocomplete, via {@link CollectionSearchIndex}. The index is updated, if the structure 
+	 * (service document etc.) was loaded again. Should be used together with the structure cache 
+	 * (see {@link #setStructureCacheTtl(long, TimeUnit)}), otherwise every search loads the structure.
+	 * 
+	 * @param query - query as {@link String}, words are matched as prefixes of the words in the full name
+	 * @param fullNameSeparator - separator of the communities and collection in the full name
+	 * @param limit - maximal number of results, must be at least 1
+	 * 
+	 * @return Map of the found collections ordered by relevance, where key = collection URL, value = full name,
+	 * 		   or {@code null} in case of error
+	 */
+	public Map<String, String> searchCollections(String query, String fullNameSeparator, int limit) {
+		final CollectionSearchIndex index = getCollectionSearchIndex(fullNameSeparator);
+		if (index == null) {
+			return null;
+		}
+		return index.search(query, limit);
+	}
+	
+	
+	/**
+	 * Get the search index over the full names of the collections. The index is reused until the structure 
+	 * version is changed (see {@link #getStructureVersion()}), without structure cache it is built by every call.
+	 * <p>
+	 * The structure is loaded and the index is built without holding a lock, concurrent calls 
+	 * of the same connector for the same version share one build (see {@link SingleFlight}).
+	 * 
+	 * @param fullNameSeparator - separator of the communities and collection in the full name
+	 * 
+	 * @return {@link CollectionSearchIndex} or {@code null} in case of error
+	 */
+	protected CollectionSearchIndex getCollectionSearchIndex(final String fullNameSeparator) {
+		
+		// Version before the loading: if the structure is changed during the update, the next call updates again
+		final long version = getStructureVersion();
+		final CollectionSearchIndex current;
+		synchronized (this.collectionSearchIndexLock) {
+			current = this.collectionSearchIndex;
+			if ((current != null) && (this.structureCacheTtlNanos > 0) && (version == this.collectionSearchIndexVersion) 
+					&& current.getSeparator().equals(fullNameSeparator)) {
+				return current;
+			}
+		}
+		final String key = SingleFlight.createKey(this.serviceDocumentURL + "\nsearch index\n" + this.instanceNumber 
+				+ "\n" + version + "\n" + fullNameSeparator, getCredentialsKey());
+		return SingleFlight.execute(key, new Callable<CollectionSearchIndex>() {
+			@Override
+			public CollectionSearchIndex call() throws Exception {
+				final Map<String, String> fullNames = getAvailableCollectionsWithFullName(fullNameSeparator);
+				if (fullNames == null) {
+					return null;
+				}
+				final CollectionSearchIndex index;
+				if ((current != null) && current.getSeparator().equals(fullNameSeparator)) {
+					index = current.update(fullNames);
+				} else {
+					index = CollectionSearchIndex.build(fullNames, fullNameSeparator);
+				}
+				synchronized (collectionSearchIndexLock) {
+					if ((collectionSearchIndex == null) || (version >= collectionSearchIndexVersion)) {
+						collectionSearchIndex = index;
+						collectionSearchIndexVersion = version;
+					}
+				}
+				return index;
+			}
+		});
+	}
+	
+	
+	/**
+	 * Load all cached resources for the warm-up. Is called in the background thread of {@link #warmUp()}.
+	 * 
+	 * @return {@code true} if all resources were loaded or {@code false} in case of error
+	 */
+	protected boolean warmUpResources() {
+		return this.serviceDocumentCache.refresh() != null;
+	}
+	
+	
+	/**
+	 * Set the file for the snapshot of the repository structure (see {@link StructureSnapshot}), for fast restarts 
+	 * without requests to the repository: {@link #warmUp()} fills the structure caches from the snapshot 
+	 * and updates the snapshot after the revalidation. Needs the structure cache (see {@link #setStructureCacheTtl(long, TimeUnit)}).
+	 * Without snapshot file (default, {@code null}) nothing is stored.
+	 * 
+	 * @param structureSnapshotFile - snapshot file or {@code null}
+	 */
+	public void setStructureSnapshotFile(File structureSnapshotFile) {
+		if ((structureSnapshotFile != null) && (this.structureCacheTtlNanos == 0)) {
+			throw new IllegalStateException("Snapshot needs the structure cache, please set the TTL before.");
+		}
+		this.structureSnapshotFile = structureSnapshotFile;
+	}
+	
+	public File getStructureSnapshotFile() {
+		return this.structureSnapshotFile;
+	}
+	
+	
+	/**
+	 * Fill the empty structure caches from the snapshot file. Snapshots of other repositories, users 
+	 * or format versions are ignored.
+	 * 
+	 * @return {@code true} if all structure caches were filled, otherwise {@code false}
+	 */
+	public synchronized boolean loadStructureSnapshot() {
+		
+		final File file = this.structureSnapshotFile;
+		if (file == null) {
+			return false;
+		}
+		final StructureSnapshot snapshot = StructureSnapshot.read(file, getSnapshotKey());
+		if (snapshot == null) {
+			return false;
+		}
+		final Map<String, byte[]> sections = new LinkedHashMap<String, byte[]>();
+		for (Map.Entry<String, SnapshotSection<?>> entry : this.snapshotSections.entrySet()) {
+			final byte[] section = snapshot.getSection(entry.getKey());
+			if (section == null) {
+				log.info("Snapshot {} has no {}", file, entry.getKey());
+				return false;
+			}
+			try {
+				entry.getValue().restore(section);
+			} catch (IOException e) {
+				log.warn("Snapshot {}: {} could not be decoded: {}", file, entry.getKey(), e.getMessage());
+				return false;
+			}
+			sections.put(entry.getKey(), section);
+		}
+		this.structureSnapshotDigest = getSnapshotDigest(sections);
+		log.info("Structure of {} is loaded from the snapshot {} (created at {})", this.serviceDocumentURL, file, 
+				new Date(snapshot.getCreatedAt()));
+		return true;
+	}
+	
+	
+	/**
+	 * Write the cached structure into the snapshot file, if it was changed since the last writing or loading.
+	 * 
+	 * @return {@code true} if the snapshot is up to date, {@code false} if not all resources are cached 
+	 * 		   or in case of error
+	 */
+	public synchronized boolean saveStructureSnapshot() {
+		
+		final File file = this.structureSnapshotFile;
+		if (file == null) {
+			return false;
+		}
+		final Map<String, byte[]> sections = new LinkedHashMap<String, byte[]>();
+		try {
+			for (Map.Entry<String, SnapshotSection<?>> entry : this.snapshotSections.entrySet()) {
+				final byte[] section = entry.getValue().encode();
+				if (section == null) {
+					log.info("Snapshot {} is not written, {} is not cached", file, entry.getKey());
+					return false;
+				}
+				sections.put(entry.getKey(), section);
+			}
+			final String digest = getSnapshotDigest(sections);
+			if (!digest.equals(this.structureSnapshotDigest)) {
+				StructureSnapshot.write(file, getSnapshotKey(), sections);
+				this.structureSnapshotDigest = digest;
+				log.info("Snapshot {} is written", file);
+			}
+			return true;
+		} catch (IOException e) {
+			log.error("Exception by writing of the snapshot {}: {}: {}", file, e.getClass().getSimpleName(), e.getMessage());
+			return false;
+		}
+	}
+	
+	
+	/**
+	 * Get the key of the repository and user for the snapshot, a snapshot with other key is not loaded.
+	 * 
+	 * @return key as {@link String}
+	 */
+	protected String getSnapshotKey() {
+		return this.serviceDocumentURL + "\n" + getCredentialsKey();
+	}
+	
+	
+	private static String getSnapshotDigest(Map<String, byte[]> sections) {
+		final StringBuilder digests = new StringBuilder();
+		for (Map.Entry<String, byte[]> section : sections.entrySet()) {
+			digests.append(section.getKey()).append(':').append(DigestUtils.sha256Hex(section.getValue())).append('\n');
+		}
+		return DigestUtils.sha256Hex(digests.toString());
+	}
+	
+	
+	/**
+	 * Set the adaptive limit of concurrent requests (see {@link AdaptiveLimiter}), which is used for all 
+	 * SWORD (and REST for DSpace_v6) requests of this object. The same limiter could be set for several objects 
+	 * of the same repository. Without limiter (default, {@code null}) the requests are not limited.
+	 * 
+	 * @param concurrencyLimiter - object of {@link AdaptiveLimiter} or {@code null}
+	 */
+	public void setConcurrencyLimiter(AdaptiveLimiter concurrencyLimiter) {
+		this.concurrencyLimiter = concurrencyLimiter;
+	}
+	
+	public AdaptiveLimiter getConcurrencyLimiter() {
+		return this.concurrencyLimiter;
+	}
+	
+	
+	/**
+	 * Execute the request under the limit of concurrent requests (see {@link #setConcurrencyLimiter(AdaptiveLimiter)}).
+	 * The place under the limit is released as soon as the response headers are received.
+	 * 
+	 * @param request - object of {@link HttpUriRequest}
+	 * @param operation - operation class of the request for the limiter, see {@link AdaptiveLimiter#acquire(String)}
+	 * 
+	 * @return {@link CloseableHttpResponse} or {@code null} in case of error
+	 */
+	protected CloseableHttpResponse executeLimitedRequest(HttpUriRequest request, String operation) {
+		
+		final Permit permit;
+		try {
+			permit = acquirePermit(operation);
+		} catch (InterruptedIOException e) {
+			log.error("Interrupted by waiting for the request: {}", request.getURI());
+			return null;
+		}
+		final CloseableHttpResponse response = WebUtils.getResponse(getHttpClient(), request);
+		if (permit != null) {
+			if (response != null) {
+				permit.release(response.getStatusLine().getStatusCode(), true);
+			} else if (isCurrentOperationCancelled()) {
+				permit.releaseIgnore(); // aborted via CancellationToken
+			} else {
+				permit.releaseOverload(); // connection error or timeout
+			}
+		}
+		return response;
+	}
+	
+	
+	/**
+	 * Read the current service document via {@link ServiceDocumentReader} and pass its collections and sub-services 
+	 * to the visitor, see {@link #visitServiceDocument(String, Visitor)}.
+	 * 
+	 * @param visitor - object of {@link Visitor}
+	 * 
+	 * @return {@code true} if the document was read (completely or until the visitor has stopped), 
+	 * 		   {@code false} in case of error
+	 */
+	public boolean visitServiceDocument(Visitor visitor) {
+		return visitServiceDocument(this.serviceDocumentURL, visitor);
+	}
+	
+	
+	/**
+	 * Read a service document (or a sub-service document) via {@link ServiceDocumentReader} and pass its collections 
+	 * and sub-services to the visitor, without building of the object model and without the structure cache. 
+	 * If the visitor stops the reading, the rest of the document is not downloaded.
+	 * 
+	 * @param serviceDocumentURL - URL of the service document as {@link String}
+	 * @param visitor - object of {@link Visitor}
+	 * 
+	 * @return {@code true} if the document was read (completely or until the visitor has stopped), 
+	 * 		   {@code false} in case of error
+	 */
+	public boolean visitServiceDocument(String serviceDocumentURL, Visitor visitor) {
+		
+		final HttpUriRequest request = WebUtils.createRequest(serviceDocumentURL, RequestType.GET, null, 
+				ServiceDocumentReader.CONTENT_TYPE_SERVICE_DOCUMENT);
+		SwordRequests.addAuthHeaders(request, super.getAuthCredentials());
+		final CloseableHttpResponse response = executeLimitedRequest(request, OPERATION_SERVICE_DOCUMENT);
+		if (response == null) {
+			return false;
+		}
+		try {
+			final int status = response.getStatusLine().getStatusCode();
+			if (status != HttpStatus.SC_OK) {
+				log.error("Service document {} is not accessible, status: {}", serviceDocumentURL, status);
+				return false;
+			}
+			ServiceDocumentReader.read(response.getEntity().getContent(), visitor);
+			return true;
+		} catch (IOException | XMLStreamException e) {
+			log.error("Exception by reading the service document {}: {}: {}", serviceDocumentURL, 
+					e.getClass().getSimpleName(), e.getMessage());
+			return false;
+		} finally {
+			WebUtils.closeResponse(response); // not consumed rest of the document is not downloaded
+		}
+	}
+	
+	
+	/**
+	 * Switch on/off the lightweight probe for {@link #isRepositoryAccessible()}: HEAD requests are sent instead of 
+	 * downloading and parsing the complete service document (DSpace_v6: REST and SWORD are checked concurrently). 
+	 * If the server does not support HEAD, the complete service document is loaded. Default value is {@code false}.
+	 * 
+	 * @param lightweightProbe - {@code true} to use the lightweight probe
+	 */
+	public void setLightweightProbe(boolean lightweightProbe) {
+		this.lightweightProbe = lightweightProbe;
+		this.accessibilityCache.invalidate();
+	}
+	
+	public boolean isLightweightProbe() {
+		return this.lightweightProbe;
+	}
+	
+	
+	/**
+	 * Set the time, for which the result of {@link #isRepositoryAccessible()} is cached (e.g. for frequent health checks). 
+	 * With 0 (default) every call sends the requests.
+	 * 
+	 * @param time - cache time, must be at least 0
+	 * @param unit - time unit of the cache time
+	 */
+	public void setAccessibilityCacheTime(long time, TimeUnit unit) {
+		this.accessibilityCache.setTtl(time, unit);
+	}
+	
+	public long getAccessibilityCacheTime(TimeUnit unit) {
+		return this.accessibilityCache.getTtl(unit);
+	}
+	
+	
+	/**
+	 * Check the accessibility of the repository without the cache of {@link #isRepositoryAccessible()}.
+	 * 
+	 * @return {@code true} if the repository is accessible, otherwise {@code false}
+	 */
+	protected boolean checkRepositoryAccessible() {
+		if (this.lightweightProbe) {
+			return probeServiceDocument();
+		}
+		return super.isSwordAccessible(this.serviceDocumentURL);
+	}
+	
+	
+	/**
+	 * Check the access to the service document via HEAD request with the credentials, without download of the content. 
+	 * If the server does not support HEAD, the complete service document is loaded (and later requests do the same).
+	 * 
+	 * @return {@code true} if the service document is accessible, otherwise {@code false}
+	 */
+	protected boolean probeServiceDocument() {
+		
+		if (!this.swordHeadSupported) {
+			return super.isSwordAccessible(this.serviceDocumentURL);
+		}
+		final HttpUriRequest request = WebUtils.createRequest(this.serviceDocumentURL, RequestType.HEAD, null, null);
+		SwordRequests.addAuthHeaders(request, super.getAuthCredentials());
+		final CloseableHttpResponse response = executeProbe(request);
+		if (response == null) {
+			return false;
+		}
+		final int status = response.getStatusLine().getStatusCode();
+		WebUtils.closeResponse(response);
+		if (isHeadNotSupported(status)) {
+			log.info("HEAD is not supported for the service document {}, complete service document will be loaded", 
+					this.serviceDocumentURL);
+			this.swordHeadSupported = false;
+			return super.isSwordAccessible(this.serviceDocumentURL);
+		}
+		return (status == HttpStatus.SC_OK);
+	}
+	
+	
+	/**
+	 * Execute a probe request with a short timeout ({@link #PROBE_TIMEOUT_MILLIS}), independent of the limit 
+	 * of concurrent requests.
+	 * 
+	 * @param request - object of {@link HttpUriRequest}
+	 * 
+	 * @return {@link CloseableHttpResponse} or {@code null} in case of error
+	 */
+	protected CloseableHttpResponse executeProbe(HttpUriRequest request) {
+		if (request instanceof HttpRequestBase) {
+			((HttpRequestBase) request).setConfig(RequestConfig.custom()
+					.setConnectionRequestTimeout(PROBE_TIMEOUT_MILLIS)
+					.setConnectTimeout(PROBE_TIMEOUT_MILLIS)
+					.setSocketTimeout(PROBE_TIMEOUT_MILLIS)
+					.build());
+		}
+		return WebUtils.getResponse(getHttpClient(), request);
+	}
+	
+	
+	protected static boolean isHeadNotSupported(int status) {
+		return (status == HttpStatus.SC_METHOD_NOT_ALLOWED) || (status == HttpStatus.SC_NOT_IMPLEMENTED);
+	}
+	
+	
+	/**
+	 * Wait for a place under the limit of concurrent requests (see {@link #setConcurrencyLimiter(AdaptiveLimiter)}), 
+	 * for a request of the {@link AdaptiveLimiter#DEFAULT_OPERATION} class (short SWORD requests).
+	 * 
+	 * @return {@link Permit} or {@code null} if there is no limiter
+	 * @throws InterruptedIOException if the thread was interrupted while waiting
+	 */
+	protected Permit acquirePermit() throws InterruptedIOException {
+		return acquirePermit(AdaptiveLimiter.DEFAULT_OPERATION);
+	}
+	
+	
+	/**
+	 * Wait for a place under the limit of concurrent requests (see {@link #setConcurrencyLimiter(AdaptiveLimiter)}).
+	 * 
+	 * @param operation - operation class of the request, see {@link AdaptiveLimiter#acquire(String)}
+	 * 
+	 * @return {@link Permit} or {@code null} if there is no limiter
+	 * @throws InterruptedIOException if the thread was interrupted while waiting
+	 */
+	protected Permit acquirePermit(String operation) throws InterruptedIOException {
+		
+		final AdaptiveLimiter limiter = this.concurrencyLimiter;
+		if (limiter == null) {
+			return null;
+		}
+		try {
+			return limiter.acquire(operation);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted by waiting for a place under the limit of concurrent requests");
+		}
+	}
+	
+	
+	/**
+	 * Release the permit of a SWORD request with its result: SWORD errors are evaluated with their status code, 
+	 * IO errors (e.g. timeouts) mean overload.
+	 * 
+	 * @param permit - {@link Permit} or {@code null}
+	 * @param response - {@link SwordResponse} or {@code null} if the request has no response object
+	 * @param error - exception of the request or {@code null} in case of success
+	 * @param measureLatency - {@code false} if the latency depends on the size of the request (e.g. file upload)
+	 */
+	protected static void releasePermit(Permit permit, SwordResponse response, Exception error, boolean measureLatency) {
+		
+		if (permit == null) {
+			return;
+		}
+		if (error instanceof CancelledException) {
+			permit.releaseIgnore();
+		} else if (error instanceof SWORDError) {
+			permit.release(((SWORDError) error).getStatus(), measureLatency);
+		} else if ((error instanceof IOException) || (error instanceof SWORDClientException)) {
+			permit.releaseOverload();
+		} else if (error != null) {
+			permit.releaseIgnore();
+		} else {
+			permit.release((response != null) ? response.getStatusCode() : HttpStatus.SC_OK, measureLatency);
+		}
+	}
+	
+	
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * DSpaceSwordOnly: the request is limited via {@link #setConcurrencyLimiter(AdaptiveLimiter)}. 
+	 * The export could be cancelled via {@link CancellationToken}, in this case {@link CancelledException} is thrown.
+	 */
+	@Override
+	protected SwordResponse exportElement(String url, SwordRequestType swordRequestType, String mimeFormat, String packageFormat, 
+			File file, Map<String, List<String>> metadataMap, boolean inProgress) 
+					throws IOException, SWORDClientException, SWORDError, ProtocolViolationException {
+		
+		CancellationToken.throwIfCurrentCancelled();
+		final Permit permit = acquirePermit();
+		try {
+			final SwordResponse response;
+			if ((file != null) && (metadataMap == null) && (swordRequestType == SwordRequestType.DEPOSIT) 
+					&& ((this.uploadProgressListener != null) || (CancellationToken.current() != null))) {
+				response = depositFile(url, mimeFormat, packageFormat, file, inProgress, this.uploadProgressListener);
+			} else {
+				response = super.exportElement(url, swordRequestType, mimeFormat, packageFormat, file, metadataMap, inProgress);
+			}
+			releasePermit(permit, response, null, file == null);
+			return response;
+		} catch (IOException | SWORDClientException | SWORDError | ProtocolViolationException | RuntimeException e) {
+			if (isCurrentOperationCancelled()) {
+				// e.g. SWORD client exception, which wraps the failed read of the uploaded stream
+				CancelledException cancelled;
+				if (e instanceof CancelledException) {
+					cancelled = (CancelledException) e;
+				} else {
+					cancelled = new CancelledException("Export to " + url + " was cancelled");
+					cancelled.initCause(e);
+				}
+				releasePermit(permit, null, cancelled, file == null);
+				throw cancelled;
+			}
+			releasePermit(permit, null, e, file == null);
+			throw e;
+		}
+	}
+	
+	
+	/**
+	 * Deposit a file, the upload is reported to the listener (see {@link #setUploadProgressListener(UploadProgressListener)}) 
+	 * and could be cancelled via {@link CancellationToken} (see {@link CancellableInputStream}). 
+	 * The size of the file is sent as content length, so that the file is streamed and not buffered by the SWORD client.
+	 * 
+	 * @param url - collection URL (with "collection" substring inside)
+	 * @param mimeFormat - MIME format of the file
+	 * @param packageFormat - package format of the file
+	 * @param file - file to deposit
+	 * @param inProgress - value of the "In-Progress" header
+	 * @param listener - listener of the upload or {@code null}
+	 * 
+	 * @return {@link DepositReceipt}
+	 * 
+	 * @throws IOException in case of IO error
+	 * @throws SWORDClientException in case of SWORD error
+	 * @throws SWORDError in case of SWORD error
+	 * @throws ProtocolViolationException in case of SWORD error
+	 */
+	protected SwordResponse depositFile(String url, String mimeFormat, String packageFormat, File file, 
+			boolean inProgress, UploadProgressListener listener) 
+					throws IOException, SWORDClientException, SWORDError, ProtocolViolationException {
+		
+		return depositFile(url, mimeFormat, packageFormat, file, null, inProgress, listener);
+	}
+	
+	
+	/**
+	 * Deposit a file, optionally together with the metadata as multipart request (see {@link DepositMode#MULTIPART}), 
+	 * see {@link #depositFile(String, String, String, File, boolean, UploadProgressListener)}.
+	 * 
+	 * @param url - collection URL (with "collection" substring inside)
+	 * @param mimeFormat - MIME format of the file
+	 * @param packageFormat - package format of the file
+	 * @param file - file to deposit
+	 * @param entryPart - metadata as {@link EntryPart} or {@code null} to deposit only the file
+	 * @param inProgress - value of the "In-Progress" header
+	 * @param listener - listener of the upload or {@code null}
+	 * 
+	 * @return {@link DepositReceipt}
+	 * 
+	 * @throws IOException in case of IO error
+	 * @throws SWORDClientException in case of SWORD error
+	 * @throws SWORDError in case of SWORD error
+	 * @throws ProtocolViolationException in case of SWORD error
+	 */
+	protected SwordResponse depositFile(String url, String mimeFormat, String packageFormat, File file, EntryPart entryPart,
+			boolean inProgress, UploadProgressListener listener) 
+					throws IOException, SWORDClientException, SWORDError, ProtocolViolationException {
+		
+		final InputStream in = openUploadStream(url, file, listener);
+		try {
+			final Deposit deposit = new Deposit();
+			deposit.setEntryPart(entryPart);
+			deposit.setFile(in);
+			deposit.setContentLength(file.length());
+			deposit.setFilename(file.getName());
+			deposit.setMimeType(mimeFormat);
+			deposit.setPackaging(packageFormat);
+			deposit.setInProgress(inProgress);
+			return super.getSwordClient().deposit(url, deposit, super.getAuthCredentials());
+		} finally {
+			in.close();
+		}
+	}
+	
+	
+	/**
+	 * Open the file for the upload: the upload is reported to the listener and stops after the cancellation 
+	 * via {@link CancellationToken} of the current thread (see {@link CancellableInputStream}).
+	 * 
+	 * @param url - URL of the upload, for the reports
+	 * @param file - file to upload
+	 * @param listener - listener of the upload or {@code null}
+	 * 
+	 * @return {@link InputStream} of the file
+	 * 
+	 * @throws IOException in case of IO error
+	 */
+	protected InputStream openUploadStream(String url, File file, UploadProgressListener listener) throws IOException {
+		
+		final long totalBytes = file.length();
+		InputStream in = new FileInputStream(file);
+		if (listener != null) {
+			in = new ProgressInputStream(in, url, file.getName(), totalBytes, listener, 
+					this.uploadProgressIntervalMillis, TimeUnit.MILLISECONDS);
+		}
+		final CancellationToken token = CancellationToken.current();
+		if (token != null) {
+			in = new CancellableInputStream(in, token, totalBytes);
+		}
+		return in;
+	}
+	
+	
+	/**
+	 * @return {@code true} if the operation of the current thread was cancelled via {@link CancellationToken}
+	 */
+	protected static boolean isCurrentOperationCancelled() {
+		final CancellationToken token = CancellationToken.current();
+		return (token != null) && token.isCancelled();
+	}
+	
+	
+	/**
+	 * Check the cancellation between the file deposit (1st step) and the metadata (2nd step) 
+	 * of the export with file and metadata.
+	 * 
+	 * @param editLink - edit URL of the entry, which was created by the file deposit
+	 * 
+	 * @throws CancelledException with the edit URL, if the operation was cancelled
+	 */
+	protected static void throwIfCancelledAfterDeposit(String editLink) throws CancelledException {
+		if (isCurrentOperationCancelled()) {
+			throw new CancelledException("Export was cancelled after the file deposit, "
+					+ "the entry is in the workspace without the new metadata: " + editLink, editLink);
+		}
+	}
+	
+	
+	/**
+	 * Set the listener of the file uploads (e.g. {@link #exportNewEntryWithFile(String, File, boolean)}), 
+	 * which reports the sent bytes, throughput and the estimated remaining time (see {@link ProgressInputStream}).
+	 * The listener is called in the thread of the upload.
+	 * 
+	 * @param uploadProgressListener - object of {@link UploadProgressListener} or {@code null} to switch off the reports
+	 */
+	public void setUploadProgressListener(UploadProgressListener uploadProgressListener) {
+		this.uploadProgressListener = uploadProgressListener;
+	}
+	
+	public UploadProgressListener getUploadProgressListener() {
+		return this.uploadProgressListener;
+	}
+	
+	
+	/**
+	 * Set the minimal time between the reports of the upload progress. 
+	 * Default value is {@link ProgressInputStream#DEFAULT_INTERVAL_MILLIS} milliseconds.
+	 * 
+	 * @param interval - interval, must be at least 0
+	 * @param unit - time unit of the interval
+	 */
+	public void setUploadProgressInterval(long interval, TimeUnit unit) {
+		if (interval < 0) {
+			throw new IllegalArgumentException("Interval must not be negative: " + interval);
+		}
+		this.uploadProgressIntervalMillis = unit.toMillis(interval);
+	}
+	
+	public long getUploadProgressInterval(TimeUnit unit) {
+		return unit.convert(this.uploadProgressIntervalMillis, TimeUnit.MILLISECONDS);
+	}
+	
+	
+	/**
+	 * Set the index of already deposited files. If the index is set, the content hash of every file 
+	 * is checked before the upload, and the same file is not uploaded again to the same collection 
+	 * (see {@link #setDuplicateStrategy(DuplicateStrategy)}).
+	 * 
+	 * @param depositIndex - object of {@link DepositIndex} or {@code null} to switch off the check
+	 */
+	public void setDepositIndex(DepositIndex depositIndex) {
+		this.depositIndex = depositIndex;
+	}
+	
+	public DepositIndex getDepositIndex() {
+		return this.depositIndex;
+	}
+	
+	
+	/**
+	 * Set the behavior for files, which were already deposited to the same collection 
+	 * (only if the deposit index is set, see {@link #setDepositIndex(DepositIndex)}).
+	 * 
+	 * @param duplicateStrategy - object of {@link DuplicateStrategy}
+	 */
+	public void setDuplicateStrategy(DuplicateStrategy duplicateStrategy) {
+		requireNonNull(duplicateStrategy);
+		this.duplicateStrategy = duplicateStrategy;
+	}
+	
+	public DuplicateStrategy getDuplicateStrategy() {
+		return this.duplicateStrategy;
+	}
+	
+	
+	/**
+	 * Set the mode of the export with file and metadata (e.g. {@link #createEntryWithMetadataAndFile(String, MetadataRecord, File, boolean, boolean)}): 
+	 * 2 requests (default), a single request with a DSpace METS SIP or a multipart request, 
+	 * or detection of the mode via the service document of the collection (see {@link DepositMode}).
+	 * 
+	 * @param depositMode - object of {@link DepositMode}
+	 */
+	public void setDepositMode(DepositMode depositMode) {
+		requireNonNull(depositMode);
+		this.depositMode = depositMode;
+	}
+	
+	public DepositMode getDepositMode() {
+		return this.depositMode;
+	}
+	
+	
+	/**
+	 * Get the deposit mode for the collection. With {@link DepositMode#AUTO} the mode is detected via the 
+	 * accepted packages of the collection in the service document: METS SIP is preferred, then multipart request, 
+	 * otherwise 2 requests. If the collection is not in the service document itself (e.g. with "expose-communities"), 
+	 * the sub-service documents are searched. The detected mode is cached until the structure caches are invalidated, 
+	 * collections, which are not found, are deposited with 2 requests and searched again by the next call.
+	 * 
+	 * @param collectionURL - collection URL
+	 * 
+	 * @return {@link DepositMode}, never {@link DepositMode#AUTO}
+	 */
+	protected DepositMode getDepositMode(String collectionURL) {
+		
+		final DepositMode mode = this.depositMode;
+		if (mode != DepositMode.AUTO) {
+			return mode;
+		}
+		DepositMode detectedMode = this.detectedDepositModes.get(collectionURL);
+		if (detectedMode != null) {
+			return detectedMode;
+		}
+		
+		final ServiceDocument serviceDocument = getServiceDocument();
+		if (serviceDocument == null) {
+			return DepositMode.TWO_STEP; // not cached, service document could be available later
+		}
+		final List<String> subserviceURLs = new ArrayList<String>();
+		for (SWORDWorkspace workspace : serviceDocument.getWorkspaces()) {
+			for (SWORDCollection collection : workspace.getCollections()) {
+				if (collectionURL.equals(collection.getHref().toString())) {
+					detectedMode = getDepositMode(collection.getAcceptPackaging(), isMultipartAccepted(collection));
+				}
+				subserviceURLs.addAll(collection.getSubServices());
+			}
+		}
+		if (detectedMode == null) {
+			detectedMode = findDepositMode(collectionURL, subserviceURLs);
+		}
+		if (detectedMode == null) {
+			log.warn("Collection {} is not found in the service document, deposit with 2 requests", collectionURL);
+			return DepositMode.TWO_STEP; // not cached, collection could be added later
+		}
+		log.debug("Deposit mode for the collection {}: {}", collectionURL, detectedMode);
+		this.detectedDepositModes.put(collectionURL, detectedMode);
+		return detectedMode;
+	}
+	
+	
+	/**
+	 * Search the collection in the sub-service documents (communities) and their sub-services, 
+	 * every document is read via streaming until the collection is found.
+	 * 
+	 * @param collectionURL - collection URL
+	 * @param subserviceURLs - URLs of the sub-service documents to search
+	 * 
+	 * @return {@link DepositMode} of the collection or {@code null} if it is not found
+	 */
+	private DepositMode findDepositMode(final String collectionURL, List<String> subserviceURLs) {
+		
+		final AtomicReference<DepositMode> detectedMode = new AtomicReference<DepositMode>();
+		final Deque<String> queue = new ArrayDeque<String>(subserviceURLs);
+		final Set<String> visited = new HashSet<String>(subserviceURLs);
+		while (!queue.isEmpty() && (detectedMode.get() == null)) {
+			visitServiceDocument(queue.poll(), new Visitor() {
+				@Override
+				public boolean visit(Entry entry) {
+					if (entry.isSubservice()) {
+						if (visited.add(entry.getServiceURL())) {
+							queue.add(entry.getServiceURL());
+						}
+						return true;
+					}
+					if (collectionURL.equals(entry.getHref())) {
+						detectedMode.set(getDepositMode(entry.getAcceptPackaging(), entry.isMultipartAccepted()));
+						return false;
+					}
+					return true;
+				}
+			});
+		}
+		return detectedMode.get();
+	}
+	
+	
+	private static DepositMode getDepositMode(List<String> acceptPackaging, boolean multipartAccepted) {
+		if (acceptPackaging.contains(MetsPackageWriter.PACKAGE_METS_DSPACE_SIP)) {
+			return DepositMode.METS_SIP;
+		} else if (multipartAccepted) {
+			return DepositMode.MULTIPART;
+		}
+		return DepositMode.TWO_STEP;
+	}
+	
+	
+	/**
+	 * Check if the collection declares multipart requests explicitly (accept element with alternate="multipart-related").
+	 * {@link SWORDCollection#getMultipartAccept()} can not be used, it returns the Atom entry as default value.
+	 */
+	private static boolean isMultipartAccepted(SWORDCollection collection) {
+		for (Element element : collection.getCollection().getElements()) {
+			if ("accept".equals(element.getQName().getLocalPart()) 
+					&& UriRegistry.APP_NAMESPACE.equals(element.getQName().getNamespaceURI())
+					&& "multipart-related".equals(element.getAttributeValue("alternate"))) {
+				return true;
+			}
+		}
+		return false;
+	}
+	
+	
+	/**
+	 * Find the entry, which was created with the same file in the same collection, via the deposit index.
+	 * The entry is checked in the repository: if it does not exist anymore (e.g. it was deleted or rejected), 
+	 * it is removed from the index and the file is deposited again. With {@link DuplicateStrategy#REJECT_DUPLICATE} 
+	 * an existing entry is reported via {@link DuplicateDepositException}, the same way for all deposit methods.
+	 * 
+	 * @param contentHash - content hash of the file (see {@link DepositIndex#hashFile(File)}) or {@code null} if index is not used
+	 * @param collectionURL - collection URL as {@link String}
+	 * @param packageFormat - package format of the deposit as {@link String}
+	 * 
+	 * @return {@link String} with the edit URL of the existing entry or {@code null} if the file should be deposited
+	 * 
+	 * @throws DuplicateDepositException if the entry exists and the strategy is {@link DuplicateStrategy#REJECT_DUPLICATE}
+	 * @throws IOException in case of IO error of the index
+	 */
+	protected String findDuplicateDeposit(byte[] contentHash, String collectionURL, String packageFormat) throws IOException {
+		
+		if ((contentHash == null) || (this.depositIndex == null) || (this.duplicateStrategy == DuplicateStrategy.DEPOSIT_AGAIN)) {
+			return null;
+		}
+		final String target = collectionURL + " " + packageFormat;
+		String editURL = this.depositIndex.get(contentHash, target);
+		if (editURL == null) {
+			return null;
+		}
+		if (!isEntryAvailable(editURL)) {
+			log.info("Entry of the deposit index does not exist anymore, file will be deposited again: {}", editURL);
+			this.depositIndex.remove(contentHash, target);
+			return null;
+		}
+		log.info("File was already deposited to the collection {}, existing entry: {}", collectionURL, editURL);
+		if (this.duplicateStrategy == DuplicateStrategy.REJECT_DUPLICATE) {
+			throw new DuplicateDepositException("File was already deposited to the collection " + collectionURL 
+					+ ": " + editURL, editURL);
+		}
+		return editURL;
+	}
+	
+	
+	/**
+	 * Check if the entry still exists in the repository via the deposit receipt (GET request on the edit URL).
+	 * Only the status 404 (not found) and 410 (gone) mean, that the entry does not exist. 
+	 * In case of other errors the entry is assumed to exist, to avoid duplicates because of temporary errors.
+	 * 
+	 * @param editURL - edit URL of the entry as {@link String}
+	 * 
+	 * @return {@code false} if the repository reports, that the entry does not exist, otherwise {@code true}
+	 * 
+	 * @throws InterruptedIOException if the thread was interrupted while waiting for the request
+	 */
+	protected boolean isEntryAvailable(String editURL) throws InterruptedIOException {
+		
+		final Permit permit = acquirePermit();
+		try {
+			super.getSwordClient().getDepositReceipt(editURL, super.getAuthCredentials());
+			releasePermit(permit, null, null, true);
+			return true;
+		} catch (SWORDError e) {
+			releasePermit(permit, null, e, true);
+			if ((e.getStatus() == HttpStatus.SC_NOT_FOUND) || (e.getStatus() == HttpStatus.SC_GONE)) {
+				return false;
+			}
+			log.warn("Entry of the deposit index could not be checked: {}: status {}", editURL, e.getStatus());
+			return true;
+		} catch (SWORDClientException | ProtocolViolationException | RuntimeException e) {
+			releasePermit(permit, null, e, true);
+			log.warn("Entry of the deposit index could not be checked: {}: {}: {}", editURL, e.getClass().getSimpleName(), e.getMessage());
+			return true;
+		}
+	}
+	
+	
+	/**
+	 * Add the new entry to the deposit index. Errors of the index are only logged, the deposit is done anyway. 
+	 * 
+	 * @param contentHash - content hash of the file (see {@link DepositIndex#hashFile(File)}) or {@code null} if index is not used
+	 * @param collectionURL - collection URL as {@link String}
+	 * @param packageFormat - package format of the deposit as {@link String}
+	 * @param editURL - edit URL of the new entry as {@link String}
+	 */
+	protected void registerDeposit(byte[] contentHash, String collectionURL, String packageFormat, String editURL) {
+		
+		if ((contentHash == null) || (this.depositIndex == null) || (editURL == null)) {
+			return;
+		}
+		try {
+			this.depositIndex.put(contentHash, collectionURL + " " + packageFormat, editURL);
+		} catch (IOException e) {
+			log.error("Exception by adding the entry {} to the deposit index: {}: {}", editURL, e.getClass().getSimpleName(), e.getMessage());
+		}
+	}
+	
+	
+	/**
+	 * Calculate the content hash of the file, only if the deposit index is used.
+	 * 
+	 * @param file - file to deposit
+	 * 
+	 * @return content hash or {@code null} if the deposit index is not used
+	 * 
+	 * @throws IOException in case of IO error
+	 */
+	protected byte[] hashForDepositIndex(File file) throws IOException {
+		if ((this.depositIndex == null) || (this.duplicateStrategy == DuplicateStrategy.DEPOSIT_AGAIN)) {
+			return null;
+		}
+		return DepositIndex.hashFile(file);
+	}
+
+	
+	/**
+	 * Export metadata only to some already existed entry (via edit-URL, {@link SwordRequestType}) or create a Private method which can use different request types. See
+	 * {@link SwordRequestType}.
+	 * 
+	 * @param url - collection URL (with "collection" substring inside) or item URL (with "edit" substring inside)
+	 * 				where to to export (or edit) metadata 
+	 * @param metadataMap - metadata as a Map
+	 * @param swordRequestType - object of {@link SwordRequestType}
+	 * @param inProgress {@code boolean} value for the "In-Progress" header 
+	 * 		  <p>
+	 * 	      For DSpace "In-Progress: true" means, that export will be done at first to the user's workspace, 
+	 *        where further editing of the exported element is possible. And "In-Progress: false" means export directly 
+	 *        to the workflow, without a possibility of further editing.
+	 *
+	 * @return {@link String} with the URL to edit the entry (with "edit" substring inside)
+	 * 
+	 * @throws IOException in case of IO error
+	 * @throws SWORDClientException in case of SWORD error
+	 * @throws SWORDError in case of SWORD error
+	 * @throws ProtocolViolationException in case of SWORD error
+	 */
+	protected String exportMetadataAsMap(String url, Map<String, List<String>> metadataMap,
+			SwordRequestType swordRequestType, boolean inProgress)throws IOException, SWORDClientException, SWORDError, ProtocolViolationException {
+		
+		if (this.streamingMetadataWriter) {
+			return exportMetadataAsRecord(url, MetadataRecord.fromMap(metadataMap), swordRequestType, inProgress);
+		}
+		SwordResponse response = exportElement(url, swordRequestType, SwordExporter.MIME_FORMAT_ATOM_XML, 
+				UriRegistry.PACKAGE_BINARY, null, metadataMap, inProgress);
+		return getEditURL(response, url);
 	}
 	
-	public String getServiceDocumentURL() {
-		return this.serviceDocumentURL;
-	}
-
 	
 	/**
-	 * Export metadata only to some already existed entry (via edit-URL, {@link SwordRequestType}) or create a Private method which can use different request types. See
-	 * {@link SwordRequestType}.
+	 * Export metadata as {@link MetadataRecord}, see {@link #exportMetadataAsMap(String, Map, SwordRequestType, boolean)}.
 	 * 
 	 * @param url - collection URL (with "collection" substring inside) or item URL (with "edit" substring inside)
 	 * 				where to to export (or edit) metadata 
-	 * @param metadataMap - metadata as a Map
+	 * @param metadataRecord - metadata as {@link MetadataRecord}
 	 * @param swordRequestType - object of {@link SwordRequestType}
 	 * @param inProgress {@code boolean} value for the "In-Progress" header 
-	 * 		  <p>
-	 * 	      For DSpace "In-Progress: true" means, that export will be done at first to the user's workspace, 
-	 *        where further editing of the exported element is possible. And "In-Progress: false" means export directly 
-	 *        to the workflow, without a possibility of further editing.
 	 *
 	 * @return {@link String} with the URL to edit the entry (with "edit" substring inside)
 	 * 
@@ -152,11 +1540,35 @@ public class DSpaceSwordOnly extends SwordExporter implements DSpaceRepository {
 	 * @throws SWORDError in case of SWORD error
 	 * @throws ProtocolViolationException in case of SWORD error
 	 */
-	protected String exportMetadataAsMap(String url, Map<String, List<String>> metadataMap,
+	protected String exportMetadataAsRecord(String url, MetadataRecord metadataRecord,
 			SwordRequestType swordRequestType, boolean inProgress)throws IOException, SWORDClientException, SWORDError, ProtocolViolationException {
 
-		SwordResponse response = super.exportElement(url, swordRequestType, SwordExporter.MIME_FORMAT_ATOM_XML, 
-				UriRegistry.PACKAGE_BINARY, null, metadataMap, inProgress);
+		if (!this.streamingMetadataWriter) {
+			return exportMetadataAsMap(url, metadataRecord.asMap(), swordRequestType, inProgress);
+		}
+		
+		SwordResponse response;
+		final Permit permit = acquirePermit();
+		try {
+			response = SwordRequests.sendAtomEntry(getHttpClient(), url, swordRequestType, metadataRecord, inProgress, super.getAuthCredentials());
+			releasePermit(permit, response, null, true);
+		} catch (IOException | SWORDError | RuntimeException e) {
+			releasePermit(permit, null, e, true);
+			throw e;
+		}
+		return getEditURL(response, url);
+	}
+	
+	
+	/**
+	 * Get the URL to edit the entry from the response of a metadata export.
+	 * 
+	 * @param response - {@link SwordResponse} of the request
+	 * @param url - URL of the request
+	 * 
+	 * @return {@link String} with the URL to edit the entry (with "edit" substring inside)
+	 */
+	private static String getEditURL(SwordResponse response, String url) {
 		
 		if(response instanceof DepositReceipt) {
 			return ((DepositReceipt)response).getEditLink().getHref(); //response from DEPOSIT request
@@ -209,7 +1621,7 @@ public class DSpaceSwordOnly extends SwordExporter implements DSpaceRepository {
 
 		String mimeFormat = SwordExporter.MIME_FORMAT_ATOM_XML;
 		String packageFormat = super.getPackageFormat(metadataFileXML.getName());
-		SwordResponse response = super.exportElement(url, swordRequestType, mimeFormat, packageFormat, metadataFileXML, null, inProgress);
+		SwordResponse response = exportElement(url, swordRequestType, mimeFormat, packageFormat, metadataFileXML, null, inProgress);
 		
 		if(response instanceof DepositReceipt) {
 			return ((DepositReceipt)response).getEditLink().getHref(); //response from DEPOSIT request
@@ -247,6 +1659,7 @@ public class DSpaceSwordOnly extends SwordExporter implements DSpaceRepository {
 	 *
 	 * @return {@link String} with the URL of the new created entry or {@code null} in case of error.	
 	 *
+	 * @throws DuplicateDepositException if the file was already deposited and {@link DuplicateStrategy#REJECT_DUPLICATE} is used
 	 * @throws IOException in case of IO error
 	 */
 	public String exportNewEntryWithFile(String collectionURL, File file, boolean unpackFileIfArchive) throws IOException {
@@ -258,10 +1671,19 @@ public class DSpaceSwordOnly extends SwordExporter implements DSpaceRepository {
 		String mimeFormat = SwordExporter.MIME_FORMAT_ZIP; // for every file type, to publish even "XML" files as a normal file
 		String packageFormat = SwordExporter.getPackageFormat(file.getName(), unpackFileIfArchive); // unpack zip-archive or export as a binary 
 		
+		// Check if the same file was already deposited
+		byte[] contentHash = hashForDepositIndex(file);
+		String existingEntry = findDuplicateDeposit(contentHash, collectionURL, packageFormat);
+		if (existingEntry != null) {
+			return existingEntry;
+		}
+		
 		try {
-			SwordResponse response = super.exportElement(collectionURL, SwordRequestType.DEPOSIT, mimeFormat, packageFormat, file, null, true); //use "In-Progress: true" implicitly
+			SwordResponse response = exportElement(collectionURL, SwordRequestType.DEPOSIT, mimeFormat, packageFormat, file, null, true); //use "In-Progress: true" implicitly
 			if(response instanceof DepositReceipt) {
-				return ((DepositReceipt)response).getEditLink().getHref(); // "edit" URL from the DEPOSIT receipt
+				String editLink = ((DepositReceipt)response).getEditLink().getHref(); // "edit" URL from the DEPOSIT receipt
+				registerDeposit(contentHash, collectionURL, packageFormat, editLink);
+				return editLink;
 			} else {
 				return null; // for current moment we should receipt a DepositReceipt object. If not, that something went wrong. 
 			}
@@ -330,6 +1752,11 @@ public class DSpaceSwordOnly extends SwordExporter implements DSpaceRepository {
 	 * <p>
 	 * For DSpace: export will be realized in 2 steps: 1 - export a file (create a new entry), 
 	 * 2 - add metadata via PUT request.
+	 * <p>
+	 * The export could be cancelled via {@link CancellationToken}: during the file upload nothing is created, 
+	 * after the file deposit the entry stays in the workspace ("In-Progress: true") and its edit URL is provided 
+	 * via {@link CancelledException#getEditLink()}, so that the metadata could be added later 
+	 * (with the deposit index the same call only adds the metadata, see {@link #setDepositIndex(DepositIndex)}).
 	 * 
 	 * @param collectionURL holds the collection URL where items will be exported to, usually has "collection" substring inside
 	 * @param metadataFileXml holds the metadata which is necessary for the ingest
@@ -353,6 +1780,7 @@ public class DSpaceSwordOnly extends SwordExporter implements DSpaceRepository {
 	 * 		<b>IMPORTANT for DSpace repository:</b> further update/extension of the media part (e.g. uploaded files)
 	 * 		via SWORD is not supported, only update of the metadata is allowed.
 	 *
+	 * @throws DuplicateDepositException if the file was already deposited and {@link DuplicateStrategy#REJECT_DUPLICATE} is used
 	 * @throws IOException in case of IO error
 	 * @throws SWORDClientException in case of SWORD error
 	 */
@@ -367,11 +1795,19 @@ public class DSpaceSwordOnly extends SwordExporter implements DSpaceRepository {
 		String mimeFormat = SwordExporter.MIME_FORMAT_ZIP; // as a common file (even for XML-file)
 		String packageFormat = SwordExporter.getPackageFormat(file.getName(), unpackZip);
 
+		// Check if the same file was already deposited, in this case only the metadata will be replaced
+		byte[] contentHash = hashForDepositIndex(file);
+		String existingEntry = findDuplicateDeposit(contentHash, collectionURL, packageFormat);
+
 		try {
 			// Step 1: export file (as file or archive), without metadata
-			SwordResponse response = super.exportElement(collectionURL, SwordRequestType.DEPOSIT, mimeFormat, 
-					packageFormat, file, null, true); // "POST" request (DEPOSIT). Use "In-Progress: true" explicitly, to avoid unwanted publication already on the 1st step
-			String editLink = response.getLocation();
+			String editLink = existingEntry;
+			if (editLink == null) {
+				SwordResponse response = exportElement(collectionURL, SwordRequestType.DEPOSIT, mimeFormat, 
+						packageFormat, file, null, true); // "POST" request (DEPOSIT). Use "In-Progress: true" explicitly, to avoid unwanted publication already on the 1st step
+				editLink = response.getLocation();
+				registerDeposit(contentHash, collectionURL, packageFormat, editLink);
+			}
 			if (editLink == null) {
 				throw new SWORDClientException("Error by exporting file and metadta as xml-file: "
 						+ "after the file export the item URL for editing (as a response) is null. "
@@ -381,7 +1817,14 @@ public class DSpaceSwordOnly extends SwordExporter implements DSpaceRepository {
 			// Step 2: add metadata (as a XML-file)
 			//
 			// "PUT" request (REPLACE) is used to overwrite some previous automatically generated metadata
-			return exportMetadataAsFile(editLink, metadataFileXml, SwordRequestType.REPLACE, inProgress);
+			// Cancellation from here on leaves the entry in the workspace, the edit URL is provided with the exception
+			throwIfCancelledAfterDeposit(editLink);
+			try {
+				return exportMetadataAsFile(editLink, metadataFileXml, SwordRequestType.REPLACE, inProgress);
+			} catch (CancelledException e) {
+				throwIfCancelledAfterDeposit(editLink);
+				throw e;
+			}
 	
 			// NOTE: if replace order (step 1: export metadata, step 2: export file) --> Bad request, ERROR 400
 			
@@ -415,11 +1858,26 @@ public class DSpaceSwordOnly extends SwordExporter implements DSpaceRepository {
 		
 		Map<String, String> entriesMap = new HashMap<String, String>();
 		
+		final Permit permit;
+		try {
+			permit = acquirePermit(OPERATION_COLLECTION_CONTENT);
+		} catch (InterruptedIOException e) {
+			log.error("Interrupted by waiting for the request: {}", collectionUrl);
+			return null;
+		}
+		
 		try {
 			// Get request on collectionUrl, same as via "curl" 
 			// -> curl -i $collectionUrl --user "$USER_MAIL:$USER_PASSWORD"
-			Content content = super.getSwordClient().getContent(collectionUrl, SwordExporter.MIME_FORMAT_ATOM_XML, 
-					UriRegistry.PACKAGE_SIMPLE_ZIP, super.getAuthCredentials());
+			Content content;
+			try {
+				content = super.getSwordClient().getContent(collectionUrl, SwordExporter.MIME_FORMAT_ATOM_XML, 
+						UriRegistry.PACKAGE_SIMPLE_ZIP, super.getAuthCredentials());
+				releasePermit(permit, null, null, true);
+			} catch (SWORDClientException | ProtocolViolationException | SWORDError | RuntimeException e) {
+				releasePermit(permit, null, e, true);
+				throw e;
+			}
 			try {
 				String response = IOUtils.readStream(content.getInputStream());
 				
@@ -470,12 +1928,43 @@ public class DSpaceSwordOnly extends SwordExporter implements DSpaceRepository {
 		}
 	}
 	
+	
+	/**
+	 * Create a new entry with metadata as {@link MetadataRecord}, 
+	 * see {@link #createEntryWithMetadata(String, Map, boolean)}.
+	 * 
+	 * @param collectionURL - collection URL (with "collection" substring inside)
+	 * @param metadataRecord - metadata as {@link MetadataRecord}
+	 * @param inProgress - value of the "In-Progress" header
+	 * 
+	 * @return {@link String} with the URL to edit the entry (with "edit" substring inside)
+	 * 
+	 * @throws SWORDClientException in case of error
+	 */
+	public String createEntryWithMetadata(String collectionURL, MetadataRecord metadataRecord, boolean inProgress) 
+			throws SWORDClientException {
+		
+		requireNonNull(collectionURL);
+		requireNonNull(metadataRecord);
+		
+		try {			
+			return exportMetadataAsRecord(collectionURL, metadataRecord, SwordRequestType.DEPOSIT, inProgress);			
+		} catch (IOException | ProtocolViolationException | SWORDError e) {
+			throw new SWORDClientException("Exception by export metadta as Map: " + e.getClass().getSimpleName() + ": " + e.getMessage());
+		}
+	}
+	
 		
 	/**
 	 * {@inheritDoc}
 	 * <p>
 	 * DSpace: export will be realized in 2 steps: 1 - export a file (create a new entry), 
 	 * 2 - add metadata via PUT request.
+	 * <p>
+	 * The export could be cancelled via {@link CancellationToken}: during the file upload nothing is created, 
+	 * after the file deposit the entry stays in the workspace ("In-Progress: true") and its edit URL is provided 
+	 * via {@link CancelledException#getEditLink()}, so that the metadata could be added later 
+	 * (with the deposit index the same call only adds the metadata, see {@link #setDepositIndex(DepositIndex)}).
 	 */
 	@Override
 	public String createEntryWithMetadataAndFile(String collectionURL, Map<String, List<String>> metadataMap, File file, boolean unpackZip, boolean inProgress)
@@ -483,36 +1972,344 @@ public class DSpaceSwordOnly extends SwordExporter implements DSpaceRepository {
 		
 		requireNonNull(collectionURL);
 		requireNonNull(file);
-		requireNonNull(unpackZip);
 		requireNonNull(metadataMap);
+		
+		if (this.streamingMetadataWriter || (getDepositMode(collectionURL) != DepositMode.TWO_STEP)) {
+			return createEntryWithMetadataAndFile(collectionURL, MetadataRecord.fromMap(metadataMap), file, unpackZip, inProgress);
+		}
+		
+		// Step 1: export file (as file or archive), without metadata
+		String editLink = depositFileForEntry(collectionURL, file, unpackZip);
+		
+		// Step 2: add metadata, the Map is used directly by the SWORD client library
+		return replaceMetadataAfterDeposit(editLink, metadataMap, inProgress);
+	}
+	
+	
+	/**
+	 * Create a new entry with a file and metadata as {@link MetadataRecord}, 
+	 * see {@link #createEntryWithMetadataAndFile(String, Map, File, boolean, boolean)}.
+	 * 
+	 * @param collectionURL - collection URL (with "collection" substring inside)
+	 * @param metadataRecord - metadata as {@link MetadataRecord}
+	 * @param file - file to export
+	 * @param unpackZip - unpack the file in the repository, if it is a ZIP archive
+	 * @param inProgress - value of the "In-Progress" header
+	 * 
+	 * @return {@link String} with the URL to edit the entry (with "edit" substring inside)
+	 * 
+	 * @throws IOException in case of IO error
+	 * @throws SWORDClientException in case of error
+	 */
+	public String createEntryWithMetadataAndFile(String collectionURL, MetadataRecord metadataRecord, File file, boolean unpackZip, boolean inProgress)
+			throws IOException, SWORDClientException {
+		
+		requireNonNull(collectionURL);
+		requireNonNull(file);
+		requireNonNull(unpackZip);
+		requireNonNull(metadataRecord);
 		requireNonNull(inProgress);
 		
+		final DepositMode mode = getDepositMode(collectionURL);
+		if (mode != DepositMode.TWO_STEP) {
+			return depositFileWithMetadata(collectionURL, metadataRecord, file, unpackZip, inProgress, mode);
+		}
+		
+		// Step 1: export file (as file or archive), without metadata
+		String editLink = depositFileForEntry(collectionURL, file, unpackZip);
+		
+		// Step 2: add metadata
+		return replaceMetadataAfterDeposit(editLink, metadataRecord, inProgress);
+		
+		// NOTE: if replace order (step 1: export metadata, step 2: export file) --> Bad request, ERROR 400
+	}
+	
+	
+	/**
+	 * Create new entries with files and metadata in a batch: the metadata of an entry are added 
+	 * while the file of the next entry is uploaded (pipelined export).
+	 * <p>
+	 * The file uploads (1st step, see {@link #createEntryWithMetadataAndFile(String, MetadataRecord, File, boolean, boolean)}) 
+	 * are done one after another in the calling thread, the metadata requests (2nd step) are done in a separate thread 
+	 * with its own connections, in the order of the items. The metadata of an entry are sent always after its file deposit, 
+	 * so the round trips of the small metadata requests are hidden behind the large uploads.
+	 * <p>
+	 * An error of one item does not stop the export of the other items. After the cancellation via {@link CancellationToken} 
+	 * the remaining items are not exported, entries which are left in the workspace without the new metadata 
+	 * are reported with their edit URL and the error.
+	 * 
+	 * @param items - list of {@link DepositItem}
+	 * 
+	 * @return list of {@link DepositResult} in the order of the items
+	 */
+	public List<DepositResult> createEntriesWithMetadataAndFile(List<DepositItem> items) {
+		
+		requireNonNull(items);
+		final List<DepositResult> results = new ArrayList<DepositResult>(items.size());
+		final List<Future<DepositResult>> metadataFutures = new ArrayList<Future<DepositResult>>(items.size());
+		final ExecutorService metadataExecutor = Executors.newSingleThreadExecutor(ThreadUtils.createDaemonThreadFactory("dspace-metadata"));
+		try {
+			for (final DepositItem item : items) {
+				if (isCurrentOperationCancelled()) {
+					metadataFutures.add(null);
+					results.add(new DepositResult(item, null, "Export was cancelled"));
+					continue;
+				}
+				final String editLink;
+				try {
+					if (getDepositMode(item.getCollectionURL()) != DepositMode.TWO_STEP) {
+						// Single request, nothing to overlap
+						metadataFutures.add(null);
+						results.add(new DepositResult(item, createEntryWithMetadataAndFile(item.getCollectionURL(), 
+								item.getMetadataRecord(), item.getFile(), item.isUnpackZip(), item.isInProgress()), null));
+						continue;
+					}
+					editLink = depositFileForEntry(item.getCollectionURL(), item.getFile(), item.isUnpackZip());
+				} catch (IOException | SWORDClientException | RuntimeException e) {
+					log.error("Exception by export of the file {} to the collection {}: {}: {}", item.getFile().getName(), 
+							item.getCollectionURL(), e.getClass().getSimpleName(), e.getMessage());
+					metadataFutures.add(null);
+					results.add(new DepositResult(item, null, e.getClass().getSimpleName() + ": " + e.getMessage()));
+					continue;
+				}
+				metadataFutures.add(metadataExecutor.submit(CancellationToken.propagate(new Callable<DepositResult>() {
+					@Override
+					public DepositResult call() throws Exception {
+						return new DepositResult(item, replaceMetadataAfterDeposit(editLink, item.getMetadataRecord(), item.isInProgress()), null);
+					}
+				})));
+				results.add(new DepositResult(item, editLink, null)); // replaced by the result of the 2nd step
+			}
+			
+			// Wait for the metadata requests
+			for (int i = 0; i < results.size(); i++) {
+				final Future<DepositResult> future = metadataFutures.get(i);
+				if (future != null) {
+					results.set(i, getMetadataResult(future, results.get(i)));
+				}
+			}
+		} finally {
+			metadataExecutor.shutdownNow();
+		}
+		return results;
+	}
+	
+	
+	/**
+	 * Wait for the result of the metadata request of a batch export.
+	 * 
+	 * @param future - future of the metadata request
+	 * @param depositResult - result after the file deposit, with the edit URL of the entry
+	 * 
+	 * @return {@link DepositResult} of the complete export or with the error of the metadata request 
+	 */
+	private static DepositResult getMetadataResult(Future<DepositResult> future, DepositResult depositResult) {
+		
+		final DepositItem item = depositResult.getItem();
+		Throwable error;
+		try {
+			return future.get();
+		} catch (ExecutionException e) {
+			error = e.getCause();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			future.cancel(true);
+			error = e;
+		}
+		log.error("Exception by export of the metadata to the entry {}: {}: {}", depositResult.getEditLink(), 
+				error.getClass().getSimpleName(), error.getMessage());
+		return new DepositResult(item, depositResult.getEditLink(), error.getClass().getSimpleName() + ": " + error.getMessage());
+	}
+	
+	
+	/**
+	 * Export a file together with the metadata in a single request: as DSpace METS SIP (see {@link MetsPackageWriter}) 
+	 * or as multipart request with the Atom entry and the file. If the same file was already deposited 
+	 * to the collection (see {@link #setDepositIndex(DepositIndex)}), only the metadata of the existing entry are replaced.
+	 * 
+	 * @param collectionURL - collection URL (with "collection" substring inside)
+	 * @param metadataRecord - metadata as {@link MetadataRecord}
+	 * @param file - file to export
+	 * @param unpackZip - unpack the file in the repository, if it is a ZIP archive
+	 * @param inProgress - value of the "In-Progress" header
+	 * @param mode - {@link DepositMode#METS_SIP} or {@link DepositMode#MULTIPART}
+	 * 
+	 * @return {@link String} with the URL to edit the entry (with "edit" substring inside)
+	 * 
+	 * @throws IOException in case of IO error
+	 * @throws SWORDClientException in case of error
+	 */
+	protected String depositFileWithMetadata(String collectionURL, MetadataRecord metadataRecord, File file, boolean unpackZip, 
+			boolean inProgress, DepositMode mode) throws IOException, SWORDClientException {
+		
+		String packageFormat = SwordExporter.getPackageFormat(file.getName(), unpackZip);
+		
+		// Check if the same file was already deposited, in this case only the metadata will be replaced
+		byte[] contentHash = hashForDepositIndex(file);
+		String existingEntry = findDuplicateDeposit(contentHash, collectionURL, packageFormat);
+		if (existingEntry != null) {
+			return replaceMetadataAfterDeposit(existingEntry, metadataRecord, inProgress);
+		}
+		
+		final boolean unpack = packageFormat.equals(UriRegistry.PACKAGE_SIMPLE_ZIP);
+		final Permit permit = acquirePermit();
+		SwordResponse response;
+		try {
+			switch (mode) {
+			case METS_SIP:
+				final InputStream in = openUploadStream(collectionURL, file, this.uploadProgressListener);
+				try {
+					response = SwordRequests.sendMetsPackage(getHttpClient(), collectionURL, metadataRecord, in, file.getName(), 
+							unpack, inProgress, super.getAuthCredentials());
+				} finally {
+					in.close();
+				}
+				break;
+			case MULTIPART:
+				final EntryPart entryPart = new EntryPart();
+				for (int i = 0; i < metadataRecord.getFieldCount(); i++) {
+					final String term = AtomEntryWriter.getTerm(metadataRecord.getField(i).getKey());
+					for (String value : metadataRecord.getValues(i)) {
+						entryPart.addDublinCore(term, value);
+					}
+				}
+				response = depositFile(collectionURL, SwordExporter.MIME_FORMAT_ZIP, packageFormat, file, entryPart, 
+						inProgress, this.uploadProgressListener);
+				break;
+			default:
+				throw new IllegalArgumentException("Not a single request deposit mode: " + mode);
+			}
+			releasePermit(permit, response, null, false);
+		} catch (IOException | RuntimeException e) {
+			releasePermit(permit, null, e, false);
+			throw e;
+		} catch (SWORDClientException | SWORDError | ProtocolViolationException e) {
+			if (isCurrentOperationCancelled()) {
+				// e.g. SWORD client exception, which wraps the failed read of the uploaded stream
+				final CancelledException cancelled = new CancelledException("Export to " + collectionURL + " was cancelled");
+				cancelled.initCause(e);
+				releasePermit(permit, null, cancelled, false);
+				throw cancelled;
+			}
+			releasePermit(permit, null, e, false);
+			throw new SWORDClientException("Exception by export file and metadata as " + mode + ": " 
+					+ e.getClass().getSimpleName() + ": " + e.getMessage());
+		}
+		
+		final String editLink = response.getLocation();
+		if (editLink == null) {
+			throw new SWORDClientException("Error by export file and metadata as " + mode + ": " 
+					+ "the item URL for editing (as a response) is null.");
+		}
+		registerDeposit(contentHash, collectionURL, packageFormat, editLink);
+		return editLink;
+	}
+	
+	
+	/**
+	 * Export a file without metadata (1st step of the export with file and metadata). 
+	 * If the same file was already deposited to the collection (see {@link #setDepositIndex(DepositIndex)}), 
+	 * the existing entry is used according to the {@link DuplicateStrategy}.
+	 * 
+	 * @param collectionURL - collection URL (with "collection" substring inside)
+	 * @param file - file to export
+	 * @param unpackZip - unpack the file in the repository, if it is a ZIP archive
+	 * 
+	 * @return {@link String} with the URL to edit the entry (with "edit" substring inside)
+	 * 
+	 * @throws IOException in case of IO error
+	 * @throws SWORDClientException in case of error
+	 */
+	protected String depositFileForEntry(String collectionURL, File file, boolean unpackZip) throws IOException, SWORDClientException {
+		
 		String mimeFormat = SwordExporter.MIME_FORMAT_ZIP; // as a common file (even for XML-file)
 		String packageFormat = SwordExporter.getPackageFormat(file.getName(), unpackZip);
 		
+		// Check if the same file was already deposited, in this case only the metadata will be replaced
+		byte[] contentHash = hashForDepositIndex(file);
+		String existingEntry = findDuplicateDeposit(contentHash, collectionURL, packageFormat);
+		
 		try {
-			// Step 1: export file (as file or archive), without metadata
-			SwordResponse response = super.exportElement(collectionURL, SwordRequestType.DEPOSIT, mimeFormat, 
-					packageFormat, file, null, true); // "POST" request (DEPOSIT). Use "In-Progress: true" explicitly, to avoid unwanted publication already on the 1st step 
-			String editLink = response.getLocation();
+			String editLink = existingEntry;
+			if (editLink == null) {
+				SwordResponse response = exportElement(collectionURL, SwordRequestType.DEPOSIT, mimeFormat, 
+						packageFormat, file, null, true); // "POST" request (DEPOSIT). Use "In-Progress: true" explicitly, to avoid unwanted publication already on the 1st step 
+				editLink = response.getLocation();
+				registerDeposit(contentHash, collectionURL, packageFormat, editLink);
+			}
 			if (editLink == null) {
 				throw new SWORDClientException("Error by export file and metadta as Map: "
 						+ "after the file export the item URL for editing (as a response) is null. "
 						+ "Not possible to add metadata as the next step.");
 			}
-			
-			// Step 2: add metadata (as a Map structure)
-			//
-			//"PUT" request (REPLACE) is used to overwrite some previous automatically generated metadata
-			return exportMetadataAsMap(editLink, metadataMap, SwordRequestType.REPLACE, inProgress);
-						
-			// NOTE: if replace order (step 1: export metadata, step 2: export file) --> Bad request, ERROR 400
+			return editLink;
 			
 		} catch (ProtocolViolationException | SWORDError e) {
 			throw new SWORDClientException("Exception by export file and metadta as Map: " 
 						+ e.getClass().getSimpleName() + ": " + e.getMessage());
 		}
+	}
+	
+	
+	/**
+	 * Replace the metadata of the entry, which was created by the file deposit (2nd step of the export with file and metadata).
+	 * 
+	 * @param editLink - edit URL of the entry
+	 * @param metadataRecord - metadata as {@link MetadataRecord}
+	 * @param inProgress - value of the "In-Progress" header
+	 * 
+	 * @return {@link String} with the URL to edit the entry (with "edit" substring inside)
+	 * 
+	 * @throws IOException in case of IO error, {@link CancelledException} with the edit URL after the cancellation
+	 * @throws SWORDClientException in case of error
+	 */
+	protected String replaceMetadataAfterDeposit(String editLink, MetadataRecord metadataRecord, boolean inProgress) 
+			throws IOException, SWORDClientException {
+		return replaceMetadataAfterDeposit(editLink, null, metadataRecord, inProgress);
+	}
+	
+	
+	/**
+	 * Replace the metadata of the entry as Map, see {@link #replaceMetadataAfterDeposit(String, MetadataRecord, boolean)}.
+	 * 
+	 * @param editLink - edit URL of the entry
+	 * @param metadataMap - metadata as a Map
+	 * @param inProgress - value of the "In-Progress" header
+	 * 
+	 * @return {@link String} with the URL to edit the entry (with "edit" substring inside)
+	 * 
+	 * @throws IOException in case of IO error, {@link CancelledException} with the edit URL after the cancellation
+	 * @throws SWORDClientException in case of error
+	 */
+	protected String replaceMetadataAfterDeposit(String editLink, Map<String, List<String>> metadataMap, boolean inProgress) 
+			throws IOException, SWORDClientException {
+		return replaceMetadataAfterDeposit(editLink, metadataMap, null, inProgress);
+	}
+	
+	
+	/**
+	 * Replace the metadata, which are provided either as Map or as {@link MetadataRecord}.
+	 */
+	private String replaceMetadataAfterDeposit(String editLink, Map<String, List<String>> metadataMap, MetadataRecord metadataRecord, 
+			boolean inProgress) throws IOException, SWORDClientException {
 		
+		try {
+			// "PUT" request (REPLACE) is used to overwrite some previous automatically generated metadata
+			// Cancellation from here on leaves the entry in the workspace, the edit URL is provided with the exception
+			throwIfCancelledAfterDeposit(editLink);
+			try {
+				return (metadataRecord != null) 
+						? exportMetadataAsRecord(editLink, metadataRecord, SwordRequestType.REPLACE, inProgress) 
+						: exportMetadataAsMap(editLink, metadataMap, SwordRequestType.REPLACE, inProgress);
+			} catch (CancelledException e) {
+				throwIfCancelledAfterDeposit(editLink);
+				throw e;
+			}
+			
+		} catch (ProtocolViolationException | SWORDError e) {
+			throw new SWORDClientException("Exception by export file and metadta as Map: " 
+						+ e.getClass().getSimpleName() + ": " + e.getMessage());
+		}
 	}
 		
 	
@@ -533,7 +2330,11 @@ public class DSpaceSwordOnly extends SwordExporter implements DSpaceRepository {
 	@Override
 	public List<String> getCommunitiesForCollection(String collectionURL) {
 
-		ServiceDocument serviceDocument = super.getServiceDocument(this.serviceDocumentURL);
+		if (isUnknownCollection(collectionURL)) {
+			return null;
+		}
+		final long structureVersion = getStructureVersion();
+		ServiceDocument serviceDocument = getServiceDocument();
 		if(serviceDocument == null) {
 			return null;
 		}
@@ -541,7 +2342,11 @@ public class DSpaceSwordOnly extends SwordExporter implements DSpaceRepository {
 		// Check, if "service" tag is provided for the collections - not default service document.
 		if(super.isServiceDocumentWithSubservices(serviceDocument)) {
 			// Get communities for collections via SWORD protocol only, with usage of HierarchyObject class
-			return super.getHierarchy(serviceDocument).getServiceHierarchyForCollection(collectionURL);
+			List<String> communities = super.getHierarchy(serviceDocument).getServiceHierarchyForCollection(collectionURL);
+			if (communities == null) {
+				addUnknownCollection(collectionURL, structureVersion);
+			}
+			return communities;
 		} else {			
 			// Service document has only collections (default service document). Error for SwordOnly case.
 			return null;
@@ -558,7 +2363,7 @@ public class DSpaceSwordOnly extends SwordExporter implements DSpaceRepository {
 	public Map<String, String> getAvailableCollectionsWithFullName(String fullNameSeparator) {
 
 		// Get available collections from the ServiceDocument (SWORD)
-		ServiceDocument serviceDocument = super.getServiceDocument(this.serviceDocumentURL);
+		ServiceDocument serviceDocument = getServiceDocument();
 		if(serviceDocument == null) {
 			return null;
 		}
@@ -589,12 +2394,17 @@ public class DSpaceSwordOnly extends SwordExporter implements DSpaceRepository {
 	 * For DSpace it is done by access to the Service Document via SWORD-protocol
 	 * and checking an access to the REST-API.
 	 * 
+	 * <p>
+	 * The result could be cached, see {@link #setAccessibilityCacheTime(long, TimeUnit)}, and checked with HEAD 
+	 * requests, see {@link #setLightweightProbe(boolean)}.
+	 * 
 	 * @return {@code true} if service document and REST-API are accessible, and
 	 *         {@code false} otherwise (e.g. by Error 403).
 	 */
 	@Override
 	public boolean isRepositoryAccessible() {
-		return super.isSwordAccessible(this.serviceDocumentURL);
+		final Boolean accessible = this.accessibilityCache.get();
+		return (accessible != null) && accessible;
 	}
 
 	
@@ -606,7 +2416,7 @@ public class DSpaceSwordOnly extends SwordExporter implements DSpaceRepository {
 	 */
 	@Override
 	public boolean hasRegisteredCredentials() {
-		return super.getServiceDocument(this.serviceDocumentURL) != null;
+		return getServiceDocument() != null;
 	}
 
 	
@@ -622,11 +2432,26 @@ public class DSpaceSwordOnly extends SwordExporter implements DSpaceRepository {
 	@Override
 	public boolean hasAssignedCredentials() {
 		
-		ServiceDocument serviceDocument = super.getServiceDocument(this.serviceDocumentURL);
-		if ((serviceDocument != null) && (super.getCollections(serviceDocument).size() > 0)) {
-			return true;
+		if (this.structureCacheTtlNanos > 0) {
+			// Service document is cached anyway
+			ServiceDocument serviceDocument = getServiceDocument();
+			if ((serviceDocument != null) && (super.getCollections(serviceDocument).size() > 0)) {
+				return true;
+			}
+			return false;
 		}
-		return false;
+		
+		// Read the service document until the first entry only, 
+		// entries with sub-services (communities) are counted as by getCollections(ServiceDocument)
+		final AtomicBoolean found = new AtomicBoolean(false);
+		visitServiceDocument(new Visitor() {
+			@Override
+			public boolean visit(Entry entry) {
+				found.set(true);
+				return false;
+			}
+		});
+		return found.get();
 	}
 
 	
@@ -637,8 +2462,26 @@ public class DSpaceSwordOnly extends SwordExporter implements DSpaceRepository {
 	 */
 	@Override
 	public Map<String, String> getAvailableCollections() {
-		ServiceDocument serviceDocument = super.getServiceDocument(this.serviceDocumentURL);
-		return super.getCollections(serviceDocument);
+		
+		if (this.structureCacheTtlNanos > 0) {
+			ServiceDocument serviceDocument = getServiceDocument();
+			return super.getCollections(serviceDocument);
+		}
+		
+		// Without cache the service document is read via streaming, without object model, 
+		// entries with sub-services (communities) are included as by getCollections(ServiceDocument)
+		final Map<String, String> collections = new HashMap<String, String>();
+		final boolean read = visitServiceDocument(new Visitor() {
+			@Override
+			public boolean visit(Entry entry) {
+				collections.put(entry.getHref(), entry.getTitle());
+				return true;
+			}
+		});
+		if (!read) {
+			collections.clear(); // the same result as of a not accessible service document
+		}
+		return collections;
 	}
 
 	
@@ -680,4 +2523,99 @@ public class DSpaceSwordOnly extends SwordExporter implements DSpaceRepository {
 			return null;
 		}
 	}
+	
+	
+	/**
+	 * Export a new entry with metadata as {@link MetadataRecord}, see {@link #exportNewEntryWithMetadata(String, Map)}.
+	 * 
+	 * @param collectionURL - collection URL (with "collection" substring inside)
+	 * @param metadataRecord - metadata as {@link MetadataRecord}
+	 * 
+	 * @return {@link String} with the URL to edit the entry or {@code null} in case of error
+	 */
+	public String exportNewEntryWithMetadata(String collectionURL, MetadataRecord metadataRecord) {
+		try {
+			return this.createEntryWithMetadata(collectionURL, metadataRecord, true); // "In-Progress: true" is used implicitly
+		} catch (SWORDClientException e) {
+			log.error("Exception by creation of new entry with metadata as record.", e);
+			return null;
+		}
+	}
+	
+	
+	/**
+	 * Export a new entry with a file and metadata as {@link MetadataRecord}, 
+	 * see {@link #exportNewEntryWithMetadataAndFile(String, Map, File, boolean)}.
+	 * 
+	 * @param collectionURL - collection URL (with "collection" substring inside)
+	 * @param metadataRecord - metadata as {@link MetadataRecord}
+	 * @param file - file to export
+	 * @param unpackFileIfArchive - unpack the file in the repository, if it is a ZIP archive
+	 * 
+	 * @return {@link String} with the URL to edit the entry or {@code null} in case of error
+	 * 
+	 * @throws IOException in case of IO error
+	 */
+	public String exportNewEntryWithMetadataAndFile(String collectionURL, MetadataRecord metadataRecord, 
+			File file, boolean unpackFileIfArchive) throws IOException {
+		
+		try {
+			return this.createEntryWithMetadataAndFile(collectionURL, metadataRecord, file, unpackFileIfArchive, true); // "In-Progress: true" is used implicitly
+		} catch (SWORDClientException e) {
+			log.error("Exception by creation of new entry with file and metadata as record.", e);
+			return null;
+		}
+	}
+	
+	
+	/**
+	 * Behavior for files, which were already deposited to the same collection (see {@link DepositIndex})
+	 */
+	public static enum DuplicateStrategy {
+		/** Do not upload the file, use the existing entry (metadata are replaced, if they are provided) */
+		RETURN_EXISTING_ENTRY,
+		/** Do not upload the file, the export fails with {@link DuplicateDepositException} */
+		REJECT_DUPLICATE,
+		/** Upload the file anyway */
+		DEPOSIT_AGAIN
+	}
+	
+	
+	/**
+	 * Mode of the export with file and metadata
+	 */
+	public static enum DepositMode {
+		/** File deposit and then replacement of the metadata, 2 requests (supported by every DSpace) */
+		TWO_STEP,
+		/** Single request with a DSpace METS SIP, which includes the metadata and the files */
+		METS_SIP,
+		/** Single multipart request with the Atom entry and the file */
+		MULTIPART,
+		/** Detect the mode via the service document of the collection */
+		AUTO
+	}
+	
+	
+	/**
+	 * Structure cache, which is stored in the snapshot, with its codec.
+	 */
+	private static final class SnapshotSection<T> {
+		
+		private final CachedResource<T> cache;
+		private final Codec<T> codec;
+		
+		SnapshotSection(CachedResource<T> cache, Codec<T> codec) {
+			this.cache = cache;
+			this.codec = codec;
+		}
+		
+		byte[] encode() throws IOException {
+			final T value = this.cache.getCachedValue();
+			return (value != null) ? StructureSnapshot.encode(value, this.codec) : null;
+		}
+		
+		boolean restore(byte[] section) throws IOException {
+			return this.cache.putIfAbsent(StructureSnapshot.decode(section, this.codec));
+		}
+	}
 }
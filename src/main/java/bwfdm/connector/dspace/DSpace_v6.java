@@ -20,29 +20,65 @@ package bwfdm.connector.dspace;
 
 import static java.util.Objects.requireNonNull;
 
+import java.io.File;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.apache.commons.httpclient.HttpStatus;
 import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpUriRequest;
 import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.http.impl.client.HttpClientBuilder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.swordapp.client.ServiceDocument;
 
+import bwfdm.connector.dspace.cache.CachedResource;
+import bwfdm.connector.dspace.cache.SingleFlight;
+import bwfdm.connector.dspace.cache.StructureCodecs;
+import bwfdm.connector.dspace.cancel.CancellationToken;
+import bwfdm.connector.dspace.dto.v6.BitstreamObject;
 import bwfdm.connector.dspace.dto.v6.CollectionObject;
 import bwfdm.connector.dspace.dto.v6.HierarchyObjectRestV6;
+import bwfdm.connector.dspace.dto.v6.ItemObject;
+import bwfdm.connector.dspace.hierarchy.FlatHierarchy;
+import bwfdm.connector.dspace.rest.RestSession;
+import bwfdm.connector.dspace.utils.IOUtils;
 import bwfdm.connector.dspace.utils.JsonUtils;
+import bwfdm.connector.dspace.utils.ThreadUtils;
 import bwfdm.connector.dspace.utils.WebUtils;
 import bwfdm.connector.dspace.utils.WebUtils.RequestType;
+import bwfdm.exporter.commons.ServiceHierarchy;
 
 
 public class DSpace_v6 extends DSpaceSwordOnly {
 
 	private static final Logger log = LoggerFactory.getLogger(DSpace_v6.class);
 
+	// Paging of REST requests
+	public static final int DEFAULT_REST_PAGE_SIZE = 100;
+	public static final int DEFAULT_REST_PARALLELISM = 4;
+	public static final int DEFAULT_ITEM_LOOK_AHEAD = 2;
+	protected static final int MAX_REST_CONNECTIONS = MAX_HTTP_CONNECTIONS;
+	protected static final int MAX_REST_OBJECTS = 10000000;
+
 	// For REST
 	//
 	// URLs
@@ -51,8 +87,40 @@ public class DSpace_v6 extends DSpaceSwordOnly {
 	protected String collectionsURL;
 	protected String hierarchyURL;
 	protected String restTestURL;
+	protected String itemsURL;
+	protected String bitstreamsURL;
+
+	protected int restPageSize = DEFAULT_REST_PAGE_SIZE;
+	protected int restParallelism = DEFAULT_REST_PARALLELISM;
+	protected boolean restAuthentication = false;
+	
+	// Page size limit of the server (0 - not detected) and the largest page size, which the server is known to deliver 
+	// (a full page or a short page, which was confirmed as the end of the list)
+	private volatile int restServerPageLimit = 0;
+	private volatile int restConfirmedPageSize = 0;
 
 	private CloseableHttpClient httpClient;
+	private RestSession restSession;
+	private volatile boolean restHeadSupported = true;
+	
+	// Caches of the repository structure, see setStructureCacheTtl()
+	// (only the flattened hierarchy is cached, the loaded tree is dropped after the flattening)
+	protected final CachedResource<FlatHierarchy> flatHierarchyCache = createStructureCache("REST flat hierarchy", 
+			new Callable<FlatHierarchy>() {
+				@Override
+				public FlatHierarchy call() {
+					final HierarchyObjectRestV6 hierarchy = loadHierarchyObjectRestV6();
+					return (hierarchy != null) ? FlatHierarchy.of(hierarchy) : null;
+				}
+			}, StructureCodecs.FLAT_HIERARCHY);
+	protected final CachedResource<CollectionObject[]> collectionsCache = createStructureCache("REST collections", 
+			new Callable<CollectionObject[]>() {
+				@Override
+				public CollectionObject[] call() {
+					return loadAllCollectionObjects();
+				}
+			}, StructureCodecs.COLLECTIONS_V6);
+	private ExecutorService restExecutor;
 
 	/**
 	 * Create DSpace-v6 object, with activated "on-behalf-of" option, what allows to make a submission only 
@@ -85,7 +153,12 @@ public class DSpace_v6 extends DSpaceSwordOnly {
 		// Traditional way to create client. SSL certificate must be actual in this case.
 		// In case of some problems with the certificate (possible exceptions "input is not a X.509 certificate"), 
 		// read here -> https://stackoverflow.com/questions/4325263/how-to-import-a-cer-certificate-into-a-java-keystore
-		this.httpClient = HttpClientBuilder.create().build();
+		// Connection pool is large enough for the parallel paged requests (see setRestParallelism()).
+		this.httpClient = HttpClientBuilder.create()
+				.setMaxConnPerRoute(MAX_REST_CONNECTIONS)
+				.setMaxConnTotal(MAX_REST_CONNECTIONS)
+				.disableCookieManagement() // REST session cookie is set explicitly, see getRestResponse()
+				.build();
 		
 		// In case of problems with SSL - httpClient which ignores the SSL certificate
 		//this.httpClient = WebUtils.createHttpClientIgnoringSSL();
@@ -119,7 +192,12 @@ public class DSpace_v6 extends DSpaceSwordOnly {
 		// Traditional way to create client. SSL certificate must be actual in this case.
 		// In case of some problems with the certificate (possible exceptions "input is not a X.509 certificate"), 
 		// read here -> https://stackoverflow.com/questions/4325263/how-to-import-a-cer-certificate-into-a-java-keystore
-		this.httpClient = HttpClientBuilder.create().build();
+		// Connection pool is large enough for the parallel paged requests (see setRestParallelism()).
+		this.httpClient = HttpClientBuilder.create()
+				.setMaxConnPerRoute(MAX_REST_CONNECTIONS)
+				.setMaxConnTotal(MAX_REST_CONNECTIONS)
+				.disableCookieManagement() // REST session cookie is set explicitly, see getRestResponse()
+				.build();
 		
 		// In case of problems with SSL - httpClient which ignores the SSL certificate
 		//this.httpClient = WebUtils.createHttpClientIgnoringSSL();
@@ -143,6 +221,73 @@ public class DSpace_v6 extends DSpaceSwordOnly {
 		this.collectionsURL = this.restURL + "/collections";
 		this.hierarchyURL = this.restURL + "/hierarchy";
 		this.restTestURL = this.restURL + "/test";
+		this.itemsURL = this.restURL + "/items";
+		this.bitstreamsURL = this.restURL + "/bitstreams";
+		synchronized (this) {
+			this.restSession = null;
+		}
+		this.flatHierarchyCache.invalidate();
+		this.collectionsCache.invalidate();
+		this.restHeadSupported = true;
+		this.restServerPageLimit = 0;
+		this.restConfirmedPageSize = 0;
+	}
+	
+	
+	/**
+	 * Set the number of objects, which will be requested via REST with one request ("limit" parameter).
+	 * 
+	 * @param restPageSize - page size, must be at least 1
+	 */
+	public void setRestPageSize(int restPageSize) {
+		if (restPageSize < 1) {
+			throw new IllegalArgumentException("REST page size must be at least 1: " + restPageSize);
+		}
+		this.restPageSize = restPageSize;
+	}
+	
+	public int getRestPageSize() {
+		return this.restPageSize;
+	}
+	
+	
+	/**
+	 * Set the maximal number of pages, which will be requested via REST at the same time.
+	 * <p>
+	 * Values greater than {@value #MAX_REST_CONNECTIONS} are possible, but the requests will then 
+	 * wait for a free connection of the HTTP client.
+	 * 
+	 * @param restParallelism - number of concurrent page requests, must be at least 1
+	 */
+	public void setRestParallelism(int restParallelism) {
+		if (restParallelism < 1) {
+			throw new IllegalArgumentException("REST parallelism must be at least 1: " + restParallelism);
+		}
+		this.restParallelism = restParallelism;
+	}
+	
+	public int getRestParallelism() {
+		return this.restParallelism;
+	}
+	
+	
+	/**
+	 * Use an authenticated session for the REST requests (login via "/rest/login" with the credentials 
+	 * of the constructor). Without authentication (default) only anonymously readable objects are delivered.
+	 * <p>
+	 * The session belongs to this object (see {@link RestSession}), the login is done once 
+	 * and repeated only if the session is expired (response status 401 or idle timeout).
+	 * <p>
+	 * <b>IMPORTANT:</b> in case of the "on-behalf-of" option the privileged account is used for REST.
+	 * 
+	 * @param restAuthentication - {@code true} to use the authenticated session
+	 */
+	public void setRestAuthentication(boolean restAuthentication) {
+		this.restAuthentication = restAuthentication;
+	}
+	
+	public boolean isRestAuthentication() {
+		return this.restAuthentication;
 	}
 
 	
@@ -153,8 +298,7 @@ public class DSpace_v6 extends DSpaceSwordOnly {
 	 */
 	public boolean isRestAccessible() {
 
-		final CloseableHttpResponse response = WebUtils.getResponse(this.httpClient, this.restTestURL, RequestType.GET,
-				APPLICATION_JSON, APPLICATION_JSON);
+		final CloseableHttpResponse response = getRestResponse(this.restTestURL);
 		if ((response != null) && (response.getStatusLine().getStatusCode() == HttpStatus.SC_OK)) {
 			WebUtils.closeResponse(response);
 			return true;
@@ -167,6 +311,32 @@ public class DSpace_v6 extends DSpaceSwordOnly {
 	}
 
 	
+	/**
+	 * Check the access to the REST-API via HEAD request to "/rest/test", see {@link #setLightweightProbe(boolean)}. 
+	 * If the server does not support HEAD, {@link #isRestAccessible()} is used (and later requests do the same).
+	 * 
+	 * @return {@code true} if REST-API is accessible, otherwise {@code false}
+	 */
+	protected boolean probeRest() {
+		
+		if (!this.restHeadSupported) {
+			return isRestAccessible();
+		}
+		final CloseableHttpResponse response = executeProbe(WebUtils.createRequest(this.restTestURL, RequestType.HEAD, null, null));
+		if (response == null) {
+			return false;
+		}
+		final int status = response.getStatusLine().getStatusCode();
+		WebUtils.closeResponse(response);
+		if (isHeadNotSupported(status)) {
+			log.info("HEAD is not supported for {}, GET will be used", this.restTestURL);
+			this.restHeadSupported = false;
+			return isRestAccessible();
+		}
+		return (status == HttpStatus.SC_OK);
+	}
+	
+	
 	/**
 	 * Get a list of communities for the current collection. Specific only for DSpace-6.
 	 * <p>
@@ -206,21 +376,242 @@ public class DSpace_v6 extends DSpaceSwordOnly {
 	}
 	
 	
+	/**
+	 * Get a list of communities for the current collection via the flattened hierarchy (see {@link FlatHierarchy}). 
+	 * Specific only for DSpace-6.
+	 * <p>
+	 * REST and SWORD requests are used. ServiceDocument must be received already.
+	 * 
+	 * @param collectionURL - URL of the collection as {@link String}
+	 * @param serviceDocument - object of {@link ServiceDocument}
+	 * @param hierarchy - object of {@link FlatHierarchy}
+	 * @param existedCollectionObjects - array of {@link CollectionObject}
+	 * 
+	 * @return a {@code List<String>} of communities (0 or more communities are
+	 *         possible) or {@code null} if a collection was not found
+	 */
+	protected List<String> getCommunitiesForCollection(String collectionURL, ServiceDocument serviceDocument,
+			FlatHierarchy hierarchy, CollectionObject[] existedCollectionObjects) {
+
+		requireNonNull(collectionURL);
+		requireNonNull(serviceDocument);
+		requireNonNull(hierarchy);
+		requireNonNull(existedCollectionObjects);
+		
+		String collectionHandle = getCollectionHandle(collectionURL, serviceDocument, existedCollectionObjects);
+		if (collectionHandle == null) {
+			return null;
+		}
+		final int node = hierarchy.indexOfHandle(collectionHandle);
+		if ((node == FlatHierarchy.NO_NODE) || !hierarchy.isCollection(node)) {
+			return null;
+		}
+		// without "Workspace" - it is not a community, but it is always on the first level of the hierarchy
+		return hierarchy.getAncestorNames(node, 1);
+	}
+	
+	
+	/**
+	 * Get lists of communities for many collections at once. Specific only for DSpace-6.
+	 * <p>
+	 * REST and SWORD requests are used. The service document, the hierarchy and the collections 
+	 * are requested at most once for all collections (see {@link #getCommunitiesForCollection(String)}, 
+	 * which requests them for every collection), the handles of all collections are resolved together 
+	 * (see {@link #getCollectionHandles(Collection, ServiceDocument, CollectionObject[])}).
+	 * 
+	 * @param collectionURLs - URLs of the collections as {@link Collection} of {@link String}
+	 * 
+	 * @return Map in the order of the collection URLs, where key = collection URL, 
+	 * 		   value = {@link CommunitiesResult} with the communities or the error for this collection
+	 */
+	public Map<String, CommunitiesResult> getCommunitiesForCollections(Collection<String> collectionURLs) {
+		
+		requireNonNull(collectionURLs);
+		final Map<String, CommunitiesResult> results = new LinkedHashMap<String, CommunitiesResult>(collectionURLs.size() * 2);
+		
+		// Collections, which are remembered as unknown, get the error without requests, 
+		// the others are looked up (null value keeps the order of the map)
+		final List<String> lookupURLs = new ArrayList<String>(collectionURLs.size());
+		for (String collectionURL : collectionURLs) {
+			if (isUnknownCollection(collectionURL)) {
+				results.put(collectionURL, new CommunitiesResult(null, "Collection is unknown (cached result)"));
+			} else if (!results.containsKey(collectionURL)) {
+				results.put(collectionURL, null);
+				lookupURLs.add(collectionURL);
+			}
+		}
+		if (lookupURLs.isEmpty()) {
+			return results;
+		}
+		
+		final long structureVersion = getStructureVersion();
+		ServiceDocument serviceDocument = getServiceDocument();
+		if (serviceDocument == null) {
+			return putFailedResults(results, lookupURLs, "Service document is not available");
+		}
+		
+		// Check, if "service" tag is provided for the collections - not default service document.
+		if (super.isServiceDocumentWithSubservices(serviceDocument)) {
+			// Get communities for collections via SWORD protocol only, the hierarchy is built only once
+			final ServiceHierarchy serviceHierarchy = super.getHierarchy(serviceDocument);
+			for (String collectionURL : lookupURLs) {
+				List<String> communities = serviceHierarchy.getServiceHierarchyForCollection(collectionURL);
+				if (communities != null) {
+					results.put(collectionURL, new CommunitiesResult(communities, null));
+				} else {
+					results.put(collectionURL, new CommunitiesResult(null, "Collection was not found in the service document"));
+					addUnknownCollection(collectionURL, structureVersion);
+				}
+			}
+			return results;
+		}
+		
+		// Service document has only collections (default service document). Combine REST and SWORD requests.
+		final CollectionObject[] existedCollectionObjects = getAllCollectionObjects();
+		if (existedCollectionObjects == null) {
+			return putFailedResults(results, lookupURLs, "Collections are not available via REST");
+		}
+		final FlatHierarchy hierarchy = getFlatHierarchy();
+		if (hierarchy == null) {
+			return putFailedResults(results, lookupURLs, "Hierarchy is not available via REST");
+		}
+		
+		final Map<String, String> handles = getCollectionHandles(lookupURLs, serviceDocument, existedCollectionObjects);
+		for (String collectionURL : lookupURLs) {
+			final String collectionHandle = handles.get(collectionURL);
+			final int node = (collectionHandle != null) ? hierarchy.indexOfHandle(collectionHandle) : FlatHierarchy.NO_NODE;
+			if (collectionHandle == null) {
+				results.put(collectionURL, new CommunitiesResult(null, "Collection was not found in the service document or via REST"));
+			} else if ((node == FlatHierarchy.NO_NODE) || !hierarchy.isCollection(node)) {
+				results.put(collectionURL, new CommunitiesResult(null, "Collection " + collectionHandle + " was not found in the hierarchy"));
+			} else {
+				// without "Workspace" - it is not a community, but it is always on the first level of the hierarchy
+				results.put(collectionURL, new CommunitiesResult(hierarchy.getAncestorNames(node, 1), null));
+				continue;
+			}
+			addUnknownCollection(collectionURL, structureVersion);
+		}
+		return results;
+	}
+	
+	
+	/**
+	 * @param results - results of all collections
+	 * @param collectionURLs - URLs of the collections with the error
+	 * @param error - description of the error
+	 * @return results with the same error for the collections
+	 */
+	private static Map<String, CommunitiesResult> putFailedResults(Map<String, CommunitiesResult> results, 
+			Collection<String> collectionURLs, String error) {
+		
+		log.error("Communities for collections could not be found: {}", error);
+		final CommunitiesResult result = new CommunitiesResult(null, error);
+		for (String collectionURL : collectionURLs) {
+			results.put(collectionURL, result);
+		}
+		return results;
+	}
+	
+	
 	/**
 	 * Get a complete hierarchy of collections as HierarchyObject. REST is used.
 	 * Works up DSpace-6.
+	 * <p>
+	 * The hierarchy is loaded by every call, only its flattened form is cached (see {@link #getFlatHierarchy()}).
 	 * 
 	 * @return {@link HierarchyObjectRestV6}
 	 */
 	protected HierarchyObjectRestV6 getHierarchyObjectRestV6() {
+		return loadHierarchyObjectRestV6();
+	}
+	
+	
+	/**
+	 * Get the flattened hierarchy (see {@link FlatHierarchy}). It is cached 
+	 * if {@link #setStructureCacheTtl(long, java.util.concurrent.TimeUnit)} is used, the loaded tree 
+	 * of {@link HierarchyObjectRestV6} is not kept.
+	 * 
+	 * @return {@link FlatHierarchy} or {@code null} in case of error
+	 */
+	protected FlatHierarchy getFlatHierarchy() {
+		return this.flatHierarchyCache.get();
+	}
+	
+	
+	/**
+	 * Load the hierarchy via REST, without cache. Concurrent calls share one request (see {@link SingleFlight}).
+	 * 
+	 * @return {@link HierarchyObjectRestV6}
+	 */
+	protected HierarchyObjectRestV6 loadHierarchyObjectRestV6() {
 
-		final CloseableHttpResponse response = WebUtils.getResponse(this.httpClient, this.hierarchyURL, RequestType.GET, APPLICATION_JSON, APPLICATION_JSON);
-		final HierarchyObjectRestV6 hierarchy = JsonUtils.jsonStringToObject(WebUtils.getResponseEntityAsString(response), HierarchyObjectRestV6.class);
-		WebUtils.closeResponse(response);
-		return hierarchy;
+		return SingleFlight.execute(getRestReadKey(this.hierarchyURL), new Callable<HierarchyObjectRestV6>() {
+			@Override
+			public HierarchyObjectRestV6 call() {
+				final CloseableHttpResponse response = getRestResponse(hierarchyURL);
+				final HierarchyObjectRestV6 hierarchy = JsonUtils.jsonStringToObject(WebUtils.getResponseEntityAsString(response), HierarchyObjectRestV6.class);
+				WebUtils.closeResponse(response);
+				return hierarchy;
+			}
+		});
 	}
 
 	
+	/**
+	 * Get all collections under the community, at any depth. Specific only for DSpace-6.
+	 * <p>
+	 * REST requests are used. The flattened hierarchy is used (see {@link FlatHierarchy}), 
+	 * so the time is proportional to the number of found collections.
+	 * 
+	 * @param communityHandle - handle of the community as {@link String}, e.g. "123456789/10"
+	 * 
+	 * @return Map of collections in the order of the hierarchy, where key = collection handle, value = collection name,
+	 * 		   or {@code null} if the community was not found or in case of error
+	 */
+	public Map<String, String> getCollectionsForCommunity(String communityHandle) {
+		
+		requireNonNull(communityHandle);
+		final FlatHierarchy hierarchy = getFlatHierarchy();
+		if (hierarchy == null) {
+			return null;
+		}
+		final int community = hierarchy.indexOfHandle(communityHandle);
+		if ((community == FlatHierarchy.NO_NODE) || hierarchy.isCollection(community)) {
+			return null;
+		}
+		final int[] collections = hierarchy.getCollectionsInSubtree(community);
+		final Map<String, String> result = new LinkedHashMap<String, String>(collections.length * 2);
+		for (int collection : collections) {
+			result.put(hierarchy.getHandle(collection), hierarchy.getName(collection));
+		}
+		return result;
+	}
+	
+	
+	/**
+	 * Get the number of collections under the community, at any depth. Specific only for DSpace-6.
+	 * <p>
+	 * REST requests are used. The flattened hierarchy is used (see {@link FlatHierarchy}).
+	 * 
+	 * @param communityHandle - handle of the community as {@link String}, e.g. "123456789/10"
+	 * 
+	 * @return number of collections or -1 if the community was not found or in case of error
+	 */
+	public int getCollectionCountForCommunity(String communityHandle) {
+		
+		requireNonNull(communityHandle);
+		final FlatHierarchy hierarchy = getFlatHierarchy();
+		if (hierarchy == null) {
+			return -1;
+		}
+		final int community = hierarchy.indexOfHandle(communityHandle);
+		if ((community == FlatHierarchy.NO_NODE) || hierarchy.isCollection(community)) {
+			return -1;
+		}
+		return hierarchy.getCollectionCount(community);
+	}
+	
+	
 	/**
 	 * Get a collection handle based on the collection URL.
 	 * <p>
@@ -234,11 +625,22 @@ public class DSpace_v6 extends DSpaceSwordOnly {
 
 		requireNonNull(collectionURL);
 		
-		ServiceDocument serviceDocument = super.getServiceDocument(this.serviceDocumentURL);
+		if (isUnknownCollection(collectionURL)) {
+			return null;
+		}
+		final long structureVersion = getStructureVersion();
+		ServiceDocument serviceDocument = getServiceDocument();
 
 		// Get all collections via REST to check, if swordCollectionPath contains a REST-handle
 		CollectionObject[] existedCollectionObjects = getAllCollectionObjects();
-		return getCollectionHandle(collectionURL, serviceDocument, existedCollectionObjects);
+		if ((serviceDocument == null) || (existedCollectionObjects == null)) {
+			return null; // error, the collection is not remembered as unknown
+		}
+		String collectionHandle = getCollectionHandle(collectionURL, serviceDocument, existedCollectionObjects);
+		if (collectionHandle == null) {
+			addUnknownCollection(collectionURL, structureVersion);
+		}
+		return collectionHandle;
 	}
 
 	
@@ -257,44 +659,832 @@ public class DSpace_v6 extends DSpaceSwordOnly {
 			CollectionObject[] existedCollections) {
 
 		requireNonNull(collectionURL);
+		
+		// null if collectionURL was not found
+		return getCollectionHandles(Collections.singletonList(collectionURL), serviceDocument, existedCollections).get(collectionURL);
+	}
+	
+	
+	/**
+	 * Get handles of many collections based on the collection URLs at once. 
+	 * <p>
+	 * REST and SWORDv2 requests are used. ServiceDocument must be already retrieved.
+	 * The handle is looked up as the end of the collection URL (".../prefix/suffix"), 
+	 * only for other URLs all collections are checked as in {@link #getCollectionHandle(String, ServiceDocument, CollectionObject[])}.
+	 * 
+	 * @param collectionURLs - URLs of the collections as {@link Collection} of {@link String}
+	 * @param serviceDocument - object of {@link ServiceDocument}
+	 * @param existedCollections - array of {@link CollectionObject}
+	 * 
+	 * @return Map, where key = collection URL, value = handle, collectionURLs which were not found are missing 
+	 */
+	protected Map<String, String> getCollectionHandles(Collection<String> collectionURLs, ServiceDocument serviceDocument,
+			CollectionObject[] existedCollections) {
+		
+		requireNonNull(collectionURLs);
 		requireNonNull(serviceDocument);
 		requireNonNull(existedCollections);
 		
-		String swordCollectionPath = null;
-		
-		// Find collectionURL inside the repository (via service document and SWORD protocol)
-		for(Map.Entry<String, String> entry: super.getCollections(serviceDocument).entrySet()) {
-			if(entry.getKey().equals(collectionURL)) {
-				swordCollectionPath=entry.getKey();
+		final Set<String> swordCollectionPaths = super.getCollections(serviceDocument).keySet();
+		final Set<String> existedHandles = new HashSet<String>(existedCollections.length * 2);
+		for (CollectionObject collection : existedCollections) {
+			if (collection.handle != null) {
+				existedHandles.add(collection.handle);
 			}
 		}
-		// If cllectionURL was found via service document, find the handle
-		if(swordCollectionPath != null) {
+		
+		final Map<String, String> handles = new HashMap<String, String>(collectionURLs.size() * 2);
+		for (String collectionURL : collectionURLs) {
+			if (!swordCollectionPaths.contains(collectionURL)) {
+				continue; // collectionURL was not found
+			}
+			final String trimmedURL = collectionURL.endsWith("/") 
+					? collectionURL.substring(0, collectionURL.length() - 1) : collectionURL;
+			final int suffixStart = trimmedURL.lastIndexOf('/');
+			final int prefixStart = (suffixStart > 0) ? trimmedURL.lastIndexOf('/', suffixStart - 1) : -1;
+			final String candidate = (prefixStart >= 0) ? trimmedURL.substring(prefixStart + 1) : null;
+			if ((candidate != null) && existedHandles.contains(candidate)) {
+				handles.put(collectionURL, candidate);
+				continue;
+			}
 			// Compare REST-handle and swordCollectionPath
 			for (CollectionObject collection : existedCollections) {
-				if (swordCollectionPath.contains(collection.handle)) {
-					return collection.handle;
+				if ((collection.handle != null) && collectionURL.contains(collection.handle)) {
+					handles.put(collectionURL, collection.handle);
+					break;
 				}
 			}
 		}
-				
-		return null; //collectionURL was not found 
+		return handles;
 	}
 
 	
 	/**
 	 * Get all existed collections as an array of CollectionObject. REST is used.
+	 * <p>
+	 * Collections are requested page by page (see {@link #getAllPages(String, Class)}), 
+	 * so that the list is complete also for repositories with many collections.
+	 * The collections are cached if {@link #setStructureCacheTtl(long, java.util.concurrent.TimeUnit)} is used.
 	 * 
-	 * @return {@link CollectionObject}[]
+	 * @return {@link CollectionObject}[] or {@code null} in case of error
 	 */
 	protected CollectionObject[] getAllCollectionObjects() {
+		
+		final CollectionObject[] collections = this.collectionsCache.get();
+		return (collections != null) ? collections.clone() : null;
+	}
+	
+	
+	/**
+	 * Load all collections via REST, without cache. Concurrent calls share one request (see {@link SingleFlight}).
+	 * 
+	 * @return {@link CollectionObject}[] or {@code null} in case of error
+	 */
+	protected CollectionObject[] loadAllCollectionObjects() {
 
-		final CloseableHttpResponse response = WebUtils.getResponse(this.httpClient, this.collectionsURL, RequestType.GET,
-				APPLICATION_JSON, APPLICATION_JSON);
-		final CollectionObject[] collections = JsonUtils
-				.jsonStringToObject(WebUtils.getResponseEntityAsString(response), CollectionObject[].class);
-		WebUtils.closeResponse(response);
-		return collections;
+		return SingleFlight.execute(getRestReadKey(this.collectionsURL), new Callable<CollectionObject[]>() {
+			@Override
+			public CollectionObject[] call() {
+				final List<CollectionObject> collections = getAllPages(collectionsURL, CollectionObject[].class);
+				if (collections == null) {
+					return null;
+				}
+				return collections.toArray(new CollectionObject[collections.size()]);
+			}
+		});
+	}
+	
+	
+	/**
+	 * Get all items of the collection with their metadata. REST is used.
+	 * <p>
+	 * Items are loaded lazily page by page (see {@link ItemIterator}), 
+	 * with {@value #DEFAULT_ITEM_LOOK_AHEAD} pages loaded in advance.
+	 * 
+	 * @param collectionUUID - UUID of the collection as {@link String} (see {@link CollectionObject#uuid})
+	 * 
+	 * @return {@link ItemIterator}, which must be closed if it is not read till the end
+	 */
+	public ItemIterator getCollectionItems(String collectionUUID) {
+		return getCollectionItems(collectionUUID, "metadata", DEFAULT_ITEM_LOOK_AHEAD);
+	}
+	
+	
+	/**
+	 * Get all items of the collection. REST is used.
+	 * 
+	 * @param collectionUUID - UUID of the collection as {@link String} (see {@link CollectionObject#uuid})
+	 * @param expand - value of the "expand" parameter (e.g. "metadata") or {@code null} for items without extra fields
+	 * @param lookAheadPages - count of pages, which could be loaded in advance, must be at least 1
+	 * 
+	 * @return {@link ItemIterator}, which must be closed if it is not read till the end
+	 */
+	public ItemIterator getCollectionItems(String collectionUUID, String expand, int lookAheadPages) {
+		
+		requireNonNull(collectionUUID);
+		if (lookAheadPages < 1) {
+			throw new IllegalArgumentException("Look-ahead must be at least 1 page: " + lookAheadPages);
+		}
+		
+		String itemsURL = this.collectionsURL + "/" + collectionUUID + "/items";
+		if (expand != null) {
+			itemsURL += "?expand=" + expand;
+		}
+		return new ItemIterator(this, itemsURL, getEffectiveRestPageSize(), lookAheadPages);
+	}
+	
+	
+	/**
+	 * Get all bitstreams of the item (name, size, checksum, retrieve link etc.). REST is used.
+	 * 
+	 * @param itemUUID - UUID of the item as {@link String} (see {@link ItemObject#uuid})
+	 * 
+	 * @return {@code List<BitstreamObject>} (could be also empty) or {@code null} in case of error
+	 */
+	public List<BitstreamObject> getItemBitstreams(String itemUUID) {
+		
+		requireNonNull(itemUUID);
+		return getAllPages(this.itemsURL + "/" + itemUUID + "/bitstreams", BitstreamObject[].class);
+	}
+	
+	
+	/**
+	 * Download the content of the bitstream into the file. REST is used.
+	 * <p>
+	 * The content is written directly from the response stream into the {@link java.nio.channels.FileChannel} 
+	 * of a temporary file in the same directory and the checksum (see {@link BitstreamObject#checkSum}) is calculated 
+	 * during the transfer. The temporary file replaces the target file only after a complete download with 
+	 * matching size and checksum, otherwise it is deleted (also in case of an error or cancellation). 
+	 * 
+	 * @param bitstream - object of {@link BitstreamObject}, e.g. from {@link #getItemBitstreams(String)}
+	 * @param targetFile - file to write into, existing content is overwritten
+	 * 
+	 * @throws IOException in case of IO error, error response or not matching checksum
+	 */
+	public void downloadBitstream(BitstreamObject bitstream, File targetFile) throws IOException {
+		
+		requireNonNull(bitstream);
+		requireNonNull(bitstream.uuid);
+		requireNonNull(targetFile);
+		
+		final MessageDigest digest = createDigest(bitstream);
+		final String retrieveURL = this.bitstreamsURL + "/" + bitstream.uuid + "/retrieve";
+		
+		final CloseableHttpResponse response = getRestResponse(retrieveURL, "*/*");
+		if (response == null) {
+			throw new IOException("No response for " + retrieveURL);
+		}
+		File partFile = null;
+		try {
+			if (response.getStatusLine().getStatusCode() != HttpStatus.SC_OK) {
+				throw new IOException("Response status " + response.getStatusLine().getStatusCode() + " for " + retrieveURL);
+			}
+			partFile = File.createTempFile("download-", ".part", targetFile.getAbsoluteFile().getParentFile());
+			final long size = IOUtils.copyStreamToFile(response.getEntity().getContent(), partFile, digest);
+			
+			// Check size and checksum, if they are known
+			if ((bitstream.sizeBytes > 0) && (size != bitstream.sizeBytes)) {
+				throw new IOException("Size of the downloaded bitstream " + bitstream.uuid + " is " + size 
+						+ " bytes, expected: " + bitstream.sizeBytes);
+			}
+			if (digest != null) {
+				final String checksum = String.format("%0" + (digest.getDigestLength() * 2) + "x", new BigInteger(1, digest.digest()));
+				if (!checksum.equalsIgnoreCase(bitstream.checkSum.value)) {
+					throw new IOException("Checksum of the downloaded bitstream " + bitstream.uuid + " is " + checksum 
+							+ ", expected: " + bitstream.checkSum.value);
+				}
+			}
+			IOUtils.moveReplacing(partFile, targetFile);
+			partFile = null;
+		} finally {
+			WebUtils.closeResponse(response);
+			if ((partFile != null) && !partFile.delete()) {
+				log.warn("Temporary file of the download could not be deleted: {}", partFile);
+			}
+		}
+	}
+	
+	
+	/**
+	 * Download the content of several bitstreams into the directory, with the bitstream names as file names. REST is used.
+	 * <p>
+	 * If a name is used by more than one bitstream, the UUID is added as a prefix to the file name.
+	 * 
+	 * @param bitstreams - list of {@link BitstreamObject}
+	 * @param targetDirectory - directory for the files, must exist
+	 * @param parallelism - count of the concurrent downloads, must be at least 1
+	 * 
+	 * @return {@code Map<String, File>}, where key = "bitstream UUID", value = "downloaded file". 
+	 * 			Bitstreams which could not be downloaded (see log) are not included.
+	 */
+	public Map<String, File> downloadBitstreams(List<BitstreamObject> bitstreams, File targetDirectory, int parallelism) {
+		
+		requireNonNull(bitstreams);
+		requireNonNull(targetDirectory);
+		if (parallelism < 1) {
+			throw new IllegalArgumentException("Parallelism must be at least 1: " + parallelism);
+		}
+		
+		// Unique file names
+		final Set<String> names = new HashSet<String>();
+		final Set<String> duplicatedNames = new HashSet<String>();
+		for (BitstreamObject bitstream : bitstreams) {
+			final String fileName = getFileName(bitstream);
+			if (!names.add(fileName)) {
+				duplicatedNames.add(fileName);
+			}
+		}
+		
+		final ExecutorService executor = Executors.newFixedThreadPool(parallelism, ThreadUtils.createDaemonThreadFactory("dspace-download"));
+		final Map<String, Future<File>> downloads = new HashMap<String, Future<File>>();
+		try {
+			for (final BitstreamObject bitstream : bitstreams) {
+				String fileName = getFileName(bitstream);
+				if (duplicatedNames.contains(fileName)) {
+					fileName = bitstream.uuid + "_" + fileName;
+				}
+				final File targetFile = new File(targetDirectory, fileName);
+				downloads.put(bitstream.uuid, executor.submit(CancellationToken.propagate(new Callable<File>() {
+					@Override
+					public File call() throws IOException {
+						downloadBitstream(bitstream, targetFile);
+						return targetFile;
+					}
+				})));
+			}
+			
+			final Map<String, File> files = new HashMap<String, File>();
+			for (Map.Entry<String, Future<File>> download : downloads.entrySet()) {
+				try {
+					files.put(download.getKey(), download.getValue().get());
+				} catch (ExecutionException e) {
+					log.error("Exception by downloading bitstream {}: {}: {}", download.getKey(), 
+							e.getCause().getClass().getSimpleName(), e.getCause().getMessage());
+				}
+			}
+			return files;
+			
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			cancelAll(new ArrayList<Future<File>>(downloads.values()));
+			return new HashMap<String, File>();
+		} finally {
+			executor.shutdown();
+		}
+	}
+	
+	
+	/**
+	 * @return name of the bitstream without any path, or the UUID if the bitstream has no usable name
+	 */
+	private static String getFileName(BitstreamObject bitstream) {
+		
+		final String name = (bitstream.name != null) ? new File(bitstream.name).getName() : "";
+		return (name.isEmpty() || name.equals(".") || name.equals("..")) ? bitstream.uuid : name;
+	}
+	
+	
+	private static MessageDigest createDigest(BitstreamObject bitstream) {
+		
+		if ((bitstream.checkSum == null) || (bitstream.checkSum.value == null) || (bitstream.checkSum.checkSumAlgorithm == null)) {
+			return null;
+		}
+		try {
+			return MessageDigest.getInstance(bitstream.checkSum.checkSumAlgorithm);
+		} catch (NoSuchAlgorithmException e) {
+			log.warn("Checksum algorithm {} is not supported, checksum of bitstream {} will not be checked.", 
+					bitstream.checkSum.checkSumAlgorithm, bitstream.uuid);
+			return null;
+		}
+	}
+	
+	
+	/**
+	 * Get the item with extra fields. REST is used.
+	 * 
+	 * @param itemUUID - UUID of the item as {@link String}
+	 * @param expand - value of the "expand" parameter (e.g. "metadata") or {@code null}
+	 * 
+	 * @return {@link ItemObject} or {@code null} in case of error
+	 */
+	public ItemObject getItemObject(String itemUUID, String expand) {
+		
+		requireNonNull(itemUUID);
+		
+		final String itemURL = this.itemsURL + "/" + itemUUID + ((expand != null) ? "?expand=" + expand : "");
+		final CloseableHttpResponse response = getRestResponse(itemURL);
+		if (response == null) {
+			return null;
+		}
+		try {
+			if (response.getStatusLine().getStatusCode() != HttpStatus.SC_OK) {
+				log.error("Error by getting item {}: response status {}", itemURL, response.getStatusLine().getStatusCode());
+				return null;
+			}
+			return JsonUtils.jsonStreamToObject(response.getEntity().getContent(), ItemObject.class);
+		} catch (IOException e) {
+			log.error("Exception by reading item {}: {}: {}", itemURL, e.getClass().getSimpleName(), e.getMessage());
+			return null;
+		} finally {
+			WebUtils.closeResponse(response);
+		}
+	}
+	
+	
+	/**
+	 * Get items, which were modified after the checkpoint, with their metadata. REST is used.
+	 * <p>
+	 * The REST-API of DSpace-6 can not filter items by the modification time, so all items of the scope are scanned.
+	 * The scan is cheap: items are listed without any extra fields (see {@link #getCollectionItems(String, String, int)}),
+	 * the "lastModified" values are compared without date objects, not modified items are dropped immediately, 
+	 * and only the modified items are requested again with their metadata (concurrently, see {@link #getRestParallelism()}).
+	 * 
+	 * @param collectionUUID - UUID of the collection or {@code null} for all items of the repository
+	 * @param checkpoint - checkpoint of the previous synchronization, e.g. {@link SyncCheckpoint#initial(String)} 
+	 * 			for the first synchronization
+	 * 
+	 * @return {@link ItemChanges} with modified items and the new checkpoint or {@code null} in case of error
+	 */
+	public ItemChanges getModifiedItems(String collectionUUID, SyncCheckpoint checkpoint) {
+		
+		requireNonNull(checkpoint);
+		
+		final long startTime = System.currentTimeMillis();
+		final long threshold = checkpoint.getThreshold();
+		long watermark = checkpoint.getWatermark();
+		int scannedItems = 0;
+		
+		// Scan: only UUIDs of the modified items are kept
+		final List<String> modifiedUUIDs = new ArrayList<String>();
+		final ItemIterator items = (collectionUUID != null) 
+				? getCollectionItems(collectionUUID, null, DEFAULT_ITEM_LOOK_AHEAD)
+				: new ItemIterator(this, this.itemsURL, getEffectiveRestPageSize(), DEFAULT_ITEM_LOOK_AHEAD);
+		try {
+			while (items.hasNext()) {
+				final ItemObject item = items.next();
+				scannedItems++;
+				final long lastModified = SyncCheckpoint.parseLastModified(item.lastModified);
+				if ((threshold == SyncCheckpoint.NO_WATERMARK) || (lastModified > threshold) 
+						|| (lastModified == SyncCheckpoint.NO_WATERMARK)) {
+					modifiedUUIDs.add(item.uuid);
+				}
+				if (lastModified > watermark) {
+					watermark = lastModified;
+				}
+			}
+		} catch (IllegalStateException e) {
+			log.error("Exception by scanning items for synchronization: {}", e.getMessage());
+			return null;
+		} finally {
+			items.close();
+		}
+		
+		// Modified items with metadata
+		final List<ItemObject> modifiedItems = new ArrayList<ItemObject>(modifiedUUIDs.size());
+		for (int start = 0; start < modifiedUUIDs.size(); start += this.restParallelism) {
+			final List<Future<ItemObject>> round = new ArrayList<Future<ItemObject>>(this.restParallelism);
+			for (final String uuid : modifiedUUIDs.subList(start, Math.min(start + this.restParallelism, modifiedUUIDs.size()))) {
+				round.add(getRestExecutor().submit(CancellationToken.propagate(new Callable<ItemObject>() {
+					@Override
+					public ItemObject call() {
+						return getItemObject(uuid, "metadata");
+					}
+				})));
+			}
+			for (Future<ItemObject> future : round) {
+				try {
+					final ItemObject item = future.get();
+					if (item == null) {
+						cancelAll(round);
+						return null;
+					}
+					modifiedItems.add(item);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					cancelAll(round);
+					return null;
+				} catch (ExecutionException e) {
+					log.error("Exception by getting modified item: {}: {}", e.getCause().getClass().getSimpleName(), e.getCause().getMessage());
+					cancelAll(round);
+					return null;
+				}
+			}
+		}
+		
+		final SyncCheckpoint newCheckpoint = new SyncCheckpoint(collectionUUID, watermark, System.currentTimeMillis() - startTime);
+		return new ItemChanges(modifiedItems, newCheckpoint, scannedItems);
+	}
+	
+	
+	/**
+	 * Get items, which were modified after the previous synchronization, and save the new checkpoint into the file.
+	 * See {@link #getModifiedItems(String, SyncCheckpoint)}. REST is used.
+	 * 
+	 * @param collectionUUID - UUID of the collection or {@code null} for all items of the repository
+	 * @param checkpointFile - file with the checkpoint of the previous synchronization, 
+	 * 			if the file does not exist, all items are delivered
+	 * 
+	 * @return {@link ItemChanges} with modified items and the new (already saved) checkpoint or {@code null} in case of error
+	 * 
+	 * @throws IOException in case of IO error of the checkpoint file
+	 */
+	public ItemChanges syncModifiedItems(String collectionUUID, File checkpointFile) throws IOException {
+		
+		requireNonNull(checkpointFile);
+		
+		final ItemChanges changes = getModifiedItems(collectionUUID, SyncCheckpoint.load(checkpointFile, collectionUUID));
+		if (changes != null) {
+			changes.getCheckpoint().save(checkpointFile);
+		}
+		return changes;
+	}
+	
+	
+	/**
+	 * Get all objects of some REST list (e.g. "/collections") page by page, using "limit" and "offset" parameters.
+	 * <p>
+	 * The first page is requested alone. If it is full, the next pages are requested concurrently, 
+	 * in rounds of {@link #getRestParallelism()} pages, until some page is shorter than the page size.
+	 * The pages are merged in the order of their offsets.
+	 * <p>
+	 * If the first page is shorter than {@link #getRestPageSize()} and longer than all pages, which the server is known 
+	 * to deliver (a full page or a short page confirmed as the end of a list), the next page is requested to check 
+	 * if the server limits the page size. If the next page is empty, the length of the first page is remembered, 
+	 * so that later listings with short pages up to this length need only one request. If the server limits 
+	 * the page size, the limit of the server is used as page size from now on. The listing fails (with a warning), if the server ignores the "offset" parameter 
+	 * (a page starts with the same object as the previous page) or more than {@value #MAX_REST_OBJECTS} objects are delivered.
+	 * 
+	 * @param <T> - type of the objects (DTO)
+	 * @param url - URL of the REST list as {@link String}
+	 * @param pageType - array type of the objects, e.g. {@code CollectionObject[].class}
+	 * 
+	 * @return {@code List<T>} with all objects or {@code null} in case of error
+	 */
+	protected <T> List<T> getAllPages(final String url, final Class<T[]> pageType) {
+		
+		requireNonNull(url);
+		requireNonNull(pageType);
+		
+		final int parallelism = this.restParallelism;
+		int limit = getEffectiveRestPageSize();
+		
+		final T[] firstPage = getPage(url, 0, limit, pageType);
+		if (firstPage == null) {
+			return null;
+		}
+		List<T> objects = new ArrayList<T>(Arrays.asList(firstPage));
+		String previousFirstObject = getFirstObjectKey(firstPage);
+		int lastPageLength = firstPage.length;
+		if (firstPage.length == limit) {
+			this.restConfirmedPageSize = Math.max(this.restConfirmedPageSize, limit);
+		} else if ((firstPage.length > 0) && (firstPage.length > this.restConfirmedPageSize)) {
+			// Short first page: the end of the list or the limit of the server
+			final T[] checkPage = getPage(url, firstPage.length, limit, pageType);
+			if (checkPage == null) {
+				return null;
+			}
+			if (checkPage.length == 0) {
+				// End of the list: the server delivers at least this number of objects per page
+				this.restConfirmedPageSize = Math.max(this.restConfirmedPageSize, firstPage.length);
+				return objects;
+			}
+			if (isRepeatedPage(url, previousFirstObject, checkPage)) {
+				return null;
+			}
+			log.warn("REST server delivers at most {} objects per page, requested {}: {}", firstPage.length, limit, url);
+			limit = firstPage.length;
+			this.restServerPageLimit = limit;
+			this.restConfirmedPageSize = Math.max(this.restConfirmedPageSize, limit);
+			objects.addAll(Arrays.asList(checkPage));
+			previousFirstObject = getFirstObjectKey(checkPage);
+			lastPageLength = checkPage.length;
+		}
+		final int pageSize = limit;
+		boolean complete = (lastPageLength < pageSize);
+		int offset = objects.size();
+		
+		while (!complete) {
+			// Request the next round of pages concurrently
+			List<Future<T[]>> pages = new ArrayList<Future<T[]>>(parallelism);
+			for (int i = 0; i < parallelism; i++) {
+				final int pageOffset = offset + i * pageSize;
+				pages.add(getRestExecutor().submit(CancellationToken.propagate(new Callable<T[]>() {
+					@Override
+					public T[] call() {
+						return getPage(url, pageOffset, pageSize, pageType);
+					}
+				})));
+			}
+			offset += parallelism * pageSize;
+			
+			// Merge pages in the order of their offsets, the rest after the last (short) page is not needed
+			for (Future<T[]> future : pages) {
+				if (complete) {
+					future.cancel(false);
+					continue;
+				}
+				T[] page;
+				try {
+					page = future.get();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					cancelAll(pages);
+					return null;
+				} catch (ExecutionException e) {
+					log.error("Exception by getting page of {}: {}: {}", url, e.getCause().getClass().getSimpleName(), e.getCause().getMessage());
+					cancelAll(pages);
+					return null;
+				}
+				if ((page == null) || isRepeatedPage(url, previousFirstObject, page)) {
+					cancelAll(pages);
+					return null;
+				}
+				objects.addAll(Arrays.asList(page));
+				if (objects.size() > MAX_REST_OBJECTS) {
+					log.warn("REST list has more than {} objects, listing is stopped: {}", MAX_REST_OBJECTS, url);
+					cancelAll(pages);
+					return null;
+				}
+				previousFirstObject = getFirstObjectKey(page);
+				complete = (page.length < pageSize);
+			}
+		}
+		return objects;
+	}
+	
+	
+	/**
+	 * @return page size of the REST requests: {@link #getRestPageSize()} or the smaller limit of the server, if it was detected
+	 */
+	int getEffectiveRestPageSize() {
+		final int requestedPageSize = this.restPageSize;
+		final int serverPageLimit = this.restServerPageLimit;
+		return ((serverPageLimit > 0) && (serverPageLimit < requestedPageSize)) ? serverPageLimit : requestedPageSize;
+	}
+	
+	
+	/**
+	 * @param pageLength - length of a page, which is shorter than the requested page size
+	 * @return {@code true} if the page is the end of the list, because the server is known to deliver pages of this length 
+	 * 		   (see {@link #getAllPages(String, Class)}), otherwise the page could be shortened by a limit of the server
+	 */
+	boolean isEndOfRestList(int pageLength) {
+		return pageLength <= this.restConfirmedPageSize;
+	}
+	
+	
+	/**
+	 * Check if the page starts with the same object as the previous page, i.e. the server ignores the "offset" parameter
+	 */
+	private static <T> boolean isRepeatedPage(String url, String previousFirstObject, T[] page) {
+		
+		final String firstObject = getFirstObjectKey(page);
+		if ((firstObject != null) && firstObject.equals(previousFirstObject)) {
+			log.warn("REST server repeats the same page, the \"offset\" parameter seems to be ignored, listing is stopped: {}", url);
+			return true;
+		}
+		return false;
+	}
+	
+	
+	/**
+	 * @return JSON of the first object of the page (DTOs have no equals method) or {@code null} for an empty page
+	 */
+	private static <T> String getFirstObjectKey(T[] page) {
+		return (page.length > 0) ? JsonUtils.objectToJsonString(page[0]) : null;
+	}
+	
+	
+	/**
+	 * Get one page of some REST list. REST is used.
+	 * 
+	 * @param <T> - type of the objects (DTO)
+	 * @param url - URL of the REST list as {@link String}
+	 * @param offset - "offset" parameter of the request
+	 * @param limit - "limit" parameter of the request
+	 * @param pageType - array type of the objects, e.g. {@code CollectionObject[].class}
+	 * 
+	 * @return array of objects (could be shorter than "limit" for the last page) or {@code null} in case of error
+	 */
+	protected <T> T[] getPage(String url, int offset, int limit, Class<T[]> pageType) {
+		
+		final String pageURL = url + (url.contains("?") ? "&" : "?") + "limit=" + limit + "&offset=" + offset;
+		final CloseableHttpResponse response = getRestResponse(pageURL);
+		if (response == null) {
+			return null;
+		}
+		try {
+			if (response.getStatusLine().getStatusCode() != HttpStatus.SC_OK) {
+				log.error("Error by getting page {}: response status {}", pageURL, response.getStatusLine().getStatusCode());
+				return null;
+			}
+			return JsonUtils.jsonStreamToObject(response.getEntity().getContent(), pageType);
+		} catch (IOException e) {
+			log.error("Exception by reading page {}: {}: {}", pageURL, e.getClass().getSimpleName(), e.getMessage());
+			return null;
+		} finally {
+			WebUtils.closeResponse(response);
+		}
+	}
+	
+	
+	/**
+	 * Get a response to the GET-request via REST, JSON is used as content and accept type.
+	 * 
+	 * @param url - URL as {@link String}
+	 * 
+	 * @return {@link CloseableHttpResponse} or {@code null} in case of error
+	 */
+	protected CloseableHttpResponse getRestResponse(String url) {
+		return getRestResponse(url, APPLICATION_JSON);
+	}
+	
+	
+	/**
+	 * Get a response to the GET-request via REST.
+	 * 
+	 * @param url - URL as {@link String}
+	 * @param acceptType - accept type as {@link String}, e.g. "*&#47;*" for the content of bitstreams
+	 * 
+	 * @return {@link CloseableHttpResponse} or {@code null} in case of error
+	 */
+	protected CloseableHttpResponse getRestResponse(String url, String acceptType) {
+		
+		if (!this.restAuthentication) {
+			return executeRestRequest(WebUtils.createRequest(url, RequestType.GET, APPLICATION_JSON, acceptType));
+		}
+		
+		final RestSession session = getRestSession();
+		for (int attempt = 1; ; attempt++) {
+			final HttpUriRequest request = WebUtils.createRequest(url, RequestType.GET, APPLICATION_JSON, acceptType);
+			final String sessionId;
+			try {
+				sessionId = session.authenticate(this.httpClient, request, super.getAuthCredentials().getPassword());
+			} catch (IOException e) {
+				log.error("Exception by REST login: {}: {}", e.getClass().getSimpleName(), e.getMessage());
+				return null;
+			}
+			final CloseableHttpResponse response = executeRestRequest(request);
+			if ((response == null) || (attempt > 1)) {
+				return response;
+			}
+			if (response.getStatusLine().getStatusCode() != HttpStatus.SC_UNAUTHORIZED) {
+				return response; // 403 means missing permissions, a new login would not help
+			}
+			// Session is probably expired on the server side -> new login and one more attempt
+			WebUtils.closeResponse(response);
+			session.invalidate(sessionId);
+		}
+	}
+	
+	
+	/**
+	 * Execute the REST request under the limit of concurrent requests, see {@link #executeLimitedRequest(HttpUriRequest, String)}.
+	 * 
+	 * @param request - object of {@link HttpUriRequest}
+	 * 
+	 * @return {@link CloseableHttpResponse} or {@code null} in case of error
+	 */
+	protected CloseableHttpResponse executeRestRequest(HttpUriRequest request) {
+		return executeLimitedRequest(request, OPERATION_REST);
+	}
+	
+	
+	/**
+	 * Get the key of a REST read for {@link SingleFlight}, which contains the credentials if they are used.
+	 * 
+	 * @param url - URL of the read as {@link String}
+	 * @return key as {@link String}
+	 */
+	protected String getRestReadKey(String url) {
+		return SingleFlight.createKey(url, this.restAuthentication ? getCredentialsKey() : null);
+	}
+	
+	
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * DSpace_v6: REST-URL is a part of the key.
+	 */
+	@Override
+	protected String getSnapshotKey() {
+		return super.getSnapshotKey() + "\n" + this.restURL + "\n" + this.restAuthentication;
+	}
+	
+	
+	/**
+	 * Get the authenticated REST session for the credentials of the object.
+	 * 
+	 * @return {@link RestSession}
+	 */
+	protected synchronized RestSession getRestSession() {
+		if (this.restSession == null) {
+			this.restSession = new RestSession(this.restURL, super.getAuthCredentials().getUsername());
+		}
+		return this.restSession;
+	}
+	
+	
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * DSpace-v6: the same client is used for REST and SWORD requests.
+	 */
+	@Override
+	protected CloseableHttpClient getHttpClient() {
+		return this.httpClient;
+	}
+	
+	
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * DSpace_v6: service document (SWORD), hierarchy and collections (REST) are loaded in parallel.
+	 */
+	@Override
+	protected boolean warmUpResources() {
+		
+		final Future<Boolean> serviceDocumentFuture = getRestExecutor().submit(new Callable<Boolean>() {
+			@Override
+			public Boolean call() {
+				return DSpace_v6.super.warmUpResources();
+			}
+		});
+		final Future<CollectionObject[]> collectionsFuture = getRestExecutor().submit(new Callable<CollectionObject[]>() {
+			@Override
+			public CollectionObject[] call() {
+				return collectionsCache.refresh();
+			}
+		});
+		boolean loaded = (this.flatHierarchyCache.refresh() != null);
+		try {
+			loaded &= (collectionsFuture.get() != null);
+			loaded &= serviceDocumentFuture.get();
+			return loaded;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			cancelAll(Arrays.asList(serviceDocumentFuture, collectionsFuture));
+			return false;
+		} catch (ExecutionException e) {
+			log.error("Exception by warm-up: {}: {}", e.getCause().getClass().getSimpleName(), e.getCause().getMessage());
+			return false;
+		}
+	}
+	
+	
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * DSpace_v6: REST-API and service document are checked, with the lightweight probe concurrently. 
+	 * The REST probe is cancelled, if its result is not needed anymore (e.g. the service document is not accessible).
+	 */
+	@Override
+	protected boolean checkRepositoryAccessible() {
+		
+		if (!isLightweightProbe()) {
+			return (isRestAccessible() && super.checkRepositoryAccessible());
+		}
+		final Future<Boolean> restFuture = getRestExecutor().submit(new Callable<Boolean>() {
+			@Override
+			public Boolean call() {
+				return probeRest();
+			}
+		});
+		try {
+			if (!super.checkRepositoryAccessible()) {
+				return false;
+			}
+			return restFuture.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return false;
+		} catch (ExecutionException e) {
+			log.error("Exception by REST probe: {}: {}", e.getCause().getClass().getSimpleName(), e.getCause().getMessage());
+			return false;
+		} finally {
+			restFuture.cancel(true); // no effect if the probe is finished already
+		}
+	}
+	
+	
+	/**
+	 * Get the executor for concurrent REST requests. The executor is created by the first usage, 
+	 * its threads are daemon threads.
+	 * 
+	 * @return {@link ExecutorService}
+	 */
+	protected synchronized ExecutorService getRestExecutor() {
+		if (this.restExecutor == null) {
+			this.restExecutor = Executors.newCachedThreadPool(ThreadUtils.createDaemonThreadFactory("dspace-rest"));
+		}
+		return this.restExecutor;
+	}
+	
+	
+	private static void cancelAll(List<? extends Future<?>> futures) {
+		for (Future<?> future : futures) {
+			future.cancel(false);
+		}
 	}
 			
 	
@@ -315,22 +1505,34 @@ public class DSpace_v6 extends DSpaceSwordOnly {
 	@Override
 	public List<String> getCommunitiesForCollection(String collectionURL) {
 
-		ServiceDocument serviceDocument = super.getServiceDocument(this.serviceDocumentURL);
+		if (isUnknownCollection(collectionURL)) {
+			return null;
+		}
+		final long structureVersion = getStructureVersion();
+		ServiceDocument serviceDocument = getServiceDocument();
 		if(serviceDocument == null) {
 			return null;
 		}
 
+		List<String> communities;
 		// Check, if "service" tag is provided for the collections - not default service document.
 		if(super.isServiceDocumentWithSubservices(serviceDocument)) {
 			// Get communities for collections via SWORD protocol only, with usage of HierarchyObject class
 			
-			return super.getHierarchy(serviceDocument).getServiceHierarchyForCollection(collectionURL);
+			communities = super.getHierarchy(serviceDocument).getServiceHierarchyForCollection(collectionURL);
 		} else {
 			// Service document has only collections (default service document). Combine REST and SWORD requests.
-			HierarchyObjectRestV6 hierarchy = getHierarchyObjectRestV6();
+			FlatHierarchy hierarchy = getFlatHierarchy();
 			CollectionObject[] existedCollectionObjects = getAllCollectionObjects();
-			return getCommunitiesForCollection(collectionURL, serviceDocument, hierarchy, existedCollectionObjects);
+			if ((hierarchy == null) || (existedCollectionObjects == null)) {
+				return null;
+			}
+			communities = getCommunitiesForCollection(collectionURL, serviceDocument, hierarchy, existedCollectionObjects);
+		}
+		if (communities == null) {
+			addUnknownCollection(collectionURL, structureVersion);
 		}
+		return communities;
 	}
 	
 	
@@ -342,7 +1544,7 @@ public class DSpace_v6 extends DSpaceSwordOnly {
 	@Override
 	public Map<String, String> getAvailableCollectionsWithFullName(String fullNameSeparator) {
 
-		ServiceDocument serviceDocument = super.getServiceDocument(this.serviceDocumentURL);
+		ServiceDocument serviceDocument = getServiceDocument();
 		if(serviceDocument == null) {
 			return null;
 		}
@@ -358,48 +1560,32 @@ public class DSpace_v6 extends DSpaceSwordOnly {
 		Map<String, String> collectionsMap = super.getCollections(serviceDocument);
 		
 		// Get complete hierarchy of collections and array of CollectionOnject-s (REST) 
-		final HierarchyObjectRestV6 hierarchy = getHierarchyObjectRestV6();
+		final FlatHierarchy hierarchy = getFlatHierarchy();
 		final CollectionObject[] existedCollectionObjects = getAllCollectionObjects();
+		if ((hierarchy == null) || (existedCollectionObjects == null)) {
+			return null;
+		}
 
-		// Extend collection name with communities and separators
-		for (String collectionUrl : collectionsMap.keySet()) {
-			List<String> communities = this.getCommunitiesForCollection(collectionUrl, serviceDocument, hierarchy, existedCollectionObjects);
-			// Check if communities is null (e.g. wrong collectionUrl)
-			if(communities == null) {
+		// Extend collection name with communities and separators, the handles of all collections are resolved together
+		final Map<String, String> handles = getCollectionHandles(collectionsMap.keySet(), serviceDocument, existedCollectionObjects);
+		final StringBuilder fullName = new StringBuilder();
+		for (Map.Entry<String, String> collection : collectionsMap.entrySet()) {
+			final String collectionHandle = handles.get(collection.getKey());
+			final int node = (collectionHandle != null) ? hierarchy.indexOfHandle(collectionHandle) : FlatHierarchy.NO_NODE;
+			// Check if the collection is found (e.g. wrong collectionUrl)
+			if ((node == FlatHierarchy.NO_NODE) || !hierarchy.isCollection(node)) {
 				return null; // error
 			}
-			String fullName = "";
-			for (String community : communities) {
-				fullName += community + fullNameSeparator; // add community + separator
+			fullName.setLength(0);
+			// without "Workspace" - it is not a community, but it is always on the first level of the hierarchy
+			final int[] communities = hierarchy.getAncestors(node);
+			for (int i = 1; i < communities.length; i++) {
+				fullName.append(hierarchy.getName(communities[i])).append(fullNameSeparator); // add community + separator
 			}
-			fullName += collectionsMap.get(collectionUrl); // add collection name (title)
-			collectionsMap.put(collectionUrl, fullName);
+			fullName.append(collection.getValue()); // add collection name (title)
+			collection.setValue(fullName.toString());
 		}
 		return collectionsMap;
 	}
-	
-	
-	/*
-	 * -----------------------------------------
-	 * 
-	 * ExportRepository interface implementation
-	 * 
-	 * -----------------------------------------
-	 */
-	
-	
-	/**
-	 * {@inheritDoc}
-	 * <p>
-	 * For DSpace it is done by access to the Service Document via SWORD-protocol
-	 * and checking an access to the REST-API.
-	 * 
-	 * @return {@code true} if service document and REST-API are accessible, and
-	 *         {@code false} otherwise (e.g. by Error 403).
-	 */
-	@Override
-	public boolean isRepositoryAccessible() {
-		return (isRestAccessible() && super.isSwordAccessible(this.serviceDocumentURL));
-	}
 
 }
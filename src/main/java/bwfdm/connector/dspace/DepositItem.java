@@ -0,0 +1,76 @@
+/*
+ * Unless expressly otherwise stated, code from this project is licensed under the MIT license [https://opensource.org/licenses/MIT].
+ * 
+ * Copyright (c) <2018> <Volodymyr Kushnarenko, Stefan Kombrink, Markus Gärtner, Florian Fritze, Matthias Fratz, Daniel Scharon, Sibylle Hermann, Franziska Rapp and Uli Hahn>
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), 
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, 
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A 
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT 
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+ * CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH 
+ * THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package bwfdm.connector.dspace;
+
+import static java.util.Objects.requireNonNull;
+
+import java.io.File;
+
+import bwfdm.connector.dspace.metadata.MetadataRecord;
+
+/**
+ * One entry of a batch export: a file with its metadata, which should be exported to a collection 
+ * (see {@link DSpaceSwordOnly#createEntriesWithMetadataAndFile(java.util.List)}).
+ * 
+ * @author agent
+ */
+public class DepositItem {
+
+	private final String collectionURL;
+	private final MetadataRecord metadataRecord;
+	private final File file;
+	private final boolean unpackZip;
+	private final boolean inProgress;
+	
+	/**
+	 * @param collectionURL - collection URL (with "collection" substring inside)
+	 * @param metadataRecord - metadata as {@link MetadataRecord}
+	 * @param file - file to export
+	 * @param unpackZip - unpack the file in the repository, if it is a ZIP archive
+	 * @param inProgress - value of the "In-Progress" header of the metadata request
+	 */
+	public DepositItem(String collectionURL, MetadataRecord metadataRecord, File file, boolean unpackZip, boolean inProgress) {
+		this.collectionURL = requireNonNull(collectionURL);
+		this.metadataRecord = requireNonNull(metadataRecord);
+		this.file = requireNonNull(file);
+		this.unpackZip = unpackZip;
+		this.inProgress = inProgress;
+	}
+	
+	public String getCollectionURL() {
+		return collectionURL;
+	}
+	
+	public MetadataRecord getMetadataRecord() {
+		return metadataRecord;
+	}
+	
+	public File getFile() {
+		return file;
+	}
+	
+	public boolean isUnpackZip() {
+		return unpackZip;
+	}
+	
+	public boolean isInProgress() {
+		return inProgress;
+	}
+	
+}
@@ -0,0 +1,70 @@
+/*
+ * Unless expressly otherwise stated, code from this project is licensed under the MIT license [https://opensource.org/licenses/MIT].
+ * 
+ * Copyright (c) <2018> <Volodymyr Kushnarenko, Stefan Kombrink, Markus Gärtner, Florian Fritze, Matthias Fratz, Daniel Scharon, Sibylle Hermann, Franziska Rapp and Uli Hahn>
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), 
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, 
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A 
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT 
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+ * CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH 
+ * THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package bwfdm.connector.dspace;
+
+/**
+ * Result of the export of one {@link DepositItem} in a batch: 
+ * the edit URL of the entry and the error, if the export was not complete.
+ * <p>
+ * If the file was deposited, but the metadata could not be added, both the edit URL 
+ * and the error are provided: the entry stays in the workspace without the new metadata.
+ * 
+ * @author agent
+ */
+public class DepositResult {
+
+	private final DepositItem item;
+	private final String editLink;
+	private final String error;
+	
+	public DepositResult(DepositItem item, String editLink, String error) {
+		this.item = item;
+		this.editLink = editLink;
+		this.error = error;
+	}
+	
+	/**
+	 * @return {@code true} if the file and the metadata were exported
+	 */
+	public boolean isSuccessful() {
+		return (editLink != null) && (error == null);
+	}
+	
+	/**
+	 * @return exported item
+	 */
+	public DepositItem getItem() {
+		return item;
+	}
+	
+	/**
+	 * @return edit URL of the entry (with "edit" substring inside) or {@code null} if no entry was created
+	 */
+	public String getEditLink() {
+		return editLink;
+	}
+	
+	/**
+	 * @return description of the error or {@code null} if the export was successful
+	 */
+	public String getError() {
+		return error;
+	}
+	
+}
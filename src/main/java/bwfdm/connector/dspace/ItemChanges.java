@@ -0,0 +1,64 @@
+/*
+ * Unless expressly otherwise stated, code from this project is licensed under the MIT license [https://opensource.org/licenses/MIT].
+ * 
+ * Copyright (c) <2018> <Volodymyr Kushnarenko, Stefan Kombrink, Markus Gärtner, Florian Fritze, Matthias Fratz, Daniel Scharon, Sibylle Hermann, Franziska Rapp and Uli Hahn>
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), 
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, 
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A 
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT 
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+ * CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH 
+ * THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package bwfdm.connector.dspace;
+
+import java.util.List;
+
+import bwfdm.connector.dspace.dto.v6.ItemObject;
+
+/**
+ * Result of the incremental synchronization: items, which were modified after the previous checkpoint,
+ * and the new checkpoint for the next synchronization.
+ * 
+ * @author agent
+ */
+public class ItemChanges {
+
+	private final List<ItemObject> items;
+	private final SyncCheckpoint checkpoint;
+	private final int scannedItems;
+	
+	public ItemChanges(List<ItemObject> items, SyncCheckpoint checkpoint, int scannedItems) {
+		this.items = items;
+		this.checkpoint = checkpoint;
+		this.scannedItems = scannedItems;
+	}
+	
+	/**
+	 * @return modified items with metadata
+	 */
+	public List<ItemObject> getItems() {
+		return items;
+	}
+	
+	/**
+	 * @return checkpoint for the next synchronization
+	 */
+	public SyncCheckpoint getCheckpoint() {
+		return checkpoint;
+	}
+	
+	/**
+	 * @return count of items, which were checked during the synchronization
+	 */
+	public int getScannedItems() {
+		return scannedItems;
+	}
+	
+}
@@ -0,0 +1,222 @@
+/*
+ * Unless expressly otherwise stated, code from this project is licensed under the MIT license [https://opensource.org/licenses/MIT].
+ * 
+ * Copyright (c) <2018> <Volodymyr Kushnarenko, Stefan Kombrink, Markus Gärtner, Florian Fritze, Matthias Fratz, Daniel Scharon, Sibylle Hermann, Franziska Rapp and Uli Hahn>
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), 
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, 
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A 
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT 
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+ * CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH 
+ * THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package bwfdm.connector.dspace;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Future;
+
+import org.apache.commons.httpclient.HttpStatus;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.databind.MappingIterator;
+
+import bwfdm.connector.dspace.dto.v6.ItemObject;
+import bwfdm.connector.dspace.utils.JsonUtils;
+import bwfdm.connector.dspace.utils.WebUtils;
+
+/**
+ * Lazy iterator over the items of some REST list (e.g. "/rest/collections/{uuid}/items?expand=metadata").
+ * <p>
+ * Pages are requested in the background and kept in a bounded queue ("look-ahead"), 
+ * every page is converted directly from the response stream into {@link ItemObject}-s. 
+ * So only a few pages are in memory at the same time, independent of the count of items. 
+ * <p>
+ * The iterator must be closed, if it is not read till the end.
+ * 
+ * @author agent
+ */
+public class ItemIterator implements Iterator<ItemObject>, Closeable {
+
+	private static final Logger log = LoggerFactory.getLogger(ItemIterator.class);
+
+	private final DSpace_v6 repository;
+	private final String itemsURL;
+	private final int pageSize;
+	
+	private final BlockingQueue<Page> pages;
+	private final Future<?> producer;
+	
+	private Iterator<ItemObject> currentPage = Collections.<ItemObject>emptyList().iterator();
+	private boolean lastPageReached = false;
+	private volatile boolean closed = false;
+	
+	
+	/**
+	 * Create an iterator and start loading of the first pages.
+	 * 
+	 * @param repository - object of {@link DSpace_v6}, which is used for the REST requests
+	 * @param itemsURL - URL of the REST list of items as {@link String}, without "limit" and "offset" parameters
+	 * @param pageSize - count of items per request, should respect the limit of the server (see {@link DSpace_v6#getEffectiveRestPageSize()})
+	 * @param lookAheadPages - count of pages, which could be loaded in advance
+	 */
+	ItemIterator(DSpace_v6 repository, String itemsURL, int pageSize, int lookAheadPages) {
+		
+		this.repository = repository;
+		this.itemsURL = itemsURL;
+		this.pageSize = pageSize;
+		this.pages = new ArrayBlockingQueue<Page>(lookAheadPages);
+		
+		this.producer = repository.getRestExecutor().submit(new Runnable() {
+			@Override
+			public void run() {
+				loadPages();
+			}
+		});
+	}
+	
+	
+	@Override
+	public boolean hasNext() {
+		
+		while (!currentPage.hasNext()) {
+			if (lastPageReached || closed) {
+				return false;
+			}
+			final Page page;
+			try {
+				page = pages.take();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException("Interrupted by waiting for the next page of " + itemsURL, e);
+			}
+			if (page.error != null) {
+				lastPageReached = true;
+				throw new IllegalStateException("Error by loading items of " + itemsURL, page.error);
+			}
+			lastPageReached = page.last;
+			currentPage = page.items.iterator();
+		}
+		return true;
+	}
+
+	
+	@Override
+	public ItemObject next() {
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+		return currentPage.next();
+	}
+
+	
+	@Override
+	public void remove() {
+		throw new UnsupportedOperationException("Items could not be removed via iterator");
+	}
+
+	
+	/**
+	 * Stop loading of the further pages and release the loaded ones.
+	 */
+	@Override
+	public void close() {
+		closed = true;
+		producer.cancel(true);
+		pages.clear();
+		currentPage = Collections.<ItemObject>emptyList().iterator();
+	}
+	
+	
+	/**
+	 * Load pages one by one until the last page, the queue blocks if the consumer is slower.
+	 * The next page starts after the delivered items, so that a page, which was shortened by a limit of the server, 
+	 * does not end the iteration (see {@link #loadPage(int)}).
+	 */
+	private void loadPages() {
+		
+		int offset = 0;
+		try {
+			while (!closed) {
+				final Page page = loadPage(offset);
+				pages.put(page);
+				if (page.last) {
+					return;
+				}
+				offset += page.items.size();
+			}
+		} catch (InterruptedException e) {
+			// closed by the consumer
+		}
+	}
+	
+	
+	private Page loadPage(int offset) {
+		
+		final String pageURL = itemsURL + (itemsURL.contains("?") ? "&" : "?") + "limit=" + pageSize + "&offset=" + offset;
+		final CloseableHttpResponse response = repository.getRestResponse(pageURL);
+		if (response == null) {
+			return Page.failed(new IOException("No response for " + pageURL));
+		}
+		try {
+			if (response.getStatusLine().getStatusCode() != HttpStatus.SC_OK) {
+				return Page.failed(new IOException("Response status " + response.getStatusLine().getStatusCode() + " for " + pageURL));
+			}
+			final List<ItemObject> items = new ArrayList<ItemObject>(pageSize);
+			final MappingIterator<ItemObject> iterator = JsonUtils.jsonStreamToObjects(response.getEntity().getContent(), ItemObject.class);
+			try {
+				while (iterator.hasNextValue()) {
+					items.add(iterator.nextValue());
+				}
+			} finally {
+				iterator.close();
+			}
+			// Short page is the last one only if the server does not limit the page size to its length, 
+			// otherwise the next (empty) page ends the iteration
+			final boolean last = items.isEmpty() || ((items.size() < pageSize) && repository.isEndOfRestList(items.size()));
+			return new Page(items, last, null);
+		} catch (IOException e) {
+			log.error("Exception by loading items page {}: {}: {}", pageURL, e.getClass().getSimpleName(), e.getMessage());
+			return Page.failed(e);
+		} finally {
+			WebUtils.closeResponse(response);
+		}
+	}
+	
+	
+	/**
+	 * Loaded page of items or loading error
+	 */
+	private static class Page {
+		
+		final List<ItemObject> items;
+		final boolean last;
+		final Exception error;
+		
+		Page(List<ItemObject> items, boolean last, Exception error) {
+			this.items = items;
+			this.last = last;
+			this.error = error;
+		}
+		
+		static Page failed(Exception error) {
+			return new Page(Collections.<ItemObject>emptyList(), true, error);
+		}
+	}
+
+}
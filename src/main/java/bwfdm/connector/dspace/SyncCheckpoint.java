@@ -0,0 +1,233 @@
+/*
+ * Unless expressly otherwise stated, code from this project is licensed under the MIT license [https://opensource.org/licenses/MIT].
+ * 
+ * Copyright (c) <2018> <Volodymyr Kushnarenko, Stefan Kombrink, Markus Gärtner, Florian Fritze, Matthias Fratz, Daniel Scharon, Sibylle Hermann, Franziska Rapp and Uli Hahn>
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), 
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, 
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A 
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT 
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+ * CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH 
+ * THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package bwfdm.connector.dspace;
+
+import static java.util.Objects.requireNonNull;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import bwfdm.connector.dspace.utils.IOUtils;
+
+/**
+ * Checkpoint of the incremental synchronization of items (see {@link DSpace_v6#getModifiedItems(String, SyncCheckpoint)}).
+ * <p>
+ * The checkpoint stores the watermark - the latest "lastModified" time of the already synchronized items 
+ * (see {@link bwfdm.connector.dspace.dto.v6.ItemObject#lastModified}) - and the scope (collection UUID) of the synchronization.
+ * It is saved as a small binary file.
+ * <p>
+ * Items could be modified during the synchronization itself, after they were already checked. 
+ * That's why the next synchronization starts before the watermark, by the duration of the previous scan 
+ * (see {@link #getThreshold()}): some items could be delivered twice, but no modification is lost.
+ * 
+ * @author agent
+ */
+public class SyncCheckpoint {
+
+	private static final int MAGIC = 0x44535343; // "DSSC"
+	private static final int VERSION = 1;
+	
+	/** Watermark of the checkpoint before the first synchronization */
+	public static final long NO_WATERMARK = Long.MIN_VALUE;
+	
+	/** Extra overlap for the next synchronization, e.g. for rounding of the server time */
+	public static final long OVERLAP_MILLIS = 1000;
+	
+	private final String collectionUUID;
+	private final long watermark;
+	private final long scanDuration;
+	
+	
+	/**
+	 * Create a checkpoint.
+	 * 
+	 * @param collectionUUID - UUID of the synchronized collection or {@code null} for all items of the repository
+	 * @param watermark - latest "lastModified" time of the synchronized items as milliseconds 
+	 * 			(see {@link #parseLastModified(String)}) or {@link #NO_WATERMARK}
+	 * @param scanDuration - duration of the synchronization in milliseconds
+	 */
+	public SyncCheckpoint(String collectionUUID, long watermark, long scanDuration) {
+		this.collectionUUID = collectionUUID;
+		this.watermark = watermark;
+		this.scanDuration = scanDuration;
+	}
+	
+	
+	/**
+	 * Create a checkpoint before the first synchronization, all items are new for it.
+	 * 
+	 * @param collectionUUID - UUID of the synchronized collection or {@code null} for all items of the repository
+	 * 
+	 * @return {@link SyncCheckpoint}
+	 */
+	public static SyncCheckpoint initial(String collectionUUID) {
+		return new SyncCheckpoint(collectionUUID, NO_WATERMARK, 0);
+	}
+	
+	
+	/**
+	 * Load the checkpoint from the file.
+	 * 
+	 * @param file - checkpoint file
+	 * @param collectionUUID - UUID of the synchronized collection or {@code null} for all items of the repository
+	 * 
+	 * @return {@link SyncCheckpoint} from the file or the initial checkpoint, if the file does not exist
+	 * 
+	 * @throws IOException in case of IO error, not valid file or other scope of the saved checkpoint
+	 */
+	public static SyncCheckpoint load(File file, String collectionUUID) throws IOException {
+		
+		requireNonNull(file);
+		if (!file.exists()) {
+			return initial(collectionUUID);
+		}
+		
+		DataInputStream in = new DataInputStream(new FileInputStream(file));
+		try {
+			if ((in.readInt() != MAGIC) || (in.readInt() != VERSION)) {
+				throw new IOException("Not supported checkpoint file: " + file);
+			}
+			String savedUUID = in.readBoolean() ? in.readUTF() : null;
+			long watermark = in.readLong();
+			long scanDuration = in.readLong();
+			if ((savedUUID == null) ? (collectionUUID != null) : !savedUUID.equals(collectionUUID)) {
+				throw new IOException("Checkpoint file " + file + " belongs to other collection: " + savedUUID);
+			}
+			return new SyncCheckpoint(savedUUID, watermark, scanDuration);
+		} finally {
+			in.close();
+		}
+	}
+	
+	
+	/**
+	 * Save the checkpoint into the file. The checkpoint is written into a temporary file, 
+	 * which replaces the file via an atomic move (if supported by the file system): 
+	 * the file contains always the old or the new checkpoint.
+	 * 
+	 * @param file - checkpoint file
+	 * 
+	 * @throws IOException in case of IO error
+	 */
+	public void save(File file) throws IOException {
+		
+		requireNonNull(file);
+		File tempFile = new File(file.getPath() + ".tmp");
+		FileOutputStream fileOut = new FileOutputStream(tempFile);
+		DataOutputStream out = new DataOutputStream(fileOut);
+		try {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeBoolean(collectionUUID != null);
+			if (collectionUUID != null) {
+				out.writeUTF(collectionUUID);
+			}
+			out.writeLong(watermark);
+			out.writeLong(scanDuration);
+			out.flush();
+			fileOut.getFD().sync();
+		} finally {
+			out.close();
+		}
+		IOUtils.moveReplacing(tempFile, file);
+	}
+	
+	
+	/**
+	 * Convert "lastModified" time of DSpace (e.g. "2017-03-23 11:15:28.61") into milliseconds, 
+	 * without creation of any calendar objects. The time zone of the server is not known, 
+	 * so the result is only used for comparison with other "lastModified" values of the same server. 
+	 * 
+	 * @param lastModified - time as {@link String} in the format "yyyy-MM-dd HH:mm:ss[.S...]"
+	 * 
+	 * @return time in milliseconds or {@link #NO_WATERMARK} if the format is not valid
+	 */
+	public static long parseLastModified(String lastModified) {
+		
+		if ((lastModified == null) || (lastModified.length() < 19)) {
+			return NO_WATERMARK;
+		}
+		try {
+			int year = Integer.parseInt(lastModified.substring(0, 4));
+			int month = Integer.parseInt(lastModified.substring(5, 7));
+			int day = Integer.parseInt(lastModified.substring(8, 10));
+			int hour = Integer.parseInt(lastModified.substring(11, 13));
+			int minute = Integer.parseInt(lastModified.substring(14, 16));
+			int second = Integer.parseInt(lastModified.substring(17, 19));
+			
+			// Fraction of second, e.g. ".61" -> 610 ms
+			int millis = 0;
+			int factor = 100;
+			for (int i = 20; (i < lastModified.length()) && (factor > 0); i++, factor /= 10) {
+				char c = lastModified.charAt(i);
+				if ((c < '0') || (c > '9')) {
+					break;
+				}
+				millis += (c - '0') * factor;
+			}
+			return ((daysFromCivil(year, month, day) * 24 + hour) * 60 + minute) * 60000L + second * 1000L + millis;
+		} catch (NumberFormatException e) {
+			return NO_WATERMARK;
+		}
+	}
+	
+	
+	/**
+	 * Days since 1970-01-01 of the proleptic Gregorian calendar
+	 */
+	private static long daysFromCivil(int year, int month, int day) {
+		year -= (month <= 2) ? 1 : 0;
+		final long era = ((year >= 0) ? year : year - 399) / 400;
+		final long yearOfEra = year - era * 400;
+		final long dayOfYear = (153 * (month + ((month > 2) ? -3 : 9)) + 2) / 5 + day - 1;
+		final long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+		return era * 146097 + dayOfEra - 719468;
+	}
+	
+	
+	public String getCollectionUUID() {
+		return collectionUUID;
+	}
+	
+	public long getWatermark() {
+		return watermark;
+	}
+	
+	public long getScanDuration() {
+		return scanDuration;
+	}
+	
+	
+	/**
+	 * Get the time, after which items are treated as modified for the next synchronization.
+	 * 
+	 * @return time in milliseconds (see {@link #parseLastModified(String)}) or {@link #NO_WATERMARK}
+	 */
+	public long getThreshold() {
+		if (watermark == NO_WATERMARK) {
+			return NO_WATERMARK;
+		}
+		return watermark - scanDuration - OVERLAP_MILLIS;
+	}
+	
+}
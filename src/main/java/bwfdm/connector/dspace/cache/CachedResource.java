@@ -0,0 +1,246 @@
+/*
+ * Unless expressly otherwise stated, code from this project is licensed under the MIT license [https://opensource.org/licenses/MIT].
+ * 
+ * Copyright (c) <2018> <Volodymyr Kushnarenko, Stefan Kombrink, Markus Gärtner, Florian Fritze, Matthias Fratz, Daniel Scharon, Sibylle Hermann, Franziska Rapp and Uli Hahn>
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), 
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, 
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A 
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT 
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+ * CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH 
+ * THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package bwfdm.connector.dspace.cache;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Resource (e.g. service document or hierarchy of the repository), which is loaded via the loader 
+ * and kept for the time to live (TTL).
+ * <p>
+ * With TTL 0 (default) nothing is cached, every {@link #get()} calls the loader. 
+ * Errors of the loader (exception or {@code null} as a result) are not cached.
+ * <p>
+ * With "stale while revalidate" an expired value is still delivered by {@link #get()} and the new value 
+ * is loaded in the background (see {@link RefreshScheduler}), only the very first load blocks.
+ * 
+ * @author agent
+ *
+ * @param <T> type of the resource
+ */
+public class CachedResource<T> {
+
+	private static final Logger log = LoggerFactory.getLogger(CachedResource.class);
+	
+	private final String name;
+	private final Callable<T> loader;
+	private final Object loadLock = new Object();
+	
+	private volatile long ttlNanos = 0;
+	private volatile boolean staleWhileRevalidate = false;
+	private volatile Value<T> value;
+	private volatile long version = 0;
+	
+	/**
+	 * @param name - name of the resource for the log, e.g. "service document"
+	 * @param loader - loader of the resource, should return {@code null} in case of error
+	 */
+	public CachedResource(String name, Callable<T> loader) {
+		this.name = requireNonNull(name);
+		this.loader = requireNonNull(loader);
+	}
+	
+	
+	/**
+	 * Set the time to live of the loaded resource. With 0 the resource is not cached.
+	 * 
+	 * @param ttl - time to live, must be at least 0
+	 * @param unit - time unit of the ttl
+	 */
+	public void setTtl(long ttl, TimeUnit unit) {
+		if (ttl < 0) {
+			throw new IllegalArgumentException("TTL must not be negative: " + ttl);
+		}
+		this.ttlNanos = unit.toNanos(ttl);
+	}
+	
+	public long getTtl(TimeUnit unit) {
+		return unit.convert(this.ttlNanos, TimeUnit.NANOSECONDS);
+	}
+	
+	
+	/**
+	 * Get the resource: cached value if it is not expired, otherwise it will be loaded. 
+	 * Concurrent callers of an expired resource wait for one load.
+	 * 
+	 * @return resource or {@code null} in case of error
+	 */
+	public T get() {
+		
+		if (this.ttlNanos == 0) {
+			return load(); // caching is switched off
+		}
+		Value<T> currentValue = this.value;
+		if (isFresh(currentValue) || ((currentValue != null) && this.staleWhileRevalidate)) {
+			return currentValue.data;
+		}
+		synchronized (this.loadLock) {
+			currentValue = this.value;
+			if (isFresh(currentValue) || ((currentValue != null) && this.staleWhileRevalidate)) {
+				return currentValue.data; // loaded by other thread
+			}
+			return loadAndStore();
+		}
+	}
+	
+	
+	/**
+	 * Load the resource independent of the cached value and keep it (e.g. for the warm-up).
+	 * 
+	 * @return resource or {@code null} in case of error
+	 */
+	public T refresh() {
+		synchronized (this.loadLock) {
+			return loadAndStore();
+		}
+	}
+	
+	
+	/**
+	 * Keep the resource, which was received in other way (e.g. from a snapshot on disk), as a loaded value, 
+	 * if there is no value yet. 
+	 * 
+	 * @param data - resource
+	 * @return {@code true} if the resource was kept, {@code false} if there is already a value
+	 */
+	public boolean putIfAbsent(T data) {
+		requireNonNull(data);
+		synchronized (this.loadLock) {
+			if (this.value != null) {
+				return false;
+			}
+			this.value = new Value<T>(data, System.nanoTime());
+			this.version++;
+			return true;
+		}
+	}
+	
+	
+	/**
+	 * @return cached value (also if it is expired) without loading or {@code null} if there is no value
+	 */
+	public T getCachedValue() {
+		final Value<T> currentValue = this.value;
+		return (currentValue != null) ? currentValue.data : null;
+	}
+	
+	
+	/**
+	 * Deliver the expired value by {@link #get()} instead of loading, if there is any value. 
+	 * Is used together with a background refresh.
+	 * 
+	 * @param staleWhileRevalidate - {@code true} to deliver expired values
+	 */
+	public void setStaleWhileRevalidate(boolean staleWhileRevalidate) {
+		this.staleWhileRevalidate = staleWhileRevalidate;
+	}
+	
+	public boolean isStaleWhileRevalidate() {
+		return this.staleWhileRevalidate;
+	}
+	
+	
+	/**
+	 * Get the remaining time to live of the cached value.
+	 * 
+	 * @param unit - time unit of the result
+	 * @return remaining time, 0 if the value is expired or there is no value
+	 */
+	public long getRemainingTtl(TimeUnit unit) {
+		final Value<T> currentValue = this.value;
+		if (currentValue == null) {
+			return 0;
+		}
+		final long remainingNanos = this.ttlNanos - (System.nanoTime() - currentValue.loadTime);
+		return unit.convert(Math.max(remainingNanos, 0), TimeUnit.NANOSECONDS);
+	}
+	
+	
+	/**
+	 * Remove the cached value, the next {@link #get()} will load the resource.
+	 */
+	public void invalidate() {
+		this.value = null;
+	}
+	
+	
+	/**
+	 * @return {@code true} if there is a cached value, which is not expired
+	 */
+	public boolean isCached() {
+		return (this.ttlNanos != 0) && isFresh(this.value);
+	}
+	
+	
+	/**
+	 * @return number of the loaded values, is changed by every new value (e.g. to update data derived from the resource)
+	 */
+	public long getVersion() {
+		return this.version;
+	}
+	
+	
+	public String getName() {
+		return this.name;
+	}
+	
+	
+	private boolean isFresh(Value<T> currentValue) {
+		return (currentValue != null) && (System.nanoTime() - currentValue.loadTime < this.ttlNanos);
+	}
+	
+	private T loadAndStore() {
+		final long loadTime = System.nanoTime();
+		final T data = load();
+		if (data != null) {
+			this.value = new Value<T>(data, loadTime);
+			this.version++; // only under the load lock
+		}
+		return data;
+	}
+	
+	private T load() {
+		try {
+			return this.loader.call();
+		} catch (Exception e) {
+			log.error("Exception by loading of {}: {}: {}", this.name, e.getClass().getSimpleName(), e.getMessage());
+			return null;
+		}
+	}
+	
+	
+	private static final class Value<T> {
+		
+		final T data;
+		final long loadTime;
+		
+		Value(T data, long loadTime) {
+			this.data = data;
+			this.loadTime = loadTime;
+		}
+	}
+	
+}
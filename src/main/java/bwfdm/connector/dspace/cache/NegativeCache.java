@@ -0,0 +1,145 @@
+/*
+ * Unless expressly otherwise stated, code from this project is licensed under the MIT license [https://opensource.org/licenses/MIT].
+ * 
+ * Copyright (c) <2018> <Volodymyr Kushnarenko, Stefan Kombrink, Markus Gärtner, Florian Fritze, Matthias Fratz, Daniel Scharon, Sibylle Hermann, Franziska Rapp and Uli Hahn>
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), 
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, 
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A 
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT 
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+ * CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH 
+ * THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package bwfdm.connector.dspace.cache;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounded cache of negative results (e.g. collection URLs, which were not found in the repository), 
+ * so that repeated lookups of the same unknown key are answered without requests.
+ * <p>
+ * Every entry is kept for the time to live (TTL), with TTL 0 (default) nothing is cached. 
+ * The entries belong to a version of the repository structure (see {@link CachedResource#getVersion()}): 
+ * with another version all entries are removed, because the key could be known now. 
+ * If the cache is full, the oldest entry is removed.
+ * 
+ * @author agent
+ */
+public class NegativeCache {
+
+	private final int maxEntries;
+	private final Map<String, Long> expirations;
+	
+	private long ttlNanos = 0;
+	private long version = 0;
+	
+	/**
+	 * @param maxEntries - maximal number of the cached keys, must be at least 1
+	 */
+	public NegativeCache(final int maxEntries) {
+		if (maxEntries < 1) {
+			throw new IllegalArgumentException("Maximal number of entries must be at least 1: " + maxEntries);
+		}
+		this.maxEntries = maxEntries;
+		this.expirations = new LinkedHashMap<String, Long>(16, 0.75f, false) {
+			private static final long serialVersionUID = 1L;
+			
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+				return size() > maxEntries;
+			}
+		};
+	}
+	
+	
+	/**
+	 * Set the time to live of the entries. With 0 nothing is cached and all entries are removed.
+	 * 
+	 * @param ttl - time to live, must be at least 0
+	 * @param unit - time unit of the ttl
+	 */
+	public synchronized void setTtl(long ttl, TimeUnit unit) {
+		if (ttl < 0) {
+			throw new IllegalArgumentException("TTL must not be negative: " + ttl);
+		}
+		this.ttlNanos = unit.toNanos(ttl);
+		if (this.ttlNanos == 0) {
+			this.expirations.clear();
+		}
+	}
+	
+	public synchronized long getTtl(TimeUnit unit) {
+		return unit.convert(this.ttlNanos, TimeUnit.NANOSECONDS);
+	}
+	
+	public int getMaxEntries() {
+		return this.maxEntries;
+	}
+	
+	
+	/**
+	 * @param key - key, e.g. collection URL
+	 * @param version - current version of the repository structure
+	 * @return {@code true} if the key is cached as unknown for this version and not expired
+	 */
+	public synchronized boolean contains(String key, long version) {
+		
+		if (this.expirations.isEmpty()) {
+			return false;
+		}
+		if (version != this.version) {
+			this.expirations.clear();
+			return false;
+		}
+		final Long expiration = this.expirations.get(key);
+		if (expiration == null) {
+			return false;
+		}
+		if (System.nanoTime() - expiration >= 0) {
+			this.expirations.remove(key);
+			return false;
+		}
+		return true;
+	}
+	
+	
+	/**
+	 * Cache the key as unknown, if the TTL is set. Results of lookups with an older version are not cached.
+	 * 
+	 * @param key - key, e.g. collection URL
+	 * @param version - version of the repository structure, which was used for the lookup
+	 */
+	public synchronized void put(String key, long version) {
+		
+		if ((this.ttlNanos == 0) || (version < this.version)) {
+			return;
+		}
+		if (version != this.version) {
+			this.expirations.clear();
+			this.version = version;
+		}
+		this.expirations.remove(key); // new expiration is the newest entry
+		this.expirations.put(key, System.nanoTime() + this.ttlNanos);
+	}
+	
+	
+	/**
+	 * Remove all entries.
+	 */
+	public synchronized void clear() {
+		this.expirations.clear();
+	}
+	
+	public synchronized int size() {
+		return this.expirations.size();
+	}
+	
+}
@@ -0,0 +1,128 @@
+/*
+ * Unless expressly otherwise stated, code from this project is licensed under the MIT license [https://opensource.org/licenses/MIT].
+ * 
+ * Copyright (c) <2018> <Volodymyr Kushnarenko, Stefan Kombrink, Markus Gärtner, Florian Fritze, Matthias Fratz, Daniel Scharon, Sibylle Hermann, Franziska Rapp and Uli Hahn>
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), 
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, 
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A 
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT 
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+ * CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH 
+ * THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package bwfdm.connector.dspace.cache;
+
+import java.io.Closeable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import bwfdm.connector.dspace.utils.ThreadUtils;
+
+/**
+ * Background refresh of {@link CachedResource} objects before they expire ("refresh ahead").
+ * <p>
+ * Every resource is loaded again after {@value #REFRESH_AHEAD_PERCENT}% of its TTL, meanwhile readers get 
+ * the current (or already expired) value without waiting, see {@link CachedResource#setStaleWhileRevalidate(boolean)}. 
+ * In case of error the refresh is repeated with an exponential backoff, 
+ * from {@value #INITIAL_RETRY_DELAY_MILLIS} ms up to {@value #MAX_RETRY_DELAY_MILLIS} ms.
+ * 
+ * @author agent
+ */
+public class RefreshScheduler implements Closeable {
+	
+	private static final Logger log = LoggerFactory.getLogger(RefreshScheduler.class);
+	
+	public static final int REFRESH_AHEAD_PERCENT = 80;
+	public static final long INITIAL_RETRY_DELAY_MILLIS = 1000;
+	public static final long MAX_RETRY_DELAY_MILLIS = 5 * 60 * 1000;
+	
+	private final ScheduledExecutorService scheduler;
+	
+	public RefreshScheduler() {
+		this.scheduler = Executors.newSingleThreadScheduledExecutor(ThreadUtils.createDaemonThreadFactory("dspace-refresh"));
+	}
+	
+	
+	/**
+	 * Start the background refresh of the resource. An expired or not loaded resource is loaded immediately. 
+	 * The resource delivers stale values from now on.
+	 * 
+	 * @param cache - object of {@link CachedResource} with TTL greater than 0
+	 */
+	public void schedule(CachedResource<?> cache) {
+		
+		if (cache.getTtl(TimeUnit.NANOSECONDS) == 0) {
+			throw new IllegalArgumentException("Refresh ahead is not possible without TTL: " + cache.getName());
+		}
+		cache.setStaleWhileRevalidate(true);
+		final long remainingNanos = cache.getRemainingTtl(TimeUnit.NANOSECONDS);
+		final long delayNanos = Math.max(0, remainingNanos - cache.getTtl(TimeUnit.NANOSECONDS) * (100 - REFRESH_AHEAD_PERCENT) / 100);
+		this.scheduler.schedule(new RefreshTask(cache), delayNanos, TimeUnit.NANOSECONDS);
+	}
+	
+	
+	/**
+	 * Stop the background refresh. The resources deliver only not expired values again.
+	 */
+	@Override
+	public void close() {
+		this.scheduler.shutdownNow();
+	}
+	
+	public boolean isClosed() {
+		return this.scheduler.isShutdown();
+	}
+	
+	
+	/**
+	 * Refresh of one resource, which schedules itself again
+	 */
+	private final class RefreshTask implements Runnable {
+		
+		private final CachedResource<?> cache;
+		private int failures = 0;
+		
+		RefreshTask(CachedResource<?> cache) {
+			this.cache = cache;
+		}
+		
+		@Override
+		public void run() {
+			
+			final long ttlNanos = cache.getTtl(TimeUnit.NANOSECONDS);
+			if (ttlNanos == 0) {
+				cache.setStaleWhileRevalidate(false); // caching was switched off
+				return;
+			}
+			
+			final long delayNanos;
+			if (cache.refresh() != null) {
+				failures = 0;
+				delayNanos = ttlNanos * REFRESH_AHEAD_PERCENT / 100;
+			} else {
+				failures++;
+				final long retryDelayMillis = Math.min(INITIAL_RETRY_DELAY_MILLIS << Math.min(failures - 1, 20), MAX_RETRY_DELAY_MILLIS);
+				delayNanos = TimeUnit.MILLISECONDS.toNanos(retryDelayMillis);
+				log.warn("Refresh of {} failed {} time(s), next attempt in {} ms", cache.getName(), failures, retryDelayMillis);
+			}
+			try {
+				scheduler.schedule(this, delayNanos, TimeUnit.NANOSECONDS);
+			} catch (RejectedExecutionException e) {
+				// scheduler is closed
+			}
+		}
+	}
+
+}
@@ -0,0 +1,119 @@
+/*
+ * Unless expressly otherwise stated, code from this project is licensed under the MIT license [https://opensource.org/licenses/MIT].
+ * 
+ * Copyright (c) <2018> <Volodymyr Kushnarenko, Stefan Kombrink, Markus Gärtner, Florian Fritze, Matthias Fratz, Daniel Scharon, Sibylle Hermann, Franziska Rapp and Uli Hahn>
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), 
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, 
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A 
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT 
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+ * CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH 
+ * THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package bwfdm.connector.dspace.cache;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import bwfdm.connector.dspace.cancel.CancellationToken;
+
+/**
+ * Coalescing of concurrent identical reads ("single flight"): while a read with some key is running, 
+ * further callers with the same key do not start an own request, but wait for the running one 
+ * and get its result.
+ * <p>
+ * The key must contain everything what influences the result, e.g. URL and credentials 
+ * (see {@link #createKey(String, String)}). Results are not cached after the read is finished.
+ * 
+ * @author agent
+ */
+public class SingleFlight {
+	
+	private static final Logger log = LoggerFactory.getLogger(SingleFlight.class);
+	
+	private static final ConcurrentMap<String, FutureTask<?>> inFlight = new ConcurrentHashMap<String, FutureTask<?>>();
+	private static final AtomicLong coalescedCalls = new AtomicLong(0);
+	
+	
+	/**
+	 * Execute the read or wait for the same running read.
+	 * 
+	 * @param key - key of the read, see {@link #createKey(String, String)}
+	 * @param loader - read, should return {@code null} in case of error
+	 * 
+	 * @return result of the read or {@code null} in case of error
+	 */
+	@SuppressWarnings("unchecked")
+	public static <T> T execute(String key, Callable<T> loader) {
+		
+		requireNonNull(key);
+		requireNonNull(loader);
+		
+		// a shared read is not aborted by the cancellation of one caller
+		final FutureTask<T> task = new FutureTask<T>(CancellationToken.detach(loader));
+		final FutureTask<?> runningTask = inFlight.putIfAbsent(key, task);
+		try {
+			if (runningTask != null) {
+				coalescedCalls.incrementAndGet();
+				return (T) runningTask.get(); // the same key means the same type of the result
+			}
+			try {
+				task.run();
+			} finally {
+				inFlight.remove(key, task);
+			}
+			return task.get();
+		} catch (ExecutionException e) {
+			log.error("Exception by reading of {}: {}: {}", key, e.getCause().getClass().getSimpleName(), e.getCause().getMessage());
+			return null;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return null;
+		}
+	}
+	
+	
+	/**
+	 * Create the key of a read.
+	 * 
+	 * @param url - URL of the read as {@link String}
+	 * @param credentialsKey - identification of the credentials (without plain password), {@code null} for anonymous reads
+	 * 
+	 * @return key as {@link String}
+	 */
+	public static String createKey(String url, String credentialsKey) {
+		return url + " [" + ((credentialsKey != null) ? credentialsKey : "anonymous") + "]";
+	}
+	
+	
+	/**
+	 * @return number of calls since the start, which did not execute an own read, but got the result of a running read
+	 */
+	public static long getCoalescedCalls() {
+		return coalescedCalls.get();
+	}
+	
+	/**
+	 * @return number of reads, which are running now
+	 */
+	public static int getInFlightCount() {
+		return inFlight.size();
+	}
+
+}
@@ -0,0 +1,214 @@
+/*
+ * Unless expressly otherwise stated, code from this project is licensed under the MIT license [https://opensource.org/licenses/MIT].
+ * 
+ * Copyright (c) <2018> <Volodymyr Kushnarenko, Stefan Kombrink, Markus Gärtner, Florian Fritze, Matthias Fratz, Daniel Scharon, Sibylle Hermann, Franziska Rapp and Uli Hahn>
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), 
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, 
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A 
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT 
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+ * CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH 
+ * THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package bwfdm.connector.dspace.cache;
+
+import static bwfdm.connector.dspace.cache.StructureSnapshot.readLength;
+import static bwfdm.connector.dspace.cache.StructureSnapshot.readString;
+import static bwfdm.connector.dspace.cache.StructureSnapshot.readStringList;
+import static bwfdm.connector.dspace.cache.StructureSnapshot.writeString;
+import static bwfdm.connector.dspace.cache.StructureSnapshot.writeStringList;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+
+import org.apache.abdera.Abdera;
+import org.apache.abdera.model.Document;
+import org.apache.abdera.model.Service;
+import org.swordapp.client.ServiceDocument;
+
+import bwfdm.connector.dspace.cache.StructureSnapshot.Codec;
+import bwfdm.connector.dspace.dto.v6.CollectionObject;
+import bwfdm.connector.dspace.dto.v6.HierarchyCollectionObjectRestV6;
+import bwfdm.connector.dspace.dto.v6.HierarchyObjectRestV6;
+import bwfdm.connector.dspace.hierarchy.FlatHierarchy;
+
+/**
+ * Codecs of the structure resources for {@link StructureSnapshot}.
+ * 
+ * @author agent
+ */
+public class StructureCodecs {
+	
+	private static volatile Abdera abdera;
+	
+	
+	/**
+	 * Service document, stored as XML of the Atom service element (the object model of the SWORD client has 
+	 * no other representation) and parsed again by reading.
+	 */
+	public static final Codec<ServiceDocument> SERVICE_DOCUMENT = new Codec<ServiceDocument>() {
+		
+		@Override
+		public void write(ServiceDocument value, DataOutputStream out) throws IOException {
+			final ByteArrayOutputStream xml = new ByteArrayOutputStream();
+			value.getService().writeTo(xml);
+			out.writeInt(xml.size());
+			xml.writeTo(out);
+		}
+		
+		@Override
+		public ServiceDocument read(DataInputStream in) throws IOException {
+			final int length = readLength(in, 1);
+			if (length < 0) {
+				throw new IOException("Snapshot is corrupted: negative length of the service document");
+			}
+			final byte[] xml = new byte[length];
+			in.readFully(xml);
+			try {
+				final Document<Service> document = getAbdera().getParser().parse(new ByteArrayInputStream(xml));
+				return new ServiceDocument(document.getRoot());
+			} catch (RuntimeException e) {
+				throw new IOException("Service document could not be parsed: " + e.getMessage(), e);
+			}
+		}
+	};
+	
+	
+	/**
+	 * Flattened hierarchy of communities and collections (DSpace-6 REST), stored as nodes in preorder 
+	 * (parent, collection flag, name and handle). By reading, the hierarchy is rebuilt from the nodes 
+	 * and flattened again, the rebuilt tree is not kept.
+	 */
+	public static final Codec<FlatHierarchy> FLAT_HIERARCHY = new Codec<FlatHierarchy>() {
+		
+		@Override
+		public void write(FlatHierarchy value, DataOutputStream out) throws IOException {
+			out.writeInt(value.size());
+			for (int node = 0; node < value.size(); node++) {
+				out.writeInt(value.getParent(node));
+				out.writeBoolean(value.isCollection(node));
+				writeString(out, value.getName(node));
+				writeString(out, value.getHandle(node));
+			}
+		}
+		
+		@Override
+		public FlatHierarchy read(DataInputStream in) throws IOException {
+			final int size = readLength(in, 13); // parent, flag and 2 strings
+			if (size < 1) {
+				throw new IOException("Snapshot is corrupted: hierarchy without root");
+			}
+			final HierarchyObjectRestV6[] communities = new HierarchyObjectRestV6[size];
+			for (int node = 0; node < size; node++) {
+				final int parent = in.readInt();
+				final boolean collection = in.readBoolean();
+				final String name = readString(in);
+				final String handle = readString(in);
+				if ((node == 0) ? (parent != FlatHierarchy.NO_NODE || collection) 
+						: (parent < 0 || parent >= node || communities[parent] == null)) {
+					throw new IOException("Snapshot is corrupted: invalid parent of the hierarchy node " + node);
+				}
+				if (collection) {
+					final HierarchyCollectionObjectRestV6 value = new HierarchyCollectionObjectRestV6();
+					value.name = name;
+					value.handle = handle;
+					if (communities[parent].collection == null) {
+						communities[parent].collection = new ArrayList<HierarchyCollectionObjectRestV6>();
+					}
+					communities[parent].collection.add(value);
+				} else {
+					final HierarchyObjectRestV6 value = new HierarchyObjectRestV6();
+					value.name = name;
+					value.handle = handle;
+					if (node > 0) {
+						if (communities[parent].community == null) {
+							communities[parent].community = new ArrayList<HierarchyObjectRestV6>();
+						}
+						communities[parent].community.add(value);
+					}
+					communities[node] = value;
+				}
+			}
+			return FlatHierarchy.of(communities[0]);
+		}
+	};
+	
+	
+	/**
+	 * Array of collections (DSpace-6 REST), all fields are stored.
+	 */
+	public static final Codec<CollectionObject[]> COLLECTIONS_V6 = new Codec<CollectionObject[]>() {
+		
+		@Override
+		public void write(CollectionObject[] value, DataOutputStream out) throws IOException {
+			out.writeInt(value.length);
+			for (CollectionObject collection : value) {
+				writeString(out, collection.uuid);
+				writeString(out, collection.name);
+				writeString(out, collection.handle);
+				writeString(out, collection.type);
+				writeString(out, collection.link);
+				writeStringList(out, collection.expand);
+				writeString(out, collection.logo);
+				writeString(out, collection.parentCommunity);
+				writeStringList(out, collection.parentCommunityList);
+				writeStringList(out, collection.items);
+				writeString(out, collection.license);
+				writeString(out, collection.copyrightText);
+				writeString(out, collection.introductoryText);
+				writeString(out, collection.shortDescription);
+				writeString(out, collection.sidebarText);
+				writeString(out, collection.numberItems);
+			}
+		}
+		
+		@Override
+		public CollectionObject[] read(DataInputStream in) throws IOException {
+			final int length = readLength(in, 64); // 16 fields
+			if (length < 0) {
+				throw new IOException("Snapshot is corrupted: negative number of collections");
+			}
+			final CollectionObject[] value = new CollectionObject[length];
+			for (int i = 0; i < value.length; i++) {
+				final CollectionObject collection = new CollectionObject();
+				collection.uuid = readString(in);
+				collection.name = readString(in);
+				collection.handle = readString(in);
+				collection.type = readString(in);
+				collection.link = readString(in);
+				collection.expand = readStringList(in);
+				collection.logo = readString(in);
+				collection.parentCommunity = readString(in);
+				collection.parentCommunityList = readStringList(in);
+				collection.items = readStringList(in);
+				collection.license = readString(in);
+				collection.copyrightText = readString(in);
+				collection.introductoryText = readString(in);
+				collection.shortDescription = readString(in);
+				collection.sidebarText = readString(in);
+				collection.numberItems = readString(in);
+				value[i] = collection;
+			}
+			return value;
+		}
+	};
+	
+	
+	private static Abdera getAbdera() {
+		if (abdera == null) {
+			abdera = new Abdera(); // expensive, is created by the first usage
+		}
+		return abdera;
+	}
+	
+}
@@ -0,0 +1,323 @@
+/*
+ * Unless expressly otherwise stated, code from this project is licensed under the MIT license [https://opensource.org/licenses/MIT].
+ * 
+ * Copyright (c) <2018> <Volodymyr Kushnarenko, Stefan Kombrink, Markus Gärtner, Florian Fritze, Matthias Fratz, Daniel Scharon, Sibylle Hermann, Franziska Rapp and Uli Hahn>
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), 
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, 
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A 
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT 
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+ * CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH 
+ * THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package bwfdm.connector.dspace.cache;
+
+import static java.util.Objects.requireNonNull;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import bwfdm.connector.dspace.utils.IOUtils;
+
+/**
+ * Compact binary snapshot of the repository structure on disk (e.g. service document, REST hierarchy and collections), 
+ * which allows to fill the structure caches after a restart without requests to the repository.
+ * <p>
+ * File format: magic number, format version, creation time, hash of the repository key (URLs and user), 
+ * named sections with the encoded resources (see {@link Codec}) and CRC32 of the whole content. 
+ * Snapshots of other format versions, other repositories or users and damaged files are ignored: the checksum 
+ * is verified before the content is parsed, and all lengths are checked against the remaining bytes 
+ * (see {@link #readLength(DataInputStream, int)}), so a damaged file never leads to a huge allocation.
+ * The snapshot is written into a temporary file and renamed, so a partially written snapshot is never read.
+ * 
+ * @author agent
+ */
+public class StructureSnapshot {
+	
+	private static final Logger log = LoggerFactory.getLogger(StructureSnapshot.class);
+	
+	public static final int MAGIC = 0x44534E50; // "DSNP"
+	public static final int FORMAT_VERSION = 1;
+	
+	private final long createdAt;
+	private final Map<String, byte[]> sections;
+	
+	private StructureSnapshot(long createdAt, Map<String, byte[]> sections) {
+		this.createdAt = createdAt;
+		this.sections = sections;
+	}
+	
+	
+	/**
+	 * Write the snapshot.
+	 * 
+	 * @param file - snapshot file
+	 * @param repositoryKey - key of the repository and user, only its hash is stored
+	 * @param sections - encoded resources (see {@link #encode(Object, Codec)}), key = name of the section
+	 * 
+	 * @throws IOException in case of IO error
+	 */
+	public static void write(File file, String repositoryKey, Map<String, byte[]> sections) throws IOException {
+		
+		final ByteArrayOutputStream content = new ByteArrayOutputStream();
+		final DataOutputStream out = new DataOutputStream(content);
+		out.writeInt(MAGIC);
+		out.writeInt(FORMAT_VERSION);
+		out.writeLong(System.currentTimeMillis());
+		out.writeUTF(DigestUtils.sha256Hex(repositoryKey));
+		out.writeInt(sections.size());
+		for (Map.Entry<String, byte[]> section : sections.entrySet()) {
+			out.writeUTF(section.getKey());
+			out.writeInt(section.getValue().length);
+			out.write(section.getValue());
+		}
+		final CRC32 crc = new CRC32();
+		crc.update(content.toByteArray());
+		out.writeLong(crc.getValue());
+		out.flush();
+		
+		final File absoluteFile = file.getAbsoluteFile();
+		final File tempFile = new File(absoluteFile.getParentFile(), absoluteFile.getName() + ".tmp");
+		final BufferedOutputStream fileOut = new BufferedOutputStream(new FileOutputStream(tempFile));
+		try {
+			content.writeTo(fileOut);
+		} finally {
+			fileOut.close();
+		}
+		IOUtils.moveReplacing(tempFile, absoluteFile);
+	}
+	
+	
+	/**
+	 * Read the snapshot.
+	 * 
+	 * @param file - snapshot file
+	 * @param repositoryKey - key of the repository and user, must be the same as by {@link #write(File, String, Map)}
+	 * 
+	 * @return {@link StructureSnapshot} or {@code null} if the file does not exist, is damaged 
+	 * 		   or belongs to other format version, repository or user
+	 */
+	public static StructureSnapshot read(File file, String repositoryKey) {
+		
+		if (!file.isFile()) {
+			return null;
+		}
+		try {
+			final byte[] content = Files.readAllBytes(file.toPath());
+			if (content.length < 8) {
+				log.warn("Snapshot {} is damaged, it is ignored", file);
+				return null;
+			}
+			final CRC32 crc = new CRC32();
+			crc.update(content, 0, content.length - 8);
+			if (ByteBuffer.wrap(content, content.length - 8, 8).getLong() != crc.getValue()) {
+				log.warn("Snapshot {} is damaged (checksum), it is ignored", file);
+				return null;
+			}
+			final DataInputStream in = new DataInputStream(new ByteArrayInputStream(content, 0, content.length - 8));
+			if (in.readInt() != MAGIC) {
+				log.warn("File {} is not a structure snapshot, it is ignored", file);
+				return null;
+			}
+			final int formatVersion = in.readInt();
+			if (formatVersion != FORMAT_VERSION) {
+				log.info("Snapshot {} has other format version ({}), it is ignored", file, formatVersion);
+				return null;
+			}
+			final long createdAt = in.readLong();
+			if (!DigestUtils.sha256Hex(repositoryKey).equals(in.readUTF())) {
+				log.info("Snapshot {} belongs to other repository or user, it is ignored", file);
+				return null;
+			}
+			final int count = readLength(in, 6); // name (at least 2 bytes) and length of the section
+			final Map<String, byte[]> sections = new LinkedHashMap<String, byte[]>();
+			for (int i = 0; i < count; i++) {
+				final String name = in.readUTF();
+				final int length = readLength(in, 1);
+				if (length < 0) {
+					throw new IOException("Snapshot is corrupted: negative section length");
+				}
+				final byte[] section = new byte[length];
+				in.readFully(section);
+				sections.put(name, section);
+			}
+			if (in.available() != 0) {
+				throw new IOException("Snapshot is corrupted: unexpected bytes after the sections");
+			}
+			return new StructureSnapshot(createdAt, sections);
+			
+		} catch (IOException | RuntimeException e) {
+			log.warn("Snapshot {} could not be read, it is ignored: {}: {}", file, e.getClass().getSimpleName(), e.getMessage());
+			return null;
+		}
+	}
+	
+	
+	/**
+	 * @return time of the snapshot creation in milliseconds (see {@link System#currentTimeMillis()})
+	 */
+	public long getCreatedAt() {
+		return this.createdAt;
+	}
+	
+	/**
+	 * @param name - name of the section
+	 * @return encoded resource or {@code null} if there is no such section
+	 */
+	public byte[] getSection(String name) {
+		return this.sections.get(name);
+	}
+	
+	/**
+	 * @return names of the sections
+	 */
+	public List<String> getSectionNames() {
+		return Collections.unmodifiableList(new ArrayList<String>(this.sections.keySet()));
+	}
+	
+	
+	/**
+	 * Encode the resource for a section of the snapshot.
+	 * 
+	 * @param value - resource
+	 * @param codec - object of {@link Codec}
+	 * 
+	 * @return encoded resource
+	 * @throws IOException in case of encoding error
+	 */
+	public static <T> byte[] encode(T value, Codec<T> codec) throws IOException {
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		final DataOutputStream out = new DataOutputStream(bytes);
+		codec.write(requireNonNull(value), out);
+		out.flush();
+		return bytes.toByteArray();
+	}
+	
+	
+	/**
+	 * Decode the resource of a section of the snapshot.
+	 * 
+	 * @param section - encoded resource
+	 * @param codec - object of {@link Codec}
+	 * 
+	 * @return resource
+	 * @throws IOException in case of decoding error
+	 */
+	public static <T> T decode(byte[] section, Codec<T> codec) throws IOException {
+		return codec.read(new DataInputStream(new ByteArrayInputStream(section)));
+	}
+	
+	
+	/**
+	 * Read a length or count, which is checked against the remaining bytes of the in-memory stream 
+	 * (the sections are always decoded from byte arrays, see {@link #decode(byte[], Codec)}). 
+	 * The value -1 (e.g. for {@code null}) is returned unchanged.
+	 * 
+	 * @param in - object of {@link DataInputStream} over a byte array
+	 * @param minItemSize - minimal size of one item in bytes, e.g. 1 for bytes or 4 for strings
+	 * 
+	 * @return length or -1
+	 * @throws IOException in case of IO error or if the length is invalid (damaged content)
+	 */
+	public static int readLength(DataInputStream in, int minItemSize) throws IOException {
+		final int length = in.readInt();
+		if ((length < -1) || ((long) length * minItemSize > in.available())) {
+			throw new IOException("Snapshot is corrupted: length " + length + " exceeds the remaining " 
+					+ in.available() + " bytes");
+		}
+		return length;
+	}
+	
+	
+	/**
+	 * Write a string, which could be {@code null} or longer than the limit of {@link DataOutputStream#writeUTF(String)}.
+	 * 
+	 * @param out - object of {@link DataOutputStream}
+	 * @param value - string or {@code null}
+	 * 
+	 * @throws IOException in case of IO error
+	 */
+	public static void writeString(DataOutputStream out, String value) throws IOException {
+		if (value == null) {
+			out.writeInt(-1);
+			return;
+		}
+		final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+	
+	public static String readString(DataInputStream in) throws IOException {
+		final int length = readLength(in, 1);
+		if (length < 0) {
+			return null;
+		}
+		final byte[] bytes = new byte[length];
+		in.readFully(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+	
+	public static void writeStringList(DataOutputStream out, List<String> values) throws IOException {
+		if (values == null) {
+			out.writeInt(-1);
+			return;
+		}
+		out.writeInt(values.size());
+		for (String value : values) {
+			writeString(out, value);
+		}
+	}
+	
+	public static List<String> readStringList(DataInputStream in) throws IOException {
+		final int size = readLength(in, 4);
+		if (size < 0) {
+			return null;
+		}
+		final List<String> values = new ArrayList<String>(size);
+		for (int i = 0; i < size; i++) {
+			values.add(readString(in));
+		}
+		return values;
+	}
+	
+	
+	/**
+	 * Encoder and decoder of a resource for the snapshot.
+	 * 
+	 * @author agent
+	 *
+	 * @param <T> type of the resource
+	 */
+	public static interface Codec<T> {
+		
+		void write(T value, DataOutputStream out) throws IOException;
+		
+		T read(DataInputStream in) throws IOException;
+	}
+	
+}
@@ -0,0 +1,88 @@
+/*
+ * Unless expressly otherwise stated, code from this project is licensed under the MIT license [https://opensource.org/licenses/MIT].
+ * 
+ * Copyright (c) <2018> <Volodymyr Kushnarenko, Stefan Kombrink, Markus Gärtner, Florian Fritze, Matthias Fratz, Daniel Scharon, Sibylle Hermann, Franziska Rapp and Uli Hahn>
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), 
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, 
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A 
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT 
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+ * CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH 
+ * THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package bwfdm.connector.dspace.cancel;
+
+import static java.util.Objects.requireNonNull;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Input stream of an upload, which stops the upload after the cancellation of the token: 
+ * the next read throws {@link CancelledException}, so that the HTTP client aborts the request.
+ * <p>
+ * After all bytes of the known size were read, the cancellation is ignored: the request is complete 
+ * and could be already processed by the server, so that the result of the request must not be lost 
+ * (the HTTP client could read once more until the end of the stream).
+ * 
+ * @author agent
+ */
+public class CancellableInputStream extends FilterInputStream {
+
+	private final CancellationToken token;
+	private final long totalBytes;
+	private long bytesRead = 0;
+	
+	/**
+	 * @param in - stream of the upload
+	 * @param token - token of the operation
+	 * @param totalBytes - size of the stream in bytes or -1 if it is not known
+	 */
+	public CancellableInputStream(InputStream in, CancellationToken token, long totalBytes) {
+		super(requireNonNull(in));
+		this.token = requireNonNull(token);
+		this.totalBytes = totalBytes;
+	}
+	
+	@Override
+	public int read() throws IOException {
+		checkCancelled();
+		final int b = super.read();
+		if (b >= 0) {
+			this.bytesRead++;
+		}
+		return b;
+	}
+	
+	@Override
+	public int read(byte[] b, int off, int len) throws IOException {
+		checkCancelled();
+		final int n = super.read(b, off, len);
+		if (n > 0) {
+			this.bytesRead += n;
+		}
+		return n;
+	}
+	
+	@Override
+	public long skip(long n) throws IOException {
+		checkCancelled();
+		final long skipped = super.skip(n);
+		this.bytesRead += skipped;
+		return skipped;
+	}
+	
+	private void checkCancelled() throws CancelledException {
+		if (this.token.isCancelled() && ((this.totalBytes < 0) || (this.bytesRead < this.totalBytes))) {
+			throw new CancelledException("Upload was cancelled after " + this.bytesRead + " bytes");
+		}
+	}
+	
+}
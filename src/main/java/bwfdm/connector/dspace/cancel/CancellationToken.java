@@ -0,0 +1,217 @@
+/*
+ * Unless expressly otherwise stated, code from this project is licensed under the MIT license [https://opensource.org/licenses/MIT].
+ * 
+ * Copyright (c) <2018> <Volodymyr Kushnarenko, Stefan Kombrink, Markus Gärtner, Florian Fritze, Matthias Fratz, Daniel Scharon, Sibylle Hermann, Franziska Rapp and Uli Hahn>
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), 
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, 
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A 
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT 
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+ * CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH 
+ * THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package bwfdm.connector.dspace.cancel;
+
+import static java.util.Objects.requireNonNull;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+
+import bwfdm.connector.dspace.utils.IOUtils;
+
+/**
+ * Handle for the cooperative cancellation of deposits and reads, e.g. of a long upload from another thread.
+ * <p>
+ * The operation is executed via {@link #call(Callable)}, so that the token is bound to the current thread. 
+ * Running HTTP requests of the operation are registered at the token (see {@link #register(Closeable)}), 
+ * {@link #cancel()} aborts them, which also frees the connections. Uploads stop at the next read 
+ * of the uploaded stream (see {@link CancellableInputStream}). 
+ * Operations, which were cancelled, throw {@link CancelledException} (if they throw {@link java.io.IOException}) 
+ * or return {@code null} as in case of any other error.
+ * <p>
+ * Reads, which are shared with other callers (see {@link bwfdm.connector.dspace.cache.SingleFlight}), 
+ * are not aborted (see {@link #detach(Callable)}).
+ * 
+ * @author agent
+ */
+public class CancellationToken {
+
+	private static final ThreadLocal<CancellationToken> current = new ThreadLocal<CancellationToken>();
+	
+	private final Set<Closeable> resources = Collections.newSetFromMap(new IdentityHashMap<Closeable, Boolean>());
+	private volatile boolean cancelled = false;
+	
+	
+	/**
+	 * Execute the operation with this token, it could be cancelled via {@link #cancel()} from another thread.
+	 * 
+	 * @param operation - operation, e.g. export of a new entry
+	 * 
+	 * @return result of the operation
+	 * 
+	 * @throws CancelledException if the token was already cancelled
+	 * @throws Exception exception of the operation
+	 */
+	public <T> T call(Callable<T> operation) throws Exception {
+		
+		requireNonNull(operation);
+		final CancellationToken previous = current.get();
+		current.set(this);
+		try {
+			throwIfCancelled();
+			return operation.call();
+		} finally {
+			bind(previous);
+		}
+	}
+	
+	
+	/**
+	 * Cancel the operation: registered requests and streams are aborted, further requests are not started.
+	 */
+	public void cancel() {
+		
+		final List<Closeable> aborted;
+		synchronized (this.resources) {
+			this.cancelled = true;
+			aborted = new ArrayList<Closeable>(this.resources);
+			this.resources.clear();
+		}
+		for (Closeable resource : aborted) {
+			IOUtils.closeQuietly(resource);
+		}
+	}
+	
+	public boolean isCancelled() {
+		return this.cancelled;
+	}
+	
+	
+	/**
+	 * @throws CancelledException if the token was cancelled
+	 */
+	public void throwIfCancelled() throws CancelledException {
+		if (this.cancelled) {
+			throw new CancelledException("Operation was cancelled");
+		}
+	}
+	
+	
+	/**
+	 * Register a resource of the running operation (e.g. HTTP request or response), 
+	 * it is closed by the cancellation. If the token is already cancelled, the resource is closed at once.
+	 * 
+	 * @param resource - object of {@link Closeable}
+	 * 
+	 * @return {@code false} if the token is already cancelled
+	 */
+	public boolean register(Closeable resource) {
+		
+		requireNonNull(resource);
+		synchronized (this.resources) {
+			if (!this.cancelled) {
+				this.resources.add(resource);
+				return true;
+			}
+		}
+		IOUtils.closeQuietly(resource);
+		return false;
+	}
+	
+	
+	/**
+	 * Remove the resource, which is not used anymore (e.g. the request is finished).
+	 * 
+	 * @param resource - object of {@link Closeable}
+	 */
+	public void unregister(Closeable resource) {
+		synchronized (this.resources) {
+			this.resources.remove(resource);
+		}
+	}
+	
+	
+	/**
+	 * @return token of the operation, which is running in the current thread, or {@code null}
+	 */
+	public static CancellationToken current() {
+		return current.get();
+	}
+	
+	
+	/**
+	 * @throws CancelledException if the token of the current thread was cancelled
+	 */
+	public static void throwIfCurrentCancelled() throws CancelledException {
+		final CancellationToken token = current.get();
+		if (token != null) {
+			token.throwIfCancelled();
+		}
+	}
+	
+	
+	/**
+	 * Bind the token of the current thread also to the task, e.g. for a part of the operation in another thread.
+	 * 
+	 * @param task - task of the operation
+	 * 
+	 * @return task, which is executed with the token of the current thread
+	 */
+	public static <T> Callable<T> propagate(final Callable<T> task) {
+		
+		final CancellationToken token = current.get();
+		if (token == null) {
+			return task;
+		}
+		return new Callable<T>() {
+			@Override
+			public T call() throws Exception {
+				return token.call(task);
+			}
+		};
+	}
+	
+	
+	/**
+	 * Execute the task without token, e.g. a read, which is shared with other operations.
+	 * 
+	 * @param task - task
+	 * 
+	 * @return task, which is executed without token
+	 */
+	public static <T> Callable<T> detach(final Callable<T> task) {
+		return new Callable<T>() {
+			@Override
+			public T call() throws Exception {
+				final CancellationToken previous = current.get();
+				current.remove();
+				try {
+					return task.call();
+				} finally {
+					bind(previous);
+				}
+			}
+		};
+	}
+	
+	
+	private static void bind(CancellationToken token) {
+		if (token != null) {
+			current.set(token);
+		} else {
+			current.remove();
+		}
+	}
+	
+}
@@ -0,0 +1,54 @@
+/*
+ * Unless expressly otherwise stated, code from this project is licensed under the MIT license [https://opensource.org/licenses/MIT].
+ * 
+ * Copyright (c) <2018> <Volodymyr Kushnarenko, Stefan Kombrink, Markus Gärtner, Florian Fritze, Matthias Fratz, Daniel Scharon, Sibylle Hermann, Franziska Rapp and Uli Hahn>
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), 
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, 
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A 
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT 
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+ * CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH 
+ * THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package bwfdm.connector.dspace.cancel;
+
+import java.io.InterruptedIOException;
+
+/**
+ * Operation was cancelled via {@link CancellationToken#cancel()}.
+ * <p>
+ * If a new entry was already created before the cancellation (e.g. after the file deposit, 
+ * the 1st step of the 2-step export with file and metadata), its edit URL is provided 
+ * via {@link #getEditLink()}, so that the export could be completed or the entry could be deleted.
+ * 
+ * @author agent
+ */
+public class CancelledException extends InterruptedIOException {
+
+	private static final long serialVersionUID = 1L;
+	
+	private final String editLink;
+	
+	public CancelledException(String message) {
+		this(message, null);
+	}
+	
+	public CancelledException(String message, String editLink) {
+		super(message);
+		this.editLink = editLink;
+	}
+	
+	/**
+	 * @return edit URL of the entry, which was created before the cancellation, or {@code null} if nothing was created
+	 */
+	public String getEditLink() {
+		return editLink;
+	}
+	
+}
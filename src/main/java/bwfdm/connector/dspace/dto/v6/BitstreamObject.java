@@ -18,10 +18,49 @@
  */
 package bwfdm.connector.dspace.dto.v6;
 
+import java.util.List;
+
 /**
  * 
  * @author Volodymyr Kushnarenko
  */
 public class BitstreamObject {
 
+	public String uuid;
+	public String name;
+	public String handle;
+	public String type;
+	public String link;
+	public List<String> expand;
+	public String bundleName;
+	public String description;
+	public String format;
+	public String mimeType;
+	public long sizeBytes;
+	public String retrieveLink;
+	public CheckSumObject checkSum;
+	public String sequenceId;
+
+	// {
+	// "uuid" : "4a6a4a3e-6f3c-4a7b-9d3e-3e2b3c6a1f10",
+	// "name" : "testpub1.pdf",
+	// "handle" : null,
+	// "type" : "bitstream",
+	// "expand" : [ "parent", "policies", "all" ],
+	// "bundleName" : "ORIGINAL",
+	// "description" : null,
+	// "format" : "Adobe PDF",
+	// "mimeType" : "application/pdf",
+	// "sizeBytes" : 12345,
+	// "parentObject" : null,
+	// "retrieveLink" : "/bitstreams/4a6a4a3e-6f3c-4a7b-9d3e-3e2b3c6a1f10/retrieve",
+	// "checkSum" : {
+	// "value" : "2b7d3f3c5d0e3e0f1f8a7d7a3b8c9d0e",
+	// "checkSumAlgorithm" : "MD5"
+	// },
+	// "sequenceId" : 1,
+	// "policies" : null,
+	// "link" : "/rest/bitstreams/4a6a4a3e-6f3c-4a7b-9d3e-3e2b3c6a1f10"
+	// }
+
 }
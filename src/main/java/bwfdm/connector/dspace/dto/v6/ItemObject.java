@@ -36,10 +36,10 @@ public class ItemObject {
 	public String parentCollection;
 	public List<String> parentCollectionList;
 	public List<String> parentCommunityList;
-	public String bitstreams;
+	public List<BitstreamObject> bitstreams;
 	public String archived;
 	public String withdrawn;
-	public String metadata;
+	public List<MetadataEntryObject> metadata;
 
 	// Example response
 	//
@@ -20,6 +20,7 @@ package bwfdm.connector.dspace.dto.v6;
 
 import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
 
 /**
@@ -28,6 +29,19 @@ import java.io.InputStreamReader;
  */
 public class MetadataConstants {
 
+	// Dublin Core terms (http://dublincore.org/documents/dcmi-terms/), which are accepted as metadata keys by the SWORD export
+	public static final String[] DUBLIN_CORE_TERMS = {
+			// Dublin Core Metadata Element Set
+			"contributor", "coverage", "creator", "date", "description", "format", "identifier", "language",
+			"publisher", "relation", "rights", "source", "subject", "title", "type",
+			// Further terms of the "dcterms" namespace
+			"abstract", "accessRights", "accrualMethod", "accrualPeriodicity", "accrualPolicy", "alternative",
+			"audience", "available", "bibliographicCitation", "conformsTo", "created", "dateAccepted",
+			"dateCopyrighted", "dateSubmitted", "educationLevel", "extent", "hasFormat", "hasPart", "hasVersion",
+			"instructionalMethod", "isFormatOf", "isPartOf", "isReferencedBy", "isReplacedBy", "isRequiredBy",
+			"issued", "isVersionOf", "license", "mediator", "medium", "modified", "provenance", "references",
+			"replaces", "requires", "rightsHolder", "spatial", "tableOfContents", "temporal", "valid" };
+
 	// DataCite minimum fields:
 	//
 	// - Identifier
@@ -72,13 +86,17 @@ public class MetadataConstants {
 			+ "\"" + "test-bitstream" + "\"" + "}";
 
 	static {
-		ITEM_METADATA_EXAMPLE = read("item_metadata_example.json");
-		ITEM_BITSTREAM_DESCRIPTION_EXAMPLE = read("item_bitstream_description_example.json");
+		// Examples above are kept, if the resources are not available
+		ITEM_METADATA_EXAMPLE = read("item_metadata_example.json", ITEM_METADATA_EXAMPLE);
+		ITEM_BITSTREAM_DESCRIPTION_EXAMPLE = read("item_bitstream_description_example.json", ITEM_BITSTREAM_DESCRIPTION_EXAMPLE);
 	}
 
-	private static String read(final String name) {
-		final BufferedReader br = new BufferedReader(new InputStreamReader(
-				MetadataConstants.class.getResourceAsStream(name)));
+	private static String read(final String name, final String defaultText) {
+		final InputStream resource = MetadataConstants.class.getResourceAsStream(name);
+		if (resource == null) {
+			return defaultText;
+		}
+		final BufferedReader br = new BufferedReader(new InputStreamReader(resource));
 		final StringBuilder text = new StringBuilder();
 		String line;
 		try {
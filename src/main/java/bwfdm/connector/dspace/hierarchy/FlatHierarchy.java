@@ -0,0 +1,351 @@
+/*
+ * Unless expressly otherwise stated, code from this project is licensed under the MIT license [https://opensource.org/licenses/MIT].
+ * 
+ * Copyright (c) <2018> <Volodymyr Kushnarenko, Stefan Kombrink, Markus Gärtner, Florian Fritze, Matthias Fratz, Daniel Scharon, Sibylle Hermann, Franziska Rapp and Uli Hahn>
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), 
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, 
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A 
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT 
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+ * CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH 
+ * THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package bwfdm.connector.dspace.hierarchy;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import bwfdm.connector.dspace.dto.v6.HierarchyCollectionObjectRestV6;
+import bwfdm.connector.dspace.dto.v6.HierarchyObjectRestV6;
+
+/**
+ * Immutable flattened representation of the community/collection hierarchy (see {@link HierarchyObjectRestV6}).
+ * <p>
+ * Nodes (communities and collections) are stored in preorder in parallel arrays: parent node, end of the subtree, 
+ * index of the name in the table of unique names and handle. Collections of a community are placed directly after 
+ * the community, before its sub-communities (the same order as by 
+ * {@link HierarchyObjectRestV6#getCommunityListForCollection(HierarchyObjectRestV6, String, List)}).
+ * The subtree of a node is the range {@code [node, getSubtreeEnd(node))}, so ancestor and subtree queries 
+ * are answered by array walks, without any object per node. Collections of a subtree are a continuous range 
+ * of the collections in preorder, so they are found in time proportional to their number and counted at once.
+ * 
+ * @author agent
+ */
+public final class FlatHierarchy {
+	
+	public static final int NO_NODE = -1;
+	
+	private final int[] parents;
+	private final int[] subtreeEnds;
+	private final int[] nameIndexes;
+	private final String[] names;
+	private final String[] handles;
+	private final boolean[] collections;
+	
+	// Nodes sorted by handle (by the same handle in preorder), for the lookup by handle
+	private final int[] nodesByHandle;
+	
+	// Collections in preorder and the number of collections before every node (and at the end), 
+	// collections of the subtree of a node: collectionNodes[collectionRanks[node] .. collectionRanks[subtreeEnd])
+	private final int[] collectionNodes;
+	private final int[] collectionRanks;
+	
+	
+	private FlatHierarchy(int[] parents, int[] nameIndexes, String[] names, String[] handles, boolean[] collections) {
+		
+		this.parents = parents;
+		this.nameIndexes = nameIndexes;
+		this.names = names;
+		this.handles = handles;
+		this.collections = collections;
+		
+		this.subtreeEnds = new int[parents.length];
+		for (int node = parents.length - 1; node >= 0; node--) {
+			this.subtreeEnds[node] = Math.max(this.subtreeEnds[node], node + 1);
+			if (parents[node] != NO_NODE) {
+				this.subtreeEnds[parents[node]] = Math.max(this.subtreeEnds[parents[node]], this.subtreeEnds[node]);
+			}
+		}
+		
+		final Integer[] sortedNodes = new Integer[parents.length];
+		for (int node = 0; node < sortedNodes.length; node++) {
+			sortedNodes[node] = node;
+		}
+		Arrays.sort(sortedNodes, new Comparator<Integer>() {
+			@Override
+			public int compare(Integer first, Integer second) {
+				final int result = compareHandles(FlatHierarchy.this.handles[first], FlatHierarchy.this.handles[second]);
+				return (result != 0) ? result : first.compareTo(second);
+			}
+		});
+		this.nodesByHandle = new int[sortedNodes.length];
+		for (int i = 0; i < sortedNodes.length; i++) {
+			this.nodesByHandle[i] = sortedNodes[i];
+		}
+		
+		this.collectionRanks = new int[parents.length + 1];
+		for (int node = 0; node < parents.length; node++) {
+			this.collectionRanks[node + 1] = this.collectionRanks[node] + (collections[node] ? 1 : 0);
+		}
+		this.collectionNodes = new int[this.collectionRanks[parents.length]];
+		for (int node = 0; node < parents.length; node++) {
+			if (collections[node]) {
+				this.collectionNodes[this.collectionRanks[node]] = node;
+			}
+		}
+	}
+	
+	
+	/**
+	 * Flatten the hierarchy.
+	 * 
+	 * @param root - root of the hierarchy as {@link HierarchyObjectRestV6}
+	 * 
+	 * @return {@link FlatHierarchy}
+	 */
+	public static FlatHierarchy of(HierarchyObjectRestV6 root) {
+		
+		requireNonNull(root);
+		final List<Integer> parents = new ArrayList<Integer>();
+		final List<Integer> nameIndexes = new ArrayList<Integer>();
+		final List<String> handles = new ArrayList<String>();
+		final List<Boolean> collections = new ArrayList<Boolean>();
+		final Map<String, Integer> nameTable = new HashMap<String, Integer>();
+		final List<String> names = new ArrayList<String>();
+		
+		// Preorder without recursion: community, its collections, then its sub-communities
+		final Deque<HierarchyObjectRestV6> communities = new ArrayDeque<HierarchyObjectRestV6>();
+		final Deque<Integer> communityParents = new ArrayDeque<Integer>();
+		communities.push(root);
+		communityParents.push(NO_NODE);
+		while (!communities.isEmpty()) {
+			final HierarchyObjectRestV6 community = communities.pop();
+			final int node = parents.size();
+			parents.add(communityParents.pop());
+			nameIndexes.add(intern(community.name, nameTable, names));
+			handles.add(community.handle);
+			collections.add(false);
+			
+			if (community.collection != null) {
+				for (HierarchyCollectionObjectRestV6 collection : community.collection) {
+					parents.add(node);
+					nameIndexes.add(intern(collection.name, nameTable, names));
+					handles.add(collection.handle);
+					collections.add(true);
+				}
+			}
+			if (community.community != null) {
+				for (int i = community.community.size() - 1; i >= 0; i--) {
+					communities.push(community.community.get(i));
+					communityParents.push(node);
+				}
+			}
+		}
+		
+		final int size = parents.size();
+		final int[] parentArray = new int[size];
+		final int[] nameIndexArray = new int[size];
+		final boolean[] collectionArray = new boolean[size];
+		for (int node = 0; node < size; node++) {
+			parentArray[node] = parents.get(node);
+			nameIndexArray[node] = nameIndexes.get(node);
+			collectionArray[node] = collections.get(node);
+		}
+		return new FlatHierarchy(parentArray, nameIndexArray, names.toArray(new String[names.size()]), 
+				handles.toArray(new String[size]), collectionArray);
+	}
+	
+	
+	/**
+	 * @return number of nodes (communities and collections)
+	 */
+	public int size() {
+		return this.parents.length;
+	}
+	
+	/**
+	 * @return number of different names
+	 */
+	public int getNameCount() {
+		return this.names.length;
+	}
+	
+	
+	/**
+	 * Find the node by handle (the first one in preorder, if the handle is not unique).
+	 * 
+	 * @param handle - handle as {@link String}, e.g. "123456789/512"
+	 * 
+	 * @return node or {@link #NO_NODE} if not found
+	 */
+	public int indexOfHandle(String handle) {
+		int low = 0;
+		int high = this.nodesByHandle.length;
+		while (low < high) {
+			final int middle = (low + high) >>> 1;
+			if (compareHandles(this.handles[this.nodesByHandle[middle]], handle) < 0) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+		if ((low < this.nodesByHandle.length) && (compareHandles(this.handles[this.nodesByHandle[low]], handle) == 0)) {
+			return this.nodesByHandle[low];
+		}
+		return NO_NODE;
+	}
+	
+	
+	public int getParent(int node) {
+		return this.parents[node];
+	}
+	
+	public String getName(int node) {
+		return this.names[this.nameIndexes[node]];
+	}
+	
+	public String getHandle(int node) {
+		return this.handles[node];
+	}
+	
+	public boolean isCollection(int node) {
+		return this.collections[node];
+	}
+	
+	/**
+	 * @param node - node
+	 * @return end of the subtree (exclusive), the subtree is the range {@code [node, end)}
+	 */
+	public int getSubtreeEnd(int node) {
+		return this.subtreeEnds[node];
+	}
+	
+	
+	/**
+	 * @param ancestor - possible ancestor
+	 * @param node - node
+	 * 
+	 * @return {@code true} if the ancestor is a real ancestor of the node
+	 */
+	public boolean isAncestor(int ancestor, int node) {
+		return (ancestor < node) && (node < this.subtreeEnds[ancestor]);
+	}
+	
+	
+	/**
+	 * @param node - node
+	 * @return number of the ancestors of the node, 0 for the root
+	 */
+	public int getDepth(int node) {
+		int depth = 0;
+		for (int parent = this.parents[node]; parent != NO_NODE; parent = this.parents[parent]) {
+			depth++;
+		}
+		return depth;
+	}
+	
+	
+	/**
+	 * Get the ancestors of the node, beginning with the root.
+	 * 
+	 * @param node - node
+	 * 
+	 * @return array of the ancestors, empty for the root
+	 */
+	public int[] getAncestors(int node) {
+		final int[] ancestors = new int[getDepth(node)];
+		int parent = this.parents[node];
+		for (int i = ancestors.length - 1; i >= 0; i--) {
+			ancestors[i] = parent;
+			parent = this.parents[parent];
+		}
+		return ancestors;
+	}
+	
+	
+	/**
+	 * Get the names of the ancestors of the node, beginning with the root.
+	 * 
+	 * @param node - node
+	 * @param skipLevels - number of the top levels, which are not included (e.g. 1 without the root)
+	 * 
+	 * @return {@code List<String>} of the names (0 or more)
+	 */
+	public List<String> getAncestorNames(int node, int skipLevels) {
+		final int[] ancestors = getAncestors(node);
+		final List<String> result = new ArrayList<String>(Math.max(ancestors.length - skipLevels, 0));
+		for (int i = skipLevels; i < ancestors.length; i++) {
+			result.add(getName(ancestors[i]));
+		}
+		return result;
+	}
+	
+	
+	/**
+	 * @param node - node
+	 * @return direct children of the node in preorder
+	 */
+	public int[] getChildren(int node) {
+		int count = 0;
+		for (int child = node + 1; child < this.subtreeEnds[node]; child = this.subtreeEnds[child]) {
+			count++;
+		}
+		final int[] children = new int[count];
+		int i = 0;
+		for (int child = node + 1; child < this.subtreeEnds[node]; child = this.subtreeEnds[child]) {
+			children[i++] = child;
+		}
+		return children;
+	}
+	
+	
+	/**
+	 * @param node - node
+	 * @return collections in the subtree of the node (at any depth) in preorder, the node itself if it is a collection
+	 */
+	public int[] getCollectionsInSubtree(int node) {
+		return Arrays.copyOfRange(this.collectionNodes, this.collectionRanks[node], this.collectionRanks[this.subtreeEnds[node]]);
+	}
+	
+	
+	/**
+	 * @param node - node
+	 * @return number of collections in the subtree of the node (at any depth)
+	 */
+	public int getCollectionCount(int node) {
+		return this.collectionRanks[this.subtreeEnds[node]] - this.collectionRanks[node];
+	}
+	
+	
+	private static int intern(String name, Map<String, Integer> nameTable, List<String> names) {
+		Integer index = nameTable.get(name);
+		if (index == null) {
+			index = names.size();
+			names.add(name);
+			nameTable.put(name, index);
+		}
+		return index;
+	}
+	
+	private static int compareHandles(String first, String second) {
+		if (first == null) {
+			return (second == null) ? 0 : -1;
+		}
+		return (second == null) ? 1 : first.compareTo(second);
+	}
+	
+}
@@ -0,0 +1,427 @@
+/*
+ * Unless expressly otherwise stated, code from this project is licensed under the MIT license [https://opensource.org/licenses/MIT].
+ * 
+ * Copyright (c) <2018> <Volodymyr Kushnarenko, Stefan Kombrink, Markus Gärtner, Florian Fritze, Matthias Fratz, Daniel Scharon, Sibylle Hermann, Franziska Rapp and Uli Hahn>
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), 
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, 
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A 
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT 
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+ * CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH 
+ * THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package bwfdm.connector.dspace.index;
+
+import static java.util.Objects.requireNonNull;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Search index over the full names of collections (e.g. "Faculty / Institute / Collection", 
+ * see {@link bwfdm.connector.dspace.DSpaceRepository#getAvailableCollectionsWithFullName(String)}), e.g. for an autocomplete.
+ * <p>
+ * Names are folded (lower case, without accents, "ß" as "ss"), so "fakultat" finds "Fakultät". 
+ * Every word of the query must be a prefix of some word of the full name (community or collection segment); 
+ * matches in the collection name and complete words are ranked higher. If there are not enough prefix matches, 
+ * names with similar words (trigrams) are added, e.g. for typos.
+ * <p>
+ * The index is immutable. {@link #update(Map)} creates a new index, where unchanged collections are taken 
+ * from the current index without new processing.
+ * 
+ * @author agent
+ */
+public class CollectionSearchIndex {
+	
+	private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+	private static final Pattern WORD_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+	
+	private static final int EXACT_WORD_SCORE = 3;
+	private static final int PREFIX_SCORE = 2;
+	private static final int COLLECTION_NAME_BONUS = 1;
+	private static final double MIN_SIMILARITY = 0.5;
+	private static final int MIN_SIMILARITY_QUERY_LENGTH = 3;
+	
+	private final String separator;
+	
+	// Collections sorted by folded full name
+	private final Document[] documents;
+	private final Map<String, Integer> documentIndexes;
+	
+	// Sorted words of all full names with the collection (index of the document) and the segment,
+	// the same words are placed one after another and end at the same position (wordRunEnds)
+	private final String[] words;
+	private final int[] wordRunEnds;
+	private final int[] wordDocuments;
+	private final boolean[] wordInCollectionName;
+	
+	// Trigram -> sorted indexes of the documents
+	private final Map<String, int[]> trigramDocuments;
+	
+	
+	/**
+	 * Build the index.
+	 * 
+	 * @param fullNames - Map of collections, where key = collection URL, value = full name
+	 * @param fullNameSeparator - separator of the communities and collection in the full name
+	 * 
+	 * @return {@link CollectionSearchIndex}
+	 */
+	public static CollectionSearchIndex build(Map<String, String> fullNames, String fullNameSeparator) {
+		return new CollectionSearchIndex(null, fullNames, fullNameSeparator);
+	}
+	
+	
+	/**
+	 * Create a new index with the changed collections. Collections with unchanged URL and full name are taken 
+	 * from this index, only new words are sorted and merged with the existed ones.
+	 * 
+	 * @param fullNames - Map of collections, where key = collection URL, value = full name
+	 * 
+	 * @return new {@link CollectionSearchIndex}
+	 */
+	public CollectionSearchIndex update(Map<String, String> fullNames) {
+		return new CollectionSearchIndex(this, fullNames, this.separator);
+	}
+	
+	
+	private CollectionSearchIndex(CollectionSearchIndex previous, Map<String, String> fullNames, String separator) {
+		
+		requireNonNull(fullNames);
+		this.separator = requireNonNull(separator);
+		
+		// Documents, unchanged ones are taken from the previous index
+		final List<Document> documentList = new ArrayList<Document>(fullNames.size());
+		final List<Document> newDocuments = new ArrayList<Document>();
+		for (Map.Entry<String, String> entry : fullNames.entrySet()) {
+			if ((entry.getKey() == null) || (entry.getValue() == null)) {
+				continue;
+			}
+			Document document = (previous != null) ? previous.findDocument(entry.getKey(), entry.getValue()) : null;
+			if (document == null) {
+				document = new Document(entry.getKey(), entry.getValue(), separator);
+				newDocuments.add(document);
+			}
+			documentList.add(document);
+		}
+		Collections.sort(documentList);
+		this.documents = documentList.toArray(new Document[documentList.size()]);
+		this.documentIndexes = new HashMap<String, Integer>(this.documents.length * 2);
+		for (int i = 0; i < this.documents.length; i++) {
+			this.documentIndexes.put(this.documents[i].url, i);
+		}
+		
+		// Words: sorted words of the previous index (without removed documents) are merged with the sorted new words
+		final List<Posting> added = new ArrayList<Posting>();
+		for (Document document : newDocuments) {
+			final int index = this.documentIndexes.get(document.url);
+			for (int w = 0; w < document.words.length; w++) {
+				added.add(new Posting(document.words[w], index, document.inCollectionName[w]));
+			}
+		}
+		Collections.sort(added);
+		
+		final int previousCount = (previous != null) ? previous.words.length : 0;
+		final int[] remap = (previous != null) ? remapDocuments(previous) : new int[0];
+		final String[] mergedWords = new String[previousCount + added.size()];
+		final int[] mergedDocuments = new int[mergedWords.length];
+		final boolean[] mergedInCollectionName = new boolean[mergedWords.length];
+		int count = 0;
+		int i = 0;
+		int j = 0;
+		while ((i < previousCount) || (j < added.size())) {
+			if ((i < previousCount) && (remap[previous.wordDocuments[i]] < 0)) {
+				i++; // removed or changed document
+				continue;
+			}
+			if ((j >= added.size()) || ((i < previousCount) && (previous.words[i].compareTo(added.get(j).word) <= 0))) {
+				mergedWords[count] = previous.words[i];
+				mergedDocuments[count] = remap[previous.wordDocuments[i]];
+				mergedInCollectionName[count] = previous.wordInCollectionName[i];
+				i++;
+			} else {
+				final Posting posting = added.get(j++);
+				mergedWords[count] = posting.word;
+				mergedDocuments[count] = posting.document;
+				mergedInCollectionName[count] = posting.inCollectionName;
+			}
+			count++;
+		}
+		this.words = Arrays.copyOf(mergedWords, count);
+		this.wordDocuments = Arrays.copyOf(mergedDocuments, count);
+		this.wordInCollectionName = Arrays.copyOf(mergedInCollectionName, count);
+		this.wordRunEnds = new int[count];
+		for (int w = count - 1; w >= 0; w--) {
+			this.wordRunEnds[w] = ((w + 1 < count) && this.words[w + 1].equals(this.words[w])) ? this.wordRunEnds[w + 1] : w + 1;
+		}
+		
+		this.trigramDocuments = buildTrigramDocuments(this.documents);
+	}
+	
+	
+	/**
+	 * Search the collections.
+	 * 
+	 * @param query - query as {@link String}, e.g. "fak phys"
+	 * @param limit - maximal number of results, must be at least 1
+	 * 
+	 * @return Map of the found collections ordered by relevance, where key = collection URL, value = full name. 
+	 * 		   With an empty query the first collections in the alphabetical order are returned.
+	 */
+	public Map<String, String> search(String query, int limit) {
+		
+		if (limit < 1) {
+			throw new IllegalArgumentException("Limit must be at least 1: " + limit);
+		}
+		final Map<String, String> result = new LinkedHashMap<String, String>();
+		final String normalizedQuery = normalize(requireNonNull(query));
+		final String[] queryWords = splitWords(normalizedQuery);
+		if (queryWords.length == 0) {
+			for (int d = 0; (d < this.documents.length) && (result.size() < limit); d++) {
+				result.put(this.documents[d].url, this.documents[d].fullName);
+			}
+			return result;
+		}
+		
+		// Prefix matches: every query word has to match some word of the document, the best match of every word counts
+		final int[] matchedWords = new int[this.documents.length];
+		final int[] scores = new int[this.documents.length];
+		final int[] bestWordScores = new int[this.documents.length];
+		int maxScore = 0;
+		for (int q = 0; q < queryWords.length; q++) {
+			final String queryWord = queryWords[q];
+			int i = lowerBound(queryWord);
+			while ((i < this.words.length) && this.words[i].startsWith(queryWord)) {
+				final int wordScore = (this.words[i].length() == queryWord.length()) ? EXACT_WORD_SCORE : PREFIX_SCORE;
+				for (final int runEnd = this.wordRunEnds[i]; i < runEnd; i++) {
+					final int d = this.wordDocuments[i];
+					if (matchedWords[d] < q) {
+						continue; // previous query word was not matched
+					}
+					final int score = wordScore + (this.wordInCollectionName[i] ? COLLECTION_NAME_BONUS : 0);
+					if (matchedWords[d] == q) {
+						matchedWords[d] = q + 1;
+						bestWordScores[d] = score;
+						scores[d] += score;
+					} else if (score > bestWordScores[d]) {
+						scores[d] += score - bestWordScores[d];
+						bestWordScores[d] = score;
+					}
+					maxScore = Math.max(maxScore, scores[d]);
+				}
+			}
+		}
+		for (int score = maxScore; (score > 0) && (result.size() < limit); score--) {
+			for (int d = 0; (d < this.documents.length) && (result.size() < limit); d++) {
+				if ((matchedWords[d] == queryWords.length) && (scores[d] == score)) {
+					result.put(this.documents[d].url, this.documents[d].fullName);
+				}
+			}
+		}
+		
+		// Similar words, if there are not enough prefix matches
+		if ((result.size() < limit) && (normalizedQuery.length() >= MIN_SIMILARITY_QUERY_LENGTH)) {
+			final Set<String> queryTrigrams = new LinkedHashSet<String>();
+			for (String queryWord : queryWords) {
+				addTrigrams(queryWord, queryTrigrams);
+			}
+			final int[] sharedTrigrams = scores; // prefix scores are not needed anymore
+			Arrays.fill(sharedTrigrams, 0);
+			for (String trigram : queryTrigrams) {
+				final int[] postings = this.trigramDocuments.get(trigram);
+				if (postings != null) {
+					for (int d : postings) {
+						sharedTrigrams[d]++;
+					}
+				}
+			}
+			final int minShared = (int) Math.ceil(queryTrigrams.size() * MIN_SIMILARITY);
+			for (int shared = queryTrigrams.size(); (shared >= minShared) && (result.size() < limit); shared--) {
+				for (int d = 0; (d < this.documents.length) && (result.size() < limit); d++) {
+					if ((sharedTrigrams[d] == shared) && (matchedWords[d] < queryWords.length)) {
+						result.put(this.documents[d].url, this.documents[d].fullName);
+					}
+				}
+			}
+		}
+		return result;
+	}
+	
+	
+	public int size() {
+		return this.documents.length;
+	}
+	
+	public String getSeparator() {
+		return this.separator;
+	}
+	
+	
+	/**
+	 * Fold the text for the search: lower case, without accents and other combining marks, "ß" as "ss".
+	 * 
+	 * @param text - text as {@link String}
+	 * 
+	 * @return folded text
+	 */
+	public static String normalize(String text) {
+		final String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+		return COMBINING_MARKS.matcher(decomposed).replaceAll("").toLowerCase(Locale.ROOT).replace("ß", "ss");
+	}
+	
+	
+	private static String[] splitWords(String normalizedText) {
+		final List<String> result = new ArrayList<String>();
+		for (String word : WORD_SEPARATOR.split(normalizedText)) {
+			if (!word.isEmpty()) {
+				result.add(word);
+			}
+		}
+		return result.toArray(new String[result.size()]);
+	}
+	
+	private static void addTrigrams(String word, Set<String> trigrams) {
+		final String padded = " " + word + " ";
+		for (int i = 0; i + 3 <= padded.length(); i++) {
+			trigrams.add(padded.substring(i, i + 3));
+		}
+	}
+	
+	private static Map<String, int[]> buildTrigramDocuments(Document[] documents) {
+		
+		final Map<String, int[]> counts = new HashMap<String, int[]>();
+		for (Document document : documents) {
+			for (String trigram : document.trigrams) {
+				int[] count = counts.get(trigram);
+				if (count == null) {
+					count = new int[1];
+					counts.put(trigram, count);
+				}
+				count[0]++;
+			}
+		}
+		final Map<String, int[]> result = new HashMap<String, int[]>(counts.size() * 2);
+		for (Map.Entry<String, int[]> entry : counts.entrySet()) {
+			result.put(entry.getKey(), new int[entry.getValue()[0]]);
+			entry.getValue()[0] = 0; // is used as a fill position below
+		}
+		for (int d = 0; d < documents.length; d++) {
+			for (String trigram : documents[d].trigrams) {
+				result.get(trigram)[counts.get(trigram)[0]++] = d;
+			}
+		}
+		return result;
+	}
+	
+	private int lowerBound(String word) {
+		int low = 0;
+		int high = this.words.length;
+		while (low < high) {
+			final int middle = (low + high) >>> 1;
+			if (this.words[middle].compareTo(word) < 0) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+		return low;
+	}
+	
+	private Document findDocument(String url, String fullName) {
+		final Integer index = this.documentIndexes.get(url);
+		if ((index != null) && this.documents[index].fullName.equals(fullName)) {
+			return this.documents[index];
+		}
+		return null;
+	}
+	
+	private int[] remapDocuments(CollectionSearchIndex previous) {
+		final int[] remap = new int[previous.documents.length];
+		for (int d = 0; d < remap.length; d++) {
+			final Integer index = this.documentIndexes.get(previous.documents[d].url);
+			remap[d] = ((index != null) && (this.documents[index] == previous.documents[d])) ? index : -1;
+		}
+		return remap;
+	}
+	
+	
+	/**
+	 * Collection with the prepared (folded) words and trigrams of its full name.
+	 */
+	private static final class Document implements Comparable<Document> {
+		
+		final String url;
+		final String fullName;
+		final String sortKey;
+		final String[] words;
+		final boolean[] inCollectionName;
+		final String[] trigrams;
+		
+		Document(String url, String fullName, String separator) {
+			this.url = url;
+			this.fullName = fullName;
+			this.sortKey = normalize(fullName);
+			
+			final String[] segments = separator.isEmpty() 
+					? new String[] { fullName } : fullName.split(Pattern.quote(separator), -1);
+			final List<String> wordList = new ArrayList<String>();
+			final List<Boolean> inCollectionNameList = new ArrayList<Boolean>();
+			final Set<String> trigramSet = new LinkedHashSet<String>();
+			for (int s = 0; s < segments.length; s++) {
+				for (String word : splitWords(normalize(segments[s]))) {
+					wordList.add(word);
+					inCollectionNameList.add(s == segments.length - 1);
+					addTrigrams(word, trigramSet);
+				}
+			}
+			this.words = wordList.toArray(new String[wordList.size()]);
+			this.inCollectionName = new boolean[this.words.length];
+			for (int w = 0; w < this.words.length; w++) {
+				this.inCollectionName[w] = inCollectionNameList.get(w);
+			}
+			this.trigrams = trigramSet.toArray(new String[trigramSet.size()]);
+		}
+		
+		@Override
+		public int compareTo(Document other) {
+			final int result = this.sortKey.compareTo(other.sortKey);
+			return (result != 0) ? result : this.url.compareTo(other.url);
+		}
+	}
+	
+	
+	private static final class Posting implements Comparable<Posting> {
+		
+		final String word;
+		final int document;
+		final boolean inCollectionName;
+		
+		Posting(String word, int document, boolean inCollectionName) {
+			this.word = word;
+			this.document = document;
+			this.inCollectionName = inCollectionName;
+		}
+		
+		@Override
+		public int compareTo(Posting other) {
+			return this.word.compareTo(other.word);
+		}
+	}
+	
+}
@@ -0,0 +1,498 @@
+/*
+ * Unless expressly otherwise stated, code from this project is licensed under the MIT license [https://opensource.org/licenses/MIT].
+ * 
+ * Copyright (c) <2018> <Volodymyr Kushnarenko, Stefan Kombrink, Markus Gärtner, Florian Fritze, Matthias Fratz, Daniel Scharon, Sibylle Hermann, Franziska Rapp and Uli Hahn>
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), 
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, 
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A 
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT 
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+ * CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH 
+ * THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package bwfdm.connector.dspace.index;
+
+import static java.util.Objects.requireNonNull;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Local persistent index of already deposited files: 
+ * content hash (SHA-256) and deposit target (e.g. collection URL and package format) are mapped to the edit URL of the entry.
+ * <p>
+ * The index is stored in an append-only binary file: the raw 32 bytes of the hash and 2 UTF-strings per record.
+ * The file could be shared between several connector instances and processes: every access locks the file 
+ * (shared for reading, exclusive for writing) and reads the records appended by others since the last access.
+ * <p>
+ * If the file contains much more records than entries (because of replaced and removed entries), 
+ * it is rewritten with the current entries only. The generation number in the header is increased by every rewrite, 
+ * so the other instances read the whole file again. If the rewrite is interrupted, the entries not yet written are lost: 
+ * the index only avoids repeated deposits of the same file, it is not the only record of the deposits.
+ * 
+ * @author agent
+ */
+public class DepositIndex implements Closeable {
+
+	private static final Logger log = LoggerFactory.getLogger(DepositIndex.class);
+	
+	public static final String HASH_ALGORITHM = "SHA-256";
+	
+	private static final int MAGIC = 0x44534449; // "DSDI"
+	private static final int VERSION = 1;
+	private static final int HEADER_SIZE = 16; // magic, version, generation (long)
+	private static final int GENERATION_POSITION = 8;
+	private static final byte RECORD_PUT = 1;
+	private static final byte RECORD_REMOVE = 2;
+	private static final int HASH_SIZE = 32;
+	private static final int READ_BUFFER_SIZE = 64 * 1024;
+	
+	// Rewrite the file, if it has more records than this minimum and twice as many records as entries
+	private static final int COMPACTION_MIN_RECORDS = 1000;
+	
+	// File locks are held by the JVM, not by the thread: instances of the same file in one JVM are synchronized here
+	private static final ConcurrentMap<String, Object> jvmLocks = new ConcurrentHashMap<String, Object>();
+	
+	private final File indexFile;
+	private final Object jvmLock;
+	private final RandomAccessFile file;
+	private final FileChannel channel;
+	
+	private final Map<Key, String> entries = new HashMap<Key, String>();
+	private long generation = -1;
+	private long readPosition = HEADER_SIZE;
+	private int recordCount = 0; // records in the file up to the read position
+	
+	
+	/**
+	 * Open or create the index file.
+	 * 
+	 * @param indexFile - file of the index, it will be created if it does not exist
+	 * 
+	 * @throws IOException in case of IO error or if the file is not an index file
+	 */
+	public DepositIndex(File indexFile) throws IOException {
+		
+		requireNonNull(indexFile);
+		
+		this.indexFile = indexFile.getCanonicalFile();
+		Object lock = new Object();
+		Object existingLock = jvmLocks.putIfAbsent(this.indexFile.getPath(), lock);
+		this.jvmLock = (existingLock != null) ? existingLock : lock;
+		
+		this.file = new RandomAccessFile(this.indexFile, "rw");
+		this.channel = this.file.getChannel();
+		
+		try {
+			synchronized (jvmLock) {
+				FileLock fileLock = channel.lock();
+				try {
+					initHeader();
+				} finally {
+					fileLock.release();
+				}
+			}
+		} catch (IOException e) {
+			this.file.close();
+			throw e;
+		}
+	}
+	
+	
+	/**
+	 * Calculate the content hash of the file, as it is used for the index.
+	 * 
+	 * @param file - any file
+	 * 
+	 * @return hash as byte array (32 bytes)
+	 * 
+	 * @throws IOException in case of IO error
+	 */
+	public static byte[] hashFile(File file) throws IOException {
+		
+		final MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance(HASH_ALGORITHM);
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(HASH_ALGORITHM + " is not supported", e); // is required for every JVM
+		}
+		final InputStream in = new FileInputStream(file);
+		try {
+			byte[] buffer = new byte[64 * 1024];
+			int len;
+			while ((len = in.read(buffer)) != -1) {
+				digest.update(buffer, 0, len);
+			}
+		} finally {
+			in.close();
+		}
+		return digest.digest();
+	}
+	
+	
+	/**
+	 * Find the entry, which was deposited with the same content to the same target.
+	 * 
+	 * @param contentHash - hash of the content, see {@link #hashFile(File)}
+	 * @param target - deposit target as {@link String}, e.g. collection URL and package format
+	 * 
+	 * @return {@link String} with the edit URL of the entry or {@code null} if there is no such entry
+	 * 
+	 * @throws IOException in case of IO error
+	 */
+	public String get(byte[] contentHash, String target) throws IOException {
+		
+		final Key key = new Key(contentHash, target);
+		synchronized (jvmLock) {
+			FileLock fileLock = channel.lock(0, Long.MAX_VALUE, true);
+			try {
+				readNewRecords();
+			} finally {
+				fileLock.release();
+			}
+			return entries.get(key);
+		}
+	}
+	
+	
+	/**
+	 * Add the deposited entry to the index.
+	 * 
+	 * @param contentHash - hash of the content, see {@link #hashFile(File)}
+	 * @param target - deposit target as {@link String}, e.g. collection URL and package format
+	 * @param editURL - edit URL of the entry as {@link String}
+	 * 
+	 * @throws IOException in case of IO error
+	 */
+	public void put(byte[] contentHash, String target, String editURL) throws IOException {
+		requireNonNull(editURL);
+		append(RECORD_PUT, new Key(contentHash, target), editURL);
+	}
+	
+	
+	/**
+	 * Remove the entry from the index, e.g. if it was deleted in the repository.
+	 * 
+	 * @param contentHash - hash of the content, see {@link #hashFile(File)}
+	 * @param target - deposit target as {@link String}, e.g. collection URL and package format
+	 * 
+	 * @throws IOException in case of IO error
+	 */
+	public void remove(byte[] contentHash, String target) throws IOException {
+		append(RECORD_REMOVE, new Key(contentHash, target), "");
+	}
+	
+	
+	public File getIndexFile() {
+		return this.indexFile;
+	}
+	
+	
+	@Override
+	public void close() throws IOException {
+		synchronized (jvmLock) {
+			file.close();
+		}
+	}
+	
+	
+	/**
+	 * Write the header into a new file or check the header of an existing one. File lock must be held.
+	 */
+	private void initHeader() throws IOException {
+		
+		ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+		if (channel.size() == 0) {
+			writeHeader(0);
+			channel.force(false);
+		} else {
+			channel.read(header, 0);
+			header.flip();
+			if ((header.remaining() < HEADER_SIZE) || (header.getInt() != MAGIC) || (header.getInt() != VERSION)) {
+				throw new IOException("Not supported deposit index file: " + indexFile);
+			}
+		}
+	}
+	
+	
+	private void writeHeader(long newGeneration) throws IOException {
+		
+		ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+		header.putInt(MAGIC).putInt(VERSION).putLong(newGeneration);
+		header.flip();
+		long position = 0;
+		while (header.hasRemaining()) {
+			position += channel.write(header, position);
+		}
+	}
+	
+	
+	private void append(byte type, Key key, String editURL) throws IOException {
+		
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(HASH_SIZE + 128);
+		DataOutputStream record = new DataOutputStream(bytes);
+		record.writeByte(type);
+		record.write(key.hash);
+		record.writeUTF(key.target);
+		record.writeUTF(editURL);
+		record.flush();
+		
+		synchronized (jvmLock) {
+			FileLock fileLock = channel.lock();
+			try {
+				readNewRecords(); // records of the other instances must be applied before
+				long position = readPosition;
+				if (channel.size() > position) {
+					channel.truncate(position); // incomplete record of some interrupted writer
+				}
+				ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray());
+				while (buffer.hasRemaining()) {
+					position += channel.write(buffer, position);
+				}
+				channel.force(false);
+				apply(type, key, editURL);
+				readPosition = position;
+				recordCount++;
+				
+				if ((recordCount > COMPACTION_MIN_RECORDS) && (recordCount > 2 * entries.size())) {
+					compact();
+				}
+			} finally {
+				fileLock.release();
+			}
+		}
+	}
+	
+	
+	/**
+	 * Rewrite the file with the current entries only and increase the generation. Exclusive file lock must be held.
+	 * The records are written via a buffer of fixed size.
+	 */
+	private void compact() throws IOException {
+		
+		final long newGeneration = generation + 1;
+		log.debug("Compaction of the deposit index {}: {} records, {} entries", indexFile, recordCount, entries.size());
+		
+		channel.truncate(HEADER_SIZE);
+		writeHeader(newGeneration);
+		
+		long position = HEADER_SIZE;
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(READ_BUFFER_SIZE + HASH_SIZE + 128);
+		DataOutputStream records = new DataOutputStream(bytes);
+		for (Map.Entry<Key, String> entry : entries.entrySet()) {
+			records.writeByte(RECORD_PUT);
+			records.write(entry.getKey().hash);
+			records.writeUTF(entry.getKey().target);
+			records.writeUTF(entry.getValue());
+			if (bytes.size() >= READ_BUFFER_SIZE) {
+				position = write(bytes, position);
+			}
+		}
+		position = write(bytes, position);
+		channel.force(false);
+		
+		generation = newGeneration;
+		readPosition = position;
+		recordCount = entries.size();
+	}
+	
+	
+	private long write(ByteArrayOutputStream bytes, long position) throws IOException {
+		
+		ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray());
+		while (buffer.hasRemaining()) {
+			position += channel.write(buffer, position);
+		}
+		bytes.reset();
+		return position;
+	}
+	
+	
+	/**
+	 * Read records, which were appended since the last access, or the whole file, if it was rewritten by another instance. 
+	 * The file is read in chunks of fixed size. File lock must be held.
+	 * 
+	 * @throws IOException in case of IO error or if the file contains an unknown record type
+	 */
+	private void readNewRecords() throws IOException {
+		
+		final ByteBuffer header = ByteBuffer.allocate(8);
+		while (header.hasRemaining()) {
+			if (channel.read(header, GENERATION_POSITION + header.position()) < 0) {
+				throw new IOException("Deposit index file is truncated: " + indexFile);
+			}
+		}
+		header.flip();
+		final long fileGeneration = header.getLong();
+		if (fileGeneration != generation) {
+			entries.clear();
+			generation = fileGeneration;
+			readPosition = HEADER_SIZE;
+			recordCount = 0;
+		}
+		
+		final long size = channel.size();
+		if (size <= readPosition) {
+			return;
+		}
+		
+		final ChannelInputStream in = new ChannelInputStream(channel, readPosition, size);
+		final DataInputStream records = new DataInputStream(in);
+		long position = readPosition;
+		try {
+			while (in.getPosition() < size) {
+				byte type = records.readByte();
+				if ((type != RECORD_PUT) && (type != RECORD_REMOVE)) {
+					throw new IOException("Deposit index " + indexFile + " is corrupted: unknown record type " + type 
+							+ " at position " + position);
+				}
+				byte[] hash = new byte[HASH_SIZE];
+				records.readFully(hash);
+				String target = records.readUTF();
+				String editURL = records.readUTF();
+				apply(type, new Key(hash, target), editURL);
+				position = in.getPosition();
+				readPosition = position;
+				recordCount++;
+			}
+		} catch (EOFException e) {
+			// incomplete record (e.g. interrupted writer), will be truncated by the next append
+			log.warn("Incomplete record in the deposit index {} at position {}", indexFile, position);
+		}
+	}
+	
+	
+	private void apply(byte type, Key key, String editURL) {
+		if (type == RECORD_PUT) {
+			entries.put(key, editURL);
+		} else {
+			entries.remove(key);
+		}
+	}
+	
+	
+	/**
+	 * Stream of a file region, which is read via a buffer of fixed size. The position of the channel is not changed.
+	 */
+	private static final class ChannelInputStream extends InputStream {
+		
+		private final FileChannel channel;
+		private final long end;
+		private final ByteBuffer buffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+		private long bufferPosition; // file position of the buffer start
+		
+		ChannelInputStream(FileChannel channel, long start, long end) {
+			this.channel = channel;
+			this.end = end;
+			this.bufferPosition = start;
+			this.buffer.limit(0);
+		}
+		
+		/**
+		 * @return file position of the next byte
+		 */
+		long getPosition() {
+			return bufferPosition + buffer.position();
+		}
+
+		@Override
+		public int read() throws IOException {
+			if (!fill()) {
+				return -1;
+			}
+			return buffer.get() & 0xFF;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			if (len == 0) {
+				return 0;
+			}
+			if (!fill()) {
+				return -1;
+			}
+			final int count = Math.min(len, buffer.remaining());
+			buffer.get(b, off, count);
+			return count;
+		}
+		
+		private boolean fill() throws IOException {
+			
+			if (buffer.hasRemaining()) {
+				return true;
+			}
+			bufferPosition += buffer.limit();
+			buffer.clear();
+			buffer.limit((int) Math.min(buffer.capacity(), end - bufferPosition));
+			while (buffer.hasRemaining()) {
+				if (channel.read(buffer, bufferPosition + buffer.position()) < 0) {
+					break;
+				}
+			}
+			buffer.flip();
+			return buffer.hasRemaining();
+		}
+	}
+	
+	
+	/**
+	 * Key of the index: content hash and target
+	 */
+	private static final class Key {
+		
+		final byte[] hash;
+		final String target;
+		
+		Key(byte[] hash, String target) {
+			requireNonNull(hash);
+			requireNonNull(target);
+			if (hash.length != HASH_SIZE) {
+				throw new IllegalArgumentException("Hash must have " + HASH_SIZE + " bytes: " + hash.length);
+			}
+			this.hash = hash;
+			this.target = target;
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * Arrays.hashCode(hash) + target.hashCode();
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof Key)) {
+				return false;
+			}
+			Key other = (Key) obj;
+			return Arrays.equals(hash, other.hash) && target.equals(other.target);
+		}
+	}
+
+}
@@ -0,0 +1,49 @@
+/*
+ * Unless expressly otherwise stated, code from this project is licensed under the MIT license [https://opensource.org/licenses/MIT].
+ * 
+ * Copyright (c) <2018> <Volodymyr Kushnarenko, Stefan Kombrink, Markus Gärtner, Florian Fritze, Matthias Fratz, Daniel Scharon, Sibylle Hermann, Franziska Rapp and Uli Hahn>
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), 
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, 
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A 
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT 
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+ * CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH 
+ * THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package bwfdm.connector.dspace.index;
+
+import java.io.IOException;
+
+/**
+ * File was already deposited to the same collection (see {@link DepositIndex}) and the export was rejected 
+ * because of {@link bwfdm.connector.dspace.DSpaceSwordOnly.DuplicateStrategy#REJECT_DUPLICATE}.
+ * <p>
+ * The edit URL of the existing entry is provided via {@link #getEditLink()}.
+ * 
+ * @author agent
+ */
+public class DuplicateDepositException extends IOException {
+
+	private static final long serialVersionUID = 1L;
+	
+	private final String editLink;
+	
+	public DuplicateDepositException(String message, String editLink) {
+		super(message);
+		this.editLink = editLink;
+	}
+	
+	/**
+	 * @return edit URL of the existing entry
+	 */
+	public String getEditLink() {
+		return editLink;
+	}
+	
+}
@@ -0,0 +1,294 @@
+/*
+ * Unless expressly otherwise stated, code from this project is licensed under the MIT license [https://opensource.org/licenses/MIT].
+ * 
+ * Copyright (c) <2018> <Volodymyr Kushnarenko, Stefan Kombrink, Markus Gärtner, Florian Fritze, Matthias Fratz, Daniel Scharon, Sibylle Hermann, Franziska Rapp and Uli Hahn>
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), 
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, 
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A 
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT 
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+ * CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH 
+ * THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package bwfdm.connector.dspace.limit;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Adaptive limit of concurrent requests to one repository (AIMD: additive increase, multiplicative decrease).
+ * <p>
+ * Every request takes a {@link Permit} before it is sent and releases it with the result. The limit grows by 
+ * about 1 per round trip while the limit is used completely and the server answers fast, and it is reduced 
+ * by {@value #DECREASE_FACTOR} in case of overload: status 429 or 5xx, connection errors 
+ * or latency more than {@value #LATENCY_TOLERANCE} times the latency without load. Requests over the limit wait.
+ * <p>
+ * The latency without load is the minimal latency of the last {@value #LATENCY_WINDOW} measured requests 
+ * of the same operation class (see {@link #acquire(String)}), so that e.g. slow loads of a big service document 
+ * are compared only with each other and not with short requests.
+ * The limiter could be shared by several connector objects of the same repository.
+ * 
+ * @author agent
+ */
+public class AdaptiveLimiter {
+	
+	public static final int DEFAULT_INITIAL_LIMIT = 4;
+	public static final int DEFAULT_MAX_LIMIT = 20;
+	public static final double DECREASE_FACTOR = 0.7;
+	public static final double LATENCY_TOLERANCE = 2.0;
+	public static final int LATENCY_WINDOW = 50;
+	public static final String DEFAULT_OPERATION = "request";
+	
+	private final int maxLimit;
+	
+	private double limit;
+	private int inFlight = 0;
+	private int waiting = 0;
+	private long decreaseCount = 0; // also used to decrease only once per overload event
+	private long overloadCount = 0;
+	
+	private final Map<String, LatencyBaseline> baselines = new HashMap<String, LatencyBaseline>();
+	
+	public AdaptiveLimiter() {
+		this(DEFAULT_INITIAL_LIMIT, DEFAULT_MAX_LIMIT);
+	}
+	
+	/**
+	 * @param initialLimit - number of concurrent requests at the start, must be at least 1
+	 * @param maxLimit - maximal number of concurrent requests, must be at least initialLimit
+	 */
+	public AdaptiveLimiter(int initialLimit, int maxLimit) {
+		if ((initialLimit < 1) || (maxLimit < initialLimit)) {
+			throw new IllegalArgumentException("Not valid limits: initial " + initialLimit + ", max " + maxLimit);
+		}
+		this.limit = initialLimit;
+		this.maxLimit = maxLimit;
+	}
+	
+	
+	/**
+	 * Wait for a free place under the limit, for a request of the {@link #DEFAULT_OPERATION} class.
+	 * 
+	 * @return {@link Permit}, which must be released after the request
+	 * @throws InterruptedException if the thread was interrupted while waiting
+	 */
+	public Permit acquire() throws InterruptedException {
+		return acquire(DEFAULT_OPERATION);
+	}
+	
+	/**
+	 * Wait for a free place under the limit. The latency of the request is compared only with the latency 
+	 * without load of the same operation class.
+	 * 
+	 * @param operation - operation class of the request (e.g. "service document"), requests of one class should have comparable latencies
+	 * 
+	 * @return {@link Permit}, which must be released after the request
+	 * @throws InterruptedException if the thread was interrupted while waiting
+	 */
+	public synchronized Permit acquire(String operation) throws InterruptedException {
+		
+		requireNonNull(operation);
+		this.waiting++;
+		try {
+			while (this.inFlight >= getLimit()) {
+				this.wait();
+			}
+		} finally {
+			this.waiting--;
+		}
+		this.inFlight++;
+		return new Permit(operation, System.nanoTime(), this.decreaseCount);
+	}
+	
+	
+	/**
+	 * @return current limit of concurrent requests
+	 */
+	public synchronized int getLimit() {
+		return (int) this.limit;
+	}
+	
+	/**
+	 * @return number of requests, which are running now
+	 */
+	public synchronized int getInFlight() {
+		return this.inFlight;
+	}
+	
+	/**
+	 * @return number of requests, which are waiting for a place under the limit
+	 */
+	public synchronized int getQueueDepth() {
+		return this.waiting;
+	}
+	
+	/**
+	 * @return number of requests, which were released as overloaded since the start
+	 */
+	public synchronized long getOverloadCount() {
+		return this.overloadCount;
+	}
+	
+	/**
+	 * @param unit - time unit of the result
+	 * @return latency without load of the {@link #DEFAULT_OPERATION} class or -1 if it is not known yet
+	 */
+	public long getBaselineLatency(TimeUnit unit) {
+		return getBaselineLatency(DEFAULT_OPERATION, unit);
+	}
+	
+	/**
+	 * @param operation - operation class of the requests (see {@link #acquire(String)})
+	 * @param unit - time unit of the result
+	 * @return latency without load of the operation class or -1 if it is not known yet
+	 */
+	public synchronized long getBaselineLatency(String operation, TimeUnit unit) {
+		final LatencyBaseline baseline = this.baselines.get(operation);
+		return ((baseline == null) || !baseline.isKnown()) ? -1 : unit.convert(baseline.baselineNanos, TimeUnit.NANOSECONDS);
+	}
+	
+	@Override
+	public synchronized String toString() {
+		return "AdaptiveLimiter [limit=" + getLimit() + ", inFlight=" + inFlight + ", queueDepth=" + waiting 
+				+ ", overloads=" + overloadCount + "]";
+	}
+	
+	
+	private synchronized void release(Permit permit, Result result) {
+		
+		final boolean limitUsed = (this.inFlight >= getLimit());
+		this.inFlight--;
+		switch (result) {
+		case SUCCESS:
+			final long latencyNanos = System.nanoTime() - permit.startNanos;
+			LatencyBaseline baseline = this.baselines.get(permit.operation);
+			if (baseline == null) {
+				baseline = new LatencyBaseline();
+				this.baselines.put(permit.operation, baseline);
+			}
+			baseline.addSample(latencyNanos);
+			if (baseline.isKnown() && (latencyNanos > baseline.baselineNanos * LATENCY_TOLERANCE)) {
+				decrease(permit);
+			} else if (limitUsed) {
+				this.limit = Math.min(this.maxLimit, this.limit + 1.0 / this.limit);
+			}
+			break;
+		case SUCCESS_WITHOUT_LATENCY:
+			if (limitUsed) {
+				this.limit = Math.min(this.maxLimit, this.limit + 1.0 / this.limit);
+			}
+			break;
+		case OVERLOAD:
+			this.overloadCount++;
+			decrease(permit);
+			break;
+		default:
+			break;
+		}
+		this.notifyAll();
+	}
+	
+	private void decrease(Permit permit) {
+		// Requests, which were started before the last decrease, do not decrease again
+		if (permit.decreaseCount == this.decreaseCount) {
+			this.limit = Math.max(1.0, this.limit * DECREASE_FACTOR);
+			this.decreaseCount++;
+		}
+	}
+	
+	
+	/**
+	 * Latency without load of one operation class: minimal latency of the last window of measured requests
+	 */
+	private static class LatencyBaseline {
+		
+		private long baselineNanos = Long.MAX_VALUE;
+		private long windowMinNanos = Long.MAX_VALUE;
+		private int windowSamples = 0;
+		
+		void addSample(long latencyNanos) {
+			this.windowMinNanos = Math.min(this.windowMinNanos, latencyNanos);
+			if (++this.windowSamples >= LATENCY_WINDOW) {
+				this.baselineNanos = this.windowMinNanos;
+				this.windowMinNanos = Long.MAX_VALUE;
+				this.windowSamples = 0;
+			}
+		}
+		
+		boolean isKnown() {
+			return this.baselineNanos != Long.MAX_VALUE;
+		}
+	}
+	
+	
+	private static enum Result {
+		SUCCESS, SUCCESS_WITHOUT_LATENCY, OVERLOAD, IGNORE
+	}
+	
+	
+	/**
+	 * Place of one request under the limit. Must be released exactly once, further releases are ignored.
+	 */
+	public final class Permit {
+		
+		private final String operation;
+		private final long startNanos;
+		private final long decreaseCount;
+		private boolean released = false;
+		
+		private Permit(String operation, long startNanos, long decreaseCount) {
+			this.operation = operation;
+			this.startNanos = startNanos;
+			this.decreaseCount = decreaseCount;
+		}
+		
+		/**
+		 * Release with the HTTP status of the response: 429 and 5xx mean overload.
+		 * 
+		 * @param statusCode - HTTP status code
+		 * @param measureLatency - {@code false} if the latency depends on the size of the request (e.g. file upload)
+		 */
+		public void release(int statusCode, boolean measureLatency) {
+			if ((statusCode == 429) || (statusCode >= 500)) {
+				releaseWith(Result.OVERLOAD);
+			} else {
+				releaseWith(measureLatency ? Result.SUCCESS : Result.SUCCESS_WITHOUT_LATENCY);
+			}
+		}
+		
+		/**
+		 * Release after a connection error or timeout, which means overload.
+		 */
+		public void releaseOverload() {
+			releaseWith(Result.OVERLOAD);
+		}
+		
+		/**
+		 * Release without any influence to the limit (e.g. client side error).
+		 */
+		public void releaseIgnore() {
+			releaseWith(Result.IGNORE);
+		}
+		
+		private void releaseWith(Result result) {
+			synchronized (AdaptiveLimiter.this) {
+				if (this.released) {
+					return;
+				}
+				this.released = true;
+				AdaptiveLimiter.this.release(this, result);
+			}
+		}
+	}
+
+}
@@ -0,0 +1,159 @@
+/*
+ * Unless expressly otherwise stated, code from this project is licensed under the MIT license [https://opensource.org/licenses/MIT].
+ * 
+ * Copyright (c) <2018> <Volodymyr Kushnarenko, Stefan Kombrink, Markus Gärtner, Florian Fritze, Matthias Fratz, Daniel Scharon, Sibylle Hermann, Franziska Rapp and Uli Hahn>
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), 
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, 
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A 
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT 
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+ * CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH 
+ * THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package bwfdm.connector.dspace.metadata;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import bwfdm.connector.dspace.dto.v6.MetadataConstants;
+
+/**
+ * Key of a metadata field (e.g. "title" or "dc.title") in a {@link MetadataRecord}.
+ * <p>
+ * Fields of the known keys - the Dublin Core terms of {@link MetadataConstants#DUBLIN_CORE_TERMS}, 
+ * also with the prefix "dc." or "dcterms." - are interned similar to an enum: there is only one object per key.
+ * The registry is fixed, other keys are not registered: {@link #valueOf(String)} creates a new object for them, 
+ * which is kept only by the record. Fields should be compared via {@link #equals(Object)}.
+ * 
+ * @author agent
+ */
+public final class MetadataField {
+
+	private static final Map<String, MetadataField> registry;
+	private static final List<MetadataField> fields;
+	
+	static {
+		final String[] prefixes = { "", "dc.", "dcterms." };
+		final Map<String, MetadataField> knownFields = new HashMap<String, MetadataField>();
+		final List<MetadataField> knownFieldList = new ArrayList<MetadataField>();
+		for (String prefix : prefixes) {
+			for (String term : MetadataConstants.DUBLIN_CORE_TERMS) {
+				MetadataField field = new MetadataField(prefix + term, knownFieldList.size(), true);
+				knownFields.put(field.getKey(), field);
+				knownFieldList.add(field);
+			}
+		}
+		registry = knownFields;
+		fields = Collections.unmodifiableList(knownFieldList);
+	}
+	
+	public static final MetadataField CONTRIBUTOR = valueOf("contributor");
+	public static final MetadataField CREATOR = valueOf("creator");
+	public static final MetadataField DATE = valueOf("date");
+	public static final MetadataField DESCRIPTION = valueOf("description");
+	public static final MetadataField IDENTIFIER = valueOf("identifier");
+	public static final MetadataField LANGUAGE = valueOf("language");
+	public static final MetadataField PUBLISHER = valueOf("publisher");
+	public static final MetadataField RIGHTS = valueOf("rights");
+	public static final MetadataField SUBJECT = valueOf("subject");
+	public static final MetadataField TITLE = valueOf("title");
+	public static final MetadataField TYPE = valueOf("type");
+	
+	private final String key;
+	private final int ordinal;
+	private final boolean dublinCore;
+	
+	private MetadataField(String key, int ordinal, boolean dublinCore) {
+		this.key = key;
+		this.ordinal = ordinal;
+		this.dublinCore = dublinCore;
+	}
+	
+	
+	/**
+	 * Get the field for the key.
+	 * 
+	 * @param key - metadata key as {@link String}, e.g. "title"
+	 * @return {@link MetadataField}: the interned object for a known key, a new object for other keys
+	 */
+	public static MetadataField valueOf(String key) {
+		
+		requireNonNull(key);
+		MetadataField field = registry.get(key);
+		return (field != null) ? field : new MetadataField(key, -1, false);
+	}
+	
+	/**
+	 * Get the interned field of a known key.
+	 * 
+	 * @param key - metadata key as {@link String}, e.g. "title"
+	 * @return {@link MetadataField} or {@code null} if the key is not known
+	 */
+	public static MetadataField find(String key) {
+		return registry.get(requireNonNull(key));
+	}
+	
+	/**
+	 * Get the fields of all known keys in the order of the ordinal.
+	 * 
+	 * @return unmodifiable {@link List} of {@link MetadataField}, always the same object
+	 */
+	public static List<MetadataField> values() {
+		return fields;
+	}
+	
+	
+	public String getKey() {
+		return key;
+	}
+	
+	/**
+	 * @return index of the known field in {@link #values()} or -1 for other keys
+	 */
+	public int ordinal() {
+		return ordinal;
+	}
+	
+	/**
+	 * @return {@code true} if the key is one of the Dublin Core terms of {@link MetadataConstants#DUBLIN_CORE_TERMS}
+	 * 			(also with the prefix "dc." or "dcterms.")
+	 */
+	public boolean isDublinCore() {
+		return dublinCore;
+	}
+	
+	@Override
+	public boolean equals(Object obj) {
+		
+		if (this == obj) {
+			return true;
+		}
+		if (!(obj instanceof MetadataField)) {
+			return false;
+		}
+		return key.equals(((MetadataField) obj).key);
+	}
+	
+	@Override
+	public int hashCode() {
+		return key.hashCode();
+	}
+	
+	@Override
+	public String toString() {
+		return key;
+	}
+
+}
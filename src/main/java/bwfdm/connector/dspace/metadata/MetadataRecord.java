@@ -0,0 +1,288 @@
+/*
+ * Unless expressly otherwise stated, code from this project is licensed under the MIT license [https://opensource.org/licenses/MIT].
+ * 
+ * Copyright (c) <2018> <Volodymyr Kushnarenko, Stefan Kombrink, Markus Gärtner, Florian Fritze, Matthias Fratz, Daniel Scharon, Sibylle Hermann, Franziska Rapp and Uli Hahn>
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), 
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, 
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A 
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT 
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+ * CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH 
+ * THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package bwfdm.connector.dspace.metadata;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compact and immutable metadata of one entry, alternative to the {@code Map<String, List<String>>} for the export.
+ * <p>
+ * Keys are stored as {@link MetadataField} (interned for the known Dublin Core terms, one object per record for other keys), 
+ * values of all fields are stored in one array (grouped by field, in the order of the first usage of the field), 
+ * which avoids a separate key String and a List object per field and entry. Conversion from/to the Map is possible 
+ * via {@link #fromMap(Map)} and {@link #asMap()}. {@code null} values are skipped.
+ * 
+ * @author agent
+ */
+public final class MetadataRecord {
+	
+	private static final MetadataField[] NO_FIELDS = new MetadataField[0];
+	private static final String[] NO_VALUES = new String[0];
+	private static final int[] NO_OFFSETS = { 0 };
+	
+	public static final MetadataRecord EMPTY = new MetadataRecord(NO_FIELDS, NO_OFFSETS, NO_VALUES);
+	
+	private final MetadataField[] fields; 	// distinct fields
+	private final int[] offsets; 			// values of fields[i] are values[offsets[i]] ... values[offsets[i+1] - 1]
+	private final String[] values;
+	
+	private MetadataRecord(MetadataField[] fields, int[] offsets, String[] values) {
+		this.fields = fields;
+		this.offsets = offsets;
+		this.values = values;
+	}
+	
+	
+	public static Builder builder() {
+		return new Builder();
+	}
+	
+	/**
+	 * Create the record from the metadata Map.
+	 * 
+	 * @param metadataMap - metadata as a Map, where key = "metadata key" (e.g. "title"), value = "list of values"
+	 * 			({@code null} values are skipped)
+	 * @return {@link MetadataRecord}
+	 */
+	public static MetadataRecord fromMap(Map<String, List<String>> metadataMap) {
+		
+		requireNonNull(metadataMap);
+		int valueCount = 0;
+		for (List<String> fieldValues : metadataMap.values()) {
+			valueCount += fieldValues.size();
+		}
+		Builder builder = new Builder(valueCount);
+		for (Map.Entry<String, List<String>> metadataEntry : metadataMap.entrySet()) {
+			builder.addAll(metadataEntry.getKey(), metadataEntry.getValue());
+		}
+		return builder.build();
+	}
+	
+	
+	/**
+	 * Get the metadata as a Map (new object by every call).
+	 * 
+	 * @return {@link Map} with key = "metadata key", value = "unmodifiable list of values"
+	 */
+	public Map<String, List<String>> asMap() {
+		
+		Map<String, List<String>> metadataMap = new LinkedHashMap<String, List<String>>(fields.length * 2);
+		for (int i = 0; i < fields.length; i++) {
+			metadataMap.put(fields[i].getKey(), getValues(i));
+		}
+		return metadataMap;
+	}
+	
+	/**
+	 * @return number of distinct fields
+	 */
+	public int getFieldCount() {
+		return fields.length;
+	}
+	
+	/**
+	 * @return number of values of all fields
+	 */
+	public int getValueCount() {
+		return values.length;
+	}
+	
+	public boolean isEmpty() {
+		return values.length == 0;
+	}
+	
+	/**
+	 * @param index - index of the field, from 0 to {@link #getFieldCount()} - 1
+	 * @return {@link MetadataField}
+	 */
+	public MetadataField getField(int index) {
+		return fields[index];
+	}
+	
+	/**
+	 * @param index - index of the field, from 0 to {@link #getFieldCount()} - 1
+	 * @return unmodifiable {@link List} of values of the field
+	 */
+	public List<String> getValues(int index) {
+		return Collections.unmodifiableList(Arrays.asList(values).subList(offsets[index], offsets[index + 1]));
+	}
+	
+	/**
+	 * @param field - {@link MetadataField}
+	 * @return unmodifiable {@link List} of values of the field (empty list if the field is not used)
+	 */
+	public List<String> getValues(MetadataField field) {
+		
+		for (int i = 0; i < fields.length; i++) {
+			if (fields[i].equals(field)) {
+				return getValues(i);
+			}
+		}
+		return Collections.emptyList();
+	}
+	
+	/**
+	 * @param key - metadata key, e.g. "title"
+	 * @return unmodifiable {@link List} of values of the field (empty list if the field is not used)
+	 */
+	public List<String> getValues(String key) {
+		
+		for (int i = 0; i < fields.length; i++) {
+			if (fields[i].getKey().equals(key)) {
+				return getValues(i);
+			}
+		}
+		return Collections.emptyList();
+	}
+	
+	/**
+	 * @param index - index of the value, from 0 to {@link #getValueCount()} - 1
+	 * @return value as {@link String}
+	 */
+	public String getValue(int index) {
+		return values[index];
+	}
+	
+	/**
+	 * @param fieldIndex - index of the field, from 0 to {@link #getFieldCount()} - 1
+	 * @return index of the first value of the field, values of the field are from 
+	 * 			{@code getValueOffset(fieldIndex)} to {@code getValueOffset(fieldIndex + 1) - 1} 
+	 */
+	public int getValueOffset(int fieldIndex) {
+		return offsets[fieldIndex];
+	}
+	
+	@Override
+	public boolean equals(Object obj) {
+		
+		if (this == obj) {
+			return true;
+		}
+		if (!(obj instanceof MetadataRecord)) {
+			return false;
+		}
+		MetadataRecord other = (MetadataRecord) obj;
+		return Arrays.equals(fields, other.fields) && Arrays.equals(offsets, other.offsets) && Arrays.equals(values, other.values);
+	}
+	
+	@Override
+	public int hashCode() {
+		return 31 * Arrays.hashCode(fields) + Arrays.hashCode(values);
+	}
+	
+	@Override
+	public String toString() {
+		return asMap().toString();
+	}
+	
+	
+	/**
+	 * Builder of the {@link MetadataRecord}. Values of the same field could be added in any order, 
+	 * they are grouped by {@link #build()}. {@code null} values are skipped.
+	 */
+	public static final class Builder {
+		
+		private MetadataField[] valueFields;
+		private String[] values;
+		private int size = 0;
+		
+		private Builder() {
+			this(16);
+		}
+		
+		private Builder(int capacity) {
+			valueFields = new MetadataField[Math.max(capacity, 1)];
+			values = new String[Math.max(capacity, 1)];
+		}
+		
+		public Builder add(MetadataField field, String value) {
+			
+			requireNonNull(field);
+			if (value == null) {
+				return this;
+			}
+			if (size == values.length) {
+				valueFields = Arrays.copyOf(valueFields, size * 2);
+				values = Arrays.copyOf(values, size * 2);
+			}
+			valueFields[size] = field;
+			values[size] = value;
+			size++;
+			return this;
+		}
+		
+		public Builder add(String key, String value) {
+			return add(MetadataField.valueOf(key), value);
+		}
+		
+		public Builder addAll(String key, Collection<String> fieldValues) {
+			
+			MetadataField field = MetadataField.valueOf(key);
+			for (String value : fieldValues) {
+				add(field, value);
+			}
+			return this;
+		}
+		
+		public MetadataRecord build() {
+			
+			if (size == 0) {
+				return EMPTY;
+			}
+			
+			// Distinct fields in the order of the first usage and number of values per field
+			Map<MetadataField, Integer> fieldIndexes = new HashMap<MetadataField, Integer>();
+			MetadataField[] fields = new MetadataField[size];
+			int[] counts = new int[size];
+			int fieldCount = 0;
+			for (int i = 0; i < size; i++) {
+				Integer index = fieldIndexes.get(valueFields[i]);
+				if (index == null) {
+					index = fieldCount++;
+					fieldIndexes.put(valueFields[i], index);
+					fields[index] = valueFields[i];
+				}
+				counts[index]++;
+			}
+			
+			int[] offsets = new int[fieldCount + 1];
+			for (int i = 0; i < fieldCount; i++) {
+				offsets[i + 1] = offsets[i] + counts[i];
+			}
+			
+			// Values grouped by field, the order of values of one field is kept
+			String[] groupedValues = new String[size];
+			int[] positions = Arrays.copyOf(offsets, fieldCount);
+			for (int i = 0; i < size; i++) {
+				groupedValues[positions[fieldIndexes.get(valueFields[i])]++] = values[i];
+			}
+			return new MetadataRecord(Arrays.copyOf(fields, fieldCount), offsets, groupedValues);
+		}
+	}
+
+}
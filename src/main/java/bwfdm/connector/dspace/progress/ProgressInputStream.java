@@ -0,0 +1,180 @@
+/*
+ * Unless expressly otherwise stated, code from this project is licensed under the MIT license [https://opensource.org/licenses/MIT].
+ * 
+ * Copyright (c) <2018> <Volodymyr Kushnarenko, Stefan Kombrink, Markus Gärtner, Florian Fritze, Matthias Fratz, Daniel Scharon, Sibylle Hermann, Franziska Rapp and Uli Hahn>
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), 
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, 
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A 
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT 
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+ * CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH 
+ * THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package bwfdm.connector.dspace.progress;
+
+import static java.util.Objects.requireNonNull;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Input stream of an upload, which reports the read bytes to the {@link UploadProgressListener}.
+ * <p>
+ * The reports are throttled: the time is checked only after every {@link #CHECK_BYTES} bytes 
+ * and the listener is called at most once per interval, so that the overhead for the upload is negligible. 
+ * The last report (see {@link UploadProgress#isFinished()}) is sent, if the end of the stream or the known size is reached.
+ * 
+ * @author agent
+ */
+public class ProgressInputStream extends FilterInputStream {
+
+	private static final Logger log = LoggerFactory.getLogger(ProgressInputStream.class);
+	
+	public static final long DEFAULT_INTERVAL_MILLIS = 500;
+	protected static final int CHECK_BYTES = 64 * 1024;
+	
+	private final String url;
+	private final String fileName;
+	private final long totalBytes;
+	private final UploadProgressListener listener;
+	private final long intervalNanos;
+	
+	private long bytesSent = 0;
+	private long nextCheckBytes = CHECK_BYTES;
+	private long startNanos = 0;
+	private long lastReportNanos = 0;
+	private long lastReportBytes = 0;
+	private boolean finished = false;
+	
+	/**
+	 * @param in - stream of the upload
+	 * @param url - URL, where the stream is uploaded to
+	 * @param fileName - name of the file
+	 * @param totalBytes - size of the stream in bytes or -1 if it is not known
+	 * @param listener - listener of the progress
+	 * @param interval - minimal time between the reports, must be at least 0
+	 * @param unit - time unit of the interval
+	 */
+	public ProgressInputStream(InputStream in, String url, String fileName, long totalBytes, 
+			UploadProgressListener listener, long interval, TimeUnit unit) {
+		super(requireNonNull(in));
+		if (interval < 0) {
+			throw new IllegalArgumentException("Interval must not be negative: " + interval);
+		}
+		this.url = url;
+		this.fileName = fileName;
+		this.totalBytes = totalBytes;
+		this.listener = requireNonNull(listener);
+		this.intervalNanos = unit.toNanos(interval);
+	}
+	
+	
+	@Override
+	public int read() throws IOException {
+		start();
+		final int b = super.read();
+		if (b >= 0) {
+			count(1);
+		} else {
+			finish();
+		}
+		return b;
+	}
+	
+	@Override
+	public int read(byte[] b, int off, int len) throws IOException {
+		start();
+		final int n = super.read(b, off, len);
+		if (n > 0) {
+			count(n);
+		} else if (n < 0) {
+			finish();
+		}
+		return n;
+	}
+	
+	@Override
+	public long skip(long n) throws IOException {
+		start();
+		final long skipped = super.skip(n);
+		if (skipped > 0) {
+			count(skipped);
+		}
+		return skipped;
+	}
+	
+	@Override
+	public boolean markSupported() {
+		return false; // sent bytes can not be reset
+	}
+	
+	@Override
+	public synchronized void mark(int readlimit) {
+		// not supported
+	}
+	
+	@Override
+	public synchronized void reset() throws IOException {
+		throw new IOException("Reset is not supported for the upload progress");
+	}
+	
+	/**
+	 * @return number of the read bytes
+	 */
+	public long getBytesSent() {
+		return bytesSent;
+	}
+	
+	
+	private void start() {
+		if (this.startNanos == 0) {
+			this.startNanos = System.nanoTime();
+			this.lastReportNanos = this.startNanos;
+		}
+	}
+	
+	private void count(long n) {
+		this.bytesSent += n;
+		if ((this.totalBytes >= 0) && (this.bytesSent >= this.totalBytes)) {
+			finish(); // the HTTP client stops after the known size, without reading the end of the stream
+		} else if (this.bytesSent >= this.nextCheckBytes) {
+			this.nextCheckBytes = this.bytesSent + CHECK_BYTES;
+			final long now = System.nanoTime();
+			if (now - this.lastReportNanos >= this.intervalNanos) {
+				report(now, false);
+			}
+		}
+	}
+	
+	private void finish() {
+		if (!this.finished) {
+			this.finished = true;
+			report(System.nanoTime(), true);
+		}
+	}
+	
+	private void report(long now, boolean finished) {
+		final long intervalNanos = now - this.lastReportNanos;
+		final double currentBytesPerSecond = (intervalNanos > 0) ? ((this.bytesSent - this.lastReportBytes) * 1e9 / intervalNanos) : 0;
+		this.lastReportNanos = now;
+		this.lastReportBytes = this.bytesSent;
+		try {
+			this.listener.onProgress(new UploadProgress(this.url, this.fileName, this.bytesSent, this.totalBytes, 
+					now - this.startNanos, currentBytesPerSecond, finished));
+		} catch (RuntimeException e) {
+			log.error("Exception in the upload progress listener: {}: {}", e.getClass().getSimpleName(), e.getMessage());
+		}
+	}
+	
+}
@@ -0,0 +1,140 @@
+/*
+ * Unless expressly otherwise stated, code from this project is licensed under the MIT license [https://opensource.org/licenses/MIT].
+ * 
+ * Copyright (c) <2018> <Volodymyr Kushnarenko, Stefan Kombrink, Markus Gärtner, Florian Fritze, Matthias Fratz, Daniel Scharon, Sibylle Hermann, Franziska Rapp and Uli Hahn>
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), 
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, 
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A 
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT 
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+ * CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH 
+ * THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package bwfdm.connector.dspace.progress;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * State of a file upload at some moment: sent bytes, throughput and the estimated remaining time.
+ * 
+ * @author agent
+ */
+public class UploadProgress {
+
+	private final String url;
+	private final String fileName;
+	private final long bytesSent;
+	private final long totalBytes;
+	private final long elapsedNanos;
+	private final double currentBytesPerSecond;
+	private final boolean finished;
+	
+	public UploadProgress(String url, String fileName, long bytesSent, long totalBytes, long elapsedNanos, 
+			double currentBytesPerSecond, boolean finished) {
+		this.url = url;
+		this.fileName = fileName;
+		this.bytesSent = bytesSent;
+		this.totalBytes = totalBytes;
+		this.elapsedNanos = elapsedNanos;
+		this.currentBytesPerSecond = currentBytesPerSecond;
+		this.finished = finished;
+	}
+	
+	/**
+	 * @return URL, where the file is uploaded to (e.g. collection URL)
+	 */
+	public String getUrl() {
+		return url;
+	}
+	
+	/**
+	 * @return name of the uploaded file
+	 */
+	public String getFileName() {
+		return fileName;
+	}
+	
+	/**
+	 * @return number of bytes, which were already sent (read by the HTTP client)
+	 */
+	public long getBytesSent() {
+		return bytesSent;
+	}
+	
+	/**
+	 * @return size of the file in bytes or -1 if it is not known
+	 */
+	public long getTotalBytes() {
+		return totalBytes;
+	}
+	
+	/**
+	 * @param unit - time unit of the result
+	 * @return time since the start of the upload
+	 */
+	public long getElapsedTime(TimeUnit unit) {
+		return unit.convert(elapsedNanos, TimeUnit.NANOSECONDS);
+	}
+	
+	/**
+	 * @return throughput since the previous report in bytes per second
+	 */
+	public double getCurrentBytesPerSecond() {
+		return currentBytesPerSecond;
+	}
+	
+	/**
+	 * @return throughput since the start of the upload in bytes per second or 0 if it is not known yet
+	 */
+	public double getAverageBytesPerSecond() {
+		return (elapsedNanos > 0) ? (bytesSent * 1e9 / elapsedNanos) : 0;
+	}
+	
+	/**
+	 * @return part of the sent bytes between 0 and 1 or -1 if the size of the file is not known
+	 */
+	public double getFraction() {
+		if (totalBytes < 0) {
+			return -1;
+		}
+		return (totalBytes == 0) ? 1 : Math.min(1, (double) bytesSent / totalBytes);
+	}
+	
+	/**
+	 * Estimated remaining time (ETA) based on the average throughput.
+	 * 
+	 * @param unit - time unit of the result
+	 * @return remaining time or -1 if it is not known (size of the file is not known or nothing was sent yet)
+	 */
+	public long getRemainingTime(TimeUnit unit) {
+		if (finished) {
+			return 0;
+		}
+		final double bytesPerSecond = getAverageBytesPerSecond();
+		if ((totalBytes < 0) || (bytesPerSecond <= 0)) {
+			return -1;
+		}
+		final long remainingNanos = (long) (Math.max(0, totalBytes - bytesSent) / bytesPerSecond * 1e9);
+		return unit.convert(remainingNanos, TimeUnit.NANOSECONDS);
+	}
+	
+	/**
+	 * @return {@code true} if all bytes were sent (the response of the repository could be still pending)
+	 */
+	public boolean isFinished() {
+		return finished;
+	}
+	
+	@Override
+	public String toString() {
+		return fileName + ": " + bytesSent + "/" + totalBytes + " bytes, " 
+				+ Math.round(getAverageBytesPerSecond() / 1024) + " KiB/s" + (finished ? ", finished" : "");
+	}
+	
+}
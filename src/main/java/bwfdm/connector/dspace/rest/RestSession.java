@@ -0,0 +1,193 @@
+/*
+ * Unless expressly otherwise stated, code from this project is licensed under the MIT license [https://opensource.org/licenses/MIT].
+ * 
+ * Copyright (c) <2018> <Volodymyr Kushnarenko, Stefan Kombrink, Markus Gärtner, Florian Fritze, Matthias Fratz, Daniel Scharon, Sibylle Hermann, Franziska Rapp and Uli Hahn>
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), 
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, 
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A 
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT 
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+ * CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH 
+ * THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package bwfdm.connector.dspace.rest;
+
+import static java.util.Objects.requireNonNull;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.Header;
+import org.apache.http.HttpRequest;
+import org.apache.http.NameValuePair;
+import org.apache.http.client.entity.UrlEncodedFormEntity;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.message.BasicNameValuePair;
+import org.apache.http.util.EntityUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Authenticated session of the DSpace-v6 REST API ("/rest/login" with email and password, 
+ * session cookie "JSESSIONID" for further requests).
+ * <p>
+ * Every connector object has its own session, which is shared by all threads of the object. 
+ * The login is done by the first usage, a new login is done after {@link #invalidate(String)} 
+ * (e.g. response status 401 with the old session) or if the session was not used longer than the idle timeout of the server.
+ * The password is not stored by the session, it is provided by the caller for every authentication 
+ * and used only for the login request.
+ * 
+ * @author agent
+ */
+public class RestSession {
+	
+	private static final Logger log = LoggerFactory.getLogger(RestSession.class);
+	
+	public static final String SESSION_COOKIE = "JSESSIONID";
+	public static final String HEADER_COOKIE = "Cookie";
+	
+	// Default session timeout of Tomcat is 30 minutes, a new login is done a bit earlier
+	public static final long DEFAULT_IDLE_TIMEOUT_MILLIS = TimeUnit.MINUTES.toMillis(25);
+	
+	private final String loginURL;
+	private final String email;
+	
+	private volatile String sessionId;
+	private volatile long lastUsed;
+	private volatile long idleTimeoutMillis = DEFAULT_IDLE_TIMEOUT_MILLIS;
+	
+	/**
+	 * Create the session. The login is not done here, but by the first usage.
+	 * 
+	 * @param restURL - URL of the REST API, e.g. "https://some-dspace.org/rest"
+	 * @param email - email (user name) of the account
+	 */
+	public RestSession(String restURL, String email) {
+		
+		requireNonNull(restURL);
+		requireNonNull(email);
+		
+		this.loginURL = restURL + "/login";
+		this.email = email;
+	}
+	
+	
+	/**
+	 * Add the session cookie to the request, the login is done if there is no valid session.
+	 * 
+	 * @param client - object of {@link CloseableHttpClient} for the login request
+	 * @param request - request, which should be authenticated
+	 * @param password - password of the account, used only if a login is needed
+	 * 
+	 * @return session ID, which is used for the request (for a possible {@link #invalidate(String)})
+	 * 
+	 * @throws IOException in case of login error
+	 */
+	public String authenticate(CloseableHttpClient client, HttpRequest request, String password) throws IOException {
+		
+		String currentSessionId = this.sessionId;
+		if ((currentSessionId == null) || (System.currentTimeMillis() - this.lastUsed > this.idleTimeoutMillis)) {
+			currentSessionId = login(client, password, currentSessionId);
+		}
+		request.addHeader(HEADER_COOKIE, SESSION_COOKIE + "=" + currentSessionId);
+		this.lastUsed = System.currentTimeMillis();
+		return currentSessionId;
+	}
+	
+	
+	/**
+	 * Mark the session as not valid (e.g. after response status 401), the next request will do a new login.
+	 * If other thread has already done a new login, the new session is kept.
+	 * 
+	 * @param staleSessionId - session ID, which was used for the failed request
+	 */
+	public synchronized void invalidate(String staleSessionId) {
+		if ((staleSessionId != null) && staleSessionId.equals(this.sessionId)) {
+			this.sessionId = null;
+		}
+	}
+	
+	
+	/**
+	 * Set the time after which an unused session is considered as expired.
+	 * 
+	 * @param idleTimeoutMillis - timeout in milliseconds, must be at least 0
+	 */
+	public void setIdleTimeoutMillis(long idleTimeoutMillis) {
+		if (idleTimeoutMillis < 0) {
+			throw new IllegalArgumentException("Idle timeout must not be negative: " + idleTimeoutMillis);
+		}
+		this.idleTimeoutMillis = idleTimeoutMillis;
+	}
+	
+	public long getIdleTimeoutMillis() {
+		return this.idleTimeoutMillis;
+	}
+	
+	
+	/**
+	 * Login via REST. Only one thread does the login, other threads wait and use the new session.
+	 * 
+	 * @param staleSessionId - session ID, which is seen as not valid by the caller (or {@code null})
+	 * @return new session ID
+	 */
+	private synchronized String login(CloseableHttpClient client, String password, String staleSessionId) throws IOException {
+		
+		final String currentSessionId = this.sessionId;
+		if ((currentSessionId != null) && !currentSessionId.equals(staleSessionId)) {
+			return currentSessionId; // login was already done by other thread
+		}
+		
+		final List<NameValuePair> params = new ArrayList<NameValuePair>(2);
+		params.add(new BasicNameValuePair("email", this.email));
+		params.add(new BasicNameValuePair("password", password));
+		final HttpPost request = new HttpPost(this.loginURL);
+		request.setEntity(new UrlEncodedFormEntity(params, StandardCharsets.UTF_8));
+		
+		final CloseableHttpResponse response = client.execute(request);
+		try {
+			final int status = response.getStatusLine().getStatusCode();
+			EntityUtils.consume(response.getEntity());
+			if (status != 200) {
+				throw new IOException("REST login of " + this.email + " failed, response status " + status);
+			}
+			final String newSessionId = getSessionCookie(response.getHeaders("Set-Cookie"));
+			if (newSessionId == null) {
+				throw new IOException("REST login of " + this.email + ": response without " + SESSION_COOKIE + " cookie");
+			}
+			log.debug("REST login of {} via {}", this.email, this.loginURL);
+			this.sessionId = newSessionId;
+			this.lastUsed = System.currentTimeMillis();
+			return newSessionId;
+		} finally {
+			response.close();
+		}
+	}
+	
+	
+	private static String getSessionCookie(Header[] setCookieHeaders) {
+		
+		for (Header header : setCookieHeaders) {
+			final String value = header.getValue(); // e.g. "JSESSIONID=ABC123; Path=/rest; Secure; HttpOnly"
+			if (value.startsWith(SESSION_COOKIE + "=")) {
+				final int end = value.indexOf(';');
+				return value.substring(SESSION_COOKIE.length() + 1, (end < 0) ? value.length() : end).trim();
+			}
+		}
+		return null;
+	}
+
+
+}
@@ -0,0 +1,291 @@
+/*
+ * Unless expressly otherwise stated, code from this project is licensed under the MIT license [https://opensource.org/licenses/MIT].
+ * 
+ * Copyright (c) <2018> <Volodymyr Kushnarenko, Stefan Kombrink, Markus Gärtner, Florian Fritze, Matthias Fratz, Daniel Scharon, Sibylle Hermann, Franziska Rapp and Uli Hahn>
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), 
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, 
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A 
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT 
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+ * CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH 
+ * THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package bwfdm.connector.dspace.sword;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import bwfdm.connector.dspace.dto.v6.MetadataConstants;
+import bwfdm.connector.dspace.metadata.MetadataRecord;
+
+/**
+ * Writer of the Atom entry with Dublin Core metadata (SWORDv2 "application/atom+xml;type=entry"),
+ * which writes the metadata directly into the output stream (e.g. of the HTTP request), without any XML object model.
+ * <p>
+ * Every metadata key is written as an element of the "dcterms" namespace, the name of the element is the term of the key 
+ * (see {@link #getTerm(String)}): the prefix "dc." or "dcterms." is removed, e.g. "title", "dc.title" and "dcterms.title" 
+ * are all written as "dcterms:title". {@code null} values are skipped. The produced entry contains the same elements 
+ * with the same values as an {@link org.swordapp.client.EntryPart} with the metadata of {@link #toTermMap(Map)}. 
+ * The export via the SWORD client library is not changed by this mapping, it writes every key unchanged as element name.
+ * <p>
+ * Start and end tags of the known Dublin Core terms (with and without prefix) are prepared once, 
+ * tags of other keys are created for every written entry.
+ * 
+ * @author agent
+ */
+public class AtomEntryWriter {
+	
+	public static final String ATOM_NAMESPACE = "http://www.w3.org/2005/Atom";
+	public static final String DCTERMS_NAMESPACE = "http://purl.org/dc/terms/";
+	public static final String CONTENT_TYPE_ATOM_ENTRY = "application/atom+xml;type=entry";
+	
+	private static final String ENTRY_START = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>" 
+			+ "<entry xmlns=\"" + ATOM_NAMESPACE + "\" xmlns:dcterms=\"" + DCTERMS_NAMESPACE + "\">";
+	private static final String ENTRY_END = "</entry>";
+	
+	private static final Map<String, ElementTemplate> knownTemplates = new HashMap<String, ElementTemplate>();
+	
+	static {
+		for (String term : MetadataConstants.DUBLIN_CORE_TERMS) {
+			ElementTemplate template = new ElementTemplate(term);
+			knownTemplates.put(term, template);
+			knownTemplates.put("dc." + term, template);
+			knownTemplates.put("dcterms." + term, template);
+		}
+	}
+	
+	
+	/**
+	 * Write the Atom entry with the metadata as UTF-8 into the output stream. The stream is flushed, but not closed.
+	 * 
+	 * @param metadataMap - metadata as a Map, where key = "Dublin Core term", value = "list of values"
+	 * @param out - output stream
+	 * 
+	 * @throws IOException in case of IO error
+	 */
+	public static void write(Map<String, List<String>> metadataMap, OutputStream out) throws IOException {
+		
+		final Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 8192);
+		writer.write(ENTRY_START);
+		for (Map.Entry<String, List<String>> metadataEntry : metadataMap.entrySet()) {
+			final ElementTemplate template = getTemplate(metadataEntry.getKey());
+			for (String value : metadataEntry.getValue()) {
+				if (value != null) {
+					template.write(value, writer);
+				}
+			}
+		}
+		writer.write(ENTRY_END);
+		writer.flush();
+	}
+	
+	
+	/**
+	 * Write the Atom entry with the metadata record as UTF-8 into the output stream. The stream is flushed, but not closed.
+	 * 
+	 * @param metadataRecord - metadata as {@link MetadataRecord}
+	 * @param out - output stream
+	 * 
+	 * @throws IOException in case of IO error
+	 */
+	public static void write(MetadataRecord metadataRecord, OutputStream out) throws IOException {
+		
+		final Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 8192);
+		writer.write(ENTRY_START);
+		for (int i = 0; i < metadataRecord.getFieldCount(); i++) {
+			final ElementTemplate template = getTemplate(metadataRecord.getField(i).getKey());
+			final int end = metadataRecord.getValueOffset(i + 1);
+			for (int j = metadataRecord.getValueOffset(i); j < end; j++) {
+				template.write(metadataRecord.getValue(j), writer);
+			}
+		}
+		writer.write(ENTRY_END);
+		writer.flush();
+	}
+	
+	
+	/**
+	 * Write one element of the "dcterms" namespace. Useful for other representations of the metadata than a Map.
+	 * 
+	 * @param key - Dublin Core term, e.g. "title" or "dc.title"
+	 * @param value - value of the element, nothing is written for {@code null}
+	 * @param writer - writer of the entry, after {@link #writeStart(Writer)}
+	 * 
+	 * @throws IOException in case of IO error
+	 */
+	public static void writeElement(String key, String value, Writer writer) throws IOException {
+		if (value != null) {
+			getTemplate(key).write(value, writer);
+		}
+	}
+	
+	public static void writeStart(Writer writer) throws IOException {
+		writer.write(ENTRY_START);
+	}
+	
+	public static void writeEnd(Writer writer) throws IOException {
+		writer.write(ENTRY_END);
+	}
+	
+	
+	/**
+	 * Get the Dublin Core term of the metadata key, e.g. "title" for "title", "dc.title" or "dcterms.title"
+	 * 
+	 * @param key - metadata key
+	 * 
+	 * @return term as {@link String}
+	 * 
+	 * @throws IllegalArgumentException if the term could not be used as XML element name
+	 */
+	public static String getTerm(String key) {
+		
+		String term = key;
+		if (term.startsWith("dc.")) {
+			term = term.substring(3);
+		} else if (term.startsWith("dcterms.")) {
+			term = term.substring(8);
+		}
+		if (!isXmlName(term)) {
+			throw new IllegalArgumentException("Metadata key could not be used as XML element name: " + key);
+		}
+		return term;
+	}
+	
+	
+	/**
+	 * Get the metadata with the terms as keys (see {@link #getTerm(String)}) and without {@code null} values, 
+	 * e.g. for {@link org.swordapp.client.EntryPart#addDublinCore(String, String)}. 
+	 * Values of keys with the same term (e.g. "title" and "dc.title") are joined.
+	 * 
+	 * @param metadataMap - metadata as a Map, where key = "Dublin Core term", value = "list of values"
+	 * 
+	 * @return the same Map, if all keys are terms already and there are no {@code null} values, otherwise a new Map
+	 * 
+	 * @throws IllegalArgumentException if some term could not be used as XML element name
+	 */
+	public static Map<String, List<String>> toTermMap(Map<String, List<String>> metadataMap) {
+		
+		boolean changed = false;
+		for (Map.Entry<String, List<String>> metadataEntry : metadataMap.entrySet()) {
+			if (!metadataEntry.getKey().equals(getTerm(metadataEntry.getKey())) || metadataEntry.getValue().contains(null)) {
+				changed = true;
+				break;
+			}
+		}
+		if (!changed) {
+			return metadataMap;
+		}
+		
+		final Map<String, List<String>> termMap = new LinkedHashMap<String, List<String>>();
+		for (Map.Entry<String, List<String>> metadataEntry : metadataMap.entrySet()) {
+			final String term = getTerm(metadataEntry.getKey());
+			List<String> values = termMap.get(term);
+			if (values == null) {
+				values = new ArrayList<String>(metadataEntry.getValue().size());
+				termMap.put(term, values);
+			}
+			for (String value : metadataEntry.getValue()) {
+				if (value != null) {
+					values.add(value);
+				}
+			}
+		}
+		return termMap;
+	}
+	
+	
+	private static ElementTemplate getTemplate(String key) {
+		
+		final ElementTemplate template = knownTemplates.get(key);
+		return (template != null) ? template : new ElementTemplate(getTerm(key));
+	}
+	
+	
+	/**
+	 * Check if the string is a valid local name of an XML element (ASCII letters, digits, "_", "-" and "." only)
+	 */
+	private static boolean isXmlName(String name) {
+		
+		if (name.isEmpty()) {
+			return false;
+		}
+		for (int i = 0; i < name.length(); i++) {
+			char c = name.charAt(i);
+			boolean letter = ((c >= 'a') && (c <= 'z')) || ((c >= 'A') && (c <= 'Z')) || (c == '_');
+			boolean other = ((c >= '0') && (c <= '9')) || (c == '-') || (c == '.');
+			if (!letter && !(other && (i > 0))) {
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	
+	/**
+	 * Write the text with escaping of XML special characters. 
+	 * Characters which are not allowed in XML 1.0 are skipped.
+	 */
+	private static void writeEscaped(String text, Writer writer) throws IOException {
+		
+		int start = 0;
+		final int length = text.length();
+		for (int i = 0; i < length; i++) {
+			final char c = text.charAt(i);
+			final String replacement;
+			if (c == '&') {
+				replacement = "&amp;";
+			} else if (c == '<') {
+				replacement = "&lt;";
+			} else if (c == '>') {
+				replacement = "&gt;";
+			} else if ((c < 0x20) && (c != '\t') && (c != '\n') && (c != '\r')) {
+				replacement = "";
+			} else if ((c == '\uFFFE') || (c == '\uFFFF')) {
+				replacement = "";
+			} else {
+				continue;
+			}
+			writer.write(text, start, i - start);
+			writer.write(replacement);
+			start = i + 1;
+		}
+		writer.write(text, start, length - start);
+	}
+	
+	
+	/**
+	 * Prepared start and end tag of an element
+	 */
+	private static final class ElementTemplate {
+		
+		private final String startTag;
+		private final String endTag;
+		
+		ElementTemplate(String term) {
+			this.startTag = "<dcterms:" + term + ">";
+			this.endTag = "</dcterms:" + term + ">";
+		}
+		
+		void write(String value, Writer writer) throws IOException {
+			writer.write(startTag);
+			writeEscaped(value, writer);
+			writer.write(endTag);
+		}
+	}
+
+}
@@ -0,0 +1,249 @@
+/*
+ * Unless expressly otherwise stated, code from this project is licensed under the MIT license [https://opensource.org/licenses/MIT].
+ * 
+ * Copyright (c) <2018> <Volodymyr Kushnarenko, Stefan Kombrink, Markus Gärtner, Florian Fritze, Matthias Fratz, Daniel Scharon, Sibylle Hermann, Franziska Rapp and Uli Hahn>
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), 
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, 
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A 
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT 
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+ * CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH 
+ * THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package bwfdm.connector.dspace.sword;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.URLConnection;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+import bwfdm.connector.dspace.metadata.MetadataRecord;
+
+/**
+ * Writer of a DSpace METS SIP (ZIP archive with the files and the METS manifest "mets.xml"), 
+ * so that a file and its metadata could be deposited with a single request 
+ * (packaging "http://purl.org/net/sword/package/METSDSpaceSIP").
+ * <p>
+ * The metadata are written as DSpace Intermediate Metadata (DIM) into the descriptive metadata section 
+ * with MDTYPE="OTHER" OTHERMDTYPE="DIM", which is ingested by DSpace without a further crosswalk of the fields 
+ * (see {@link #getDimField(String)}). The archive is written directly into the output stream 
+ * (e.g. of the HTTP request), the manifest is the last entry of the archive, 
+ * so that the files of an unpacked ZIP archive are read only once.
+ * 
+ * @author agent
+ */
+public class MetsPackageWriter {
+
+	public static final String PACKAGE_METS_DSPACE_SIP = "http://purl.org/net/sword/package/METSDSpaceSIP";
+	public static final String CONTENT_TYPE_ZIP = "application/zip";
+	public static final String METS_FILE_NAME = "mets.xml";
+	public static final String PACKAGE_FILE_NAME = "mets-package.zip";
+	
+	private static final String METS_NAMESPACE = "http://www.loc.gov/METS/";
+	private static final String XLINK_NAMESPACE = "http://www.w3.org/1999/xlink";
+	private static final String DIM_NAMESPACE = "http://www.dspace.org/xmlns/dspace/dim";
+	private static final String DEFAULT_MIME_TYPE = "application/octet-stream";
+	
+	// Fields of the Dublin Core terms as by the default mapping of the DSpace SWORDv2 server ("simpledc" in swordv2-server.cfg),
+	// other terms are stored in the "dc" schema with the term as element
+	private static final Map<String, String> termFields = new HashMap<String, String>();
+	
+	static {
+		termFields.put("abstract", "dc.description.abstract");
+		termFields.put("accessRights", "dc.rights");
+		termFields.put("accrualMethod", "dc.rights");
+		termFields.put("alternative", "dc.title.alternative");
+		termFields.put("available", "dc.date");
+		termFields.put("bibliographicCitation", "dc.identifier.citation");
+		termFields.put("created", "dc.date");
+		termFields.put("creator", "dc.contributor.author");
+		termFields.put("issued", "dc.date.issued");
+		termFields.put("license", "dc.rights");
+		termFields.put("rightsHolder", "dc.rights");
+	}
+	
+	
+	/**
+	 * Write the package into the output stream. The stream is flushed, but not closed.
+	 * 
+	 * @param metadataRecord - metadata as {@link MetadataRecord}
+	 * @param content - content of the file, the stream is read until the end, but not closed
+	 * @param fileName - name of the file in the package
+	 * @param unpackZip - if {@code true}, the content is a ZIP archive and its files are added as separate files to the package
+	 * @param out - output stream
+	 * 
+	 * @throws IOException in case of IO error, {@link ZipException} if a file has the name of the manifest
+	 */
+	public static void write(MetadataRecord metadataRecord, InputStream content, String fileName, boolean unpackZip, OutputStream out) 
+			throws IOException {
+		
+		final ZipOutputStream zip = new ZipOutputStream(out, StandardCharsets.UTF_8);
+		final List<String> fileNames = new ArrayList<String>();
+		
+		// Files are often already compressed, the package is only a container for the transport
+		zip.setLevel(Deflater.BEST_SPEED);
+		if (unpackZip) {
+			final ZipInputStream archive = new ZipInputStream(content, StandardCharsets.UTF_8);
+			ZipEntry archiveEntry;
+			while ((archiveEntry = archive.getNextEntry()) != null) {
+				if (!archiveEntry.isDirectory()) {
+					addFile(zip, archiveEntry.getName(), archive);
+					fileNames.add(archiveEntry.getName());
+				}
+			}
+		} else {
+			addFile(zip, fileName, content);
+			fileNames.add(fileName);
+		}
+		
+		zip.setLevel(Deflater.DEFAULT_COMPRESSION);
+		zip.putNextEntry(new ZipEntry(METS_FILE_NAME));
+		final Writer writer = new BufferedWriter(new OutputStreamWriter(zip, StandardCharsets.UTF_8), 8192);
+		writeManifest(metadataRecord, fileNames, writer);
+		writer.flush();
+		zip.closeEntry();
+		zip.finish();
+		out.flush();
+	}
+	
+	
+	private static void addFile(ZipOutputStream zip, String name, InputStream content) throws IOException {
+		
+		if (METS_FILE_NAME.equals(name)) {
+			throw new ZipException("File name is reserved for the METS manifest: " + name);
+		}
+		zip.putNextEntry(new ZipEntry(name));
+		final byte[] buffer = new byte[64 * 1024];
+		int n;
+		while ((n = content.read(buffer)) >= 0) {
+			zip.write(buffer, 0, n);
+		}
+		zip.closeEntry();
+	}
+	
+	
+	/**
+	 * Get the DSpace metadata field of the metadata key: 
+	 * <ul>
+	 * <li>keys with a schema (e.g. "dc.contributor.author" or "custom.type") are the DSpace fields "schema.element[.qualifier]",</li>
+	 * <li>Dublin Core terms (e.g. "title", "creator" or "dcterms.creator") are mapped as by the deposit of an Atom entry 
+	 * (default configuration of DSpace), e.g. "title" to "dc.title" and "creator" to "dc.contributor.author".</li>
+	 * </ul>
+	 * 
+	 * @param key - metadata key as {@link String}
+	 * 
+	 * @return array with schema, element and qualifier ({@code null} if there is no qualifier)
+	 * 
+	 * @throws IllegalArgumentException if the key is not a valid field
+	 */
+	public static String[] getDimField(String key) {
+		
+		String field = key;
+		if (key.startsWith("dcterms.") || (key.indexOf('.') < 0)) {
+			final String term = key.startsWith("dcterms.") ? key.substring(8) : key;
+			field = termFields.containsKey(term) ? termFields.get(term) : "dc." + term;
+		}
+		final String[] parts = field.split("\\.", 3);
+		if ((parts.length < 2) || parts[0].isEmpty() || parts[1].isEmpty() || ((parts.length == 3) && parts[2].isEmpty())) {
+			throw new IllegalArgumentException("Metadata key is not a valid DSpace field: " + key);
+		}
+		return new String[] { parts[0], parts[1], (parts.length == 3) ? parts[2] : null };
+	}
+	
+	
+	/**
+	 * Write the METS manifest according to the DSpace METS SIP profile: 
+	 * one descriptive metadata section, the files in the "CONTENT" file group and the structure map of the item.
+	 */
+	private static void writeManifest(MetadataRecord metadataRecord, List<String> fileNames, Writer writer) throws IOException {
+		
+		writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>");
+		writer.write("<mets xmlns=\"" + METS_NAMESPACE + "\" xmlns:xlink=\"" + XLINK_NAMESPACE + "\" " 
+				+ "ID=\"sword-mets\" OBJID=\"sword-mets\" LABEL=\"DSpace SWORD Item\" PROFILE=\"DSpace METS SIP Profile 1.0\">");
+		
+		writer.write("<dmdSec ID=\"dmd_1\"><mdWrap LABEL=\"DIM Metadata\" MDTYPE=\"OTHER\" OTHERMDTYPE=\"DIM\">");
+		writer.write("<xmlData xmlns:dim=\"" + DIM_NAMESPACE + "\"><dim:dim dspaceType=\"ITEM\">");
+		for (int i = 0; i < metadataRecord.getFieldCount(); i++) {
+			final String[] field = getDimField(metadataRecord.getField(i).getKey());
+			final String startTag = "<dim:field mdschema=\"" + escape(field[0]) + "\" element=\"" + escape(field[1]) + "\""
+					+ ((field[2] != null) ? " qualifier=\"" + escape(field[2]) + "\">" : ">");
+			final int end = metadataRecord.getValueOffset(i + 1);
+			for (int j = metadataRecord.getValueOffset(i); j < end; j++) {
+				final String value = metadataRecord.getValue(j);
+				if (value != null) {
+					writer.write(startTag);
+					writer.write(escape(value));
+					writer.write("</dim:field>");
+				}
+			}
+		}
+		writer.write("</dim:dim></xmlData></mdWrap></dmdSec>");
+		
+		writer.write("<fileSec><fileGrp ID=\"fgrp_1\" USE=\"CONTENT\">");
+		for (int i = 0; i < fileNames.size(); i++) {
+			final String name = fileNames.get(i);
+			final String mimeType = URLConnection.guessContentTypeFromName(name);
+			writer.write("<file ID=\"file_" + (i + 1) + "\" MIMETYPE=\"" + escape((mimeType != null) ? mimeType : DEFAULT_MIME_TYPE) + "\">");
+			writer.write("<FLocat LOCTYPE=\"URL\" xlink:href=\"" + escape(name) + "\"/></file>");
+		}
+		writer.write("</fileGrp></fileSec>");
+		
+		writer.write("<structMap ID=\"struct_1\" LABEL=\"structure\" TYPE=\"LOGICAL\">");
+		writer.write("<div ID=\"div_1\" DMDID=\"dmd_1\" TYPE=\"SWORD Object\">");
+		for (int i = 0; i < fileNames.size(); i++) {
+			writer.write("<div ID=\"div_" + (i + 2) + "\" TYPE=\"File\"><fptr FILEID=\"file_" + (i + 1) + "\"/></div>");
+		}
+		writer.write("</div></structMap></mets>");
+	}
+	
+	
+	/**
+	 * Escape the XML special characters of an attribute value or text
+	 */
+	private static String escape(String value) {
+		
+		final StringBuilder builder = new StringBuilder(value.length() + 16);
+		for (int i = 0; i < value.length(); i++) {
+			final char c = value.charAt(i);
+			switch (c) {
+			case '&':
+				builder.append("&amp;");
+				break;
+			case '<':
+				builder.append("&lt;");
+				break;
+			case '>':
+				builder.append("&gt;");
+				break;
+			case '"':
+				builder.append("&quot;");
+				break;
+			default:
+				if ((c >= 0x20) || (c == '\t')) {
+					builder.append(c);
+				}
+			}
+		}
+		return builder.toString();
+	}
+
+}
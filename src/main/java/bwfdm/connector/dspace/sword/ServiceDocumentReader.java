@@ -0,0 +1,189 @@
+/*
+ * Unless expressly otherwise stated, code from this project is licensed under the MIT license [https://opensource.org/licenses/MIT].
+ * 
+ * Copyright (c) <2018> <Volodymyr Kushnarenko, Stefan Kombrink, Markus Gärtner, Florian Fritze, Matthias Fratz, Daniel Scharon, Sibylle Hermann, Franziska Rapp and Uli Hahn>
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), 
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, 
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A 
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT 
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+ * CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH 
+ * THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package bwfdm.connector.dspace.sword;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * Streaming reader of the SWORDv2 service document (StAX), without any XML object model.
+ * <p>
+ * Every "collection" element is passed as an {@link Entry} to the {@link Visitor} as soon as its end tag is read. 
+ * Entries with a "sword:service" element are sub-services (e.g. communities in DSpace), other entries are collections.
+ * The visitor could stop the reading (e.g. for a check like "has any collection"), the rest of the document 
+ * is not read then.
+ * 
+ * @author agent
+ */
+public class ServiceDocumentReader {
+	
+	public static final String APP_NAMESPACE = "http://www.w3.org/2007/app";
+	public static final String SWORD_NAMESPACE = "http://purl.org/net/sword/terms/";
+	public static final String CONTENT_TYPE_SERVICE_DOCUMENT = "application/atomsvc+xml";
+	
+	private static final XMLInputFactory inputFactory = createInputFactory();
+	
+	
+	/**
+	 * Read the service document and pass the entries to the visitor. The stream is not closed.
+	 * 
+	 * @param in - input stream of the service document
+	 * @param visitor - object of {@link Visitor}
+	 * 
+	 * @return {@code true} if the document was read completely, {@code false} if the visitor has stopped the reading
+	 * @throws XMLStreamException in case of not well-formed XML or IO error
+	 */
+	public static boolean read(InputStream in, Visitor visitor) throws XMLStreamException {
+		
+		final XMLStreamReader reader = inputFactory.createXMLStreamReader(in);
+		try {
+			String workspaceTitle = null;
+			Entry entry = null;
+			while (reader.hasNext()) {
+				final int event = reader.next();
+				if (event == XMLStreamConstants.START_ELEMENT) {
+					final String namespace = reader.getNamespaceURI();
+					final String name = reader.getLocalName();
+					if (entry == null) {
+						if (APP_NAMESPACE.equals(namespace) && "collection".equals(name)) {
+							entry = new Entry(workspaceTitle, reader.getAttributeValue(null, "href"));
+						} else if (APP_NAMESPACE.equals(namespace) && "workspace".equals(name)) {
+							workspaceTitle = null;
+						} else if (AtomEntryWriter.ATOM_NAMESPACE.equals(namespace) && "title".equals(name)) {
+							workspaceTitle = reader.getElementText().trim();
+						}
+					} else if (AtomEntryWriter.ATOM_NAMESPACE.equals(namespace) && "title".equals(name)) {
+						entry.title = reader.getElementText().trim();
+					} else if (SWORD_NAMESPACE.equals(namespace) && "service".equals(name)) {
+						entry.serviceURL = reader.getElementText().trim();
+					} else if (SWORD_NAMESPACE.equals(namespace) && "acceptPackaging".equals(name)) {
+						entry.acceptPackaging.add(reader.getElementText().trim());
+					} else if (APP_NAMESPACE.equals(namespace) && "accept".equals(name) 
+							&& "multipart-related".equals(reader.getAttributeValue(null, "alternate"))) {
+						entry.multipartAccepted = true;
+					}
+				} else if ((event == XMLStreamConstants.END_ELEMENT) && (entry != null) 
+						&& APP_NAMESPACE.equals(reader.getNamespaceURI()) && "collection".equals(reader.getLocalName())) {
+					if (!visitor.visit(entry)) {
+						return false;
+					}
+					entry = null;
+				}
+			}
+			return true;
+		} finally {
+			reader.close();
+		}
+	}
+	
+	
+	private static XMLInputFactory createInputFactory() {
+		final XMLInputFactory factory = XMLInputFactory.newInstance();
+		factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+		factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+		factory.setProperty(XMLInputFactory.IS_COALESCING, true);
+		return factory;
+	}
+	
+	
+	/**
+	 * Visitor of the entries of the service document.
+	 * 
+	 * @author agent
+	 */
+	public static interface Visitor {
+		
+		/**
+		 * Visit the next entry (collection or sub-service).
+		 * 
+		 * @param entry - object of {@link Entry}
+		 * 
+		 * @return {@code true} to continue the reading, {@code false} to stop it
+		 */
+		boolean visit(Entry entry);
+	}
+	
+	
+	/**
+	 * Entry of the service document ("collection" element): collection or sub-service.
+	 * 
+	 * @author agent
+	 */
+	public static final class Entry {
+		
+		private final String workspaceTitle;
+		private final String href;
+		private final List<String> acceptPackaging = new ArrayList<String>();
+		private String title;
+		private String serviceURL;
+		private boolean multipartAccepted = false;
+		
+		private Entry(String workspaceTitle, String href) {
+			this.workspaceTitle = workspaceTitle;
+			this.href = href;
+		}
+		
+		public String getWorkspaceTitle() {
+			return this.workspaceTitle;
+		}
+		
+		public String getHref() {
+			return this.href;
+		}
+		
+		public String getTitle() {
+			return this.title;
+		}
+		
+		/**
+		 * @return URL of the sub-service document or {@code null} if the entry is a collection
+		 */
+		public String getServiceURL() {
+			return this.serviceURL;
+		}
+		
+		public boolean isSubservice() {
+			return (this.serviceURL != null);
+		}
+		
+		public List<String> getAcceptPackaging() {
+			return Collections.unmodifiableList(this.acceptPackaging);
+		}
+		
+		/**
+		 * @return {@code true} if the collection declares multipart requests explicitly (accept element with alternate="multipart-related")
+		 */
+		public boolean isMultipartAccepted() {
+			return this.multipartAccepted;
+		}
+		
+		@Override
+		public String toString() {
+			return this.href + " (" + this.title + (isSubservice() ? ", service: " + this.serviceURL : "") + ")";
+		}
+	}
+	
+}
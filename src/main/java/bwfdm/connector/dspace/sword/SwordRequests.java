@@ -0,0 +1,312 @@
+/*
+ * Unless expressly otherwise stated, code from this project is licensed under the MIT license [https://opensource.org/licenses/MIT].
+ * 
+ * Copyright (c) <2018> <Volodymyr Kushnarenko, Stefan Kombrink, Markus Gärtner, Florian Fritze, Matthias Fratz, Daniel Scharon, Sibylle Hermann, Franziska Rapp and Uli Hahn>
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), 
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, 
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A 
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT 
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+ * CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH 
+ * THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package bwfdm.connector.dspace.sword;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.apache.abdera.Abdera;
+import org.apache.abdera.model.Document;
+import org.apache.abdera.model.Service;
+import org.apache.abdera.parser.ParseException;
+import org.apache.commons.codec.binary.Base64;
+import org.apache.http.Header;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpStatus;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpEntityEnclosingRequestBase;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.client.methods.HttpPut;
+import org.apache.http.entity.AbstractHttpEntity;
+import org.apache.http.entity.InputStreamEntity;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.util.EntityUtils;
+import org.swordapp.client.AuthCredentials;
+import org.swordapp.client.SWORDError;
+import org.swordapp.client.ServiceDocument;
+import org.swordapp.client.SwordResponse;
+
+import bwfdm.connector.dspace.cancel.CancellableInputStream;
+import bwfdm.connector.dspace.cancel.CancellationToken;
+import bwfdm.connector.dspace.metadata.MetadataRecord;
+import bwfdm.connector.dspace.utils.WebUtils;
+import bwfdm.exporter.commons.SwordExporter.SwordRequestType;
+
+/**
+ * SWORDv2 requests, which are sent directly via Apache HTTP client (e.g. one client shared by all requests of the connector), 
+ * without the SWORD client library and, except of the service document, without its object model.
+ * 
+ * @author agent
+ */
+public class SwordRequests {
+	
+	private static final Abdera abdera = new Abdera();
+
+	public static final String HEADER_IN_PROGRESS = "In-Progress";
+	public static final String HEADER_ON_BEHALF_OF = "On-Behalf-Of";
+	public static final String HEADER_AUTHORIZATION = "Authorization";
+	public static final String HEADER_LOCATION = "Location";
+	public static final String HEADER_PACKAGING = "Packaging";
+	public static final String HEADER_CONTENT_DISPOSITION = "Content-Disposition";
+	
+	
+	/**
+	 * Add the authentication headers of the SWORD credentials to the request: 
+	 * basic authentication and "On-Behalf-Of" (if it is used).
+	 * 
+	 * @param request - any HTTP request
+	 * @param credentials - object of {@link AuthCredentials}
+	 */
+	public static void addAuthHeaders(HttpRequest request, AuthCredentials credentials) {
+		
+		final String userPassword = credentials.getUsername() + ":" + credentials.getPassword();
+		request.addHeader(HEADER_AUTHORIZATION, "Basic " + Base64.encodeBase64String(userPassword.getBytes(StandardCharsets.UTF_8)));
+		if (credentials.getOnBehalfOf() != null) {
+			request.addHeader(HEADER_ON_BEHALF_OF, credentials.getOnBehalfOf());
+		}
+	}
+	
+	
+	/**
+	 * Send metadata as an Atom entry: create a new entry in the collection (DEPOSIT, "POST" request)
+	 * or replace the metadata of an existing entry (REPLACE, "PUT" request).
+	 * The entry is written directly into the request stream via {@link AtomEntryWriter}.
+	 * 
+	 * @param client - object of {@link CloseableHttpClient}
+	 * @param url - collection URL (DEPOSIT) or edit URL (REPLACE) as {@link String}
+	 * @param swordRequestType - {@link SwordRequestType#DEPOSIT} or {@link SwordRequestType#REPLACE}
+	 * @param metadataRecord - metadata as {@link MetadataRecord}
+	 * @param inProgress - value of the "In-Progress" header
+	 * @param credentials - object of {@link AuthCredentials}
+	 * 
+	 * @return {@link SwordResponse} with the status code and the "Location" header (edit URL of the entry)
+	 * 
+	 * @throws IOException in case of IO error
+	 * @throws SWORDError in case of error response
+	 */
+	public static SwordResponse sendAtomEntry(CloseableHttpClient client, String url, SwordRequestType swordRequestType, 
+			final MetadataRecord metadataRecord, boolean inProgress, AuthCredentials credentials) throws IOException, SWORDError {
+		
+		final HttpEntityEnclosingRequestBase request;
+		switch (swordRequestType) {
+		case DEPOSIT:
+			request = new HttpPost(url);
+			break;
+		case REPLACE:
+			request = new HttpPut(url);
+			break;
+		default:
+			throw new IllegalArgumentException("Not supported request type for metadata: " + swordRequestType);
+		}
+		addAuthHeaders(request, credentials);
+		request.addHeader(HEADER_IN_PROGRESS, Boolean.toString(inProgress));
+		
+		AbstractHttpEntity entity = new AbstractHttpEntity() {
+			@Override
+			public void writeTo(OutputStream out) throws IOException {
+				AtomEntryWriter.write(metadataRecord, out);
+			}
+			@Override
+			public boolean isRepeatable() {
+				return true;
+			}
+			@Override
+			public boolean isStreaming() {
+				return false;
+			}
+			@Override
+			public long getContentLength() {
+				return -1; // chunked
+			}
+			@Override
+			public InputStream getContent() {
+				throw new UnsupportedOperationException("Atom entry is only written to the output stream");
+			}
+		};
+		entity.setContentType(AtomEntryWriter.CONTENT_TYPE_ATOM_ENTRY);
+		entity.setChunked(true);
+		request.setEntity(entity);
+		
+		return getSwordResponse(WebUtils.execute(client, request));
+	}
+	
+	
+	/**
+	 * Create a new entry with the metadata and the files in a single request: DEPOSIT of a DSpace METS SIP, 
+	 * which is written directly into the request stream via {@link MetsPackageWriter}.
+	 * <p>
+	 * The request is not aborted via {@link CancellationToken}, because the entry is complete, as soon as the package 
+	 * is sent. The upload should be stopped via the content stream (see {@link CancellableInputStream}).
+	 * 
+	 * @param client - object of {@link CloseableHttpClient}
+	 * @param url - collection URL as {@link String}
+	 * @param metadataRecord - metadata as {@link MetadataRecord}
+	 * @param content - content of the file, the stream is read until the end, but not closed
+	 * @param fileName - name of the file
+	 * @param unpackZip - if {@code true}, the content is a ZIP archive and its files are added as separate files to the package
+	 * @param inProgress - value of the "In-Progress" header
+	 * @param credentials - object of {@link AuthCredentials}
+	 * 
+	 * @return {@link SwordResponse} with the status code and the "Location" header (edit URL of the entry)
+	 * 
+	 * @throws IOException in case of IO error
+	 * @throws SWORDError in case of error response
+	 */
+	public static SwordResponse sendMetsPackage(CloseableHttpClient client, String url, final MetadataRecord metadataRecord, 
+			final InputStream content, final String fileName, final boolean unpackZip, boolean inProgress, AuthCredentials credentials) 
+					throws IOException, SWORDError {
+		
+		final HttpPost request = new HttpPost(url);
+		addAuthHeaders(request, credentials);
+		request.addHeader(HEADER_IN_PROGRESS, Boolean.toString(inProgress));
+		request.addHeader(HEADER_PACKAGING, MetsPackageWriter.PACKAGE_METS_DSPACE_SIP);
+		request.addHeader(HEADER_CONTENT_DISPOSITION, "attachment; filename=" + MetsPackageWriter.PACKAGE_FILE_NAME);
+		
+		AbstractHttpEntity entity = new AbstractHttpEntity() {
+			@Override
+			public void writeTo(OutputStream out) throws IOException {
+				MetsPackageWriter.write(metadataRecord, content, fileName, unpackZip, out);
+			}
+			@Override
+			public boolean isRepeatable() {
+				return false; // content stream could be read only once
+			}
+			@Override
+			public boolean isStreaming() {
+				return false;
+			}
+			@Override
+			public long getContentLength() {
+				return -1; // chunked
+			}
+			@Override
+			public InputStream getContent() {
+				throw new UnsupportedOperationException("Package is only written to the output stream");
+			}
+		};
+		entity.setContentType(MetsPackageWriter.CONTENT_TYPE_ZIP);
+		entity.setChunked(true);
+		request.setEntity(entity);
+		
+		return getSwordResponse(client.execute(request));
+	}
+	
+	
+	/**
+	 * Create a new entry with a file (DEPOSIT, "POST" request with the binary content), 
+	 * the content is streamed into the request.
+	 * 
+	 * @param client - object of {@link CloseableHttpClient}
+	 * @param url - collection URL as {@link String}
+	 * @param content - content of the file, the stream is read until the end, but not closed
+	 * @param contentLength - length of the content in bytes
+	 * @param fileName - name of the file
+	 * @param mimeType - MIME type of the file
+	 * @param packageFormat - package format of the file (e.g. "http://purl.org/net/sword/package/Binary")
+	 * @param inProgress - value of the "In-Progress" header
+	 * @param credentials - object of {@link AuthCredentials}
+	 * 
+	 * @return {@link SwordResponse} with the status code and the "Location" header (edit URL of the entry)
+	 * 
+	 * @throws IOException in case of IO error
+	 * @throws SWORDError in case of error response
+	 */
+	public static SwordResponse sendFile(CloseableHttpClient client, String url, InputStream content, long contentLength, 
+			String fileName, String mimeType, String packageFormat, boolean inProgress, AuthCredentials credentials) 
+					throws IOException, SWORDError {
+		
+		final HttpPost request = new HttpPost(url);
+		addAuthHeaders(request, credentials);
+		request.addHeader(HEADER_IN_PROGRESS, Boolean.toString(inProgress));
+		request.addHeader(HEADER_PACKAGING, packageFormat);
+		request.addHeader(HEADER_CONTENT_DISPOSITION, "attachment; filename=" + fileName);
+		
+		final InputStreamEntity entity = new InputStreamEntity(content, contentLength);
+		entity.setContentType(mimeType);
+		request.setEntity(entity);
+		
+		return getSwordResponse(client.execute(request));
+	}
+	
+	
+	/**
+	 * Get a service document (or a sub-service document) as object model of the SWORD client library.
+	 * 
+	 * @param client - object of {@link CloseableHttpClient}
+	 * @param url - URL of the service document as {@link String}
+	 * @param credentials - object of {@link AuthCredentials}
+	 * 
+	 * @return {@link ServiceDocument}
+	 * 
+	 * @throws IOException in case of IO error or not valid service document
+	 * @throws SWORDError in case of error response
+	 */
+	public static ServiceDocument getServiceDocument(CloseableHttpClient client, String url, AuthCredentials credentials) 
+			throws IOException, SWORDError {
+		
+		final HttpGet request = new HttpGet(url);
+		addAuthHeaders(request, credentials);
+		request.addHeader("Accept", ServiceDocumentReader.CONTENT_TYPE_SERVICE_DOCUMENT);
+		
+		final CloseableHttpResponse response = WebUtils.execute(client, request);
+		try {
+			final int status = response.getStatusLine().getStatusCode();
+			if (status != HttpStatus.SC_OK) {
+				final String body = (response.getEntity() != null) ? EntityUtils.toString(response.getEntity(), "UTF-8") : null;
+				throw new SWORDError(status, body);
+			}
+			final InputStream in = response.getEntity().getContent();
+			try {
+				final Document<Service> document = abdera.getParser().parse(in, url);
+				document.complete(); // the document is read before the stream is closed
+				return new ServiceDocument(document.getRoot());
+			} catch (ParseException e) {
+				throw new IOException("Not valid service document " + url + ": " + e.getMessage(), e);
+			} finally {
+				in.close();
+			}
+		} finally {
+			WebUtils.closeResponse(response);
+		}
+	}
+	
+	
+	/**
+	 * Read the status and the "Location" header of the response, the response is closed.
+	 */
+	private static SwordResponse getSwordResponse(CloseableHttpResponse response) throws IOException, SWORDError {
+		
+		try {
+			final int status = response.getStatusLine().getStatusCode();
+			if ((status < 200) || (status >= 300)) {
+				final String body = (response.getEntity() != null) ? EntityUtils.toString(response.getEntity(), "UTF-8") : null;
+				throw new SWORDError(status, body);
+			}
+			EntityUtils.consume(response.getEntity()); // deposit receipt is not needed, connection is reused
+			final Header location = response.getFirstHeader(HEADER_LOCATION);
+			return new SwordResponse(status, (location != null) ? location.getValue() : null);
+		} finally {
+			WebUtils.closeResponse(response);
+		}
+	}
+
+}
@@ -2,11 +2,21 @@ package bwfdm.connector.dspace.utils;
 
 import java.io.ByteArrayOutputStream;
 import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -21,6 +31,8 @@ public class IOUtils {
 
 	private static final Logger log = LoggerFactory.getLogger(IOUtils.class);
 	
+	private static final long TRANSFER_CHUNK_SIZE = 8L * 1024 * 1024;
+	
 	public static String readStream(InputStream input) throws IOException {
 		return readStream(input, StandardCharsets.UTF_8);
 	}
@@ -62,6 +74,53 @@ public class IOUtils {
         }
     }
 	
+    /**
+     * Copy the stream into the file via {@link FileChannel#transferFrom(ReadableByteChannel, long, long)}, 
+     * the digest is updated with the same bytes during the transfer. 
+     * The file content is not collected in the heap, the channel implementation reuses its transfer buffers.
+     * 
+     * @param in - input stream, it is not closed by the method
+     * @param targetFile - file to write into, existing content is overwritten
+     * @param digest - {@link MessageDigest} to update or {@code null}
+     * 
+     * @return count of the written bytes
+     * 
+     * @throws IOException in case of IO error
+     */
+    public static long copyStreamToFile(final InputStream in, final File targetFile, 
+    		final MessageDigest digest) throws IOException {
+    	
+    	final ReadableByteChannel source = new DigestChannel(Channels.newChannel(in), digest);
+    	final FileChannel target = new FileOutputStream(targetFile).getChannel();
+    	try {
+    		long position = 0;
+    		long count;
+    		while ((count = target.transferFrom(source, position, TRANSFER_CHUNK_SIZE)) > 0) {
+    			position += count;
+    		}
+    		return position;
+    	} finally {
+    		target.close();
+    	}
+    }
+	
+	/**
+	 * Move the file to the target, replacing an existing target. The move is atomic, if the file system supports it 
+	 * (e.g. in the same directory), so that the target is either the old or the complete new file.
+	 * 
+	 * @param source - file to move
+	 * @param target - new location of the file
+	 * 
+	 * @throws IOException in case of IO error
+	 */
+	public static void moveReplacing(File source, File target) throws IOException {
+		try {
+			Files.move(source.toPath(), target.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+		} catch (AtomicMoveNotSupportedException e) {
+			Files.move(source.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		}
+	}
+	
 	public static void closeQuietly(Closeable closeable) {
 		try {
 			closeable.close();
@@ -70,4 +129,41 @@ public class IOUtils {
 		}
 	}
 	
+	/**
+	 * Channel, which updates the digest with all read bytes
+	 */
+	private static class DigestChannel implements ReadableByteChannel {
+		
+		private final ReadableByteChannel channel;
+		private final MessageDigest digest;
+		
+		DigestChannel(ReadableByteChannel channel, MessageDigest digest) {
+			this.channel = channel;
+			this.digest = digest;
+		}
+
+		@Override
+		public int read(ByteBuffer dst) throws IOException {
+			final int start = dst.position();
+			final int count = channel.read(dst);
+			if ((count > 0) && (digest != null)) {
+				final ByteBuffer readBytes = dst.duplicate();
+				readBytes.limit(start + count);
+				readBytes.position(start);
+				digest.update(readBytes);
+			}
+			return count;
+		}
+
+		@Override
+		public boolean isOpen() {
+			return channel.isOpen();
+		}
+
+		@Override
+		public void close() throws IOException {
+			channel.close();
+		}
+	}
+	
 }
@@ -19,11 +19,14 @@
 package bwfdm.connector.dspace.utils;
 
 import java.io.IOException;
+import java.io.InputStream;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.MappingIterator;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 /**
@@ -33,6 +36,10 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 public class JsonUtils {
 
 	protected static final Logger log = LoggerFactory.getLogger(JsonUtils.class);
+	
+	// Thread-safe after configuration, shared for the streaming conversion
+	private static final ObjectMapper streamMapper = new ObjectMapper()
+			.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
 
 	/**
 	 * Make pretty print of JSON.
@@ -78,6 +85,43 @@ public class JsonUtils {
 		return obj;
 	}
 
+	/**
+	 * Convert JSON from the input stream to the object (DTO), without reading the complete JSON into a String.
+	 * Unknown JSON properties are ignored.
+	 * 
+	 * @param <T> - any class
+	 * @param input - input stream with JSON
+	 * @param type - type of the class
+	 * 
+	 * @return any object (DTO) or {@code null} in case of error
+	 */
+	public static <T> T jsonStreamToObject(InputStream input, Class<T> type) {
+		
+		T obj = null;
+		try {
+			obj = type.cast(streamMapper.readValue(input, type));
+		} catch (IOException ex) {
+			log.error("Exception in JSON-to-Object conversion: {}: {}", ex.getClass().getSimpleName(), ex.getMessage());
+		}
+		return obj;
+	}
+
+	/**
+	 * Convert a JSON-array from the input stream to the objects (DTO) one by one, 
+	 * without reading the complete JSON into a String. Unknown JSON properties are ignored.
+	 * 
+	 * @param <T> - any class
+	 * @param input - input stream with a JSON-array
+	 * @param type - type of the array elements
+	 * 
+	 * @return {@link MappingIterator} over the converted elements, must be closed after usage
+	 * 
+	 * @throws IOException in case of IO error or not valid JSON
+	 */
+	public static <T> MappingIterator<T> jsonStreamToObjects(InputStream input, Class<T> type) throws IOException {
+		return streamMapper.readerFor(type).readValues(input);
+	}
+
 	/**
 	 * Convert some object to JSON-String
 	 * 
@@ -18,6 +18,7 @@
  */
 package bwfdm.connector.dspace.utils;
 
+import java.io.Closeable;
 import java.io.IOException;
 import java.security.KeyManagementException;
 import java.security.KeyStore;
@@ -29,6 +30,7 @@ import java.security.cert.X509Certificate;
 import org.apache.http.ParseException;
 import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpHead;
 import org.apache.http.client.methods.HttpPost;
 import org.apache.http.client.methods.HttpPut;
 import org.apache.http.client.methods.HttpUriRequest;
@@ -42,6 +44,9 @@ import org.apache.http.util.EntityUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import bwfdm.connector.dspace.cancel.CancellationToken;
+import bwfdm.connector.dspace.cancel.CancelledException;
+
 /**
  * 
  * @author Volodymyr Kushnarenko
@@ -93,26 +98,25 @@ public class WebUtils {
 	 */
 	public static CloseableHttpResponse getResponse(CloseableHttpClient client, String url, RequestType requestType,
 			String contentType, String acceptType) {
-		try {
-			HttpUriRequest request;
-			switch (requestType) {
-			case GET:
-				request = new HttpGet(url);
-				break;
-			case PUT:
-				request = new HttpPut(url);
-				break;
-			case POST:
-				request = new HttpPost(url);
-				break;
-			default:
-				log.error("Not supported request type: {}", requestType.toString());
-				return null;
-			}
+		
+		HttpUriRequest request = createRequest(url, requestType, contentType, acceptType);
+		if (request == null) {
+			return null;
+		}
+		return getResponse(client, request);
+	}
 
-			request.addHeader("Content-Type", contentType);
-			request.addHeader("Accept", acceptType);
-			CloseableHttpResponse response = client.execute(request);
+	/**
+	 * Get a response to the prepared request
+	 * 
+	 * @param client - object of {@link CloseableHttpClient}
+	 * @param request - object of {@link HttpUriRequest}
+	 * 
+	 * @return {@link CloseableHttpResponse} or {@code null} in case of error
+	 */
+	public static CloseableHttpResponse getResponse(CloseableHttpClient client, HttpUriRequest request) {
+		try {
+			CloseableHttpResponse response = execute(client, request);
 			return response;
 
 		} catch (IOException ex) {
@@ -120,6 +124,90 @@ public class WebUtils {
 			return null;
 		}
 	}
+	
+	/**
+	 * Execute the request, which could be cancelled via the {@link CancellationToken} of the current thread: 
+	 * the request is aborted, while it is waiting for the response, and the response is closed (see {@link #closeResponse(CloseableHttpResponse)}), 
+	 * while its content is read.
+	 * 
+	 * @param client - object of {@link CloseableHttpClient}
+	 * @param request - object of {@link HttpUriRequest}
+	 * 
+	 * @return {@link CloseableHttpResponse}
+	 * 
+	 * @throws CancelledException if the request was cancelled
+	 * @throws IOException in case of IO error
+	 */
+	public static CloseableHttpResponse execute(CloseableHttpClient client, final HttpUriRequest request) throws IOException {
+		
+		final CancellationToken token = CancellationToken.current();
+		if (token == null) {
+			return client.execute(request);
+		}
+		final Closeable abort = new Closeable() {
+			@Override
+			public void close() {
+				request.abort();
+			}
+		};
+		if (!token.register(abort)) {
+			throw new CancelledException("Request was cancelled: " + request.getURI());
+		}
+		final CloseableHttpResponse response;
+		try {
+			response = client.execute(request);
+		} catch (IOException e) {
+			if (token.isCancelled()) {
+				throw new CancelledException("Request was cancelled: " + request.getURI());
+			}
+			throw e;
+		} finally {
+			token.unregister(abort);
+		}
+		token.register(response); // closed by the cancellation or by closeResponse()
+		return response;
+	}
+
+	/**
+	 * Create a request with "Content-Type" and "Accept" headers (if not {@code null}). Further headers could be added 
+	 * before the execution.
+	 * 
+	 * @param url - URL as {@link String}
+	 * @param requestType - object of {@link RequestType}
+	 * @param contentType - content type as {@link String}  
+	 * @param acceptType - accept type as {@link String}
+	 * 
+	 * @return {@link HttpUriRequest} or {@code null} in case of not supported request type
+	 */
+	public static HttpUriRequest createRequest(String url, RequestType requestType, String contentType, String acceptType) {
+		
+		HttpUriRequest request;
+		switch (requestType) {
+		case GET:
+			request = new HttpGet(url);
+			break;
+		case PUT:
+			request = new HttpPut(url);
+			break;
+		case POST:
+			request = new HttpPost(url);
+			break;
+		case HEAD:
+			request = new HttpHead(url);
+			break;
+		default:
+			log.error("Not supported request type: {}", requestType.toString());
+			return null;
+		}
+
+		if (contentType != null) {
+			request.addHeader("Content-Type", contentType);
+		}
+		if (acceptType != null) {
+			request.addHeader("Accept", acceptType);
+		}
+		return request;
+	}
 
 	/**
 	 * Get a response entity as a String
@@ -144,6 +232,10 @@ public class WebUtils {
 	 * @param response - object of {@link CloseableHttpResponse}
 	 */
 	public static void closeResponse(CloseableHttpResponse response) {
+		final CancellationToken token = CancellationToken.current();
+		if (token != null) {
+			token.unregister(response);
+		}
 		try {
 			response.close();
 		} catch (IOException ex) {
@@ -157,7 +249,7 @@ public class WebUtils {
 	 * @author Volodymyr Kushnarenko
 	 */
 	public static enum RequestType {
-		GET("GET"), PUT("PUT"), POST("POST");
+		GET("GET"), PUT("PUT"), POST("POST"), HEAD("HEAD");
 
 		private final String label;
 
@@ -0,0 +1,229 @@
+/*
+ * Unless expressly otherwise stated, code from this project is licensed under the MIT license [https://opensource.org/licenses/MIT].
+ * 
+ * Copyright (c) <2018> <Volodymyr Kushnarenko, Stefan Kombrink, Markus Gärtner, Florian Fritze, Matthias Fratz, Daniel Scharon, Sibylle Hermann, Franziska Rapp and Uli Hahn>
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), 
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, 
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A 
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT 
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+ * CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH 
+ * THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package bwfdm.connector.dspace;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.HttpHost;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpVersion;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.message.BasicHttpResponse;
+import org.apache.http.protocol.HttpContext;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import bwfdm.connector.dspace.sword.SwordRequests;
+
+/**
+ * Tests of {@link DSpaceSwordAdmin}, the requests are answered by an HTTP client in memory.
+ * 
+ * @author agent
+ */
+public class DSpaceSwordAdminTest {
+	
+	private static final String SERVICE_DOCUMENT_URL = "http://localhost/swordv2/servicedocument";
+	private static final String COMMUNITY_URL = "http://localhost/swordv2/servicedocument/123456789/1";
+	private static final String COLLECTION_URL = "http://localhost/swordv2/collection/123456789/2";
+	private static final String SUBCOLLECTION_URL = "http://localhost/swordv2/collection/123456789/3";
+	private static final String EDIT_URL = "http://localhost/swordv2/edit/4";
+	
+	/**
+	 * HTTP client, which records the requests and answers with service documents or a deposit receipt
+	 */
+	private static class LocalHttpClient extends CloseableHttpClient {
+		
+		final Map<String, String> serviceDocuments = new HashMap<String, String>();
+		final List<HttpRequest> requests = new ArrayList<HttpRequest>();
+		
+		@Override
+		protected synchronized CloseableHttpResponse doExecute(HttpHost target, HttpRequest request, HttpContext context) {
+			requests.add(request);
+			final String url = request.getRequestLine().getUri();
+			final BasicHttpResponse response;
+			if ("POST".equals(request.getRequestLine().getMethod())) {
+				response = new BasicHttpResponse(HttpVersion.HTTP_1_1, 201, "Created");
+				response.addHeader(SwordRequests.HEADER_LOCATION, EDIT_URL);
+			} else if (serviceDocuments.containsKey(url)) {
+				response = new BasicHttpResponse(HttpVersion.HTTP_1_1, 200, "OK");
+				response.setEntity(new ByteArrayEntity(serviceDocuments.get(url).getBytes(StandardCharsets.UTF_8)));
+			} else {
+				response = new BasicHttpResponse(HttpVersion.HTTP_1_1, 404, "Not Found");
+			}
+			return (CloseableHttpResponse) Proxy.newProxyInstance(getClass().getClassLoader(), 
+					new Class<?>[] { CloseableHttpResponse.class }, new InvocationHandler() {
+						@Override
+						public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+							return "close".equals(method.getName()) ? null : method.invoke(response, args);
+						}
+					});
+		}
+		
+		synchronized int countRequests(String url) {
+			int count = 0;
+			for (HttpRequest request : requests) {
+				if (url.equals(request.getRequestLine().getUri())) {
+					count++;
+				}
+			}
+			return count;
+		}
+		
+		@Override
+		public void close() {
+			// nothing to release
+		}
+		
+		@Override
+		@SuppressWarnings("deprecation")
+		public org.apache.http.params.HttpParams getParams() {
+			return new org.apache.http.params.BasicHttpParams();
+		}
+		
+		@Override
+		@SuppressWarnings("deprecation")
+		public org.apache.http.conn.ClientConnectionManager getConnectionManager() {
+			return null;
+		}
+	}
+	
+	
+	private LocalHttpClient client;
+	private DSpaceSwordAdmin admin;
+	
+	@Before
+	public void createAdmin() {
+		client = new LocalHttpClient();
+		client.serviceDocuments.put(SERVICE_DOCUMENT_URL, serviceDocument(
+				entry(COLLECTION_URL, ""),
+				entry("http://localhost/swordv2/collection/123456789/1", "<sword:service>" + COMMUNITY_URL + "</sword:service>")));
+		client.serviceDocuments.put(COMMUNITY_URL, serviceDocument(entry(SUBCOLLECTION_URL, "")));
+		admin = new DSpaceSwordAdmin(SERVICE_DOCUMENT_URL, "admin", "password".toCharArray()) {
+			@Override
+			protected CloseableHttpClient getHttpClient() {
+				return client;
+			}
+		};
+	}
+	
+	
+	private static String serviceDocument(String... entries) {
+		final StringBuilder xml = new StringBuilder("<service xmlns=\"http://www.w3.org/2007/app\" "
+				+ "xmlns:atom=\"http://www.w3.org/2005/Atom\" xmlns:sword=\"http://purl.org/net/sword/terms/\"><workspace>");
+		for (String entry : entries) {
+			xml.append(entry);
+		}
+		return xml.append("</workspace></service>").toString();
+	}
+	
+	private static String entry(String href, String content) {
+		return "<collection href=\"" + href + "\"><atom:title>" + href + "</atom:title>" + content + "</collection>";
+	}
+	
+	
+	@Test
+	public void collectionsOfSubservicesAreCached() {
+		
+		final Map<String, String> collections = admin.getAvailableCollections("user");
+		assertEquals(2, collections.size());
+		assertEquals(SUBCOLLECTION_URL, collections.get(SUBCOLLECTION_URL));
+		
+		collections.clear(); // copy of the cached collections
+		assertEquals(2, admin.getAvailableCollections("user").size());
+		assertEquals(1, client.countRequests(SERVICE_DOCUMENT_URL));
+		assertEquals(1, client.countRequests(COMMUNITY_URL));
+		assertEquals("user", client.requests.get(0).getFirstHeader(SwordRequests.HEADER_ON_BEHALF_OF).getValue());
+		
+		// Other user, own service documents
+		assertEquals(2, admin.getAvailableCollections("other").size());
+		assertEquals(2, client.countRequests(COMMUNITY_URL));
+		
+		admin.invalidate("user");
+		assertEquals(2, admin.getAvailableCollections("user").size());
+		assertEquals(3, client.countRequests(COMMUNITY_URL));
+	}
+	
+	
+	@Test
+	public void collectionsAreLoadedWithoutTtl() {
+		
+		admin.setServiceDocumentTtl(0, TimeUnit.SECONDS);
+		assertEquals(2, admin.getAvailableCollections("user").size());
+		assertEquals(2, admin.getAvailableCollections("user").size());
+		assertEquals(2, client.countRequests(SERVICE_DOCUMENT_URL));
+		assertEquals(2, client.countRequests(COMMUNITY_URL));
+	}
+	
+	
+	@Test
+	public void missingSubserviceIsNotCached() {
+		
+		final String community = client.serviceDocuments.remove(COMMUNITY_URL);
+		assertNull(admin.getAvailableCollections("user"));
+		
+		client.serviceDocuments.put(COMMUNITY_URL, community);
+		assertEquals(2, admin.getAvailableCollections("user").size());
+		assertEquals(1, client.countRequests(SERVICE_DOCUMENT_URL));
+	}
+	
+	
+	private File file;
+	
+	@After
+	public void deleteFile() {
+		if (file != null) {
+			file.delete();
+		}
+	}
+	
+	@Test
+	public void fileIsSentViaSharedClient() throws Exception {
+		
+		file = File.createTempFile("export", ".zip");
+		try (FileOutputStream out = new FileOutputStream(file)) {
+			out.write(new byte[] { 1, 2, 3 });
+		}
+		assertEquals(EDIT_URL, admin.createEntryWithFile("user", COLLECTION_URL, file, true, false));
+		
+		final HttpRequest request = client.requests.get(0);
+		assertEquals(COLLECTION_URL, request.getRequestLine().getUri());
+		assertEquals("user", request.getFirstHeader(SwordRequests.HEADER_ON_BEHALF_OF).getValue());
+		assertEquals("false", request.getFirstHeader(SwordRequests.HEADER_IN_PROGRESS).getValue());
+		assertEquals("attachment; filename=" + file.getName(), 
+				request.getFirstHeader(SwordRequests.HEADER_CONTENT_DISPOSITION).getValue());
+	}
+	
+}
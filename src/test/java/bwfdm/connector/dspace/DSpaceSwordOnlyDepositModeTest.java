@@ -0,0 +1,136 @@
+/*
+ * Unless expressly otherwise stated, code from this project is licensed under the MIT license [https://opensource.org/licenses/MIT].
+ * 
+ * Copyright (c) <2018> <Volodymyr Kushnarenko, Stefan Kombrink, Markus Gärtner, Florian Fritze, Matthias Fratz, Daniel Scharon, Sibylle Hermann, Franziska Rapp and Uli Hahn>
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), 
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, 
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A 
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT 
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+ * CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH 
+ * THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package bwfdm.connector.dspace;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.xml.stream.XMLStreamException;
+
+import org.apache.abdera.Abdera;
+import org.apache.abdera.model.Document;
+import org.apache.abdera.model.Service;
+import org.junit.Test;
+import org.swordapp.client.ServiceDocument;
+
+import bwfdm.connector.dspace.DSpaceSwordOnly.DepositMode;
+import bwfdm.connector.dspace.sword.ServiceDocumentReader;
+import bwfdm.connector.dspace.sword.ServiceDocumentReader.Visitor;
+
+/**
+ * Tests of the detection of the deposit mode by {@link DSpaceSwordOnly} with a service document of communities 
+ * ("expose-communities"), the service documents are read from strings instead of the repository.
+ * 
+ * @author agent
+ */
+public class DSpaceSwordOnlyDepositModeTest {
+	
+	private static final String SERVICE_DOCUMENT_URL = "http://localhost/swordv2/servicedocument";
+	private static final String COMMUNITY_URL = "http://localhost/swordv2/servicedocument/123456789/1";
+	private static final String SUBCOMMUNITY_URL = "http://localhost/swordv2/servicedocument/123456789/2";
+	private static final String METS_COLLECTION = "http://localhost/swordv2/collection/123456789/3";
+	private static final String MULTIPART_COLLECTION = "http://localhost/swordv2/collection/123456789/4";
+	
+	/**
+	 * Connector with the service documents in memory
+	 */
+	private static class LocalRepository extends DSpaceSwordOnly {
+		
+		final Map<String, String> serviceDocuments = new HashMap<String, String>();
+		final List<String> subserviceReads = new ArrayList<String>();
+		
+		LocalRepository() {
+			super(SERVICE_DOCUMENT_URL, "user", "password".toCharArray());
+			serviceDocuments.put(SERVICE_DOCUMENT_URL, serviceDocument(
+					entry("http://localhost/swordv2/collection/123456789/1", "<sword:service>" + COMMUNITY_URL + "</sword:service>")));
+			serviceDocuments.put(COMMUNITY_URL, serviceDocument(
+					entry("http://localhost/swordv2/collection/123456789/2", "<sword:service>" + SUBCOMMUNITY_URL + "</sword:service>")));
+			serviceDocuments.put(SUBCOMMUNITY_URL, serviceDocument(
+					entry(METS_COLLECTION, "<sword:acceptPackaging>http://purl.org/net/sword/package/METSDSpaceSIP</sword:acceptPackaging>")));
+			setDepositMode(DepositMode.AUTO);
+		}
+		
+		@Override
+		public ServiceDocument getServiceDocument(String url) {
+			final Document<Service> document = new Abdera().getParser().parse(new StringReader(serviceDocuments.get(url)));
+			return new ServiceDocument(document.getRoot());
+		}
+		
+		@Override
+		public boolean visitServiceDocument(String serviceDocumentURL, Visitor visitor) {
+			subserviceReads.add(serviceDocumentURL);
+			final InputStream in = new ByteArrayInputStream(serviceDocuments.get(serviceDocumentURL).getBytes(StandardCharsets.UTF_8));
+			try {
+				ServiceDocumentReader.read(in, visitor);
+				return true;
+			} catch (XMLStreamException e) {
+				return false;
+			}
+		}
+	}
+	
+	
+	private static String serviceDocument(String... entries) {
+		final StringBuilder xml = new StringBuilder("<service xmlns=\"http://www.w3.org/2007/app\" "
+				+ "xmlns:atom=\"http://www.w3.org/2005/Atom\" xmlns:sword=\"http://purl.org/net/sword/terms/\"><workspace>");
+		for (String entry : entries) {
+			xml.append(entry);
+		}
+		return xml.append("</workspace></service>").toString();
+	}
+	
+	private static String entry(String href, String content) {
+		return "<collection href=\"" + href + "\"><atom:title>" + href + "</atom:title>" + content + "</collection>";
+	}
+	
+	
+	@Test
+	public void collectionIsFoundInSubservices() {
+		
+		final LocalRepository repository = new LocalRepository();
+		assertEquals(DepositMode.METS_SIP, repository.getDepositMode(METS_COLLECTION));
+		assertEquals(2, repository.subserviceReads.size());
+		
+		// Detected mode is cached
+		assertEquals(DepositMode.METS_SIP, repository.getDepositMode(METS_COLLECTION));
+		assertEquals(2, repository.subserviceReads.size());
+	}
+	
+	
+	@Test
+	public void unknownCollectionIsNotCached() {
+		
+		final LocalRepository repository = new LocalRepository();
+		assertEquals(DepositMode.TWO_STEP, repository.getDepositMode(MULTIPART_COLLECTION));
+		
+		// Collection was created later
+		repository.serviceDocuments.put(SUBCOMMUNITY_URL, serviceDocument(
+				entry(MULTIPART_COLLECTION, "<accept alternate=\"multipart-related\">application/zip</accept>")));
+		assertEquals(DepositMode.MULTIPART, repository.getDepositMode(MULTIPART_COLLECTION));
+	}
+	
+}
@@ -0,0 +1,130 @@
+/*
+ * Unless expressly otherwise stated, code from this project is licensed under the MIT license [https://opensource.org/licenses/MIT].
+ * 
+ * Copyright (c) <2018> <Volodymyr Kushnarenko, Stefan Kombrink, Markus Gärtner, Florian Fritze, Matthias Fratz, Daniel Scharon, Sibylle Hermann, Franziska Rapp and Uli Hahn>
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), 
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, 
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A 
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT 
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+ * CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH 
+ * THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package bwfdm.connector.dspace;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import bwfdm.connector.dspace.DSpaceSwordOnly.DepositMode;
+import bwfdm.connector.dspace.DSpaceSwordOnly.DuplicateStrategy;
+import bwfdm.connector.dspace.index.DepositIndex;
+import bwfdm.connector.dspace.index.DuplicateDepositException;
+import bwfdm.connector.dspace.metadata.MetadataRecord;
+import bwfdm.exporter.commons.SwordExporter;
+
+/**
+ * Tests of the handling of already deposited files by all deposit methods of {@link DSpaceSwordOnly}.
+ * 
+ * @author agent
+ */
+public class DSpaceSwordOnlyDuplicateTest {
+	
+	private static final String COLLECTION = "http://localhost/swordv2/collection/123456789/1";
+	private static final String EXISTING_ENTRY = "http://localhost/swordv2/edit/1";
+	
+	/**
+	 * Connector without requests, every entry of the deposit index exists
+	 */
+	private static class LocalRepository extends DSpaceSwordOnly {
+		
+		LocalRepository() {
+			super("http://localhost/swordv2/servicedocument", "user", "password".toCharArray());
+		}
+		
+		@Override
+		protected boolean isEntryAvailable(String editURL) {
+			return true;
+		}
+	}
+	
+	private File indexFile;
+	private File file;
+	private DepositIndex index;
+	private LocalRepository repository;
+	
+	@Before
+	public void createIndex() throws IOException {
+		indexFile = File.createTempFile("deposit-index", ".bin");
+		indexFile.delete(); // the index creates the file
+		file = File.createTempFile("deposit", ".txt");
+		final FileOutputStream out = new FileOutputStream(file);
+		try {
+			out.write("content".getBytes("UTF-8"));
+		} finally {
+			out.close();
+		}
+		index = new DepositIndex(indexFile);
+		index.put(DepositIndex.hashFile(file), COLLECTION + " " + SwordExporter.getPackageFormat(file.getName(), false), EXISTING_ENTRY);
+		repository = new LocalRepository();
+		repository.setDepositIndex(index);
+	}
+	
+	@After
+	public void deleteIndex() throws IOException {
+		index.close();
+		indexFile.delete();
+		file.delete();
+	}
+	
+	
+	@Test
+	public void existingEntryIsReturned() throws IOException {
+		assertEquals(EXISTING_ENTRY, repository.exportNewEntryWithFile(COLLECTION, file, false));
+	}
+	
+	
+	@Test
+	public void duplicateIsRejectedByAllDepositMethods() throws Exception {
+		
+		repository.setDuplicateStrategy(DuplicateStrategy.REJECT_DUPLICATE);
+		try {
+			repository.exportNewEntryWithFile(COLLECTION, file, false);
+			fail("exportNewEntryWithFile");
+		} catch (DuplicateDepositException e) {
+			assertEquals(EXISTING_ENTRY, e.getEditLink());
+		}
+		try {
+			repository.createEntryWithMetadataAndFile(COLLECTION, file, file, false, true);
+			fail("createEntryWithMetadataAndFile");
+		} catch (DuplicateDepositException e) {
+			assertEquals(EXISTING_ENTRY, e.getEditLink());
+		}
+		try {
+			repository.depositFileWithMetadata(COLLECTION, MetadataRecord.EMPTY, file, false, true, DepositMode.MULTIPART);
+			fail("depositFileWithMetadata");
+		} catch (DuplicateDepositException e) {
+			assertEquals(EXISTING_ENTRY, e.getEditLink());
+		}
+		try {
+			repository.depositFileForEntry(COLLECTION, file, false);
+			fail("depositFileForEntry");
+		} catch (DuplicateDepositException e) {
+			assertEquals(EXISTING_ENTRY, e.getEditLink());
+		}
+	}
+	
+}
@@ -0,0 +1,150 @@
+/*
+ * Unless expressly otherwise stated, code from this project is licensed under the MIT license [https://opensource.org/licenses/MIT].
+ * 
+ * Copyright (c) <2018> <Volodymyr Kushnarenko, Stefan Kombrink, Markus Gärtner, Florian Fritze, Matthias Fratz, Daniel Scharon, Sibylle Hermann, Franziska Rapp and Uli Hahn>
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), 
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, 
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A 
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT 
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+ * CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH 
+ * THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package bwfdm.connector.dspace;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import bwfdm.connector.dspace.index.CollectionSearchIndex;
+
+/**
+ * Tests of the reuse of the collection search index of {@link DSpaceSwordOnly}, 
+ * the structure is taken from a map instead of the repository.
+ * 
+ * @author agent
+ */
+public class DSpaceSwordOnlySearchIndexTest {
+	
+	/**
+	 * Connector with a fixed structure and a structure version set by the test
+	 */
+	private static class LocalRepository extends DSpaceSwordOnly {
+		
+		final AtomicInteger loads = new AtomicInteger();
+		volatile long structureVersion = 1;
+		
+		LocalRepository() {
+			super("http://localhost/swordv2/servicedocument", "user", "password".toCharArray());
+		}
+		
+		@Override
+		protected long getStructureVersion() {
+			return structureVersion;
+		}
+		
+		@Override
+		public Map<String, String> getAvailableCollectionsWithFullName(String fullNameSeparator) {
+			loads.incrementAndGet();
+			final Map<String, String> result = new LinkedHashMap<String, String>();
+			result.put("http://localhost/swordv2/collection/1", "Community" + fullNameSeparator + "Collection " + structureVersion);
+			return result;
+		}
+	}
+	
+	
+	@Test
+	public void reusedUntilStructureVersionChanges() {
+		
+		final LocalRepository repository = new LocalRepository();
+		repository.setStructureCacheTtl(1, TimeUnit.HOURS);
+		
+		final CollectionSearchIndex index = repository.getCollectionSearchIndex(" / ");
+		assertSame(index, repository.getCollectionSearchIndex(" / "));
+		assertEquals(1, repository.loads.get());
+		
+		repository.structureVersion = 2;
+		final CollectionSearchIndex updated = repository.getCollectionSearchIndex(" / ");
+		assertNotSame(index, updated);
+		assertEquals(2, repository.loads.get());
+		assertEquals(1, repository.searchCollections("collection 2", " / ", 10).size());
+		assertEquals(2, repository.loads.get());
+	}
+	
+	
+	@Test
+	public void rebuiltForOtherSeparator() {
+		
+		final LocalRepository repository = new LocalRepository();
+		repository.setStructureCacheTtl(1, TimeUnit.HOURS);
+		
+		repository.getCollectionSearchIndex(" / ");
+		assertEquals(" - ", repository.getCollectionSearchIndex(" - ").getSeparator());
+		assertEquals(2, repository.loads.get());
+	}
+	
+	
+	@Test
+	public void buildIsNotSharedBetweenConnectors() throws InterruptedException {
+		
+		final CountDownLatch started = new CountDownLatch(1);
+		final CountDownLatch finish = new CountDownLatch(1);
+		final LocalRepository blocked = new LocalRepository() {
+			@Override
+			public Map<String, String> getAvailableCollectionsWithFullName(String fullNameSeparator) {
+				started.countDown();
+				try {
+					finish.await(10, TimeUnit.SECONDS);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				return super.getAvailableCollectionsWithFullName(fullNameSeparator);
+			}
+		};
+		final Thread thread = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				blocked.getCollectionSearchIndex(" / ");
+			}
+		});
+		thread.start();
+		try {
+			assertTrue(started.await(10, TimeUnit.SECONDS));
+			
+			// Other connector with the same URL, credentials and structure version builds its own index
+			final LocalRepository other = new LocalRepository();
+			assertNotNull(other.getCollectionSearchIndex(" / "));
+			assertEquals(1, other.loads.get());
+		} finally {
+			finish.countDown();
+			thread.join();
+		}
+	}
+	
+	
+	@Test
+	public void rebuiltWithoutStructureCache() {
+		
+		final LocalRepository repository = new LocalRepository();
+		repository.getCollectionSearchIndex(" / ");
+		repository.getCollectionSearchIndex(" / ");
+		assertEquals(2, repository.loads.get());
+	}
+
+}
@@ -0,0 +1,170 @@
+/*
+ * Unless expressly otherwise stated, code from this project is licensed under the MIT license [https://opensource.org/licenses/MIT].
+ * 
+ * Copyright (c) <2018> <Volodymyr Kushnarenko, Stefan Kombrink, Markus Gärtner, Florian Fritze, Matthias Fratz, Daniel Scharon, Sibylle Hermann, Franziska Rapp and Uli Hahn>
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), 
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, 
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A 
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT 
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+ * CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH 
+ * THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package bwfdm.connector.dspace;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import javax.xml.stream.XMLStreamException;
+
+import org.apache.abdera.Abdera;
+import org.apache.abdera.model.Document;
+import org.apache.abdera.model.Service;
+import org.junit.Test;
+import org.swordapp.client.ServiceDocument;
+
+import bwfdm.connector.dspace.limit.AdaptiveLimiter;
+import bwfdm.connector.dspace.sword.ServiceDocumentReader;
+import bwfdm.connector.dspace.sword.ServiceDocumentReader.Visitor;
+import bwfdm.connector.dspace.utils.IOUtils;
+
+/**
+ * Tests of the collection checks of {@link DSpaceSwordOnly} with and without the structure cache 
+ * (object model or streaming reader of the service document), the service document is read from 
+ * the test resources instead of the repository.
+ * 
+ * @author agent
+ */
+public class DSpaceSwordOnlyServiceDocumentTest {
+	
+	private static final String ONLY_COMMUNITIES = "<service xmlns=\"http://www.w3.org/2007/app\" "
+			+ "xmlns:atom=\"http://www.w3.org/2005/Atom\" xmlns:sword=\"http://purl.org/net/sword/terms/\"><workspace>"
+			+ "<collection href=\"http://localhost/swordv2/collection/123456789/1\"><atom:title>Community A</atom:title>"
+			+ "<sword:service>http://localhost/swordv2/servicedocument/123456789/1</sword:service></collection>"
+			+ "</workspace></service>";
+	
+	private static final String EMPTY = "<service xmlns=\"http://www.w3.org/2007/app\"><workspace></workspace></service>";
+	
+	/**
+	 * Connector, which reads the service document from a string
+	 */
+	private static class LocalRepository extends DSpaceSwordOnly {
+		
+		final String serviceDocument;
+		
+		LocalRepository(String serviceDocument, boolean cached) {
+			super("http://localhost/swordv2/servicedocument", "user", "password".toCharArray());
+			this.serviceDocument = serviceDocument;
+			if (cached) {
+				setStructureCacheTtl(1, TimeUnit.HOURS);
+			}
+		}
+		
+		@Override
+		public ServiceDocument getServiceDocument(String url) {
+			final Document<Service> document = new Abdera().getParser().parse(new StringReader(serviceDocument));
+			return new ServiceDocument(document.getRoot());
+		}
+		
+		@Override
+		public boolean visitServiceDocument(String serviceDocumentURL, Visitor visitor) {
+			final InputStream in = new ByteArrayInputStream(serviceDocument.getBytes(StandardCharsets.UTF_8));
+			try {
+				try {
+					ServiceDocumentReader.read(in, visitor);
+					return true;
+				} finally {
+					in.close();
+				}
+			} catch (XMLStreamException | IOException e) {
+				return false;
+			}
+		}
+	}
+	
+	
+	/**
+	 * @return connectors with and without the structure cache
+	 */
+	private static List<LocalRepository> repositories(String serviceDocument) {
+		return Arrays.asList(new LocalRepository(serviceDocument, false), new LocalRepository(serviceDocument, true));
+	}
+	
+	private static String resource() throws IOException {
+		return IOUtils.readStream(DSpaceSwordOnlyServiceDocumentTest.class.getResourceAsStream("/servicedocument.xml"));
+	}
+	
+	
+	@Test
+	public void entriesWithSubservicesAreIncluded() throws IOException {
+		
+		for (LocalRepository repository : repositories(resource())) {
+			final Map<String, String> collections = repository.getAvailableCollections();
+			assertEquals(3, collections.size());
+			assertEquals("Community A", collections.get("http://localhost/swordv2/collection/123456789/1"));
+			assertEquals("Collection A1", collections.get("http://localhost/swordv2/collection/123456789/2"));
+			assertEquals("Collection A2 & more", collections.get("http://localhost/swordv2/collection/123456789/3"));
+		}
+	}
+	
+	
+	@Test
+	public void credentialsWithCollection() throws IOException {
+		for (LocalRepository repository : repositories(resource())) {
+			assertTrue(repository.hasAssignedCredentials());
+		}
+	}
+	
+	
+	@Test
+	public void credentialsWithCommunitiesOnly() {
+		for (LocalRepository repository : repositories(ONLY_COMMUNITIES)) {
+			assertTrue(repository.hasAssignedCredentials());
+			assertEquals(1, repository.getAvailableCollections().size());
+		}
+	}
+	
+	
+	@Test
+	public void credentialsWithoutCollections() {
+		for (LocalRepository repository : repositories(EMPTY)) {
+			assertFalse(repository.hasAssignedCredentials());
+			assertTrue(repository.getAvailableCollections().isEmpty());
+		}
+	}
+	
+	
+	@Test
+	public void permitIsReleasedAfterFailedLoad() {
+		
+		final AdaptiveLimiter limiter = new AdaptiveLimiter(1, 1);
+		final DSpaceSwordOnly repository = new DSpaceSwordOnly("http://localhost/swordv2/servicedocument", "user", "password".toCharArray()) {
+			@Override
+			public ServiceDocument getServiceDocument(String url) {
+				throw new IllegalStateException("Not valid service document");
+			}
+		};
+		repository.setConcurrencyLimiter(limiter);
+		assertNull(repository.loadServiceDocument());
+		assertEquals(0, limiter.getInFlight());
+	}
+
+}
@@ -0,0 +1,164 @@
+/*
+ * Unless expressly otherwise stated, code from this project is licensed under the MIT license [https://opensource.org/licenses/MIT].
+ * 
+ * Copyright (c) <2018> <Volodymyr Kushnarenko, Stefan Kombrink, Markus Gärtner, Florian Fritze, Matthias Fratz, Daniel Scharon, Sibylle Hermann, Franziska Rapp and Uli Hahn>
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), 
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, 
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A 
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT 
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+ * CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH 
+ * THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package bwfdm.connector.dspace;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.abdera.Abdera;
+import org.apache.abdera.model.Document;
+import org.apache.abdera.model.Service;
+import org.junit.Test;
+import org.swordapp.client.ServiceDocument;
+
+import bwfdm.connector.dspace.dto.v6.CollectionObject;
+import bwfdm.connector.dspace.dto.v6.HierarchyCollectionObjectRestV6;
+import bwfdm.connector.dspace.dto.v6.HierarchyObjectRestV6;
+import bwfdm.connector.dspace.hierarchy.FlatHierarchy;
+
+/**
+ * Tests of the cached flattened hierarchy of {@link DSpace_v6} and of the full names of collections, 
+ * the service document, hierarchy and collections are created in memory.
+ * 
+ * @author agent
+ */
+public class DSpaceV6HierarchyTest {
+	
+	private static final String COLLECTION_URL = "http://localhost/swordv2/collection/";
+	
+	/**
+	 * Connector with the structure in memory, which counts the loads of the hierarchy. 
+	 * Hierarchy: Workspace with collection A (1), community X (2) with collection B (3) 
+	 * and community Y (4) with collection Data (5).
+	 */
+	private static class LocalRepository extends DSpace_v6 {
+		
+		final AtomicInteger loads = new AtomicInteger();
+		final String[] swordCollections;
+		
+		LocalRepository(String... swordCollections) {
+			super("http://localhost/swordv2/servicedocument", "http://localhost/rest", "user", "password".toCharArray());
+			this.swordCollections = swordCollections;
+		}
+		
+		@Override
+		protected HierarchyObjectRestV6 loadHierarchyObjectRestV6() {
+			loads.incrementAndGet();
+			final HierarchyObjectRestV6 workspace = community("Workspace", "123456789/0");
+			addCollection(workspace, "A", "123456789/1");
+			final HierarchyObjectRestV6 x = community("X", "123456789/2");
+			workspace.community.add(x);
+			addCollection(x, "B", "123456789/3");
+			final HierarchyObjectRestV6 y = community("Y", "123456789/4");
+			x.community.add(y);
+			addCollection(y, "Data", "123456789/5");
+			return workspace;
+		}
+		
+		@Override
+		protected CollectionObject[] getAllCollectionObjects() {
+			final CollectionObject[] collections = new CollectionObject[3];
+			for (int i = 0; i < collections.length; i++) {
+				collections[i] = new CollectionObject();
+				collections[i].handle = "123456789/" + (2 * i + 1);
+			}
+			return collections;
+		}
+		
+		@Override
+		protected ServiceDocument getServiceDocument() {
+			final StringBuilder xml = new StringBuilder("<service xmlns=\"http://www.w3.org/2007/app\" "
+					+ "xmlns:atom=\"http://www.w3.org/2005/Atom\"><workspace><atom:title>Workspace</atom:title>");
+			for (int i = 0; i < swordCollections.length; i += 2) {
+				xml.append("<collection href=\"").append(COLLECTION_URL).append(swordCollections[i]).append("\"><atom:title>")
+						.append(swordCollections[i + 1]).append("</atom:title></collection>");
+			}
+			xml.append("</workspace></service>");
+			final Document<Service> document = new Abdera().getParser().parse(new StringReader(xml.toString()));
+			return new ServiceDocument(document.getRoot());
+		}
+		
+		private static HierarchyObjectRestV6 community(String name, String handle) {
+			final HierarchyObjectRestV6 community = new HierarchyObjectRestV6();
+			community.name = name;
+			community.handle = handle;
+			community.community = new ArrayList<HierarchyObjectRestV6>();
+			community.collection = new ArrayList<HierarchyCollectionObjectRestV6>();
+			return community;
+		}
+		
+		private static void addCollection(HierarchyObjectRestV6 community, String name, String handle) {
+			final HierarchyCollectionObjectRestV6 collection = new HierarchyCollectionObjectRestV6();
+			collection.name = name;
+			collection.handle = handle;
+			community.collection.add(collection);
+		}
+	}
+	
+	
+	@Test
+	public void flatHierarchyIsCached() {
+		
+		final LocalRepository repository = new LocalRepository();
+		repository.setStructureCacheTtl(1, TimeUnit.HOURS);
+		final FlatHierarchy hierarchy = repository.getFlatHierarchy();
+		assertEquals("Workspace", hierarchy.getName(0));
+		assertSame(hierarchy, repository.getFlatHierarchy());
+		assertEquals(1, repository.loads.get());
+	}
+	
+	
+	@Test
+	public void loadedAgainWithoutCache() {
+		
+		final LocalRepository repository = new LocalRepository();
+		assertNotSame(repository.getFlatHierarchy(), repository.getFlatHierarchy());
+		assertEquals(2, repository.loads.get());
+	}
+	
+	
+	@Test
+	public void fullNamesWithoutWorkspace() {
+		
+		final LocalRepository repository = new LocalRepository("123456789/1", "A", "123456789/3", "B", "123456789/5", "Data");
+		final Map<String, String> fullNames = repository.getAvailableCollectionsWithFullName(" / ");
+		assertEquals(3, fullNames.size());
+		assertEquals("A", fullNames.get(COLLECTION_URL + "123456789/1"));
+		assertEquals("X / B", fullNames.get(COLLECTION_URL + "123456789/3"));
+		assertEquals("X / Y / Data", fullNames.get(COLLECTION_URL + "123456789/5"));
+		assertEquals(1, repository.loads.get());
+	}
+	
+	
+	@Test
+	public void fullNamesWithUnknownCollection() {
+		
+		final LocalRepository repository = new LocalRepository("123456789/1", "A", "123456789/9", "Unknown");
+		assertNull(repository.getAvailableCollectionsWithFullName(" / "));
+	}
+
+}
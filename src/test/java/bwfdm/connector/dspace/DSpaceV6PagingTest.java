@@ -0,0 +1,179 @@
+/*
+ * Unless expressly otherwise stated, code from this project is licensed under the MIT license [https://opensource.org/licenses/MIT].
+ * 
+ * Copyright (c) <2018> <Volodymyr Kushnarenko, Stefan Kombrink, Markus Gärtner, Florian Fritze, Matthias Fratz, Daniel Scharon, Sibylle Hermann, Franziska Rapp and Uli Hahn>
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), 
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, 
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A 
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT 
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+ * CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH 
+ * THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package bwfdm.connector.dspace;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import bwfdm.connector.dspace.dto.v6.CollectionObject;
+
+/**
+ * Tests of the paged REST listing {@link DSpace_v6#getAllPages(String, Class)}, the pages are served from memory.
+ * 
+ * @author agent
+ */
+public class DSpaceV6PagingTest {
+
+	/**
+	 * Connector with a REST list in memory instead of the requests
+	 */
+	private static class PagedRepository extends DSpace_v6 {
+		
+		int size;
+		int serverLimit = Integer.MAX_VALUE;
+		boolean ignoreOffset = false;
+		final List<String> requests = new ArrayList<String>();
+		
+		PagedRepository(int size) {
+			super("http://localhost/swordv2/servicedocument", "http://localhost/rest", "user", "password".toCharArray());
+			this.size = size;
+		}
+		
+		@Override
+		protected <T> T[] getPage(String url, int offset, int limit, Class<T[]> pageType) {
+			synchronized (requests) {
+				requests.add(offset + "/" + limit);
+			}
+			final int start = ignoreOffset ? 0 : offset;
+			final int end = Math.min(size, start + Math.min(limit, serverLimit));
+			final Object[] page = (Object[]) Array.newInstance(pageType.getComponentType(), Math.max(0, end - start));
+			for (int i = start; i < end; i++) {
+				final CollectionObject collection = new CollectionObject();
+				collection.uuid = "uuid-" + i;
+				page[i - start] = collection;
+			}
+			return pageType.cast(page);
+		}
+	}
+	
+	
+	private static List<String> uuids(List<CollectionObject> collections) {
+		final List<String> uuids = new ArrayList<String>();
+		for (CollectionObject collection : collections) {
+			uuids.add(collection.uuid);
+		}
+		return uuids;
+	}
+	
+	private static List<String> expectedUuids(int size) {
+		final List<String> uuids = new ArrayList<String>();
+		for (int i = 0; i < size; i++) {
+			uuids.add("uuid-" + i);
+		}
+		return uuids;
+	}
+	
+	
+	@Test
+	public void testAllPagesInOrder() {
+		final PagedRepository repository = new PagedRepository(1234);
+		repository.setRestPageSize(100);
+		repository.setRestParallelism(3);
+		assertEquals(expectedUuids(1234), uuids(repository.getAllPages("list", CollectionObject[].class)));
+	}
+	
+	@Test
+	public void testExactMultipleOfPageSize() {
+		final PagedRepository repository = new PagedRepository(300);
+		repository.setRestPageSize(100);
+		assertEquals(expectedUuids(300), uuids(repository.getAllPages("list", CollectionObject[].class)));
+	}
+	
+	@Test
+	public void testEmptyList() {
+		final PagedRepository repository = new PagedRepository(0);
+		assertEquals(0, repository.getAllPages("list", CollectionObject[].class).size());
+		assertEquals(1, repository.requests.size());
+	}
+	
+	@Test
+	public void testShortListIsCheckedOnlyOnce() {
+		final PagedRepository repository = new PagedRepository(50);
+		repository.setRestPageSize(100);
+		assertEquals(expectedUuids(50), uuids(repository.getAllPages("list", CollectionObject[].class)));
+		assertEquals(2, repository.requests.size()); // end of the list or limit of the server
+		
+		// Short pages up to the confirmed length are the end of the list
+		repository.requests.clear();
+		assertEquals(expectedUuids(50), uuids(repository.getAllPages("list", CollectionObject[].class)));
+		repository.size = 20;
+		assertEquals(expectedUuids(20), uuids(repository.getAllPages("list", CollectionObject[].class)));
+		assertEquals(2, repository.requests.size());
+		
+		// Longer short page is checked once more
+		repository.size = 70;
+		repository.requests.clear();
+		assertEquals(expectedUuids(70), uuids(repository.getAllPages("list", CollectionObject[].class)));
+		assertEquals(2, repository.requests.size());
+		
+		repository.size = 150;
+		assertEquals(expectedUuids(150), uuids(repository.getAllPages("list", CollectionObject[].class)));
+		
+		// Full page was delivered, a short first page is the end of the list
+		repository.size = 50;
+		repository.requests.clear();
+		assertEquals(expectedUuids(50), uuids(repository.getAllPages("list", CollectionObject[].class)));
+		assertEquals(1, repository.requests.size());
+	}
+	
+	@Test
+	public void testServerLimitIsDetected() {
+		final PagedRepository repository = new PagedRepository(1050);
+		repository.setRestPageSize(100);
+		repository.serverLimit = 30;
+		assertEquals(expectedUuids(1050), uuids(repository.getAllPages("list", CollectionObject[].class)));
+		
+		// Limit of the server is used for the next listings
+		repository.requests.clear();
+		assertEquals(expectedUuids(1050), uuids(repository.getAllPages("list", CollectionObject[].class)));
+		assertEquals("0/30", repository.requests.get(0));
+	}
+	
+	@Test
+	public void testServerLimitWithTwoPages() {
+		final PagedRepository repository = new PagedRepository(45);
+		repository.setRestPageSize(100);
+		repository.serverLimit = 30;
+		assertEquals(expectedUuids(45), uuids(repository.getAllPages("list", CollectionObject[].class)));
+	}
+	
+	@Test
+	public void testIgnoredOffsetStopsListing() {
+		final PagedRepository repository = new PagedRepository(500);
+		repository.setRestPageSize(100);
+		repository.ignoreOffset = true;
+		assertNull(repository.getAllPages("list", CollectionObject[].class));
+	}
+	
+	@Test
+	public void testIgnoredOffsetWithServerLimitStopsListing() {
+		final PagedRepository repository = new PagedRepository(500);
+		repository.setRestPageSize(100);
+		repository.serverLimit = 30;
+		repository.ignoreOffset = true;
+		assertNull(repository.getAllPages("list", CollectionObject[].class));
+	}
+
+}
@@ -0,0 +1,143 @@
+/*
+ * Unless expressly otherwise stated, code from this project is licensed under the MIT license [https://opensource.org/licenses/MIT].
+ * 
+ * Copyright (c) <2018> <Volodymyr Kushnarenko, Stefan Kombrink, Markus Gärtner, Florian Fritze, Matthias Fratz, Daniel Scharon, Sibylle Hermann, Franziska Rapp and Uli Hahn>
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), 
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, 
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A 
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT 
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+ * CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH 
+ * THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package bwfdm.connector.dspace;
+
+import static org.junit.Assert.assertEquals;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.http.HttpVersion;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.message.BasicHttpResponse;
+import org.junit.Test;
+
+import bwfdm.connector.dspace.dto.v6.ItemObject;
+
+/**
+ * Tests of {@link ItemIterator}, the pages of items are served from memory.
+ * 
+ * @author agent
+ */
+public class ItemIteratorTest {
+	
+	private static final Pattern PAGE_PARAMETERS = Pattern.compile("limit=(\\d+)&offset=(\\d+)");
+	
+	/**
+	 * Connector with a list of items in memory, the server delivers at most serverLimit items per page
+	 */
+	private static class PagedRepository extends DSpace_v6 {
+		
+		final int size;
+		final int serverLimit;
+		final List<String> requests = new ArrayList<String>();
+		
+		PagedRepository(int size, int serverLimit) {
+			super("http://localhost/swordv2/servicedocument", "http://localhost/rest", "user", "password".toCharArray());
+			this.size = size;
+			this.serverLimit = serverLimit;
+		}
+		
+		@Override
+		protected CloseableHttpResponse getRestResponse(String url) {
+			final Matcher matcher = PAGE_PARAMETERS.matcher(url);
+			matcher.find();
+			synchronized (requests) {
+				requests.add(matcher.group(1) + "/" + matcher.group(2));
+			}
+			final int offset = Integer.parseInt(matcher.group(2));
+			final int end = Math.min(size, offset + Math.min(Integer.parseInt(matcher.group(1)), serverLimit));
+			final StringBuilder json = new StringBuilder("[");
+			for (int i = offset; i < end; i++) {
+				json.append((i > offset) ? "," : "").append("{\"uuid\":\"item-").append(i).append("\"}");
+			}
+			json.append("]");
+			final BasicHttpResponse response = new BasicHttpResponse(HttpVersion.HTTP_1_1, 200, "OK");
+			response.setEntity(new ByteArrayEntity(json.toString().getBytes(StandardCharsets.UTF_8)));
+			return (CloseableHttpResponse) Proxy.newProxyInstance(getClass().getClassLoader(), 
+					new Class<?>[] { CloseableHttpResponse.class }, new InvocationHandler() {
+						@Override
+						public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+							return "close".equals(method.getName()) ? null : method.invoke(response, args);
+						}
+					});
+		}
+	}
+	
+	
+	private static List<String> readAll(ItemIterator iterator) {
+		final List<String> uuids = new ArrayList<String>();
+		while (iterator.hasNext()) {
+			final ItemObject item = iterator.next();
+			uuids.add(item.uuid);
+		}
+		return uuids;
+	}
+	
+	private static List<String> expectedUuids(int size) {
+		final List<String> uuids = new ArrayList<String>();
+		for (int i = 0; i < size; i++) {
+			uuids.add("item-" + i);
+		}
+		return uuids;
+	}
+	
+	
+	@Test
+	public void allItemsInOrder() {
+		final PagedRepository repository = new PagedRepository(250, Integer.MAX_VALUE);
+		repository.setRestPageSize(100);
+		assertEquals(expectedUuids(250), readAll(repository.getCollectionItems("uuid", null, 2)));
+	}
+	
+	
+	@Test
+	public void serverLimitDoesNotEndIteration() {
+		
+		final PagedRepository repository = new PagedRepository(75, 30);
+		repository.setRestPageSize(100);
+		assertEquals(expectedUuids(75), readAll(repository.getCollectionItems("uuid", null, 2)));
+		assertEquals("100/30", repository.requests.get(1));
+		assertEquals("100/75", repository.requests.get(repository.requests.size() - 1)); // empty page ends the iteration
+	}
+	
+	
+	@Test
+	public void detectedServerLimitIsUsedAsPageSize() {
+		
+		final PagedRepository repository = new PagedRepository(75, 30);
+		repository.setRestPageSize(100);
+		repository.setRestParallelism(1); // no page requests in the background after the listing
+		repository.getAllPages(repository.restURL + "/items", ItemObject[].class);
+		assertEquals(30, repository.getEffectiveRestPageSize());
+		
+		repository.requests.clear();
+		assertEquals(expectedUuids(75), readAll(repository.getCollectionItems("uuid", null, 2)));
+		assertEquals("30/0", repository.requests.get(0));
+		assertEquals(3, repository.requests.size()); // last page is shorter than the limit of the server
+	}
+
+}
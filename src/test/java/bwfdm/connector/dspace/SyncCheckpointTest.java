@@ -0,0 +1,127 @@
+/*
+ * Unless expressly otherwise stated, code from this project is licensed under the MIT license [https://opensource.org/licenses/MIT].
+ * 
+ * Copyright (c) <2018> <Volodymyr Kushnarenko, Stefan Kombrink, Markus Gärtner, Florian Fritze, Matthias Fratz, Daniel Scharon, Sibylle Hermann, Franziska Rapp and Uli Hahn>
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), 
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, 
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A 
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT 
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+ * CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH 
+ * THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package bwfdm.connector.dspace;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests of {@link SyncCheckpoint}: saving, loading and the parsing of "lastModified".
+ * 
+ * @author agent
+ */
+public class SyncCheckpointTest {
+	
+	private File checkpointFile;
+	
+	@Before
+	public void createFile() throws IOException {
+		checkpointFile = File.createTempFile("checkpoint", ".bin");
+		checkpointFile.delete();
+	}
+	
+	@After
+	public void deleteFile() {
+		checkpointFile.delete();
+	}
+	
+	
+	@Test
+	public void missingFileGivesInitialCheckpoint() throws IOException {
+		
+		final SyncCheckpoint checkpoint = SyncCheckpoint.load(checkpointFile, "uuid");
+		assertEquals("uuid", checkpoint.getCollectionUUID());
+		assertEquals(SyncCheckpoint.NO_WATERMARK, checkpoint.getWatermark());
+		assertEquals(SyncCheckpoint.NO_WATERMARK, checkpoint.getThreshold());
+	}
+	
+	
+	@Test
+	public void saveAndLoad() throws IOException {
+		
+		new SyncCheckpoint("uuid", 5000000, 2000).save(checkpointFile);
+		SyncCheckpoint checkpoint = SyncCheckpoint.load(checkpointFile, "uuid");
+		assertEquals("uuid", checkpoint.getCollectionUUID());
+		assertEquals(5000000, checkpoint.getWatermark());
+		assertEquals(2000, checkpoint.getScanDuration());
+		assertEquals(5000000 - 2000 - SyncCheckpoint.OVERLAP_MILLIS, checkpoint.getThreshold());
+		
+		// Existing file is replaced, no temporary file remains
+		new SyncCheckpoint("uuid", 6000000, 0).save(checkpointFile);
+		checkpoint = SyncCheckpoint.load(checkpointFile, "uuid");
+		assertEquals(6000000, checkpoint.getWatermark());
+		assertFalse(new File(checkpointFile.getPath() + ".tmp").exists());
+	}
+	
+	
+	@Test
+	public void saveAndLoadWithoutCollection() throws IOException {
+		
+		new SyncCheckpoint(null, 1000, 0).save(checkpointFile);
+		final SyncCheckpoint checkpoint = SyncCheckpoint.load(checkpointFile, null);
+		assertNull(checkpoint.getCollectionUUID());
+		assertEquals(1000, checkpoint.getWatermark());
+	}
+	
+	
+	@Test
+	public void otherScopeIsRejected() throws IOException {
+		
+		new SyncCheckpoint("uuid", 1000, 0).save(checkpointFile);
+		try {
+			SyncCheckpoint.load(checkpointFile, "other-uuid");
+			fail("Checkpoint of other collection must be rejected");
+		} catch (IOException e) {
+			assertTrue(e.getMessage().contains("other collection"));
+		}
+		try {
+			SyncCheckpoint.load(checkpointFile, null);
+			fail("Checkpoint of a collection must be rejected for all items");
+		} catch (IOException e) {
+			assertTrue(e.getMessage().contains("other collection"));
+		}
+	}
+	
+	
+	@Test
+	public void parseLastModified() {
+		
+		assertEquals(0, SyncCheckpoint.parseLastModified("1970-01-01 00:00:00"));
+		assertEquals(610, SyncCheckpoint.parseLastModified("1970-01-01 00:00:00.61"));
+		assertEquals(1490267728610L, SyncCheckpoint.parseLastModified("2017-03-23 11:15:28.61"));
+		assertEquals(951782400000L, SyncCheckpoint.parseLastModified("2000-02-29 00:00:00.0"));
+		assertTrue(SyncCheckpoint.parseLastModified("2017-03-23 11:15:28.1")
+				< SyncCheckpoint.parseLastModified("2017-03-23 11:15:28.11"));
+		
+		assertEquals(SyncCheckpoint.NO_WATERMARK, SyncCheckpoint.parseLastModified(null));
+		assertEquals(SyncCheckpoint.NO_WATERMARK, SyncCheckpoint.parseLastModified("2017-03-23"));
+		assertEquals(SyncCheckpoint.NO_WATERMARK, SyncCheckpoint.parseLastModified("xxxx-03-23 11:15:28"));
+	}
+
+}
@@ -0,0 +1,164 @@
+/*
+ * Unless expressly otherwise stated, code from this project is licensed under the MIT license [https://opensource.org/licenses/MIT].
+ * 
+ * Copyright (c) <2018> <Volodymyr Kushnarenko, Stefan Kombrink, Markus Gärtner, Florian Fritze, Matthias Fratz, Daniel Scharon, Sibylle Hermann, Franziska Rapp and Uli Hahn>
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), 
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, 
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A 
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT 
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+ * CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH 
+ * THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package bwfdm.connector.dspace.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+/**
+ * Tests of {@link CachedResource} with a counting loader.
+ * 
+ * @author agent
+ */
+public class CachedResourceTest {
+	
+	/**
+	 * Loader, which delivers the number of the call or {@code null} if it should fail
+	 */
+	private static class CountingLoader implements Callable<String> {
+		
+		final AtomicInteger calls = new AtomicInteger();
+		volatile boolean failing = false;
+		
+		@Override
+		public String call() throws Exception {
+			final int call = calls.incrementAndGet();
+			if (failing) {
+				throw new IllegalStateException("Loader failed");
+			}
+			return "value-" + call;
+		}
+	}
+	
+	
+	@Test
+	public void nothingIsCachedWithoutTtl() {
+		
+		final CountingLoader loader = new CountingLoader();
+		final CachedResource<String> resource = new CachedResource<String>("test", loader);
+		assertEquals("value-1", resource.get());
+		assertEquals("value-2", resource.get());
+		assertFalse(resource.isCached());
+	}
+	
+	
+	@Test
+	public void valueIsCachedForTtl() {
+		
+		final CountingLoader loader = new CountingLoader();
+		final CachedResource<String> resource = new CachedResource<String>("test", loader);
+		resource.setTtl(1, TimeUnit.HOURS);
+		
+		assertEquals("value-1", resource.get());
+		assertEquals("value-1", resource.get());
+		assertEquals(1, loader.calls.get());
+		assertTrue(resource.isCached());
+		assertEquals(1, resource.getVersion());
+		assertTrue(resource.getRemainingTtl(TimeUnit.MINUTES) > 58);
+		
+		resource.invalidate();
+		assertNull(resource.getCachedValue());
+		assertEquals("value-2", resource.get());
+		assertEquals(2, resource.getVersion());
+	}
+	
+	
+	@Test
+	public void expiredValueIsLoadedAgain() throws InterruptedException {
+		
+		final CountingLoader loader = new CountingLoader();
+		final CachedResource<String> resource = new CachedResource<String>("test", loader);
+		resource.setTtl(20, TimeUnit.MILLISECONDS);
+		
+		assertEquals("value-1", resource.get());
+		Thread.sleep(50);
+		assertFalse(resource.isCached());
+		assertEquals("value-1", resource.getCachedValue());
+		assertEquals("value-2", resource.get());
+	}
+	
+	
+	@Test
+	public void staleValueIsDeliveredWhileRevalidate() throws InterruptedException {
+		
+		final CountingLoader loader = new CountingLoader();
+		final CachedResource<String> resource = new CachedResource<String>("test", loader);
+		resource.setTtl(20, TimeUnit.MILLISECONDS);
+		resource.setStaleWhileRevalidate(true);
+		
+		assertEquals("value-1", resource.get());
+		Thread.sleep(50);
+		assertEquals("value-1", resource.get());
+		assertEquals(1, loader.calls.get());
+		assertEquals("value-2", resource.refresh());
+		assertEquals("value-2", resource.get());
+	}
+	
+	
+	@Test
+	public void errorsAreNotCached() {
+		
+		final CountingLoader loader = new CountingLoader();
+		final CachedResource<String> resource = new CachedResource<String>("test", loader);
+		resource.setTtl(1, TimeUnit.HOURS);
+		loader.failing = true;
+		
+		assertNull(resource.get());
+		assertNull(resource.get());
+		assertEquals(2, loader.calls.get());
+		assertEquals(0, resource.getVersion());
+		
+		loader.failing = false;
+		assertEquals("value-3", resource.get());
+		
+		// Failed refresh keeps the old value
+		loader.failing = true;
+		assertNull(resource.refresh());
+		assertEquals("value-3", resource.get());
+	}
+	
+	
+	@Test
+	public void putIfAbsentKeepsOnlyFirstValue() {
+		
+		final CountingLoader loader = new CountingLoader();
+		final CachedResource<String> resource = new CachedResource<String>("test", loader);
+		resource.setTtl(1, TimeUnit.HOURS);
+		
+		assertTrue(resource.putIfAbsent("snapshot"));
+		assertFalse(resource.putIfAbsent("other"));
+		assertEquals("snapshot", resource.get());
+		assertEquals(0, loader.calls.get());
+	}
+	
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void negativeTtlIsRejected() {
+		new CachedResource<String>("test", new CountingLoader()).setTtl(-1, TimeUnit.SECONDS);
+	}
+
+}
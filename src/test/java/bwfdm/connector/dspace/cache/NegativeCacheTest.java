@@ -0,0 +1,123 @@
+/*
+ * Unless expressly otherwise stated, code from this project is licensed under the MIT license [https://opensource.org/licenses/MIT].
+ * 
+ * Copyright (c) <2018> <Volodymyr Kushnarenko, Stefan Kombrink, Markus Gärtner, Florian Fritze, Matthias Fratz, Daniel Scharon, Sibylle Hermann, Franziska Rapp and Uli Hahn>
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), 
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, 
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A 
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT 
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+ * CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH 
+ * THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package bwfdm.connector.dspace.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests of {@link NegativeCache}.
+ * 
+ * @author agent
+ */
+public class NegativeCacheTest {
+	
+	private NegativeCache cache;
+	
+	@Before
+	public void createCache() {
+		cache = new NegativeCache(2);
+		cache.setTtl(1, TimeUnit.HOURS);
+	}
+	
+	
+	@Test
+	public void nothingCachedWithoutTtl() {
+		
+		final NegativeCache disabled = new NegativeCache(2);
+		disabled.put("a", 1);
+		assertFalse(disabled.contains("a", 1));
+		assertEquals(0, disabled.size());
+		
+		cache.put("a", 1);
+		cache.setTtl(0, TimeUnit.SECONDS);
+		assertEquals(0, cache.size());
+	}
+	
+	
+	@Test
+	public void cachedForSameVersion() {
+		
+		cache.put("a", 1);
+		assertTrue(cache.contains("a", 1));
+		assertFalse(cache.contains("b", 1));
+		
+		// Other version removes all entries
+		assertFalse(cache.contains("a", 2));
+		assertEquals(0, cache.size());
+	}
+	
+	
+	@Test
+	public void olderVersionIsNotCached() {
+		
+		cache.put("a", 2);
+		cache.put("b", 1);
+		assertTrue(cache.contains("a", 2));
+		assertFalse(cache.contains("b", 2));
+		
+		cache.put("c", 3);
+		assertEquals(1, cache.size());
+		assertTrue(cache.contains("c", 3));
+	}
+	
+	
+	@Test
+	public void expiredEntriesAreRemoved() throws InterruptedException {
+		
+		cache.setTtl(1, TimeUnit.MILLISECONDS);
+		cache.put("a", 1);
+		Thread.sleep(10);
+		assertFalse(cache.contains("a", 1));
+		assertEquals(0, cache.size());
+	}
+	
+	
+	@Test
+	public void oldestEntryIsRemovedWhenFull() {
+		
+		cache.put("a", 1);
+		cache.put("b", 1);
+		cache.put("a", 1); // a is the newest entry now
+		cache.put("c", 1);
+		assertEquals(2, cache.size());
+		assertTrue(cache.contains("a", 1));
+		assertFalse(cache.contains("b", 1));
+		assertTrue(cache.contains("c", 1));
+	}
+	
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void maxEntriesMustBePositive() {
+		new NegativeCache(0);
+	}
+	
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void ttlMustNotBeNegative() {
+		cache.setTtl(-1, TimeUnit.SECONDS);
+	}
+
+}
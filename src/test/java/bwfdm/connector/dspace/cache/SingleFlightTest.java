@@ -0,0 +1,137 @@
+/*
+ * Unless expressly otherwise stated, code from this project is licensed under the MIT license [https://opensource.org/licenses/MIT].
+ * 
+ * Copyright (c) <2018> <Volodymyr Kushnarenko, Stefan Kombrink, Markus Gärtner, Florian Fritze, Matthias Fratz, Daniel Scharon, Sibylle Hermann, Franziska Rapp and Uli Hahn>
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), 
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, 
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A 
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT 
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+ * CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH 
+ * THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package bwfdm.connector.dspace.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+/**
+ * Tests of {@link SingleFlight}: concurrent reads with the same key are executed once.
+ * 
+ * @author agent
+ */
+public class SingleFlightTest {
+	
+	@Test
+	public void concurrentReadsAreCoalesced() throws Exception {
+		
+		final String key = SingleFlight.createKey("http://localhost/coalesced", null);
+		final AtomicInteger reads = new AtomicInteger();
+		final CountDownLatch readStarted = new CountDownLatch(1);
+		final CountDownLatch readRelease = new CountDownLatch(1);
+		final Callable<String> loader = new Callable<String>() {
+			@Override
+			public String call() throws Exception {
+				reads.incrementAndGet();
+				readStarted.countDown();
+				readRelease.await(10, TimeUnit.SECONDS);
+				return "result";
+			}
+		};
+		
+		final int callers = 4;
+		final ExecutorService executor = Executors.newFixedThreadPool(callers);
+		try {
+			final List<Future<String>> results = new ArrayList<Future<String>>();
+			results.add(executor.submit(new Callable<String>() {
+				@Override
+				public String call() {
+					return SingleFlight.execute(key, loader);
+				}
+			}));
+			assertTrue(readStarted.await(10, TimeUnit.SECONDS));
+			
+			final long coalescedBefore = SingleFlight.getCoalescedCalls();
+			for (int i = 1; i < callers; i++) {
+				results.add(executor.submit(new Callable<String>() {
+					@Override
+					public String call() {
+						return SingleFlight.execute(key, loader);
+					}
+				}));
+			}
+			// Wait until the other callers are waiting for the running read
+			final long deadline = System.currentTimeMillis() + 10000;
+			while ((SingleFlight.getCoalescedCalls() - coalescedBefore < callers - 1) && (System.currentTimeMillis() < deadline)) {
+				Thread.sleep(5);
+			}
+			readRelease.countDown();
+			
+			for (Future<String> result : results) {
+				assertEquals("result", result.get(10, TimeUnit.SECONDS));
+			}
+			assertEquals(1, reads.get());
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+	
+	
+	@Test
+	public void resultIsNotCached() {
+		
+		final String key = SingleFlight.createKey("http://localhost/not-cached", "user");
+		final AtomicInteger reads = new AtomicInteger();
+		final Callable<Integer> loader = new Callable<Integer>() {
+			@Override
+			public Integer call() {
+				return reads.incrementAndGet();
+			}
+		};
+		assertEquals(Integer.valueOf(1), SingleFlight.execute(key, loader));
+		assertEquals(Integer.valueOf(2), SingleFlight.execute(key, loader));
+	}
+	
+	
+	@Test
+	public void errorGivesNull() {
+		
+		final String key = SingleFlight.createKey("http://localhost/error", null);
+		assertNull(SingleFlight.execute(key, new Callable<String>() {
+			@Override
+			public String call() throws Exception {
+				throw new IllegalStateException("Read failed");
+			}
+		}));
+		assertEquals(0, SingleFlight.getInFlightCount());
+	}
+	
+	
+	@Test
+	public void keyContainsCredentials() {
+		
+		assertFalse(SingleFlight.createKey("http://localhost/a", "user-1").equals(SingleFlight.createKey("http://localhost/a", "user-2")));
+		assertFalse(SingleFlight.createKey("http://localhost/a", null).equals(SingleFlight.createKey("http://localhost/a", "user-1")));
+	}
+
+}
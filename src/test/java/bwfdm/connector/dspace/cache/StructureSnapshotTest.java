@@ -0,0 +1,222 @@
+/*
+ * Unless expressly otherwise stated, code from this project is licensed under the MIT license [https://opensource.org/licenses/MIT].
+ * 
+ * Copyright (c) <2018> <Volodymyr Kushnarenko, Stefan Kombrink, Markus Gärtner, Florian Fritze, Matthias Fratz, Daniel Scharon, Sibylle Hermann, Franziska Rapp and Uli Hahn>
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), 
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, 
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A 
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT 
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+ * CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH 
+ * THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package bwfdm.connector.dspace.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import bwfdm.connector.dspace.dto.v6.CollectionObject;
+import bwfdm.connector.dspace.dto.v6.HierarchyCollectionObjectRestV6;
+import bwfdm.connector.dspace.dto.v6.HierarchyObjectRestV6;
+import bwfdm.connector.dspace.hierarchy.FlatHierarchy;
+
+/**
+ * Tests of {@link StructureSnapshot} and {@link StructureCodecs}: round trip and damaged files.
+ * 
+ * @author agent
+ */
+public class StructureSnapshotTest {
+	
+	private static final String KEY = "http://localhost/swordv2/servicedocument\nuser";
+	
+	private File snapshotFile;
+	
+	@Before
+	public void createFile() throws IOException {
+		snapshotFile = File.createTempFile("snapshot", ".bin");
+		snapshotFile.delete();
+	}
+	
+	@After
+	public void deleteFile() {
+		snapshotFile.delete();
+	}
+	
+	
+	@Test
+	public void writeAndRead() throws IOException {
+		
+		final HierarchyObjectRestV6 root = new HierarchyObjectRestV6();
+		root.name = "Root";
+		root.community = new ArrayList<HierarchyObjectRestV6>();
+		final HierarchyObjectRestV6 community = new HierarchyObjectRestV6();
+		community.id = "c1";
+		community.name = "Community";
+		community.handle = "123456789/1";
+		community.collection = new ArrayList<HierarchyCollectionObjectRestV6>();
+		final HierarchyCollectionObjectRestV6 collection = new HierarchyCollectionObjectRestV6();
+		collection.id = "col1";
+		collection.name = "Collection";
+		collection.handle = "123456789/2";
+		community.collection.add(collection);
+		root.community.add(community);
+		
+		final CollectionObject collectionObject = new CollectionObject();
+		collectionObject.uuid = "col1";
+		collectionObject.name = "Collection";
+		collectionObject.parentCommunityList = Arrays.asList("c1");
+		
+		final Map<String, byte[]> sections = new LinkedHashMap<String, byte[]>();
+		sections.put("hierarchy", StructureSnapshot.encode(FlatHierarchy.of(root), StructureCodecs.FLAT_HIERARCHY));
+		sections.put("collections", StructureSnapshot.encode(new CollectionObject[] { collectionObject }, StructureCodecs.COLLECTIONS_V6));
+		StructureSnapshot.write(snapshotFile, KEY, sections);
+		
+		final StructureSnapshot snapshot = StructureSnapshot.read(snapshotFile, KEY);
+		assertNotNull(snapshot);
+		assertEquals(Arrays.asList("hierarchy", "collections"), snapshot.getSectionNames());
+		
+		final FlatHierarchy hierarchy = StructureSnapshot.decode(snapshot.getSection("hierarchy"), StructureCodecs.FLAT_HIERARCHY);
+		assertEquals(3, hierarchy.size());
+		assertEquals("Root", hierarchy.getName(0));
+		assertEquals(FlatHierarchy.NO_NODE, hierarchy.getParent(0));
+		final int collectionNode = hierarchy.indexOfHandle("123456789/2");
+		assertEquals(2, collectionNode);
+		assertTrue(hierarchy.isCollection(collectionNode));
+		assertEquals(Arrays.asList("Root", "Community"), hierarchy.getAncestorNames(collectionNode, 0));
+		
+		final CollectionObject[] readCollections = StructureSnapshot.decode(snapshot.getSection("collections"), StructureCodecs.COLLECTIONS_V6);
+		assertEquals(1, readCollections.length);
+		assertEquals("Collection", readCollections[0].name);
+		assertEquals(Arrays.asList("c1"), readCollections[0].parentCommunityList);
+		assertNull(readCollections[0].items);
+	}
+	
+	
+	@Test
+	public void otherRepositoryIsIgnored() throws IOException {
+		StructureSnapshot.write(snapshotFile, KEY, new LinkedHashMap<String, byte[]>());
+		assertNotNull(StructureSnapshot.read(snapshotFile, KEY));
+		assertNull(StructureSnapshot.read(snapshotFile, KEY + "2"));
+	}
+	
+	
+	@Test
+	public void damagedFileIsIgnored() throws IOException {
+		
+		final Map<String, byte[]> sections = new LinkedHashMap<String, byte[]>();
+		sections.put("section", new byte[] { 1, 2, 3 });
+		StructureSnapshot.write(snapshotFile, KEY, sections);
+		final byte[] content = Files.readAllBytes(snapshotFile.toPath());
+		
+		content[content.length - 10] ^= 1;
+		Files.write(snapshotFile.toPath(), content);
+		assertNull(StructureSnapshot.read(snapshotFile, KEY));
+		
+		Files.write(snapshotFile.toPath(), Arrays.copyOf(content, 6));
+		assertNull(StructureSnapshot.read(snapshotFile, KEY));
+	}
+	
+	
+	@Test
+	public void invalidSectionLengthIsIgnored() throws IOException {
+		
+		// Valid checksum, but a section length, which exceeds the file
+		final ByteArrayOutputStream content = new ByteArrayOutputStream();
+		final DataOutputStream out = new DataOutputStream(content);
+		out.writeInt(StructureSnapshot.MAGIC);
+		out.writeInt(StructureSnapshot.FORMAT_VERSION);
+		out.writeLong(System.currentTimeMillis());
+		out.writeUTF(DigestUtils.sha256Hex(KEY));
+		out.writeInt(1);
+		out.writeUTF("section");
+		out.writeInt(Integer.MAX_VALUE - 8);
+		out.write(new byte[] { 1, 2, 3 });
+		final CRC32 crc = new CRC32();
+		crc.update(content.toByteArray());
+		out.writeLong(crc.getValue());
+		Files.write(snapshotFile.toPath(), content.toByteArray());
+		
+		assertNull(StructureSnapshot.read(snapshotFile, KEY));
+	}
+	
+	
+	@Test(expected = IOException.class)
+	public void invalidHierarchyParentIsCorruption() throws IOException {
+		
+		final ByteArrayOutputStream section = new ByteArrayOutputStream();
+		final DataOutputStream out = new DataOutputStream(section);
+		out.writeInt(2);
+		out.writeInt(FlatHierarchy.NO_NODE);
+		out.writeBoolean(false);
+		StructureSnapshot.writeString(out, "Root");
+		StructureSnapshot.writeString(out, null);
+		out.writeInt(1); // parent is the node itself
+		out.writeBoolean(true);
+		StructureSnapshot.writeString(out, "Collection");
+		StructureSnapshot.writeString(out, "123456789/2");
+		StructureSnapshot.decode(section.toByteArray(), StructureCodecs.FLAT_HIERARCHY);
+	}
+	
+	
+	@Test
+	public void invalidStringLengthIsCorruption() throws IOException {
+		
+		final ByteArrayOutputStream section = new ByteArrayOutputStream();
+		final DataOutputStream out = new DataOutputStream(section);
+		out.writeInt(1); // one collection
+		out.writeInt(Integer.MAX_VALUE); // uuid
+		out.write(new byte[100]);
+		try {
+			StructureSnapshot.decode(section.toByteArray(), StructureCodecs.COLLECTIONS_V6);
+			fail("Corrupted section was decoded");
+		} catch (IOException e) {
+			// expected
+		}
+	}
+	
+	
+	@Test
+	public void stringsRoundTrip() throws IOException {
+		
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		final DataOutputStream out = new DataOutputStream(bytes);
+		StructureSnapshot.writeString(out, null);
+		StructureSnapshot.writeString(out, "Fakultät");
+		StructureSnapshot.writeStringList(out, Arrays.asList("a", null));
+		out.flush();
+		
+		final DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+		assertNull(StructureSnapshot.readString(in));
+		assertEquals("Fakultät", StructureSnapshot.readString(in));
+		assertEquals(Arrays.asList("a", null), StructureSnapshot.readStringList(in));
+		assertEquals(0, in.available());
+	}
+
+}
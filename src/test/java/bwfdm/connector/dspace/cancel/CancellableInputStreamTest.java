@@ -0,0 +1,85 @@
+/*
+ * Unless expressly otherwise stated, code from this project is licensed under the MIT license [https://opensource.org/licenses/MIT].
+ * 
+ * Copyright (c) <2018> <Volodymyr Kushnarenko, Stefan Kombrink, Markus Gärtner, Florian Fritze, Matthias Fratz, Daniel Scharon, Sibylle Hermann, Franziska Rapp and Uli Hahn>
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), 
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, 
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A 
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT 
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+ * CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH 
+ * THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package bwfdm.connector.dspace.cancel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+
+import org.junit.Test;
+
+/**
+ * Tests of {@link CancellableInputStream}.
+ * 
+ * @author agent
+ */
+public class CancellableInputStreamTest {
+	
+	@Test
+	public void readStopsAfterCancellation() throws IOException {
+		
+		final CancellationToken token = new CancellationToken();
+		final CancellableInputStream in = new CancellableInputStream(new ByteArrayInputStream(new byte[100]), token, 100);
+		assertEquals(10, in.read(new byte[10]));
+		token.cancel();
+		try {
+			in.read(new byte[10]);
+			fail("Read was not cancelled");
+		} catch (CancelledException e) {
+			// expected
+		}
+		try {
+			in.read();
+			fail("Read was not cancelled");
+		} catch (CancelledException e) {
+			// expected
+		}
+	}
+	
+	
+	@Test
+	public void unknownSizeIsCancelledAlsoAtEnd() throws IOException {
+		
+		final CancellationToken token = new CancellationToken();
+		final CancellableInputStream in = new CancellableInputStream(new ByteArrayInputStream(new byte[10]), token, -1);
+		assertEquals(10, in.read(new byte[20]));
+		token.cancel();
+		try {
+			in.read();
+			fail("Read was not cancelled");
+		} catch (CancelledException e) {
+			// expected
+		}
+	}
+	
+	
+	@Test
+	public void completeUploadIsNotCancelled() throws IOException {
+		
+		final CancellationToken token = new CancellationToken();
+		final CancellableInputStream in = new CancellableInputStream(new ByteArrayInputStream(new byte[10]), token, 10);
+		assertEquals(10, in.read(new byte[20]));
+		token.cancel();
+		assertEquals(-1, in.read());
+		assertEquals(-1, in.read(new byte[10]));
+	}
+
+}
@@ -0,0 +1,167 @@
+/*
+ * Unless expressly otherwise stated, code from this project is licensed under the MIT license [https://opensource.org/licenses/MIT].
+ * 
+ * Copyright (c) <2018> <Volodymyr Kushnarenko, Stefan Kombrink, Markus Gärtner, Florian Fritze, Matthias Fratz, Daniel Scharon, Sibylle Hermann, Franziska Rapp and Uli Hahn>
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), 
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, 
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A 
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT 
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+ * CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH 
+ * THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package bwfdm.connector.dspace.cancel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.Closeable;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+/**
+ * Tests of {@link CancellationToken}.
+ * 
+ * @author agent
+ */
+public class CancellationTokenTest {
+	
+	/**
+	 * Resource, which counts its closings
+	 */
+	private static class CountingResource implements Closeable {
+		
+		final AtomicInteger closings = new AtomicInteger();
+		
+		@Override
+		public void close() {
+			closings.incrementAndGet();
+		}
+	}
+	
+	
+	@Test
+	public void tokenIsBoundDuringCall() throws Exception {
+		
+		final CancellationToken token = new CancellationToken();
+		assertNull(CancellationToken.current());
+		final CancellationToken bound = token.call(new Callable<CancellationToken>() {
+			@Override
+			public CancellationToken call() {
+				return CancellationToken.current();
+			}
+		});
+		assertSame(token, bound);
+		assertNull(CancellationToken.current());
+	}
+	
+	
+	@Test
+	public void cancelClosesRegisteredResources() {
+		
+		final CancellationToken token = new CancellationToken();
+		final CountingResource registered = new CountingResource();
+		final CountingResource unregistered = new CountingResource();
+		assertTrue(token.register(registered));
+		assertTrue(token.register(unregistered));
+		token.unregister(unregistered);
+		
+		token.cancel();
+		assertTrue(token.isCancelled());
+		assertEquals(1, registered.closings.get());
+		assertEquals(0, unregistered.closings.get());
+		
+		// Resources of a cancelled token are closed at once
+		final CountingResource late = new CountingResource();
+		assertFalse(token.register(late));
+		assertEquals(1, late.closings.get());
+	}
+	
+	
+	@Test
+	public void cancelledTokenDoesNotStartOperation() throws Exception {
+		
+		final CancellationToken token = new CancellationToken();
+		token.cancel();
+		try {
+			token.call(new Callable<Void>() {
+				@Override
+				public Void call() {
+					fail("Operation was started");
+					return null;
+				}
+			});
+			fail("Cancellation was not reported");
+		} catch (CancelledException e) {
+			assertNull(e.getEditLink());
+		}
+		assertNull(CancellationToken.current());
+	}
+	
+	
+	@Test
+	public void propagateAndDetach() throws Exception {
+		
+		final CancellationToken token = new CancellationToken();
+		final Callable<CancellationToken> currentToken = new Callable<CancellationToken>() {
+			@Override
+			public CancellationToken call() {
+				return CancellationToken.current();
+			}
+		};
+		assertSame(currentToken, CancellationToken.propagate(currentToken));
+		token.call(new Callable<Void>() {
+			@Override
+			public Void call() throws Exception {
+				final Callable<CancellationToken> propagated = CancellationToken.propagate(currentToken);
+				final CancellationToken[] otherThreadToken = new CancellationToken[1];
+				final Thread thread = new Thread() {
+					@Override
+					public void run() {
+						try {
+							otherThreadToken[0] = propagated.call();
+						} catch (Exception e) {
+							// result stays null
+						}
+					}
+				};
+				thread.start();
+				thread.join();
+				assertSame(token, otherThreadToken[0]);
+				
+				assertNull(CancellationToken.detach(currentToken).call());
+				assertSame(token, CancellationToken.current());
+				return null;
+			}
+		});
+	}
+	
+	
+	@Test(expected = CancelledException.class)
+	public void currentCancelledTokenThrows() throws Exception {
+		
+		CancellationToken.throwIfCurrentCancelled(); // without token
+		final CancellationToken token = new CancellationToken();
+		token.call(new Callable<Void>() {
+			@Override
+			public Void call() throws Exception {
+				token.cancel();
+				CancellationToken.throwIfCurrentCancelled();
+				return null;
+			}
+		});
+	}
+
+}
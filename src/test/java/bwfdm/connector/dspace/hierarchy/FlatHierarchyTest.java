@@ -0,0 +1,137 @@
+/*
+ * Unless expressly otherwise stated, code from this project is licensed under the MIT license [https://opensource.org/licenses/MIT].
+ * 
+ * Copyright (c) <2018> <Volodymyr Kushnarenko, Stefan Kombrink, Markus Gärtner, Florian Fritze, Matthias Fratz, Daniel Scharon, Sibylle Hermann, Franziska Rapp and Uli Hahn>
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), 
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, 
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A 
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT 
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+ * CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH 
+ * THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package bwfdm.connector.dspace.hierarchy;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import bwfdm.connector.dspace.dto.v6.HierarchyCollectionObjectRestV6;
+import bwfdm.connector.dspace.dto.v6.HierarchyObjectRestV6;
+
+/**
+ * Tests of {@link FlatHierarchy}, compared with the tree of {@link HierarchyObjectRestV6}.
+ * 
+ * @author agent
+ */
+public class FlatHierarchyTest {
+	
+	// Preorder: 0 Root, 1 A, 2 X, 3 B, 4 Y, 5 Data (in Y), 6 Z, 7 Data (in Z)
+	private HierarchyObjectRestV6 root;
+	private FlatHierarchy hierarchy;
+	
+	
+	@Before
+	public void setUp() {
+		root = community("Root", "123456789/0");
+		addCollection(root, "A", "123456789/1");
+		final HierarchyObjectRestV6 x = addCommunity(root, "X", "123456789/2");
+		addCollection(x, "B", "123456789/3");
+		final HierarchyObjectRestV6 y = addCommunity(x, "Y", "123456789/4");
+		addCollection(y, "Data", "123456789/5");
+		final HierarchyObjectRestV6 z = addCommunity(root, "Z", "123456789/6");
+		addCollection(z, "Data", "123456789/7");
+		hierarchy = FlatHierarchy.of(root);
+	}
+	
+	
+	@Test
+	public void nodesInPreorderWithInternedNames() {
+		
+		assertEquals(8, hierarchy.size());
+		assertEquals(7, hierarchy.getNameCount());
+		assertEquals("Root", hierarchy.getName(0));
+		assertEquals(FlatHierarchy.NO_NODE, hierarchy.getParent(0));
+		assertEquals("A", hierarchy.getName(1));
+		assertTrue(hierarchy.isCollection(1));
+		assertEquals("X", hierarchy.getName(2));
+		assertFalse(hierarchy.isCollection(2));
+		assertEquals("Data", hierarchy.getName(5));
+		assertEquals("Data", hierarchy.getName(7));
+	}
+	
+	
+	@Test
+	public void lookupByHandle() {
+		assertEquals(5, hierarchy.indexOfHandle("123456789/5"));
+		assertEquals(0, hierarchy.indexOfHandle("123456789/0"));
+		assertEquals(FlatHierarchy.NO_NODE, hierarchy.indexOfHandle("123456789/99"));
+	}
+	
+	
+	@Test
+	public void ancestorsAsInTree() {
+		
+		for (String handle : Arrays.asList("123456789/1", "123456789/3", "123456789/5", "123456789/7")) {
+			final int node = hierarchy.indexOfHandle(handle);
+			assertEquals(root.getCommunityListForCollection(root, handle, new ArrayList<String>()), 
+					hierarchy.getAncestorNames(node, 0));
+		}
+		assertEquals(Arrays.asList("X", "Y"), hierarchy.getAncestorNames(5, 1));
+		assertArrayEquals(new int[] { 0, 2, 4 }, hierarchy.getAncestors(5));
+		assertEquals(3, hierarchy.getDepth(5));
+		assertTrue(hierarchy.isAncestor(2, 5));
+		assertFalse(hierarchy.isAncestor(2, 7));
+		assertFalse(hierarchy.isAncestor(5, 5));
+	}
+	
+	
+	@Test
+	public void subtreesAndCollections() {
+		
+		assertEquals(6, hierarchy.getSubtreeEnd(2));
+		assertArrayEquals(new int[] { 1, 2, 6 }, hierarchy.getChildren(0));
+		assertArrayEquals(new int[] { 3, 5 }, hierarchy.getCollectionsInSubtree(2));
+		assertEquals(2, hierarchy.getCollectionCount(2));
+		assertEquals(4, hierarchy.getCollectionCount(0));
+		assertArrayEquals(new int[] { 5 }, hierarchy.getCollectionsInSubtree(5));
+		assertArrayEquals(new int[0], hierarchy.getChildren(5));
+	}
+	
+	
+	private static HierarchyObjectRestV6 community(String name, String handle) {
+		final HierarchyObjectRestV6 community = new HierarchyObjectRestV6();
+		community.name = name;
+		community.handle = handle;
+		community.community = new ArrayList<HierarchyObjectRestV6>();
+		community.collection = new ArrayList<HierarchyCollectionObjectRestV6>();
+		return community;
+	}
+	
+	private static HierarchyObjectRestV6 addCommunity(HierarchyObjectRestV6 parent, String name, String handle) {
+		final HierarchyObjectRestV6 community = community(name, handle);
+		parent.community.add(community);
+		return community;
+	}
+	
+	private static void addCollection(HierarchyObjectRestV6 parent, String name, String handle) {
+		final HierarchyCollectionObjectRestV6 collection = new HierarchyCollectionObjectRestV6();
+		collection.name = name;
+		collection.handle = handle;
+		parent.collection.add(collection);
+	}
+
+}
@@ -0,0 +1,112 @@
+/*
+ * Unless expressly otherwise stated, code from this project is licensed under the MIT license [https://opensource.org/licenses/MIT].
+ * 
+ * Copyright (c) <2018> <Volodymyr Kushnarenko, Stefan Kombrink, Markus Gärtner, Florian Fritze, Matthias Fratz, Daniel Scharon, Sibylle Hermann, Franziska Rapp and Uli Hahn>
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), 
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, 
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A 
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT 
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+ * CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH 
+ * THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package bwfdm.connector.dspace.index;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests of {@link CollectionSearchIndex}.
+ * 
+ * @author agent
+ */
+public class CollectionSearchIndexTest {
+	
+	private static final String PHYSICS = "http://localhost/collection/1";
+	private static final String CHEMISTRY = "http://localhost/collection/2";
+	private static final String ARCHIVE = "http://localhost/collection/3";
+	private static final String MATHEMATICS = "http://localhost/collection/4";
+	
+	private Map<String, String> fullNames;
+	private CollectionSearchIndex index;
+	
+	
+	@Before
+	public void setUp() {
+		fullNames = new LinkedHashMap<String, String>();
+		fullNames.put(PHYSICS, "Fakultät für Physik / Institut A / Daten");
+		fullNames.put(CHEMISTRY, "Fakultät für Chemie / Institut B / Physik Daten");
+		fullNames.put(ARCHIVE, "Straße / Archiv");
+		index = CollectionSearchIndex.build(fullNames, " / ");
+	}
+	
+	
+	@Test
+	public void foldedPrefixesWithCollectionNameFirst() {
+		assertEquals(Arrays.asList(CHEMISTRY, PHYSICS), new ArrayList<String>(index.search("fakultat phys", 10).keySet()));
+		assertEquals(Arrays.asList(ARCHIVE), new ArrayList<String>(index.search("STRASSE", 10).keySet()));
+	}
+	
+	
+	@Test
+	public void allQueryWordsMustMatch() {
+		assertEquals(Arrays.asList(CHEMISTRY), new ArrayList<String>(index.search("chemie daten", 10).keySet()));
+	}
+	
+	
+	@Test
+	public void similarWordsForTypos() {
+		assertEquals(Arrays.asList(ARCHIVE), new ArrayList<String>(index.search("archv", 10).keySet()));
+	}
+	
+	
+	@Test
+	public void emptyQueryInAlphabeticalOrderWithLimit() {
+		final Map<String, String> result = index.search("", 2);
+		assertEquals(Arrays.asList(CHEMISTRY, PHYSICS), new ArrayList<String>(result.keySet()));
+		assertEquals("Fakultät für Chemie / Institut B / Physik Daten", result.get(CHEMISTRY));
+	}
+	
+	
+	@Test
+	public void updateWithChangedCollections() {
+		
+		final Map<String, String> changed = new LinkedHashMap<String, String>(fullNames);
+		changed.remove(ARCHIVE);
+		changed.put(PHYSICS, "Fakultät für Physik / Institut C / Messungen");
+		changed.put(MATHEMATICS, "Fakultät für Mathematik / Archiv");
+		final CollectionSearchIndex updated = index.update(changed);
+		
+		assertEquals(3, updated.size());
+		assertEquals(" / ", updated.getSeparator());
+		assertEquals(Arrays.asList(MATHEMATICS), new ArrayList<String>(updated.search("archiv", 10).keySet()));
+		assertEquals(Arrays.asList(PHYSICS), new ArrayList<String>(updated.search("messung", 10).keySet()));
+		assertEquals(PHYSICS, updated.search("institut c", 10).keySet().iterator().next());
+		assertTrue(updated.search("strasse", 10).isEmpty());
+		
+		// The current index is not changed
+		assertEquals(3, index.size());
+		assertEquals(Arrays.asList(ARCHIVE), new ArrayList<String>(index.search("archiv", 10).keySet()));
+	}
+	
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void limitMustBePositive() {
+		index.search("daten", 0);
+	}
+
+}
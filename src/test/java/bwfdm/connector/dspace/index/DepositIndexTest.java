@@ -0,0 +1,245 @@
+/*
+ * Unless expressly otherwise stated, code from this project is licensed under the MIT license [https://opensource.org/licenses/MIT].
+ * 
+ * Copyright (c) <2018> <Volodymyr Kushnarenko, Stefan Kombrink, Markus Gärtner, Florian Fritze, Matthias Fratz, Daniel Scharon, Sibylle Hermann, Franziska Rapp and Uli Hahn>
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), 
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, 
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A 
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT 
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+ * CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH 
+ * THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package bwfdm.connector.dspace.index;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests of {@link DepositIndex} with a temporary index file.
+ * 
+ * @author agent
+ */
+public class DepositIndexTest {
+	
+	private static final String TARGET = "http://localhost/swordv2/collection/123456789/1 http://purl.org/net/sword/package/SimpleZip";
+	
+	private File indexFile;
+	
+	@Before
+	public void createFile() throws IOException {
+		indexFile = File.createTempFile("deposit-index", ".bin");
+		indexFile.delete(); // the index creates the file
+	}
+	
+	@After
+	public void deleteFile() {
+		indexFile.delete();
+	}
+	
+	
+	private static byte[] hash(int i) {
+		final byte[] hash = new byte[32];
+		Arrays.fill(hash, (byte) i);
+		hash[0] = (byte) (i >> 8);
+		return hash;
+	}
+	
+	
+	@Test
+	public void putGetRemove() throws IOException {
+		
+		final DepositIndex index = new DepositIndex(indexFile);
+		try {
+			assertNull(index.get(hash(1), TARGET));
+			index.put(hash(1), TARGET, "http://localhost/edit/1");
+			assertEquals("http://localhost/edit/1", index.get(hash(1), TARGET));
+			assertNull(index.get(hash(1), "other target"));
+			assertNull(index.get(hash(2), TARGET));
+			
+			index.remove(hash(1), TARGET);
+			assertNull(index.get(hash(1), TARGET));
+		} finally {
+			index.close();
+		}
+	}
+	
+	
+	@Test
+	public void entriesArePersistent() throws IOException {
+		
+		DepositIndex index = new DepositIndex(indexFile);
+		try {
+			index.put(hash(1), TARGET, "http://localhost/edit/1");
+			index.put(hash(2), TARGET, "http://localhost/edit/2");
+			index.remove(hash(2), TARGET);
+		} finally {
+			index.close();
+		}
+		
+		index = new DepositIndex(indexFile);
+		try {
+			assertEquals("http://localhost/edit/1", index.get(hash(1), TARGET));
+			assertNull(index.get(hash(2), TARGET));
+		} finally {
+			index.close();
+		}
+	}
+	
+	
+	@Test
+	public void recordsOfOtherInstanceAreRead() throws IOException {
+		
+		final DepositIndex first = new DepositIndex(indexFile);
+		final DepositIndex second = new DepositIndex(indexFile);
+		try {
+			assertNull(second.get(hash(1), TARGET));
+			first.put(hash(1), TARGET, "http://localhost/edit/1");
+			assertEquals("http://localhost/edit/1", second.get(hash(1), TARGET));
+			second.remove(hash(1), TARGET);
+			assertNull(first.get(hash(1), TARGET));
+		} finally {
+			first.close();
+			second.close();
+		}
+	}
+	
+	
+	@Test
+	public void manyRecordsAreReadInChunks() throws IOException {
+		
+		final int count = 3000; // more than the read buffer
+		DepositIndex index = new DepositIndex(indexFile);
+		try {
+			for (int i = 0; i < count; i++) {
+				index.put(hash(i), TARGET, "http://localhost/edit/" + i);
+			}
+		} finally {
+			index.close();
+		}
+		assertTrue(indexFile.length() > 2 * 64 * 1024);
+		
+		index = new DepositIndex(indexFile);
+		try {
+			for (int i = 0; i < count; i++) {
+				assertEquals("http://localhost/edit/" + i, index.get(hash(i), TARGET));
+			}
+		} finally {
+			index.close();
+		}
+	}
+	
+	
+	@Test
+	public void replacedEntriesAreCompacted() throws IOException {
+		
+		final DepositIndex first = new DepositIndex(indexFile);
+		final DepositIndex second = new DepositIndex(indexFile);
+		try {
+			second.put(hash(2), TARGET, "http://localhost/edit/2");
+			for (int i = 0; i < 5000; i++) {
+				first.put(hash(1), TARGET, "http://localhost/edit/1-" + i);
+			}
+			// Compacted: only a few records remain
+			assertTrue(indexFile.length() < 1000 * 100);
+			
+			// The other instance reads the rewritten file
+			assertEquals("http://localhost/edit/1-4999", second.get(hash(1), TARGET));
+			assertEquals("http://localhost/edit/2", second.get(hash(2), TARGET));
+			second.put(hash(3), TARGET, "http://localhost/edit/3");
+			assertEquals("http://localhost/edit/3", first.get(hash(3), TARGET));
+		} finally {
+			first.close();
+			second.close();
+		}
+		
+		final DepositIndex index = new DepositIndex(indexFile);
+		try {
+			assertEquals("http://localhost/edit/1-4999", index.get(hash(1), TARGET));
+			assertEquals("http://localhost/edit/2", index.get(hash(2), TARGET));
+			assertEquals("http://localhost/edit/3", index.get(hash(3), TARGET));
+		} finally {
+			index.close();
+		}
+	}
+	
+	
+	@Test
+	public void unknownRecordTypeIsReported() throws IOException {
+		
+		DepositIndex index = new DepositIndex(indexFile);
+		try {
+			index.put(hash(1), TARGET, "http://localhost/edit/1");
+		} finally {
+			index.close();
+		}
+		final RandomAccessFile file = new RandomAccessFile(indexFile, "rw");
+		try {
+			file.seek(file.length());
+			file.write(new byte[] {99, 0, 0, 0});
+		} finally {
+			file.close();
+		}
+		
+		index = new DepositIndex(indexFile);
+		try {
+			index.get(hash(1), TARGET);
+			fail("Unknown record type must be reported");
+		} catch (IOException e) {
+			assertTrue(e.getMessage().contains("unknown record type"));
+		} finally {
+			index.close();
+		}
+	}
+	
+	
+	@Test
+	public void incompleteRecordIsIgnored() throws IOException {
+		
+		DepositIndex index = new DepositIndex(indexFile);
+		try {
+			index.put(hash(1), TARGET, "http://localhost/edit/1");
+		} finally {
+			index.close();
+		}
+		final RandomAccessFile file = new RandomAccessFile(indexFile, "rw");
+		try {
+			file.seek(file.length());
+			file.write(new byte[] {1, 2, 2, 2}); // record of an interrupted writer
+		} finally {
+			file.close();
+		}
+		
+		index = new DepositIndex(indexFile);
+		try {
+			assertEquals("http://localhost/edit/1", index.get(hash(1), TARGET));
+			index.put(hash(2), TARGET, "http://localhost/edit/2");
+		} finally {
+			index.close();
+		}
+		index = new DepositIndex(indexFile);
+		try {
+			assertEquals("http://localhost/edit/2", index.get(hash(2), TARGET));
+		} finally {
+			index.close();
+		}
+	}
+
+}
@@ -0,0 +1,182 @@
+/*
+ * Unless expressly otherwise stated, code from this project is licensed under the MIT license [https://opensource.org/licenses/MIT].
+ * 
+ * Copyright (c) <2018> <Volodymyr Kushnarenko, Stefan Kombrink, Markus Gärtner, Florian Fritze, Matthias Fratz, Daniel Scharon, Sibylle Hermann, Franziska Rapp and Uli Hahn>
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), 
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, 
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A 
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT 
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+ * CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH 
+ * THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package bwfdm.connector.dspace.limit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import bwfdm.connector.dspace.limit.AdaptiveLimiter.Permit;
+
+/**
+ * Tests of {@link AdaptiveLimiter}: increase, decrease and waiting over the limit.
+ * 
+ * @author agent
+ */
+public class AdaptiveLimiterTest {
+	
+	private static List<Permit> acquire(AdaptiveLimiter limiter, int count) throws InterruptedException {
+		final List<Permit> permits = new ArrayList<Permit>();
+		for (int i = 0; i < count; i++) {
+			permits.add(limiter.acquire());
+		}
+		return permits;
+	}
+	
+	
+	@Test
+	public void limitGrowsWhileUsedCompletely() throws InterruptedException {
+		
+		final AdaptiveLimiter limiter = new AdaptiveLimiter(2, 3);
+		for (int round = 0; round < 10; round++) {
+			for (Permit permit : acquire(limiter, limiter.getLimit())) {
+				permit.release(200, false);
+			}
+		}
+		assertEquals(3, limiter.getLimit()); // not more than the maximum
+		assertEquals(0, limiter.getInFlight());
+	}
+	
+	
+	@Test
+	public void limitIsNotIncreasedWithoutLoad() throws InterruptedException {
+		
+		final AdaptiveLimiter limiter = new AdaptiveLimiter(2, 10);
+		for (int i = 0; i < 20; i++) {
+			limiter.acquire().release(200, false); // only 1 of 2 places is used
+		}
+		assertEquals(2, limiter.getLimit());
+	}
+	
+	
+	@Test
+	public void overloadDecreasesOncePerEvent() throws InterruptedException {
+		
+		final AdaptiveLimiter limiter = new AdaptiveLimiter(10, 10);
+		final List<Permit> permits = acquire(limiter, 5);
+		
+		// All requests of the same overload event decrease the limit only once
+		permits.get(0).release(503, true);
+		permits.get(1).release(429, true);
+		permits.get(2).releaseOverload();
+		assertEquals(7, limiter.getLimit());
+		assertEquals(3, limiter.getOverloadCount());
+		
+		// A request started after the decrease decreases again
+		limiter.acquire().releaseOverload();
+		assertEquals(4, limiter.getLimit());
+		
+		permits.get(3).releaseIgnore();
+		permits.get(4).release(404, true);
+		assertEquals(0, limiter.getInFlight());
+	}
+	
+	
+	@Test
+	public void latencyIsComparedWithinOperationClass() throws InterruptedException {
+		
+		final AdaptiveLimiter limiter = new AdaptiveLimiter(10, 10);
+		for (int i = 0; i < AdaptiveLimiter.LATENCY_WINDOW; i++) {
+			limiter.acquire().release(200, true);
+		}
+		assertTrue(limiter.getBaselineLatency(TimeUnit.NANOSECONDS) >= 0);
+		assertEquals(-1, limiter.getBaselineLatency("service document", TimeUnit.NANOSECONDS));
+		
+		// Slow request of another class is not compared with the short requests
+		final Permit slow = limiter.acquire("service document");
+		Thread.sleep(20);
+		slow.release(200, true);
+		assertEquals(10, limiter.getLimit());
+		
+		// Slow request of the same class decreases the limit
+		final Permit slowShort = limiter.acquire();
+		Thread.sleep(20);
+		slowShort.release(200, true);
+		assertEquals(7, limiter.getLimit());
+	}
+	
+	
+	@Test
+	public void limitIsAtLeastOne() throws InterruptedException {
+		
+		final AdaptiveLimiter limiter = new AdaptiveLimiter(2, 2);
+		for (int i = 0; i < 10; i++) {
+			limiter.acquire().releaseOverload();
+		}
+		assertEquals(1, limiter.getLimit());
+	}
+	
+	
+	@Test
+	public void repeatedReleaseIsIgnored() throws InterruptedException {
+		
+		final AdaptiveLimiter limiter = new AdaptiveLimiter(2, 2);
+		final Permit permit = limiter.acquire();
+		limiter.acquire();
+		permit.releaseIgnore();
+		permit.releaseIgnore();
+		assertEquals(1, limiter.getInFlight());
+	}
+	
+	
+	@Test
+	public void requestOverLimitWaits() throws InterruptedException {
+		
+		final AdaptiveLimiter limiter = new AdaptiveLimiter(1, 1);
+		final Permit first = limiter.acquire();
+		final CountDownLatch acquired = new CountDownLatch(1);
+		final Thread waiter = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					limiter.acquire().releaseIgnore();
+					acquired.countDown();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+		});
+		waiter.start();
+		
+		final long deadline = System.currentTimeMillis() + 10000;
+		while ((limiter.getQueueDepth() == 0) && (System.currentTimeMillis() < deadline)) {
+			Thread.sleep(5);
+		}
+		assertEquals(1, limiter.getQueueDepth());
+		assertEquals(1, acquired.getCount());
+		
+		first.releaseIgnore();
+		assertTrue(acquired.await(10, TimeUnit.SECONDS));
+		waiter.join(10000);
+		assertEquals(0, limiter.getQueueDepth());
+	}
+	
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void notValidLimitsAreRejected() {
+		new AdaptiveLimiter(5, 4);
+	}
+
+}
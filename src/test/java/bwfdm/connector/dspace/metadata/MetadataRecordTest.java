@@ -0,0 +1,145 @@
+/*
+ * Unless expressly otherwise stated, code from this project is licensed under the MIT license [https://opensource.org/licenses/MIT].
+ * 
+ * Copyright (c) <2018> <Volodymyr Kushnarenko, Stefan Kombrink, Markus Gärtner, Florian Fritze, Matthias Fratz, Daniel Scharon, Sibylle Hermann, Franziska Rapp and Uli Hahn>
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), 
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, 
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A 
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT 
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+ * CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH 
+ * THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package bwfdm.connector.dspace.metadata;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+/**
+ * Tests of {@link MetadataRecord} and {@link MetadataField}.
+ * 
+ * @author agent
+ */
+public class MetadataRecordTest {
+	
+	@Test
+	public void knownFieldsAreInterned() {
+		
+		assertSame(MetadataField.TITLE, MetadataField.valueOf("title"));
+		assertSame(MetadataField.TITLE, MetadataField.find("title"));
+		assertSame(MetadataField.valueOf("dc.title"), MetadataField.valueOf("dc.title"));
+		assertSame(MetadataField.valueOf("dcterms.abstract"), MetadataField.find("dcterms.abstract"));
+		assertTrue(MetadataField.valueOf("dc.title").isDublinCore());
+		assertEquals("dc.title", MetadataField.valueOf("dc.title").getKey());
+	}
+	
+	
+	@Test
+	public void otherFieldsAreNotRegistered() {
+		
+		final int knownFields = MetadataField.values().size();
+		final MetadataField field = MetadataField.valueOf("local.custom-field");
+		
+		assertNotSame(field, MetadataField.valueOf("local.custom-field"));
+		assertEquals(field, MetadataField.valueOf("local.custom-field"));
+		assertEquals(field.hashCode(), MetadataField.valueOf("local.custom-field").hashCode());
+		assertFalse(field.isDublinCore());
+		assertEquals(-1, field.ordinal());
+		assertNull(MetadataField.find("local.custom-field"));
+		assertEquals(knownFields, MetadataField.values().size());
+		assertSame(MetadataField.values(), MetadataField.values());
+	}
+	
+	
+	@Test
+	public void mapIsConvertedBothWays() {
+		
+		final Map<String, List<String>> metadataMap = new LinkedHashMap<String, List<String>>();
+		metadataMap.put("title", Arrays.asList("My title"));
+		metadataMap.put("local.custom-field", Arrays.asList("custom-1", "custom-2"));
+		metadataMap.put("creator", Arrays.asList("creator-1", "creator-2", "creator-3"));
+		
+		final MetadataRecord record = MetadataRecord.fromMap(metadataMap);
+		assertEquals(3, record.getFieldCount());
+		assertEquals(6, record.getValueCount());
+		assertEquals(metadataMap, record.asMap());
+		assertEquals(new ArrayList<String>(metadataMap.keySet()), new ArrayList<String>(record.asMap().keySet()));
+		
+		assertEquals(Arrays.asList("custom-1", "custom-2"), record.getValues("local.custom-field"));
+		assertEquals(Arrays.asList("custom-1", "custom-2"), record.getValues(MetadataField.valueOf("local.custom-field")));
+		assertEquals(Arrays.asList("creator-1", "creator-2", "creator-3"), record.getValues(MetadataField.CREATOR));
+		assertEquals(Collections.emptyList(), record.getValues("publisher"));
+		assertEquals(Collections.emptyList(), record.getValues("local.other-field"));
+		
+		assertEquals(record, MetadataRecord.fromMap(metadataMap));
+		assertEquals(record.hashCode(), MetadataRecord.fromMap(metadataMap).hashCode());
+	}
+	
+	
+	@Test
+	public void valuesAreGroupedByField() {
+		
+		final MetadataRecord record = MetadataRecord.builder()
+				.add("subject", "keyword-1")
+				.add("title", "My title")
+				.add("local.custom-field", "custom-1")
+				.add("subject", "keyword-2")
+				.add("local.custom-field", "custom-2")
+				.build();
+		
+		assertEquals(3, record.getFieldCount());
+		assertEquals(MetadataField.SUBJECT, record.getField(0));
+		assertEquals(MetadataField.TITLE, record.getField(1));
+		assertEquals("local.custom-field", record.getField(2).getKey());
+		assertEquals(Arrays.asList("keyword-1", "keyword-2"), record.getValues(0));
+		assertEquals(Arrays.asList("custom-1", "custom-2"), record.getValues(2));
+		assertEquals(0, record.getValueOffset(0));
+		assertEquals(2, record.getValueOffset(1));
+		assertEquals(3, record.getValueOffset(2));
+		assertEquals(5, record.getValueOffset(3));
+	}
+	
+	
+	@Test
+	public void nullValuesAreSkipped() {
+		
+		final Map<String, List<String>> metadataMap = new LinkedHashMap<String, List<String>>();
+		metadataMap.put("title", Arrays.asList((String) null));
+		metadataMap.put("subject", Arrays.asList("keyword-1", null, "keyword-2"));
+		
+		final MetadataRecord record = MetadataRecord.fromMap(metadataMap);
+		assertEquals(1, record.getFieldCount());
+		assertEquals(Arrays.asList("keyword-1", "keyword-2"), record.getValues(MetadataField.SUBJECT));
+		assertEquals(Collections.emptyList(), record.getValues(MetadataField.TITLE));
+	}
+	
+	
+	@Test
+	public void emptyRecord() {
+		
+		assertSame(MetadataRecord.EMPTY, MetadataRecord.builder().build());
+		assertSame(MetadataRecord.EMPTY, MetadataRecord.fromMap(new LinkedHashMap<String, List<String>>()));
+		assertTrue(MetadataRecord.EMPTY.isEmpty());
+		assertTrue(MetadataRecord.EMPTY.asMap().isEmpty());
+	}
+
+}
@@ -0,0 +1,159 @@
+/*
+ * Unless expressly otherwise stated, code from this project is licensed under the MIT license [https://opensource.org/licenses/MIT].
+ * 
+ * Copyright (c) <2018> <Volodymyr Kushnarenko, Stefan Kombrink, Markus Gärtner, Florian Fritze, Matthias Fratz, Daniel Scharon, Sibylle Hermann, Franziska Rapp and Uli Hahn>
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), 
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, 
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A 
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT 
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+ * CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH 
+ * THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package bwfdm.connector.dspace.progress;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+/**
+ * Tests of {@link ProgressInputStream} and {@link UploadProgress}.
+ * 
+ * @author agent
+ */
+public class ProgressInputStreamTest {
+	
+	private static final int SIZE = 200 * 1024;
+	
+	/**
+	 * Listener, which collects all reports
+	 */
+	private static class CollectingListener implements UploadProgressListener {
+		
+		final List<UploadProgress> reports = new ArrayList<UploadProgress>();
+		
+		@Override
+		public void onProgress(UploadProgress progress) {
+			reports.add(progress);
+		}
+	}
+	
+	
+	private static long readAll(InputStream in) throws IOException {
+		final byte[] buffer = new byte[8 * 1024];
+		long total = 0;
+		for (int n = in.read(buffer); n >= 0; n = in.read(buffer)) {
+			total += n;
+		}
+		return total;
+	}
+	
+	
+	@Test
+	public void throttledReportsAndOneFinalReport() throws IOException {
+		
+		final CollectingListener listener = new CollectingListener();
+		final ProgressInputStream in = new ProgressInputStream(new ByteArrayInputStream(new byte[SIZE]), 
+				"http://localhost/collection", "file.zip", SIZE, listener, 0, TimeUnit.MILLISECONDS);
+		assertEquals(SIZE, readAll(in));
+		assertEquals(SIZE, in.getBytesSent());
+		
+		// Checks after every 64 KiB (3 times below the size) and the final report at the known size
+		assertEquals(4, listener.reports.size());
+		long previousBytes = 0;
+		for (int i = 0; i < listener.reports.size() - 1; i++) {
+			final UploadProgress progress = listener.reports.get(i);
+			assertFalse(progress.isFinished());
+			assertTrue(progress.getBytesSent() >= previousBytes + ProgressInputStream.CHECK_BYTES);
+			previousBytes = progress.getBytesSent();
+		}
+		final UploadProgress last = listener.reports.get(listener.reports.size() - 1);
+		assertTrue(last.isFinished());
+		assertEquals(SIZE, last.getBytesSent());
+		assertEquals(1.0, last.getFraction(), 0);
+		assertEquals(0, last.getRemainingTime(TimeUnit.SECONDS));
+		assertEquals("file.zip", last.getFileName());
+		assertEquals("http://localhost/collection", last.getUrl());
+	}
+	
+	
+	@Test
+	public void longIntervalGivesOnlyFinalReport() throws IOException {
+		
+		final CollectingListener listener = new CollectingListener();
+		readAll(new ProgressInputStream(new ByteArrayInputStream(new byte[SIZE]), 
+				"url", "file.zip", SIZE, listener, 1, TimeUnit.HOURS));
+		assertEquals(1, listener.reports.size());
+		assertTrue(listener.reports.get(0).isFinished());
+	}
+	
+	
+	@Test
+	public void unknownSizeIsFinishedAtEndOfStream() throws IOException {
+		
+		final CollectingListener listener = new CollectingListener();
+		final ProgressInputStream in = new ProgressInputStream(new ByteArrayInputStream(new byte[10]), 
+				"url", "file.zip", -1, listener, 1, TimeUnit.HOURS);
+		assertEquals(10, readAll(in));
+		assertEquals(-1, in.read());
+		assertEquals(1, listener.reports.size());
+		assertEquals(10, listener.reports.get(0).getBytesSent());
+		assertEquals(-1, listener.reports.get(0).getFraction(), 0);
+	}
+	
+	
+	@Test
+	public void listenerExceptionDoesNotStopUpload() throws IOException {
+		
+		final UploadProgressListener listener = new UploadProgressListener() {
+			@Override
+			public void onProgress(UploadProgress progress) {
+				throw new IllegalStateException("listener failed");
+			}
+		};
+		assertEquals(SIZE, readAll(new ProgressInputStream(new ByteArrayInputStream(new byte[SIZE]), 
+				"url", "file.zip", SIZE, listener, 0, TimeUnit.MILLISECONDS)));
+	}
+	
+	
+	@Test(expected = IOException.class)
+	public void resetIsNotSupported() throws IOException {
+		
+		final ProgressInputStream in = new ProgressInputStream(new ByteArrayInputStream(new byte[10]), 
+				"url", "file.zip", 10, new CollectingListener(), 0, TimeUnit.MILLISECONDS);
+		assertFalse(in.markSupported());
+		in.read();
+		in.reset();
+	}
+	
+	
+	@Test
+	public void remainingTimeFromAverageThroughput() {
+		
+		// 1 MB in 2 seconds, 3 MB remaining
+		final UploadProgress progress = new UploadProgress("url", "file.zip", 1000000, 4000000, 
+				TimeUnit.SECONDS.toNanos(2), 0, false);
+		assertEquals(500000, progress.getAverageBytesPerSecond(), 0.001);
+		assertEquals(0.25, progress.getFraction(), 0);
+		assertEquals(6, progress.getRemainingTime(TimeUnit.SECONDS));
+		
+		assertEquals(-1, new UploadProgress("url", "file.zip", 0, 4000000, 0, 0, false).getRemainingTime(TimeUnit.SECONDS));
+		assertEquals(-1, new UploadProgress("url", "file.zip", 10, -1, 1000, 0, false).getRemainingTime(TimeUnit.SECONDS));
+	}
+
+}
@@ -0,0 +1,204 @@
+/*
+ * Unless expressly otherwise stated, code from this project is licensed under the MIT license [https://opensource.org/licenses/MIT].
+ * 
+ * Copyright (c) <2018> <Volodymyr Kushnarenko, Stefan Kombrink, Markus Gärtner, Florian Fritze, Matthias Fratz, Daniel Scharon, Sibylle Hermann, Franziska Rapp and Uli Hahn>
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), 
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, 
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A 
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT 
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+ * CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH 
+ * THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package bwfdm.connector.dspace.sword;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+
+import org.junit.Test;
+import org.swordapp.client.EntryPart;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+import bwfdm.connector.dspace.metadata.MetadataRecord;
+
+/**
+ * Tests of {@link AtomEntryWriter}: the written entry is parsed and compared with the entry 
+ * of {@link EntryPart}, which is used by the export via the SWORD client library.
+ * 
+ * @author agent
+ */
+public class AtomEntryWriterTest {
+	
+	private static Map<String, List<String>> createMetadata() {
+		
+		final Map<String, List<String>> metadataMap = new LinkedHashMap<String, List<String>>();
+		metadataMap.put("title", Arrays.asList("Test: \"My title\" & <more> 'text'"));
+		metadataMap.put("dc.creator", Arrays.asList("Creator, First", "Creator, Second"));
+		metadataMap.put("dcterms.subject", Arrays.asList("keyword-1", "keyword-2"));
+		metadataMap.put("not-real-field", Arrays.asList("unknown äöü €"));
+		metadataMap.put("description", Arrays.asList("line 1\nline 2\ttab"));
+		return metadataMap;
+	}
+	
+	
+	private static Document parse(byte[] xml) throws Exception {
+		
+		final DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+		factory.setNamespaceAware(true);
+		return factory.newDocumentBuilder().parse(new ByteArrayInputStream(xml));
+	}
+	
+	
+	/**
+	 * @return "term=value" of all elements of the "dcterms" namespace, in the document order
+	 */
+	private static List<String> dublinCoreElements(Document document) {
+		
+		final List<String> elements = new ArrayList<String>();
+		final Element entry = document.getDocumentElement();
+		assertEquals(AtomEntryWriter.ATOM_NAMESPACE, entry.getNamespaceURI());
+		assertEquals("entry", entry.getLocalName());
+		for (Node node = entry.getFirstChild(); node != null; node = node.getNextSibling()) {
+			if ((node instanceof Element) && AtomEntryWriter.DCTERMS_NAMESPACE.equals(node.getNamespaceURI())) {
+				elements.add(node.getLocalName() + "=" + node.getTextContent());
+			}
+		}
+		return elements;
+	}
+	
+	
+	private static List<String> entryPartElements(Map<String, List<String>> metadataMap) throws Exception {
+		
+		final EntryPart entryPart = new EntryPart();
+		for (Map.Entry<String, List<String>> metadataEntry : AtomEntryWriter.toTermMap(metadataMap).entrySet()) {
+			for (String value : metadataEntry.getValue()) {
+				entryPart.addDublinCore(metadataEntry.getKey(), value);
+			}
+		}
+		final ByteArrayOutputStream out = new ByteArrayOutputStream();
+		entryPart.getEntry().writeTo(out);
+		return dublinCoreElements(parse(out.toByteArray()));
+	}
+	
+	
+	@Test
+	public void mapIsWrittenAsEntryPart() throws Exception {
+		
+		final Map<String, List<String>> metadataMap = createMetadata();
+		final ByteArrayOutputStream out = new ByteArrayOutputStream();
+		AtomEntryWriter.write(metadataMap, out);
+		
+		final List<String> elements = dublinCoreElements(parse(out.toByteArray()));
+		assertEquals(Arrays.asList(
+				"title=Test: \"My title\" & <more> 'text'",
+				"creator=Creator, First", 
+				"creator=Creator, Second",
+				"subject=keyword-1",
+				"subject=keyword-2",
+				"not-real-field=unknown äöü €",
+				"description=line 1\nline 2\ttab"), elements);
+		assertEquals(entryPartElements(metadataMap), elements);
+	}
+	
+	
+	@Test
+	public void nullValuesAreSkipped() throws Exception {
+		
+		final Map<String, List<String>> metadataMap = new LinkedHashMap<String, List<String>>();
+		metadataMap.put("subject", Arrays.asList("keyword-1", null, "keyword-2"));
+		final ByteArrayOutputStream out = new ByteArrayOutputStream();
+		AtomEntryWriter.write(metadataMap, out);
+		
+		final List<String> elements = dublinCoreElements(parse(out.toByteArray()));
+		assertEquals(Arrays.asList("subject=keyword-1", "subject=keyword-2"), elements);
+		assertEquals(entryPartElements(metadataMap), elements);
+	}
+	
+	
+	@Test
+	public void invalidCharactersAreSkipped() throws Exception {
+		
+		final Map<String, List<String>> metadataMap = new LinkedHashMap<String, List<String>>();
+		metadataMap.put("description", Arrays.asList("control\u0001 \uFFFEcharacters"));
+		final ByteArrayOutputStream out = new ByteArrayOutputStream();
+		AtomEntryWriter.write(metadataMap, out);
+		
+		assertEquals(Arrays.asList("description=control characters"), dublinCoreElements(parse(out.toByteArray())));
+	}
+	
+	
+	@Test
+	public void recordIsWrittenAsMap() throws Exception {
+		
+		final Map<String, List<String>> metadataMap = createMetadata();
+		final ByteArrayOutputStream mapOut = new ByteArrayOutputStream();
+		AtomEntryWriter.write(metadataMap, mapOut);
+		final ByteArrayOutputStream recordOut = new ByteArrayOutputStream();
+		AtomEntryWriter.write(MetadataRecord.fromMap(metadataMap), recordOut);
+		
+		assertEquals(dublinCoreElements(parse(mapOut.toByteArray())), dublinCoreElements(parse(recordOut.toByteArray())));
+	}
+	
+	
+	@Test
+	public void keysWithSameTermAreJoined() {
+		
+		final Map<String, List<String>> metadataMap = new LinkedHashMap<String, List<String>>();
+		metadataMap.put("title", Arrays.asList("title-1"));
+		metadataMap.put("publisher", Arrays.asList("publisher"));
+		metadataMap.put("dc.title", Arrays.asList("title-2"));
+		
+		final Map<String, List<String>> termMap = AtomEntryWriter.toTermMap(metadataMap);
+		assertEquals(Arrays.asList("title", "publisher"), new ArrayList<String>(termMap.keySet()));
+		assertEquals(Arrays.asList("title-1", "title-2"), termMap.get("title"));
+	}
+	
+	
+	@Test
+	public void termMapIsNotCopiedWithoutChanges() {
+		
+		final Map<String, List<String>> metadataMap = new LinkedHashMap<String, List<String>>();
+		metadataMap.put("title", Arrays.asList("title"));
+		metadataMap.put("creator", Arrays.asList("creator-1", "creator-2"));
+		assertSame(metadataMap, AtomEntryWriter.toTermMap(metadataMap));
+	}
+	
+	
+	@Test
+	public void emptyEntryIsWellFormed() throws Exception {
+		
+		final ByteArrayOutputStream out = new ByteArrayOutputStream();
+		AtomEntryWriter.write(new LinkedHashMap<String, List<String>>(), out);
+		assertTrue(dublinCoreElements(parse(out.toByteArray())).isEmpty());
+	}
+	
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void invalidKeyIsRejected() throws IOException {
+		
+		final Map<String, List<String>> metadataMap = new LinkedHashMap<String, List<String>>();
+		metadataMap.put("dc.my title", Arrays.asList("value"));
+		AtomEntryWriter.write(metadataMap, new ByteArrayOutputStream());
+	}
+
+}
@@ -0,0 +1,182 @@
+/*
+ * Unless expressly otherwise stated, code from this project is licensed under the MIT license [https://opensource.org/licenses/MIT].
+ * 
+ * Copyright (c) <2018> <Volodymyr Kushnarenko, Stefan Kombrink, Markus Gärtner, Florian Fritze, Matthias Fratz, Daniel Scharon, Sibylle Hermann, Franziska Rapp and Uli Hahn>
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), 
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, 
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A 
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT 
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+ * CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH 
+ * THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package bwfdm.connector.dspace.sword;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+
+import org.junit.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+
+import bwfdm.connector.dspace.metadata.MetadataRecord;
+
+/**
+ * Tests of {@link MetsPackageWriter}: the package is read again and the manifest is parsed.
+ * 
+ * @author agent
+ */
+public class MetsPackageWriterTest {
+	
+	private static final String METS_NAMESPACE = "http://www.loc.gov/METS/";
+	private static final String DIM_NAMESPACE = "http://www.dspace.org/xmlns/dspace/dim";
+	
+	private static MetadataRecord createRecord() {
+		final Map<String, List<String>> metadataMap = new LinkedHashMap<String, List<String>>();
+		metadataMap.put("title", Arrays.asList("Title & more"));
+		metadataMap.put("creator", Arrays.asList("creator-1", "creator-2"));
+		metadataMap.put("dc.date.issued", Arrays.asList("2018"));
+		return MetadataRecord.fromMap(metadataMap);
+	}
+	
+	/**
+	 * Fields of the DIM metadata as "schema.element[.qualifier]=value"
+	 */
+	private static List<String> dimFields(Document mets) {
+		final List<String> fields = new ArrayList<String>();
+		final NodeList nodes = mets.getElementsByTagNameNS(DIM_NAMESPACE, "field");
+		for (int i = 0; i < nodes.getLength(); i++) {
+			final Element field = (Element) nodes.item(i);
+			fields.add(field.getAttribute("mdschema") + "." + field.getAttribute("element") 
+					+ (field.hasAttribute("qualifier") ? "." + field.getAttribute("qualifier") : "") + "=" + field.getTextContent());
+		}
+		return fields;
+	}
+	
+	/**
+	 * Read the package: names of the entries and their content, the manifest is parsed
+	 */
+	private static Map<String, byte[]> readPackage(byte[] zip) throws IOException {
+		final Map<String, byte[]> entries = new LinkedHashMap<String, byte[]>();
+		final ZipInputStream in = new ZipInputStream(new ByteArrayInputStream(zip), StandardCharsets.UTF_8);
+		for (ZipEntry entry = in.getNextEntry(); entry != null; entry = in.getNextEntry()) {
+			final ByteArrayOutputStream content = new ByteArrayOutputStream();
+			final byte[] buffer = new byte[1024];
+			for (int n = in.read(buffer); n >= 0; n = in.read(buffer)) {
+				content.write(buffer, 0, n);
+			}
+			entries.put(entry.getName(), content.toByteArray());
+		}
+		return entries;
+	}
+	
+	private static Document parse(byte[] xml) throws Exception {
+		final DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+		factory.setNamespaceAware(true);
+		return factory.newDocumentBuilder().parse(new ByteArrayInputStream(xml));
+	}
+	
+	
+	@Test
+	public void singleFileWithManifest() throws Exception {
+		
+		final ByteArrayOutputStream out = new ByteArrayOutputStream();
+		MetsPackageWriter.write(createRecord(), new ByteArrayInputStream("content".getBytes(StandardCharsets.UTF_8)), 
+				"data \"1\".txt", false, out);
+		
+		final Map<String, byte[]> entries = readPackage(out.toByteArray());
+		assertEquals(Arrays.asList("data \"1\".txt", MetsPackageWriter.METS_FILE_NAME), new ArrayList<String>(entries.keySet()));
+		assertEquals("content", new String(entries.get("data \"1\".txt"), StandardCharsets.UTF_8));
+		
+		final Document mets = parse(entries.get(MetsPackageWriter.METS_FILE_NAME));
+		assertEquals("DSpace METS SIP Profile 1.0", mets.getDocumentElement().getAttribute("PROFILE"));
+		final Element metadata = (Element) mets.getElementsByTagNameNS(METS_NAMESPACE, "mdWrap").item(0);
+		assertEquals("OTHER", metadata.getAttribute("MDTYPE"));
+		assertEquals("DIM", metadata.getAttribute("OTHERMDTYPE"));
+		assertEquals(Arrays.asList("dc.title=Title & more", "dc.contributor.author=creator-1", "dc.contributor.author=creator-2", 
+				"dc.date.issued=2018"), dimFields(mets));
+		
+		final Element file = (Element) mets.getElementsByTagNameNS(METS_NAMESPACE, "file").item(0);
+		assertEquals("text/plain", file.getAttribute("MIMETYPE"));
+		final Element location = (Element) file.getElementsByTagNameNS(METS_NAMESPACE, "FLocat").item(0);
+		assertEquals("data \"1\".txt", location.getAttributeNS("http://www.w3.org/1999/xlink", "href"));
+		assertEquals(1, mets.getElementsByTagNameNS(METS_NAMESPACE, "fptr").getLength());
+	}
+	
+	
+	@Test
+	public void unpackedZipFilesAreSeparateFiles() throws Exception {
+		
+		final ByteArrayOutputStream archive = new ByteArrayOutputStream();
+		final ZipOutputStream zip = new ZipOutputStream(archive, StandardCharsets.UTF_8);
+		zip.putNextEntry(new ZipEntry("dir/"));
+		zip.closeEntry();
+		zip.putNextEntry(new ZipEntry("dir/a.bin"));
+		zip.write(new byte[] { 1, 2, 3 });
+		zip.closeEntry();
+		zip.putNextEntry(new ZipEntry("b.txt"));
+		zip.write("b".getBytes(StandardCharsets.UTF_8));
+		zip.closeEntry();
+		zip.close();
+		
+		final ByteArrayOutputStream out = new ByteArrayOutputStream();
+		MetsPackageWriter.write(createRecord(), new ByteArrayInputStream(archive.toByteArray()), "archive.zip", true, out);
+		
+		final Map<String, byte[]> entries = readPackage(out.toByteArray());
+		assertEquals(Arrays.asList("dir/a.bin", "b.txt", MetsPackageWriter.METS_FILE_NAME), new ArrayList<String>(entries.keySet()));
+		assertNull(entries.get("archive.zip"));
+		
+		final Document mets = parse(entries.get(MetsPackageWriter.METS_FILE_NAME));
+		final NodeList files = mets.getElementsByTagNameNS(METS_NAMESPACE, "file");
+		assertEquals(2, files.getLength());
+		assertEquals("application/octet-stream", ((Element) files.item(0)).getAttribute("MIMETYPE"));
+		assertEquals(2, mets.getElementsByTagNameNS(METS_NAMESPACE, "fptr").getLength());
+	}
+	
+	
+	@Test
+	public void keysAreMappedToDSpaceFields() {
+		assertEquals(Arrays.asList("dc", "title", null), Arrays.asList(MetsPackageWriter.getDimField("title")));
+		assertEquals(Arrays.asList("dc", "contributor", "author"), Arrays.asList(MetsPackageWriter.getDimField("dcterms.creator")));
+		assertEquals(Arrays.asList("dc", "description", "abstract"), Arrays.asList(MetsPackageWriter.getDimField("abstract")));
+		assertEquals(Arrays.asList("dc", "creator", null), Arrays.asList(MetsPackageWriter.getDimField("dc.creator")));
+		assertEquals(Arrays.asList("custom", "typeDCMI", null), Arrays.asList(MetsPackageWriter.getDimField("custom.typeDCMI")));
+	}
+	
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void notValidKeyIsRejected() {
+		MetsPackageWriter.getDimField("dc.");
+	}
+	
+	
+	@Test(expected = ZipException.class)
+	public void manifestNameIsReserved() throws IOException {
+		MetsPackageWriter.write(createRecord(), new ByteArrayInputStream(new byte[1]), MetsPackageWriter.METS_FILE_NAME, 
+				false, new ByteArrayOutputStream());
+	}
+
+}
@@ -0,0 +1,149 @@
+/*
+ * Unless expressly otherwise stated, code from this project is licensed under the MIT license [https://opensource.org/licenses/MIT].
+ * 
+ * Copyright (c) <2018> <Volodymyr Kushnarenko, Stefan Kombrink, Markus Gärtner, Florian Fritze, Matthias Fratz, Daniel Scharon, Sibylle Hermann, Franziska Rapp and Uli Hahn>
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), 
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, 
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A 
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT 
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+ * CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH 
+ * THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package bwfdm.connector.dspace.sword;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.xml.stream.XMLStreamException;
+
+import org.junit.Test;
+
+import bwfdm.connector.dspace.sword.ServiceDocumentReader.Entry;
+import bwfdm.connector.dspace.sword.ServiceDocumentReader.Visitor;
+
+/**
+ * Tests of {@link ServiceDocumentReader} with the service document "/servicedocument.xml" of the test resources.
+ * 
+ * @author agent
+ */
+public class ServiceDocumentReaderTest {
+	
+	private static List<Entry> readAll() throws Exception {
+		
+		final List<Entry> entries = new ArrayList<Entry>();
+		final InputStream in = ServiceDocumentReaderTest.class.getResourceAsStream("/servicedocument.xml");
+		try {
+			assertTrue(ServiceDocumentReader.read(in, new Visitor() {
+				@Override
+				public boolean visit(Entry entry) {
+					entries.add(entry);
+					return true;
+				}
+			}));
+		} finally {
+			in.close();
+		}
+		return entries;
+	}
+	
+	
+	@Test
+	public void entriesAreRead() throws Exception {
+		
+		final List<Entry> entries = readAll();
+		assertEquals(3, entries.size());
+		
+		final Entry community = entries.get(0);
+		assertTrue(community.isSubservice());
+		assertEquals("Community A", community.getTitle());
+		assertEquals("http://localhost/swordv2/servicedocument/123456789/1", community.getServiceURL());
+		assertEquals("DSpace at My University", community.getWorkspaceTitle());
+		
+		final Entry collection = entries.get(1);
+		assertFalse(collection.isSubservice());
+		assertNull(collection.getServiceURL());
+		assertEquals("http://localhost/swordv2/collection/123456789/2", collection.getHref());
+		assertEquals("Collection A1", collection.getTitle());
+		assertEquals("DSpace at My University", collection.getWorkspaceTitle());
+		assertEquals(Arrays.asList("http://purl.org/net/sword/package/SimpleZIP", "http://purl.org/net/sword/package/Binary"), 
+				collection.getAcceptPackaging());
+		assertFalse(collection.isMultipartAccepted());
+		
+		assertEquals("Collection A2 & more", entries.get(2).getTitle());
+		assertTrue(entries.get(2).isMultipartAccepted());
+	}
+	
+	
+	@Test
+	public void visitorStopsReading() throws Exception {
+		
+		final List<Entry> entries = new ArrayList<Entry>();
+		final InputStream in = ServiceDocumentReaderTest.class.getResourceAsStream("/servicedocument.xml");
+		try {
+			assertFalse(ServiceDocumentReader.read(in, new Visitor() {
+				@Override
+				public boolean visit(Entry entry) {
+					entries.add(entry);
+					return entry.isSubservice(); // stop by the first collection
+				}
+			}));
+		} finally {
+			in.close();
+		}
+		assertEquals(2, entries.size());
+		assertEquals("Collection A1", entries.get(1).getTitle());
+	}
+	
+	
+	@Test(expected = XMLStreamException.class)
+	public void notWellFormedDocumentIsRejected() throws Exception {
+		
+		final String xml = "<service xmlns=\"http://www.w3.org/2007/app\"><workspace><collection href=\"x\"></workspace></service>";
+		ServiceDocumentReader.read(new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)), new Visitor() {
+			@Override
+			public boolean visit(Entry entry) {
+				return true;
+			}
+		});
+	}
+	
+	
+	@Test
+	public void externalEntitiesAreNotResolved() throws Exception {
+		
+		final String xml = "<?xml version=\"1.0\"?><!DOCTYPE service [<!ENTITY ext SYSTEM \"file:///etc/passwd\">]>"
+				+ "<service xmlns=\"http://www.w3.org/2007/app\" xmlns:atom=\"http://www.w3.org/2005/Atom\"><workspace>"
+				+ "<collection href=\"x\"><atom:title>&ext;</atom:title></collection></workspace></service>";
+		final List<Entry> entries = new ArrayList<Entry>();
+		try {
+			ServiceDocumentReader.read(new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)), new Visitor() {
+				@Override
+				public boolean visit(Entry entry) {
+					entries.add(entry);
+					return true;
+				}
+			});
+		} catch (XMLStreamException e) {
+			return; // rejected, also fine
+		}
+		assertEquals(1, entries.size());
+		assertFalse(entries.get(0).getTitle().contains("root"));
+	}
+
+}
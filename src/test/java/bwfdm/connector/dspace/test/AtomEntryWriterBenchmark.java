@@ -0,0 +1,126 @@
+/*
+ * Unless expressly otherwise stated, code from this project is licensed under the MIT license [https://opensource.org/licenses/MIT].
+ * 
+ * Copyright (c) <2018> <Volodymyr Kushnarenko, Stefan Kombrink, Markus Gärtner, Florian Fritze, Matthias Fratz, Daniel Scharon, Sibylle Hermann, Franziska Rapp and Uli Hahn>
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated documentation files (the "Software"), 
+ * to deal in the Software without restriction, including without limitation the rights to use, copy, modify, merge, publish, distribute, sublicense, 
+ * and/or sell copies of the Software, and to permit persons to whom the Software is furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, 
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A 
+ * PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT 
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF 
+ * CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH 
+ * THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package bwfdm.connector.dspace.test;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.swordapp.client.EntryPart;
+
+import bwfdm.connector.dspace.sword.AtomEntryWriter;
+
+/**
+ * Class for manual comparison of the Atom entry creation: 
+ * object model of the SWORD client library (current path of the SwordExporter) vs. {@link AtomEntryWriter}.
+ * <p>
+ * Prints time and allocated memory per entry for metadata with many values (e.g. keywords). 
+ * The keys are plain terms, so both ways write the same elements.
+ * 
+ * @author agent
+ */
+public class AtomEntryWriterBenchmark {
+
+	private static final int WARMUP_ITERATIONS = 200;
+	private static final int ITERATIONS = 1000;
+	private static final int KEYWORDS = 2000;
+	
+	public static void main(String[] args) throws IOException {
+		
+		final Map<String, List<String>> metadataMap = new HashMap<String, List<String>>();
+		metadataMap.put("title", Arrays.asList("Benchmark: \"My title\" & more"));
+		metadataMap.put("publisher", Arrays.asList("Some publisher"));
+		List<String> keywords = new ArrayList<String>(KEYWORDS);
+		List<String> contributors = new ArrayList<String>(KEYWORDS);
+		for (int i = 0; i < KEYWORDS; i++) {
+			keywords.add("keyword-" + i);
+			contributors.add("Contributor, Number " + i);
+		}
+		metadataMap.put("subject", keywords);
+		metadataMap.put("contributor", contributors);
+		
+		final OutputStream nullStream = new OutputStream() {
+			@Override
+			public void write(int b) {
+			}
+			@Override
+			public void write(byte[] b, int off, int len) {
+			}
+		};
+		
+		Runnable objectModel = new Runnable() {
+			@Override
+			public void run() {
+				try {
+					EntryPart entryPart = new EntryPart();
+					for (Map.Entry<String, List<String>> metadataEntry : metadataMap.entrySet()) {
+						for (String value : metadataEntry.getValue()) {
+							entryPart.addDublinCore(metadataEntry.getKey(), value);
+						}
+					}
+					entryPart.getEntry().writeTo(nullStream);
+				} catch (IOException e) {
+					throw new RuntimeException(e);
+				}
+			}
+		};
+		
+		Runnable streamingWriter = new Runnable() {
+			@Override
+			public void run() {
+				try {
+					AtomEntryWriter.write(metadataMap, nullStream);
+				} catch (IOException e) {
+					throw new RuntimeException(e);
+				}
+			}
+		};
+		
+		System.out.println("Metadata values per entry: " + (2 * KEYWORDS + 2));
+		measure("SWORD client object model (EntryPart)", objectModel);
+		measure("AtomEntryWriter", streamingWriter);
+	}
+	
+	
+	private static void measure(String name, Runnable task) {
+		
+		for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+			task.run();
+		}
+		
+		final com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		final long threadId = Thread.currentThread().getId();
+		final long startBytes = threadBean.getThreadAllocatedBytes(threadId);
+		final long startTime = System.nanoTime();
+		for (int i = 0; i < ITERATIONS; i++) {
+			task.run();
+		}
+		final long time = System.nanoTime() - startTime;
+		final long bytes = threadBean.getThreadAllocatedBytes(threadId) - startBytes;
+		
+		System.out.println(String.format("%-40s %10.1f us/entry %12d bytes/entry", name, 
+				time / 1000.0 / ITERATIONS, bytes / ITERATIONS));
+	}
+
+}